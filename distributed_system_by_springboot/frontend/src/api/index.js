@@ -12,6 +12,14 @@ export const studentApi = {
       params
     })
   },
+  // 游标分页查询学生（无限滚动）
+  getCursorPage(params) {
+    return request({
+      url: '/students/cursor',
+      method: 'get',
+      params
+    })
+  },
   // 查询所有学生
   getList(params) {
     return request({
@@ -241,6 +249,18 @@ export const scoreApi = {
       params
     })
   },
+  // 游标分页查询成绩（无限滚动）
+  getCursorPage(params) {
+    return request({
+      url: '/scores/cursor',
+      method: 'get',
+      params
+    })
+  },
+  // 流式导出全部成绩（format: ndjson | csv）
+  exportAll(format = 'csv') {
+    return `/api/scores/export?format=${format}`
+  },
   getById(id) {
     return request({
       url: `/scores/${id}`,
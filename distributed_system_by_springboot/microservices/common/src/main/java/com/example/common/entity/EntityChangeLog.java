@@ -0,0 +1,52 @@
+package com.example.common.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * 选课、教学班、课程变更日志实体类
+ * 由数据库触发器在写入时追加，修改时分别记录修改前后的归属
+ */
+@Data
+@TableName("entity_change_log")
+@Schema(description = "实体变更日志实体")
+public class EntityChangeLog implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    public static final String ENTITY_ENROLLMENT = "enrollment";
+
+    public static final String ENTITY_TEACHING_CLASS = "teaching_class";
+
+    public static final String ENTITY_COURSE = "course";
+
+    @TableId(value = "seq", type = IdType.AUTO)
+    @Schema(description = "变更序号（单调递增）")
+    private Long seq;
+
+    @Schema(description = "实体类型")
+    private String entity;
+
+    @Schema(description = "实体ID")
+    private Long entityId;
+
+    @Schema(description = "教学班ID")
+    private Long teachingClassDbId;
+
+    @Schema(description = "课程ID")
+    private Long courseDbId;
+
+    @Schema(description = "教师ID")
+    private Long teacherDbId;
+
+    @Schema(description = "变更时间")
+    private LocalDateTime createTime;
+}
@@ -1,6 +1,7 @@
 package com.example.common.entity;
 
 import com.baomidou.mybatisplus.annotation.*;
+import com.example.common.util.GradeCalculator;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.Data;
 
@@ -67,50 +68,19 @@ public class Score implements Serializable {
 
     /**
      * 计算综合成绩
-     * 平时成绩 20% + 期中成绩 20% + 实验成绩 20% + 期末成绩 40%
+     * 平时成绩 20% + 期中成绩 20% + 实验成绩 20% + 期末成绩 40%，绩点按分段计算
      */
     public void calculateFinalScore() {
-        BigDecimal total = BigDecimal.ZERO;
-        int count = 0;
-
-        if (regularScore != null) {
-            total = total.add(regularScore.multiply(new BigDecimal("0.2")));
-            count++;
-        }
-        if (midtermScore != null) {
-            total = total.add(midtermScore.multiply(new BigDecimal("0.2")));
-            count++;
-        }
-        if (experimentScore != null) {
-            total = total.add(experimentScore.multiply(new BigDecimal("0.2")));
-            count++;
-        }
-        if (finalExamScore != null) {
-            total = total.add(finalExamScore.multiply(new BigDecimal("0.4")));
-            count++;
-        }
-
-        if (count > 0) {
-            this.finalScore = total.setScale(2, BigDecimal.ROUND_HALF_UP);
-            this.gradePoint = calculateGradePoint(this.finalScore);
+        long[] components = {
+                GradeCalculator.toHundredths(regularScore),
+                GradeCalculator.toHundredths(midtermScore),
+                GradeCalculator.toHundredths(experimentScore),
+                GradeCalculator.toHundredths(finalExamScore)
+        };
+        long packed = GradeCalculator.PARTIAL_STEP.compute(components, 0);
+        if (packed != GradeCalculator.NO_RESULT) {
+            this.finalScore = GradeCalculator.fromHundredths(GradeCalculator.finalScoreOf(packed));
+            this.gradePoint = GradeCalculator.fromHundredths(GradeCalculator.gradePointOf(packed));
         }
     }
-
-    /**
-     * 计算绩点
-     */
-    private BigDecimal calculateGradePoint(BigDecimal score) {
-        if (score == null) return BigDecimal.ZERO;
-        double s = score.doubleValue();
-        if (s >= 90) return new BigDecimal("4.0");
-        if (s >= 85) return new BigDecimal("3.7");
-        if (s >= 82) return new BigDecimal("3.3");
-        if (s >= 78) return new BigDecimal("3.0");
-        if (s >= 75) return new BigDecimal("2.7");
-        if (s >= 72) return new BigDecimal("2.3");
-        if (s >= 68) return new BigDecimal("2.0");
-        if (s >= 64) return new BigDecimal("1.5");
-        if (s >= 60) return new BigDecimal("1.0");
-        return BigDecimal.ZERO;
-    }
 }
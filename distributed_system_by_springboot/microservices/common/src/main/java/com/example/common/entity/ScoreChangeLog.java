@@ -0,0 +1,61 @@
+package com.example.common.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 成绩变更日志实体类
+ * 由数据库触发器在成绩写入时追加，按 seq 顺序回放即可得到成绩表的增量
+ */
+@Data
+@TableName("score_change_log")
+@Schema(description = "成绩变更日志实体")
+public class ScoreChangeLog implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    public static final String OP_INSERT = "INSERT";
+
+    public static final String OP_UPDATE = "UPDATE";
+
+    public static final String OP_DELETE = "DELETE";
+
+    public static final String OP_RESTORE = "RESTORE";
+
+    @TableId(value = "seq", type = IdType.AUTO)
+    @Schema(description = "变更序号（单调递增）")
+    private Long seq;
+
+    @Schema(description = "成绩ID")
+    private Long scoreId;
+
+    @Schema(description = "学生ID")
+    private Long studentDbId;
+
+    @Schema(description = "教学班ID")
+    private Long teachingClassDbId;
+
+    @Schema(description = "变更类型", example = "UPDATE")
+    private String op;
+
+    @Schema(description = "变更后综合成绩，删除时为空")
+    private BigDecimal finalScore;
+
+    @Schema(description = "变更后绩点，删除时为空")
+    private BigDecimal gradePoint;
+
+    @Schema(description = "变更前综合成绩，新增与恢复时为空")
+    private BigDecimal oldFinalScore;
+
+    @Schema(description = "变更时间")
+    private LocalDateTime createTime;
+}
@@ -0,0 +1,79 @@
+package com.example.common.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * 教学班成绩聚合实体类（统计读模型）
+ * 分数均为百分之一分的整数表示
+ */
+@Data
+@TableName("score_class_aggregate")
+@Schema(description = "教学班成绩聚合实体")
+public class ScoreClassAggregate implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    @TableId(value = "teaching_class_db_id", type = IdType.INPUT)
+    @Schema(description = "教学班ID")
+    private Long teachingClassDbId;
+
+    @Schema(description = "成绩记录数")
+    private Long rowCount;
+
+    @Schema(description = "有综合成绩的记录数")
+    private Long scoreCount;
+
+    @Schema(description = "综合成绩合计（百分之一分）")
+    private Long scoreSum;
+
+    @Schema(description = "与均值之差的平方和（百分之一分的平方）")
+    private Double scoreM2;
+
+    @Schema(description = "最低分（百分之一分）")
+    private Long minScore;
+
+    @Schema(description = "最高分（百分之一分）")
+    private Long maxScore;
+
+    @Schema(description = "及格人数")
+    private Long passCount;
+
+    @Schema(description = "优秀人数")
+    private Long excellentCount;
+
+    @TableField("bucket_0")
+    @Schema(description = "<60 人数")
+    private Long bucket0;
+
+    @TableField("bucket_1")
+    @Schema(description = "60-69 人数")
+    private Long bucket1;
+
+    @TableField("bucket_2")
+    @Schema(description = "70-79 人数")
+    private Long bucket2;
+
+    @TableField("bucket_3")
+    @Schema(description = "80-89 人数")
+    private Long bucket3;
+
+    @TableField("bucket_4")
+    @Schema(description = "90-100 人数")
+    private Long bucket4;
+
+    @Schema(description = "分位数草图（稀疏编码）")
+    private String scoreSketch;
+
+    @Schema(description = "更新时间")
+    private LocalDateTime updateTime;
+}
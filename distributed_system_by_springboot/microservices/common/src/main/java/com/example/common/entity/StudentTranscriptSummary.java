@@ -0,0 +1,43 @@
+package com.example.common.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * 学生成绩汇总实体类（读模型）
+ * 保存平均成绩、学分与绩点所需的累计值，均为整数定点表示
+ */
+@Data
+@TableName("student_transcript_summary")
+@Schema(description = "学生成绩汇总实体")
+public class StudentTranscriptSummary implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    @TableId(value = "student_db_id", type = IdType.INPUT)
+    @Schema(description = "学生ID")
+    private Long studentDbId;
+
+    @Schema(description = "成绩条数")
+    private Integer scoreCount;
+
+    @Schema(description = "综合成绩合计（百分之一分）")
+    private Long scoreSum;
+
+    @Schema(description = "有成绩课程的学分合计（十分之一学分）")
+    private Long creditSum;
+
+    @Schema(description = "综合成绩与学分乘积合计（百分之一分 × 十分之一学分）")
+    private Long weightedSum;
+
+    @Schema(description = "更新时间")
+    private LocalDateTime updateTime;
+}
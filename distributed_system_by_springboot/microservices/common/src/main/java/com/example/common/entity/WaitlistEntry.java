@@ -0,0 +1,37 @@
+package com.example.common.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * 选课候补实体类
+ * 同一教学班内按主键顺序排队
+ */
+@Data
+@TableName("enrollment_waitlist")
+@Schema(description = "选课候补实体")
+public class WaitlistEntry implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    @TableId(value = "id", type = IdType.AUTO)
+    @Schema(description = "主键ID（排队顺序）")
+    private Long id;
+
+    @Schema(description = "学生ID")
+    private Long studentDbId;
+
+    @Schema(description = "教学班ID")
+    private Long teachingClassDbId;
+
+    @Schema(description = "加入时间")
+    private LocalDateTime createTime;
+}
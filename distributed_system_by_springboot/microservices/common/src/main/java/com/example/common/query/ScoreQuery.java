@@ -23,6 +23,12 @@ public class ScoreQuery implements Serializable {
     @Schema(description = "每页大小", example = "10")
     private Integer pageSize = 10;
 
+    @Schema(description = "游标（游标分页，取上一页返回的 nextCursor）")
+    private String after;
+
+    @Schema(description = "游标分页时是否统计总数")
+    private Boolean withTotal = false;
+
     @Schema(description = "学生数据库ID（用于学生只查自己的成绩）")
     private Long studentDbId;
 
@@ -22,6 +22,12 @@ public class StudentQuery implements Serializable {
     @Schema(description = "每页大小", example = "10")
     private Integer pageSize = 10;
 
+    @Schema(description = "游标（游标分页，取上一页返回的 nextCursor）")
+    private String after;
+
+    @Schema(description = "游标分页时是否统计总数")
+    private Boolean withTotal = false;
+
     @Schema(description = "学号")
     private String studentId;
 
@@ -49,6 +49,18 @@ public class PageResult<T> implements Serializable {
     @Schema(description = "总页数", example = "10")
     private Long pages;
 
+    /**
+     * 下一页游标（游标分页）
+     */
+    @Schema(description = "下一页游标，为空表示没有更多数据")
+    private String nextCursor;
+
+    /**
+     * 是否还有更多数据（游标分页）
+     */
+    @Schema(description = "是否还有更多数据")
+    private Boolean hasMore;
+
     public PageResult() {
     }
 
@@ -66,4 +78,20 @@ public class PageResult<T> implements Serializable {
     public static <T> PageResult<T> of(List<T> records, Long total, Long current, Long size) {
         return new PageResult<>(records, total, current, size);
     }
+
+    /**
+     * 构建游标分页结果，total 为空表示未统计总数
+     */
+    public static <T> PageResult<T> ofCursor(List<T> records, String nextCursor, Long total, Long size) {
+        PageResult<T> result = new PageResult<>();
+        result.setRecords(records);
+        result.setSize(size);
+        result.setNextCursor(nextCursor);
+        result.setHasMore(nextCursor != null);
+        if (total != null) {
+            result.setTotal(total);
+            result.setPages((total + size - 1) / size);
+        }
+        return result;
+    }
 }
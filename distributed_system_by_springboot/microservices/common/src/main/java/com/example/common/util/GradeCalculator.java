@@ -0,0 +1,251 @@
+package com.example.common.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+
+/**
+ * 综合成绩与绩点计算内核
+ * 以百分之一分为单位的整数运算，计算过程不创建对象：
+ * 各项成绩乘以百分比权重后累加（单位为万分之一分），按缺项策略确定除数后四舍五入到百分之一分，
+ * 绩点通过预先计算的查找表得到。权重、缺项策略与绩点规则由实例配置，同一实例可在多线程间共享。
+ * 结果与原 BigDecimal 实现数值相同；绩点统一为两位小数（原实现分段绩点为 4.0、3.7 等一位小数，截断时为 4.0 或 0），
+ * grade_point 列为 DECIMAL(3,2)，入库值不变。
+ * 单体版 com.example.studentscore.util.GradeCalculator 是本类的副本（单体版不依赖 common 模块），修改时两处同步。
+ */
+public final class GradeCalculator {
+
+    private static final int MAX_HUNDREDTHS = 10000;
+
+    private static final int[] STEP_THRESHOLDS = {9000, 8500, 8200, 7800, 7500, 7200, 6800, 6400, 6000};
+
+    private static final short[] STEP_POINTS = {400, 370, 330, 300, 270, 230, 200, 150, 100};
+
+    /**
+     * 成绩项缺失标记
+     */
+    public static final long MISSING = -1L;
+
+    /**
+     * 无法计算综合成绩时 {@link #compute} 的返回值
+     */
+    public static final long NO_RESULT = Long.MIN_VALUE;
+
+    /**
+     * 无法计算综合成绩时 {@link #computeAll} 输出的综合成绩
+     */
+    public static final int NO_SCORE = Integer.MIN_VALUE;
+
+    /**
+     * 标准权重：平时成绩20%，期中成绩20%，实验成绩20%，期末成绩40%；
+     * 缺项时按已有成绩的权重重新归一，绩点 = (综合成绩 - 50) / 10，限定在 0 ~ 4.0
+     */
+    public static final GradeCalculator STANDARD =
+            new GradeCalculator(new int[]{20, 20, 20, 40}, MissingPolicy.RENORMALIZE, GradePointScale.LINEAR);
+
+    /**
+     * 标准权重，缺项按0分累加，绩点按分段表（90分4.0 ... 60分1.0）
+     */
+    public static final GradeCalculator PARTIAL_STEP =
+            new GradeCalculator(new int[]{20, 20, 20, 40}, MissingPolicy.PARTIAL_SUM, GradePointScale.STEP);
+
+    /**
+     * 标准权重，四项成绩齐全时才计算综合成绩
+     */
+    public static final GradeCalculator COMPLETE_ONLY =
+            new GradeCalculator(new int[]{20, 20, 20, 40}, MissingPolicy.REQUIRE_ALL, GradePointScale.LINEAR);
+
+    /**
+     * 缺项策略
+     */
+    public enum MissingPolicy {
+        /**
+         * 按已有成绩项的权重重新归一
+         */
+        RENORMALIZE,
+        /**
+         * 缺项按0分累加
+         */
+        PARTIAL_SUM,
+        /**
+         * 任一成绩项缺失则不计算
+         */
+        REQUIRE_ALL
+    }
+
+    /**
+     * 绩点规则
+     */
+    public enum GradePointScale {
+        /**
+         * 线性：(综合成绩 - 50) / 10，四舍五入到百分之一，限定在 0 ~ 4.0
+         */
+        LINEAR,
+        /**
+         * 分段：90/85/82/78/75/72/68/64/60 分对应 4.0/3.7/3.3/3.0/2.7/2.3/2.0/1.5/1.0
+         */
+        STEP
+    }
+
+    private final int[] weights;
+
+    private final MissingPolicy missingPolicy;
+
+    private final GradePointScale scale;
+
+    /**
+     * 绩点查找表（单位百分之一）
+     * LINEAR 以综合成绩四舍五入到十分之一分为下标，STEP 以百分之一分为下标
+     */
+    private final short[] gradePointTable;
+
+    /**
+     * @param weights       各成绩项权重（百分比），合计必须为100
+     * @param missingPolicy 缺项策略
+     * @param scale         绩点规则
+     */
+    public GradeCalculator(int[] weights, MissingPolicy missingPolicy, GradePointScale scale) {
+        if (weights == null || weights.length == 0 || Arrays.stream(weights).anyMatch(w -> w <= 0)
+                || Arrays.stream(weights).sum() != 100) {
+            throw new IllegalArgumentException("成绩权重必须为正数且合计为100");
+        }
+        this.weights = weights.clone();
+        this.missingPolicy = missingPolicy;
+        this.scale = scale;
+        this.gradePointTable = scale == GradePointScale.LINEAR ? buildLinearTable() : buildStepTable();
+    }
+
+    /**
+     * 成绩项个数
+     */
+    public int componentCount() {
+        return weights.length;
+    }
+
+    /**
+     * 计算单条成绩
+     *
+     * @param components 成绩项（百分之一分），缺失为 {@link #MISSING}
+     * @param offset     第一个成绩项在数组中的位置
+     * @return 打包结果，通过 {@link #finalScoreOf} 与 {@link #gradePointOf} 读取；无法计算时为 {@link #NO_RESULT}
+     */
+    public long compute(long[] components, int offset) {
+        long weighted = 0;
+        int presentWeight = 0;
+        for (int i = 0; i < weights.length; i++) {
+            long component = components[offset + i];
+            if (component == MISSING) {
+                continue;
+            }
+            weighted += component * weights[i];
+            presentWeight += weights[i];
+        }
+
+        if (presentWeight == 0 || (missingPolicy == MissingPolicy.REQUIRE_ALL && presentWeight != 100)) {
+            return NO_RESULT;
+        }
+
+        // weighted 单位为万分之一分，除数为100时即精确综合成绩
+        int divisor = missingPolicy == MissingPolicy.RENORMALIZE ? presentWeight : 100;
+        long finalScore = roundHalfUp(weighted, divisor);
+        long basis = divisor == 100 ? weighted : finalScore * 100;
+
+        return (finalScore << 16) | gradePoint(basis, finalScore);
+    }
+
+    /**
+     * 批量计算
+     *
+     * @param components  按行连续存放的成绩项（百分之一分），每行 {@link #componentCount()} 项，缺失为 {@link #MISSING}
+     * @param rows        行数
+     * @param finalScores 输出综合成绩（百分之一分），无法计算时为 {@link #NO_SCORE}
+     * @param gradePoints 输出绩点（百分之一），无法计算时为0
+     */
+    public void computeAll(long[] components, int rows, int[] finalScores, int[] gradePoints) {
+        int stride = weights.length;
+        for (int row = 0; row < rows; row++) {
+            long packed = compute(components, row * stride);
+            if (packed == NO_RESULT) {
+                finalScores[row] = NO_SCORE;
+                gradePoints[row] = 0;
+            } else {
+                finalScores[row] = (int) finalScoreOf(packed);
+                gradePoints[row] = gradePointOf(packed);
+            }
+        }
+    }
+
+    /**
+     * 按本实例的绩点规则，由已有的综合成绩（百分之一分）计算绩点（百分之一）
+     */
+    public int gradePointOfScore(long finalScore) {
+        return gradePoint(finalScore * 100, finalScore);
+    }
+
+    /**
+     * 从打包结果中读取综合成绩（百分之一分）
+     */
+    public static long finalScoreOf(long packed) {
+        return packed >> 16;
+    }
+
+    /**
+     * 从打包结果中读取绩点（百分之一）
+     */
+    public static int gradePointOf(long packed) {
+        return (int) (packed & 0xFFFF);
+    }
+
+    /**
+     * BigDecimal 转为百分之一分，null 转为 {@link #MISSING}，超过两位小数的部分四舍五入
+     */
+    public static long toHundredths(BigDecimal value) {
+        if (value == null) {
+            return MISSING;
+        }
+        return value.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /**
+     * 百分之一单位转为两位小数的 BigDecimal
+     */
+    public static BigDecimal fromHundredths(long hundredths) {
+        return BigDecimal.valueOf(hundredths, 2);
+    }
+
+    private int gradePoint(long basis, long finalScore) {
+        if (scale == GradePointScale.LINEAR) {
+            // basis 为万分之一分，四舍五入到十分之一分作为下标
+            long index = Math.floorDiv(basis + 500, 1000);
+            return gradePointTable[(int) Math.max(0, Math.min(index, MAX_HUNDREDTHS / 10))];
+        }
+        return gradePointTable[(int) Math.max(0, Math.min(finalScore, MAX_HUNDREDTHS))];
+    }
+
+    private static long roundHalfUp(long numerator, int divisor) {
+        long rounded = (Math.abs(numerator) * 2 + divisor) / (2L * divisor);
+        return numerator < 0 ? -rounded : rounded;
+    }
+
+    private static short[] buildLinearTable() {
+        short[] table = new short[MAX_HUNDREDTHS / 10 + 1];
+        for (int tenths = 0; tenths < table.length; tenths++) {
+            // (分数 - 50) / 10，单位百分之一：十分之一分 - 500
+            table[tenths] = (short) Math.max(0, Math.min(400, tenths - 500));
+        }
+        return table;
+    }
+
+    private static short[] buildStepTable() {
+        short[] table = new short[MAX_HUNDREDTHS + 1];
+        for (int hundredths = 0; hundredths < table.length; hundredths++) {
+            for (int i = 0; i < STEP_THRESHOLDS.length; i++) {
+                if (hundredths >= STEP_THRESHOLDS[i]) {
+                    table[hundredths] = STEP_POINTS[i];
+                    break;
+                }
+            }
+        }
+        return table;
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.common.util;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.toolkit.support.SFunction;
+import com.example.common.exception.BusinessException;
+import com.example.common.result.ResultCode;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * 游标分页工具类
+ * 游标为 (create_time, id) 的不透明编码，配合 ORDER BY create_time DESC, id DESC 使用，
+ * 翻页时以 WHERE 条件定位起点，代价与页码深度无关
+ */
+public class PageCursor {
+
+    /**
+     * 与SQLite默认时间格式保持一致，保证字符串比较有序
+     */
+    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static final String SEPARATOR = "|";
+
+    /**
+     * 每页数量上限
+     */
+    public static final int MAX_PAGE_SIZE = 500;
+
+    /**
+     * 生成游标
+     */
+    public static String encode(LocalDateTime createTime, Long id) {
+        String raw = createTime.format(TIME_FORMATTER) + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 校验每页数量：未传或小于1时报参数错误，超过上限时按上限返回
+     */
+    public static long pageSize(Number requested) {
+        if (requested == null || requested.longValue() < 1) {
+            throw new BusinessException(ResultCode.PARAM_ERROR, "每页数量须大于0");
+        }
+        return Math.min(requested.longValue(), MAX_PAGE_SIZE);
+    }
+
+    /**
+     * 为查询追加游标定位条件与排序，after 为空时从第一条开始
+     */
+    public static <T> void seek(LambdaQueryWrapper<T> wrapper, String after,
+                                SFunction<T, ?> createTimeColumn, SFunction<T, ?> idColumn) {
+        Position position = decode(after);
+        if (position != null) {
+            wrapper.and(w -> w.lt(createTimeColumn, position.createTime())
+                    .or(o -> o.eq(createTimeColumn, position.createTime()).lt(idColumn, position.id())));
+        }
+        wrapper.orderByDesc(createTimeColumn).orderByDesc(idColumn);
+    }
+
+    /**
+     * 解析游标，after 为空时返回 null，供手写SQL拼接定位条件使用
+     */
+    public static Position decode(String after) {
+        if (after == null || after.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(after), StandardCharsets.UTF_8);
+            int index = raw.lastIndexOf(SEPARATOR);
+            String createTime = raw.substring(0, index);
+            long id = Long.parseLong(raw.substring(index + 1));
+            LocalDateTime.parse(createTime, TIME_FORMATTER);
+            return new Position(createTime, id);
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new BusinessException(ResultCode.PARAM_ERROR, "无效的分页游标");
+        }
+    }
+
+    /**
+     * 游标位置，createTime 为与数据库格式一致的时间字符串
+     */
+    public record Position(String createTime, Long id) {
+    }
+}
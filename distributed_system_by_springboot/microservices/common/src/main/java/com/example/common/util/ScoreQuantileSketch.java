@@ -0,0 +1,139 @@
+package com.example.common.util;
+
+import java.math.BigDecimal;
+
+/**
+ * 成绩分位数草图
+ * 成绩值域固定为 0 ~ 100 分，按 0.1 分一格计数（共 1001 格，每组约 4KB），
+ * 可精确合并、可删除单条成绩，不需要保留原始成绩即可由教学班汇总到课程、教师。
+ * 误差界：{@link #quantile} 返回最近秩定义下真实分位数所在格的格值，与真实分位数之差不超过 0.05 分；
+ * 超出值域的成绩计入两端的格。实例非线程安全。
+ */
+public final class ScoreQuantileSketch {
+
+    /**
+     * 每格宽度（百分之一分）
+     */
+    public static final int RESOLUTION = 10;
+
+    /**
+     * 格数
+     */
+    public static final int BINS = 10000 / RESOLUTION + 1;
+
+    private static final char PAIR_SEPARATOR = ',';
+
+    private static final char COUNT_SEPARATOR = ':';
+
+    private final int[] counts = new int[BINS];
+
+    private long count;
+
+    /**
+     * 计入一条成绩（百分之一分）
+     */
+    public void add(long value) {
+        counts[binOf(value)]++;
+        count++;
+    }
+
+    /**
+     * 移除一条此前计入的成绩（百分之一分）
+     */
+    public void remove(long value) {
+        int bin = binOf(value);
+        if (counts[bin] > 0) {
+            counts[bin]--;
+            count--;
+        }
+    }
+
+    /**
+     * 合并另一个草图
+     */
+    public void merge(ScoreQuantileSketch other) {
+        if (other.count == 0) {
+            return;
+        }
+        for (int i = 0; i < BINS; i++) {
+            counts[i] += other.counts[i];
+        }
+        count += other.count;
+    }
+
+    public ScoreQuantileSketch copy() {
+        ScoreQuantileSketch copy = new ScoreQuantileSketch();
+        copy.merge(this);
+        return copy;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * 分位数（最近秩），q 取 0 ~ 1，无成绩时为 null
+     */
+    public BigDecimal quantile(double q) {
+        if (count == 0) {
+            return null;
+        }
+        long rank = Math.max(1, (long) Math.ceil(Math.min(1, Math.max(0, q)) * count));
+        long cumulative = 0;
+        for (int bin = 0; bin < BINS; bin++) {
+            cumulative += counts[bin];
+            if (cumulative >= rank) {
+                return GradeCalculator.fromHundredths((long) bin * RESOLUTION);
+            }
+        }
+        return GradeCalculator.fromHundredths((long) (BINS - 1) * RESOLUTION);
+    }
+
+    /**
+     * 稀疏编码为 "格:人数,格:人数"，用于持久化
+     */
+    public String encode() {
+        StringBuilder builder = new StringBuilder();
+        for (int bin = 0; bin < BINS; bin++) {
+            if (counts[bin] == 0) {
+                continue;
+            }
+            if (!builder.isEmpty()) {
+                builder.append(PAIR_SEPARATOR);
+            }
+            builder.append(bin).append(COUNT_SEPARATOR).append(counts[bin]);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 从 {@link #encode} 的结果恢复，空串或 null 为空草图
+     */
+    public static ScoreQuantileSketch decode(String encoded) {
+        ScoreQuantileSketch sketch = new ScoreQuantileSketch();
+        if (encoded == null || encoded.isEmpty()) {
+            return sketch;
+        }
+        for (String pair : encoded.split(String.valueOf(PAIR_SEPARATOR))) {
+            int index = pair.indexOf(COUNT_SEPARATOR);
+            sketch.addBin(Integer.parseInt(pair.substring(0, index)), Integer.parseInt(pair.substring(index + 1)));
+        }
+        return sketch;
+    }
+
+    /**
+     * 按格累加人数，用于由分组查询结果构建草图
+     */
+    public void addBin(int bin, int binCount) {
+        counts[Math.max(0, Math.min(BINS - 1, bin))] += binCount;
+        count += binCount;
+    }
+
+    /**
+     * 成绩所在格：四舍五入到 0.1 分
+     */
+    public static int binOf(long value) {
+        long bin = (value + RESOLUTION / 2) / RESOLUTION;
+        return (int) Math.max(0, Math.min(BINS - 1, bin));
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.common.vo;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * 教学班成绩变化视图对象
+ */
+@Data
+@Schema(description = "教学班成绩变化视图对象")
+public class ClassScoreDeltaVO implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    @Schema(description = "教学班数据库ID")
+    private Long teachingClassDbId;
+
+    @Schema(description = "有成绩人数")
+    private Long scoreCount;
+
+    @Schema(description = "平均分")
+    private BigDecimal averageScore;
+
+    @Schema(description = "及格率")
+    private BigDecimal passRate;
+
+    @Schema(description = "优秀率")
+    private BigDecimal excellentRate;
+
+    @Schema(description = "成绩分布 [<60, 60-69, 70-79, 80-89, 90-100]")
+    private List<Integer> distribution;
+}
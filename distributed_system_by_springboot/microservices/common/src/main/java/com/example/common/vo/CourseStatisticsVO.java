@@ -35,6 +35,21 @@ public class CourseStatisticsVO implements Serializable {
     @Schema(description = "最低分")
     private BigDecimal minScore;
 
+    @Schema(description = "标准差")
+    private BigDecimal standardDeviation;
+
+    @Schema(description = "下四分位数（P25，误差不超过0.05分）")
+    private BigDecimal lowerQuartile;
+
+    @Schema(description = "中位数（P50，误差不超过0.05分）")
+    private BigDecimal median;
+
+    @Schema(description = "上四分位数（P75，误差不超过0.05分）")
+    private BigDecimal upperQuartile;
+
+    @Schema(description = "第90百分位数（P90，误差不超过0.05分）")
+    private BigDecimal p90;
+
     @Schema(description = "及格人数")
     private Long passCount;
 
@@ -0,0 +1,71 @@
+package com.example.common.vo;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 批量选课结果视图对象
+ */
+@Data
+@Schema(description = "批量选课结果视图对象")
+public class EnrollmentBatchResultVO implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    public static final String ACCEPTED = "ACCEPTED";
+
+    public static final String DUPLICATE = "DUPLICATE";
+
+    public static final String FULL = "FULL";
+
+    public static final String NOT_FOUND = "NOT_FOUND";
+
+    public static final String CONFLICT = "CONFLICT";
+
+    public static final String WAITLISTED = "WAITLISTED";
+
+    public static final String INVALID = "INVALID";
+
+    @Schema(description = "提交条数")
+    private Integer total;
+
+    @Schema(description = "选课成功条数")
+    private Integer accepted;
+
+    @Schema(description = "被拒绝条数")
+    private Integer rejected;
+
+    @Schema(description = "逐条结果，与提交顺序一致")
+    private List<RowResult> rows = new ArrayList<>();
+
+    /**
+     * 单条选课结果
+     */
+    @Data
+    @Schema(description = "单条选课结果")
+    public static class RowResult implements Serializable {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        @Schema(description = "提交时的序号，从0开始")
+        private Integer index;
+
+        @Schema(description = "学生ID")
+        private Long studentDbId;
+
+        @Schema(description = "教学班ID")
+        private Long teachingClassDbId;
+
+        @Schema(description = "结果：ACCEPTED 成功，DUPLICATE 已选，FULL 已满，NOT_FOUND 教学班不存在，CONFLICT 上课时间冲突，WAITLISTED 已有学生候补，INVALID 参数缺失")
+        private String outcome;
+
+        @Schema(description = "说明")
+        private String message;
+    }
+}
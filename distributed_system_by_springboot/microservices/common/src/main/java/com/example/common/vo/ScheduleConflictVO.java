@@ -0,0 +1,43 @@
+package com.example.common.vo;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * 上课时间冲突视图对象
+ */
+@Data
+@Schema(description = "上课时间冲突视图对象")
+public class ScheduleConflictVO implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    public static final String TYPE_CLASSROOM = "CLASSROOM";
+
+    public static final String TYPE_STUDENT = "STUDENT";
+
+    @Schema(description = "冲突类型：CLASSROOM 教室占用冲突，STUDENT 学生选课冲突")
+    private String type;
+
+    @Schema(description = "教室（教室冲突时）")
+    private String classroom;
+
+    @Schema(description = "学生数据库ID（学生冲突时）")
+    private Long studentDbId;
+
+    @Schema(description = "教学班编号")
+    private String firstClassId;
+
+    @Schema(description = "教学班上课时间")
+    private String firstScheduleTime;
+
+    @Schema(description = "冲突的教学班编号")
+    private String secondClassId;
+
+    @Schema(description = "冲突的教学班上课时间")
+    private String secondScheduleTime;
+}
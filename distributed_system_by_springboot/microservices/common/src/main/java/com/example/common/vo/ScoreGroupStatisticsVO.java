@@ -0,0 +1,53 @@
+package com.example.common.vo;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * 成绩分组统计视图对象
+ */
+@Data
+@Schema(description = "成绩分组统计视图对象")
+public class ScoreGroupStatisticsVO implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    @Schema(description = "学期（未按学期分组时为空）")
+    private String semester;
+
+    @Schema(description = "课程数据库ID（未按课程分组时为空）")
+    private Long courseDbId;
+
+    @Schema(description = "教师数据库ID（未按教师分组时为空）")
+    private Long teacherDbId;
+
+    @Schema(description = "有成绩人数")
+    private Long scoreCount;
+
+    @Schema(description = "平均分")
+    private BigDecimal averageScore;
+
+    @Schema(description = "最高分")
+    private BigDecimal maxScore;
+
+    @Schema(description = "最低分")
+    private BigDecimal minScore;
+
+    @Schema(description = "标准差")
+    private BigDecimal standardDeviation;
+
+    @Schema(description = "及格率")
+    private BigDecimal passRate;
+
+    @Schema(description = "优秀率")
+    private BigDecimal excellentRate;
+
+    @Schema(description = "成绩分布 [<60, 60-69, 70-79, 80-89, 90-100]")
+    private List<Integer> distribution;
+}
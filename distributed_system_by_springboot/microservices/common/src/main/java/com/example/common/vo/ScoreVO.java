@@ -6,6 +6,7 @@ import lombok.Data;
 import java.io.Serial;
 import java.io.Serializable;
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 
 /**
  * 成绩视图对象
@@ -73,4 +74,7 @@ public class ScoreVO implements Serializable {
 
     @Schema(description = "总排名")
     private Integer overallRank;
+
+    @Schema(description = "创建时间")
+    private LocalDateTime createTime;
 }
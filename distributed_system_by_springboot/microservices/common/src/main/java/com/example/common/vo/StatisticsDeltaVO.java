@@ -0,0 +1,28 @@
+package com.example.common.vo;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 统计增量推送视图对象
+ */
+@Data
+@Schema(description = "统计增量推送视图对象")
+public class StatisticsDeltaVO implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    @Schema(description = "为 true 时客户端应重新拉取完整统计（聚合重建或缓冲溢出）")
+    private Boolean reset;
+
+    @Schema(description = "概览中的成绩指标，未变化时为空")
+    private StatisticsVO overview;
+
+    @Schema(description = "发生变化的教学班")
+    private List<ClassScoreDeltaVO> classes;
+}
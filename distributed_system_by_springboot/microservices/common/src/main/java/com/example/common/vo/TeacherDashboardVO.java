@@ -0,0 +1,31 @@
+package com.example.common.vo;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 教师统计看板视图对象
+ */
+@Data
+@Schema(description = "教师统计看板视图对象")
+public class TeacherDashboardVO implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    @Schema(description = "概览统计")
+    private StatisticsVO overview;
+
+    @Schema(description = "课程统计")
+    private List<CourseStatisticsVO> courses;
+
+    @Schema(description = "教学班统计")
+    private List<ClassStatisticsVO> classes;
+
+    @Schema(description = "成绩分布 [<60, 60-69, 70-79, 80-89, 90-100]")
+    private List<Integer> distribution;
+}
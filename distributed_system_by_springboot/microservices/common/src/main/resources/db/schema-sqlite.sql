@@ -80,6 +80,19 @@ CREATE UNIQUE INDEX IF NOT EXISTS idx_enrollment_unique
 ON enrollment(student_db_id, teaching_class_db_id)
 WHERE deleted = 0;
 
+-- 选课候补表（教学班满员时按加入顺序排队，退课时队首自动转为选课）
+CREATE TABLE IF NOT EXISTS enrollment_waitlist (
+    id INTEGER PRIMARY KEY AUTOINCREMENT,
+    student_db_id INTEGER NOT NULL,
+    teaching_class_db_id INTEGER NOT NULL,
+    create_time DATETIME DEFAULT CURRENT_TIMESTAMP,
+    FOREIGN KEY (student_db_id) REFERENCES student(id),
+    FOREIGN KEY (teaching_class_db_id) REFERENCES teaching_class(id)
+);
+
+CREATE UNIQUE INDEX IF NOT EXISTS idx_enrollment_waitlist_unique
+ON enrollment_waitlist(student_db_id, teaching_class_db_id);
+
 -- 成绩表
 CREATE TABLE IF NOT EXISTS score (
     id INTEGER PRIMARY KEY AUTOINCREMENT,
@@ -100,6 +113,145 @@ CREATE TABLE IF NOT EXISTS score (
     UNIQUE (student_db_id, teaching_class_db_id)
 );
 
+-- 学生成绩汇总表（读模型，由成绩写入同事务维护，缺失时按需重建）
+-- score_sum 单位为百分之一分，credit_sum 单位为十分之一学分，weighted_sum 为两者乘积
+CREATE TABLE IF NOT EXISTS student_transcript_summary (
+    student_db_id INTEGER PRIMARY KEY,
+    score_count INTEGER NOT NULL DEFAULT 0,
+    score_sum INTEGER NOT NULL DEFAULT 0,
+    credit_sum INTEGER NOT NULL DEFAULT 0,
+    weighted_sum INTEGER NOT NULL DEFAULT 0,
+    update_time DATETIME DEFAULT CURRENT_TIMESTAMP
+);
+
+-- 成绩变更日志（只追加），由下方触发器在成绩写入的同一事务内记录，seq 单调递增
+-- op: INSERT / UPDATE / DELETE（含软删除）/ RESTORE（恢复软删除）
+CREATE TABLE IF NOT EXISTS score_change_log (
+    seq INTEGER PRIMARY KEY AUTOINCREMENT,
+    score_id INTEGER NOT NULL,
+    student_db_id INTEGER NOT NULL,
+    teaching_class_db_id INTEGER NOT NULL,
+    op VARCHAR(10) NOT NULL,
+    final_score DECIMAL(5,2),
+    grade_point DECIMAL(3,2),
+    old_final_score DECIMAL(5,2),
+    create_time DATETIME DEFAULT CURRENT_TIMESTAMP
+);
+
+-- 触发器内语句与 END 写在同一行：脚本按 ";\n" 分隔（见 auth-service spring.sql.init.separator）
+CREATE TRIGGER IF NOT EXISTS trg_score_change_insert AFTER INSERT ON score
+WHEN COALESCE(NEW.deleted, 0) = 0
+BEGIN
+    INSERT INTO score_change_log (score_id, student_db_id, teaching_class_db_id, op, final_score, grade_point, old_final_score)
+    VALUES (NEW.id, NEW.student_db_id, NEW.teaching_class_db_id, 'INSERT', NEW.final_score, NEW.grade_point, NULL); END;
+
+CREATE TRIGGER IF NOT EXISTS trg_score_change_update AFTER UPDATE ON score
+WHEN NEW.student_db_id = OLD.student_db_id AND NEW.teaching_class_db_id = OLD.teaching_class_db_id
+    AND NOT (COALESCE(OLD.deleted, 0) = 1 AND COALESCE(NEW.deleted, 0) = 1)
+BEGIN
+    INSERT INTO score_change_log (score_id, student_db_id, teaching_class_db_id, op, final_score, grade_point, old_final_score)
+    VALUES (NEW.id, NEW.student_db_id, NEW.teaching_class_db_id,
+        CASE WHEN COALESCE(NEW.deleted, 0) = 1 THEN 'DELETE' WHEN COALESCE(OLD.deleted, 0) = 1 THEN 'RESTORE' ELSE 'UPDATE' END,
+        CASE WHEN COALESCE(NEW.deleted, 0) = 1 THEN NULL ELSE NEW.final_score END,
+        CASE WHEN COALESCE(NEW.deleted, 0) = 1 THEN NULL ELSE NEW.grade_point END,
+        CASE WHEN COALESCE(OLD.deleted, 0) = 1 THEN NULL ELSE OLD.final_score END); END;
+
+-- 修改了学生或教学班时记为旧键删除加新键新增
+CREATE TRIGGER IF NOT EXISTS trg_score_change_rekey AFTER UPDATE ON score
+WHEN NEW.student_db_id <> OLD.student_db_id OR NEW.teaching_class_db_id <> OLD.teaching_class_db_id
+BEGIN
+    INSERT INTO score_change_log (score_id, student_db_id, teaching_class_db_id, op, final_score, grade_point, old_final_score)
+    SELECT OLD.id, OLD.student_db_id, OLD.teaching_class_db_id, 'DELETE', NULL, NULL, OLD.final_score WHERE COALESCE(OLD.deleted, 0) = 0
+    UNION ALL
+    SELECT NEW.id, NEW.student_db_id, NEW.teaching_class_db_id, 'INSERT', NEW.final_score, NEW.grade_point, NULL WHERE COALESCE(NEW.deleted, 0) = 0; END;
+
+CREATE TRIGGER IF NOT EXISTS trg_score_change_delete AFTER DELETE ON score
+WHEN COALESCE(OLD.deleted, 0) = 0
+BEGIN
+    INSERT INTO score_change_log (score_id, student_db_id, teaching_class_db_id, op, final_score, grade_point, old_final_score)
+    VALUES (OLD.id, OLD.student_db_id, OLD.teaching_class_db_id, 'DELETE', NULL, NULL, OLD.final_score); END;
+
+-- 教学班成绩聚合（统计服务按成绩变更日志增量维护），分数单位为百分之一分
+-- row_count 为成绩记录数，score_count 为有综合成绩的记录数，score_m2 为与均值之差的平方和，bucket_0~4 对应 <60/60-69/70-79/80-89/90-100，
+-- score_sketch 为按 0.1 分一格的分位数草图（稀疏编码 "格:人数,..."）
+CREATE TABLE IF NOT EXISTS score_class_aggregate (
+    teaching_class_db_id INTEGER PRIMARY KEY,
+    row_count INTEGER NOT NULL DEFAULT 0,
+    score_count INTEGER NOT NULL DEFAULT 0,
+    score_sum INTEGER NOT NULL DEFAULT 0,
+    score_m2 REAL NOT NULL DEFAULT 0,
+    min_score INTEGER,
+    max_score INTEGER,
+    pass_count INTEGER NOT NULL DEFAULT 0,
+    excellent_count INTEGER NOT NULL DEFAULT 0,
+    bucket_0 INTEGER NOT NULL DEFAULT 0,
+    bucket_1 INTEGER NOT NULL DEFAULT 0,
+    bucket_2 INTEGER NOT NULL DEFAULT 0,
+    bucket_3 INTEGER NOT NULL DEFAULT 0,
+    bucket_4 INTEGER NOT NULL DEFAULT 0,
+    score_sketch TEXT,
+    update_time DATETIME DEFAULT CURRENT_TIMESTAMP
+);
+
+-- 变更日志消费位置（按消费者名称记录已应用的最大 seq）
+CREATE TABLE IF NOT EXISTS change_log_checkpoint (
+    name VARCHAR(50) PRIMARY KEY,
+    seq INTEGER NOT NULL DEFAULT 0,
+    update_time DATETIME DEFAULT CURRENT_TIMESTAMP
+);
+
+-- 选课、教学班、课程变更日志（只追加），供统计服务失效缓存；修改时分别记录修改前后的归属
+-- entity: enrollment / teaching_class / course
+CREATE TABLE IF NOT EXISTS entity_change_log (
+    seq INTEGER PRIMARY KEY AUTOINCREMENT,
+    entity VARCHAR(20) NOT NULL,
+    entity_id INTEGER NOT NULL,
+    teaching_class_db_id INTEGER,
+    course_db_id INTEGER,
+    teacher_db_id INTEGER,
+    create_time DATETIME DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE TRIGGER IF NOT EXISTS trg_enrollment_change_insert AFTER INSERT ON enrollment
+BEGIN
+    INSERT INTO entity_change_log (entity, entity_id, teaching_class_db_id) VALUES ('enrollment', NEW.id, NEW.teaching_class_db_id); END;
+
+CREATE TRIGGER IF NOT EXISTS trg_enrollment_change_update AFTER UPDATE ON enrollment
+BEGIN
+    INSERT INTO entity_change_log (entity, entity_id, teaching_class_db_id)
+    SELECT 'enrollment', OLD.id, OLD.teaching_class_db_id UNION ALL SELECT 'enrollment', NEW.id, NEW.teaching_class_db_id; END;
+
+CREATE TRIGGER IF NOT EXISTS trg_enrollment_change_delete AFTER DELETE ON enrollment
+BEGIN
+    INSERT INTO entity_change_log (entity, entity_id, teaching_class_db_id) VALUES ('enrollment', OLD.id, OLD.teaching_class_db_id); END;
+
+CREATE TRIGGER IF NOT EXISTS trg_teaching_class_change_insert AFTER INSERT ON teaching_class
+BEGIN
+    INSERT INTO entity_change_log (entity, entity_id, teaching_class_db_id, course_db_id, teacher_db_id)
+    VALUES ('teaching_class', NEW.id, NEW.id, NEW.course_db_id, NEW.teacher_db_id); END;
+
+CREATE TRIGGER IF NOT EXISTS trg_teaching_class_change_update AFTER UPDATE ON teaching_class
+BEGIN
+    INSERT INTO entity_change_log (entity, entity_id, teaching_class_db_id, course_db_id, teacher_db_id)
+    SELECT 'teaching_class', OLD.id, OLD.id, OLD.course_db_id, OLD.teacher_db_id UNION ALL SELECT 'teaching_class', NEW.id, NEW.id, NEW.course_db_id, NEW.teacher_db_id; END;
+
+CREATE TRIGGER IF NOT EXISTS trg_teaching_class_change_delete AFTER DELETE ON teaching_class
+BEGIN
+    INSERT INTO entity_change_log (entity, entity_id, teaching_class_db_id, course_db_id, teacher_db_id)
+    VALUES ('teaching_class', OLD.id, OLD.id, OLD.course_db_id, OLD.teacher_db_id); END;
+
+CREATE TRIGGER IF NOT EXISTS trg_course_change_insert AFTER INSERT ON course
+BEGIN
+    INSERT INTO entity_change_log (entity, entity_id, course_db_id) VALUES ('course', NEW.id, NEW.id); END;
+
+CREATE TRIGGER IF NOT EXISTS trg_course_change_update AFTER UPDATE ON course
+BEGIN
+    INSERT INTO entity_change_log (entity, entity_id, course_db_id) VALUES ('course', NEW.id, NEW.id); END;
+
+CREATE TRIGGER IF NOT EXISTS trg_course_change_delete AFTER DELETE ON course
+BEGIN
+    INSERT INTO entity_change_log (entity, entity_id, course_db_id) VALUES ('course', OLD.id, OLD.id); END;
+
 -- 创建索引优化查询性能
 CREATE INDEX IF NOT EXISTS idx_student_name ON student(name);
 CREATE INDEX IF NOT EXISTS idx_student_class ON student(class_name);
@@ -116,6 +268,10 @@ CREATE INDEX IF NOT EXISTS idx_enrollment_class ON enrollment(teaching_class_db_
 CREATE INDEX IF NOT EXISTS idx_score_student ON score(student_db_id);
 CREATE INDEX IF NOT EXISTS idx_score_class ON score(teaching_class_db_id);
 CREATE INDEX IF NOT EXISTS idx_score_final ON score(final_score);
+-- 游标分页 (create_time, id) 定位
+CREATE INDEX IF NOT EXISTS idx_student_create_time ON student(create_time, id);
+CREATE INDEX IF NOT EXISTS idx_enrollment_create_time ON enrollment(create_time, id);
+CREATE INDEX IF NOT EXISTS idx_score_create_time ON score(create_time, id);
 
 -- 用户表
 CREATE TABLE IF NOT EXISTS sys_user (
@@ -0,0 +1,271 @@
+package com.example.common.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 成绩计算内核与原 BigDecimal 实现的等价性
+ * 每个成绩项在 0.00 ~ 100.00 全部取值上逐一扫描，其余成绩项取缺失、边界与混合取值，另加随机样本；
+ * 综合成绩与绩点按数值比较（compareTo），绩点统一为两位小数，原实现的 4.0、0 与 4.00、0.00 数值相同。
+ */
+class GradeCalculatorTest {
+
+    private static final int MAX = 10000;
+
+    private static final BigDecimal W20 = new BigDecimal("0.20");
+    private static final BigDecimal W40 = new BigDecimal("0.40");
+
+    /**
+     * 其余成绩项的取值组合（百分之一分），MISSING 为缺失
+     */
+    private static final long[][] BACKGROUNDS = {
+            {GradeCalculator.MISSING, GradeCalculator.MISSING, GradeCalculator.MISSING, GradeCalculator.MISSING},
+            {0, 0, 0, 0},
+            {MAX, MAX, MAX, MAX},
+            {5999, 5999, 5999, 5999},
+            {7345, 8880, 6105, 9050},
+            {6667, GradeCalculator.MISSING, 6667, GradeCalculator.MISSING},
+            {GradeCalculator.MISSING, 4995, GradeCalculator.MISSING, 8999}
+    };
+
+    @Test
+    void standardMatchesScoreServiceFormula() {
+        sweep(GradeCalculator.STANDARD, GradeCalculatorTest::legacyStandard);
+    }
+
+    @Test
+    void partialStepMatchesScoreEntityFormula() {
+        sweep(GradeCalculator.PARTIAL_STEP, GradeCalculatorTest::legacyPartialStep);
+    }
+
+    @Test
+    void completeOnlyMatchesMonolithFormula() {
+        sweep(GradeCalculator.COMPLETE_ONLY, GradeCalculatorTest::legacyCompleteOnly);
+    }
+
+    @Test
+    void gradePointOfScoreMatchesComputedGradePoint() {
+        for (long finalScore = 0; finalScore <= MAX; finalScore++) {
+            long[] components = {finalScore, finalScore, finalScore, finalScore};
+            for (GradeCalculator calculator : new GradeCalculator[]{GradeCalculator.STANDARD,
+                    GradeCalculator.PARTIAL_STEP, GradeCalculator.COMPLETE_ONLY}) {
+                long packed = calculator.compute(components, 0);
+                assertEquals(finalScore, GradeCalculator.finalScoreOf(packed));
+                assertEquals(GradeCalculator.gradePointOf(packed), calculator.gradePointOfScore(finalScore));
+            }
+        }
+    }
+
+    @Test
+    void computeAllMatchesCompute() {
+        Random random = new Random(42);
+        int rows = 5000;
+        long[] components = new long[rows * 4];
+        for (int i = 0; i < components.length; i++) {
+            components[i] = random.nextInt(10) == 0 ? GradeCalculator.MISSING : random.nextInt(MAX + 1);
+        }
+        Arrays.fill(components, 0, 4, GradeCalculator.MISSING);
+        int[] finalScores = new int[rows];
+        int[] gradePoints = new int[rows];
+
+        GradeCalculator.STANDARD.computeAll(components, rows, finalScores, gradePoints);
+
+        assertEquals(GradeCalculator.NO_SCORE, finalScores[0]);
+        assertEquals(0, gradePoints[0]);
+        for (int row = 1; row < rows; row++) {
+            long packed = GradeCalculator.STANDARD.compute(components, row * 4);
+            if (packed == GradeCalculator.NO_RESULT) {
+                assertEquals(GradeCalculator.NO_SCORE, finalScores[row]);
+                assertEquals(0, gradePoints[row]);
+            } else {
+                assertEquals(GradeCalculator.finalScoreOf(packed), finalScores[row]);
+                assertEquals(GradeCalculator.gradePointOf(packed), gradePoints[row]);
+            }
+        }
+    }
+
+    @Test
+    void gradePointHasTwoDecimalPlaces() {
+        long[] components = {MAX, MAX, MAX, MAX};
+        long packed = GradeCalculator.PARTIAL_STEP.compute(components, 0);
+
+        BigDecimal gradePoint = GradeCalculator.fromHundredths(GradeCalculator.gradePointOf(packed));
+
+        assertEquals(new BigDecimal("4.00"), gradePoint);
+        assertEquals(0, gradePoint.compareTo(new BigDecimal("4.0")));
+    }
+
+    @Test
+    void rejectsInvalidWeights() {
+        assertThrows(IllegalArgumentException.class, () -> new GradeCalculator(new int[]{50, 40},
+                GradeCalculator.MissingPolicy.RENORMALIZE, GradeCalculator.GradePointScale.LINEAR));
+        assertThrows(IllegalArgumentException.class, () -> new GradeCalculator(new int[]{110, -10},
+                GradeCalculator.MissingPolicy.RENORMALIZE, GradeCalculator.GradePointScale.LINEAR));
+    }
+
+    private static void sweep(GradeCalculator calculator, Legacy legacy) {
+        long[] components = new long[4];
+        for (long[] background : BACKGROUNDS) {
+            for (int slot = 0; slot < 4; slot++) {
+                for (long value = 0; value <= MAX; value++) {
+                    System.arraycopy(background, 0, components, 0, 4);
+                    components[slot] = value;
+                    check(calculator, legacy, components);
+                }
+            }
+        }
+        // 四项相同
+        for (long value = 0; value <= MAX; value++) {
+            Arrays.fill(components, value);
+            check(calculator, legacy, components);
+        }
+        // 全部缺失
+        Arrays.fill(components, GradeCalculator.MISSING);
+        check(calculator, legacy, components);
+        // 随机样本，每项十分之一缺失
+        Random random = new Random(20240901L);
+        for (int i = 0; i < 200_000; i++) {
+            for (int slot = 0; slot < 4; slot++) {
+                components[slot] = random.nextInt(10) == 0 ? GradeCalculator.MISSING : random.nextInt(MAX + 1);
+            }
+            check(calculator, legacy, components);
+        }
+    }
+
+    private static void check(GradeCalculator calculator, Legacy legacy, long[] components) {
+        BigDecimal[] expected = legacy.compute(decimal(components[0]), decimal(components[1]),
+                decimal(components[2]), decimal(components[3]));
+        long packed = calculator.compute(components, 0);
+        if (expected == null) {
+            if (packed != GradeCalculator.NO_RESULT) {
+                fail("应无法计算: " + Arrays.toString(components));
+            }
+            return;
+        }
+        if (packed == GradeCalculator.NO_RESULT) {
+            fail("应可计算: " + Arrays.toString(components));
+        }
+        BigDecimal finalScore = GradeCalculator.fromHundredths(GradeCalculator.finalScoreOf(packed));
+        BigDecimal gradePoint = GradeCalculator.fromHundredths(GradeCalculator.gradePointOf(packed));
+        if (finalScore.compareTo(expected[0]) != 0 || gradePoint.compareTo(expected[1]) != 0) {
+            fail(Arrays.toString(components) + ": 期望 " + expected[0] + "/" + expected[1]
+                    + "，实际 " + finalScore + "/" + gradePoint);
+        }
+    }
+
+    private static BigDecimal decimal(long hundredths) {
+        return hundredths == GradeCalculator.MISSING ? null : BigDecimal.valueOf(hundredths, 2);
+    }
+
+    @FunctionalInterface
+    private interface Legacy {
+        /**
+         * @return {综合成绩, 绩点}，无法计算时为 null
+         */
+        BigDecimal[] compute(BigDecimal regular, BigDecimal midterm, BigDecimal experiment, BigDecimal finalExam);
+    }
+
+    /**
+     * score-service 原实现：缺项按已有成绩的权重重新归一，绩点 = (综合成绩 - 50) / 10
+     */
+    private static BigDecimal[] legacyStandard(BigDecimal regular, BigDecimal midterm,
+                                               BigDecimal experiment, BigDecimal finalExam) {
+        BigDecimal finalScore = BigDecimal.ZERO;
+        BigDecimal totalWeight = BigDecimal.ZERO;
+        int componentCount = 0;
+        BigDecimal[] values = {regular, midterm, experiment, finalExam};
+        BigDecimal[] weights = {W20, W20, W20, W40};
+        for (int i = 0; i < 4; i++) {
+            if (values[i] != null) {
+                finalScore = finalScore.add(values[i].multiply(weights[i]));
+                totalWeight = totalWeight.add(weights[i]);
+                componentCount++;
+            }
+        }
+        if (componentCount == 0) {
+            return null;
+        }
+        if (componentCount < 4) {
+            finalScore = finalScore.divide(totalWeight, 2, RoundingMode.HALF_UP);
+        }
+        BigDecimal gradePoint = finalScore.subtract(new BigDecimal("50"))
+                .divide(new BigDecimal("10"), 2, RoundingMode.HALF_UP);
+        if (gradePoint.compareTo(BigDecimal.ZERO) < 0) {
+            gradePoint = BigDecimal.ZERO;
+        }
+        if (gradePoint.compareTo(new BigDecimal("4.0")) > 0) {
+            gradePoint = new BigDecimal("4.0");
+        }
+        return new BigDecimal[]{finalScore.setScale(2, RoundingMode.HALF_UP), gradePoint};
+    }
+
+    /**
+     * common Score 原实现：缺项按0分累加，绩点按分段
+     */
+    private static BigDecimal[] legacyPartialStep(BigDecimal regular, BigDecimal midterm,
+                                                  BigDecimal experiment, BigDecimal finalExam) {
+        BigDecimal total = BigDecimal.ZERO;
+        int count = 0;
+        if (regular != null) {
+            total = total.add(regular.multiply(new BigDecimal("0.2")));
+            count++;
+        }
+        if (midterm != null) {
+            total = total.add(midterm.multiply(new BigDecimal("0.2")));
+            count++;
+        }
+        if (experiment != null) {
+            total = total.add(experiment.multiply(new BigDecimal("0.2")));
+            count++;
+        }
+        if (finalExam != null) {
+            total = total.add(finalExam.multiply(new BigDecimal("0.4")));
+            count++;
+        }
+        if (count == 0) {
+            return null;
+        }
+        BigDecimal finalScore = total.setScale(2, RoundingMode.HALF_UP);
+        double s = finalScore.doubleValue();
+        BigDecimal gradePoint;
+        if (s >= 90) {
+            gradePoint = new BigDecimal("4.0");
+        } else if (s >= 85) {
+            gradePoint = new BigDecimal("3.7");
+        } else if (s >= 82) {
+            gradePoint = new BigDecimal("3.3");
+        } else if (s >= 78) {
+            gradePoint = new BigDecimal("3.0");
+        } else if (s >= 75) {
+            gradePoint = new BigDecimal("2.7");
+        } else if (s >= 72) {
+            gradePoint = new BigDecimal("2.3");
+        } else if (s >= 68) {
+            gradePoint = new BigDecimal("2.0");
+        } else if (s >= 64) {
+            gradePoint = new BigDecimal("1.5");
+        } else if (s >= 60) {
+            gradePoint = new BigDecimal("1.0");
+        } else {
+            gradePoint = BigDecimal.ZERO;
+        }
+        return new BigDecimal[]{finalScore, gradePoint};
+    }
+
+    /**
+     * 单体版 Score 原实现：四项齐全时计算综合成绩；绩点沿用 score-service 的线性规则
+     */
+    private static BigDecimal[] legacyCompleteOnly(BigDecimal regular, BigDecimal midterm,
+                                                   BigDecimal experiment, BigDecimal finalExam) {
+        if (regular == null || midterm == null || experiment == null || finalExam == null) {
+            return null;
+        }
+        return legacyStandard(regular, midterm, experiment, finalExam);
+    }
+}
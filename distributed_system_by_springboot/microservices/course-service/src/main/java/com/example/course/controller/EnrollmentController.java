@@ -6,6 +6,7 @@ import com.example.common.dto.EnrollmentDTO;
 import com.example.common.entity.Enrollment;
 import com.example.common.result.PageResult;
 import com.example.common.result.Result;
+import com.example.common.vo.EnrollmentBatchResultVO;
 import com.example.common.vo.EnrollmentVO;
 import com.example.course.service.EnrollmentService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -15,6 +16,7 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * 选课控制器
@@ -39,6 +41,17 @@ public class EnrollmentController {
         return Result.success(PageResult.of(result.getRecords(), result.getTotal(), result.getCurrent(), result.getSize()));
     }
     
+    @Operation(summary = "游标分页查询选课")
+    @GetMapping("/cursor")
+    public Result<PageResult<EnrollmentVO>> cursorPage(
+            @Parameter(description = "游标（取上一页返回的 nextCursor）") @RequestParam(required = false) String after,
+            @Parameter(description = "每页数量") @RequestParam(defaultValue = "10") Integer pageSize,
+            @Parameter(description = "是否统计总数") @RequestParam(defaultValue = "false") Boolean withTotal,
+            @Parameter(description = "学号") @RequestParam(required = false) String studentId,
+            @Parameter(description = "教学班编号") @RequestParam(required = false) String classId) {
+        return Result.success(enrollmentService.cursorPage(studentId, classId, after, pageSize, withTotal));
+    }
+    
     @Operation(summary = "根据学号获取选课列表")
     @GetMapping("/student/{studentId}")
     public Result<List<EnrollmentVO>> getByStudentId(@Parameter(description = "学号") @PathVariable("studentId") String studentId) {
@@ -64,12 +77,34 @@ public class EnrollmentController {
         return Result.success(enrollmentService.save(dto));
     }
     
-    @Operation(summary = "批量选课")
+    @Operation(summary = "批量选课", description = "按容量、重复与上课时间冲突逐条判定，通过的一次写入；返回每条的结果")
     @PostMapping("/batch")
-    public Result<Boolean> saveBatch(@RequestBody List<EnrollmentDTO> dtos) {
+    public Result<EnrollmentBatchResultVO> saveBatch(@RequestBody List<EnrollmentDTO> dtos) {
         return Result.success(enrollmentService.saveBatch(dtos));
     }
     
+    @Operation(summary = "加入候补", description = "教学班已满时按先后顺序排队，有学生退课时队首自动选上；返回候补位次")
+    @PostMapping("/waitlist")
+    public Result<Integer> joinWaitlist(@RequestBody EnrollmentDTO dto) {
+        return Result.success(enrollmentService.joinWaitlist(dto));
+    }
+    
+    @Operation(summary = "查询候补位次")
+    @GetMapping("/waitlist/position")
+    public Result<Integer> getWaitlistPosition(
+            @Parameter(description = "学生ID") @RequestParam("studentDbId") Long studentDbId,
+            @Parameter(description = "教学班ID") @RequestParam("teachingClassDbId") Long teachingClassDbId) {
+        return Result.success(enrollmentService.getWaitlistPosition(studentDbId, teachingClassDbId));
+    }
+    
+    @Operation(summary = "退出候补")
+    @DeleteMapping("/waitlist")
+    public Result<Boolean> leaveWaitlist(
+            @Parameter(description = "学生ID") @RequestParam("studentDbId") Long studentDbId,
+            @Parameter(description = "教学班ID") @RequestParam("teachingClassDbId") Long teachingClassDbId) {
+        return Result.success(enrollmentService.leaveWaitlist(studentDbId, teachingClassDbId));
+    }
+    
     @Operation(summary = "删除选课")
     @DeleteMapping("/{id}")
     public Result<Boolean> delete(@Parameter(description = "选课ID") @PathVariable("id") String id) {
@@ -86,7 +121,7 @@ public class EnrollmentController {
     
     @Operation(summary = "批量删除选课")
     @DeleteMapping("/batch")
-    public Result<Boolean> deleteBatch(@RequestBody List<String> ids) {
+    public Result<Map<String, Integer>> deleteBatch(@RequestBody List<String> ids) {
         return Result.success(enrollmentService.deleteBatch(ids));
     }
     
@@ -6,6 +6,7 @@ import com.example.common.query.TeachingClassQuery;
 import com.example.common.result.PageResult;
 import com.example.common.result.Result;
 import com.example.common.vo.ClassStudentVO;
+import com.example.common.vo.ScheduleConflictVO;
 import com.example.common.vo.TeachingClassVO;
 import com.example.course.service.TeachingClassService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -53,6 +54,13 @@ public class TeachingClassController {
         return Result.success(teachingClassService.getStudents(id));
     }
     
+    @Operation(summary = "学期上课时间冲突报告", description = "列出同一教室上课时间重叠的教学班，以及学生已选教学班之间的时间冲突")
+    @GetMapping("/conflicts")
+    public Result<List<ScheduleConflictVO>> getScheduleConflicts(
+            @Parameter(description = "学期，如 2024-2025-1") @RequestParam("semester") String semester) {
+        return Result.success(teachingClassService.getScheduleConflicts(semester));
+    }
+    
     @Operation(summary = "根据教学班编号获取教学班")
     @GetMapping("/classId/{classId}")
     public Result<TeachingClassVO> getByClassId(@Parameter(description = "教学班编号") @PathVariable("classId") String classId) {
@@ -0,0 +1,19 @@
+package com.example.course.enrollment;
+
+import lombok.Data;
+
+/**
+ * 教学班容量与已选人数
+ */
+@Data
+public class ClassSeatCount {
+
+    private Long teachingClassDbId;
+
+    /**
+     * 容量，为 null 表示不限
+     */
+    private Integer capacity;
+
+    private Integer enrolled;
+}
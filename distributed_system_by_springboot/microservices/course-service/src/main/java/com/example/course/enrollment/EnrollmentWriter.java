@@ -0,0 +1,239 @@
+package com.example.course.enrollment;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.example.common.entity.Enrollment;
+import com.example.common.exception.BusinessException;
+import com.example.common.result.ResultCode;
+import com.example.course.mapper.EnrollmentMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 选课合并写入（group commit）
+ * 选课先在座位台账中占座，重复与满员直接得到结果；占座成功的请求进入有界队列，
+ * 由单个写线程取出第一条后再等待至多 linger 时间凑批，整批在一个事务中写入，每个请求的 future 以各自结果完成。
+ * 整批失败时逐条重试：仍失败而库中已有该学生此班的选课（违反唯一索引），结果为重复且保留座位；其他失败释放座位并以异常完成。
+ * 队列已满时拒绝新请求，避免请求在数据库锁上堆积超时。
+ * SQLite 同一时刻只允许一个写事务，合并写入使每批只竞争一次写锁。
+ * 指标：enrollment.writer.batch.size 每批条数，enrollment.writer.linger 凑批等待时间，
+ * enrollment.writer.queue.depth 队列长度，enrollment.writer.rejected 因队列已满拒绝的请求数。
+ */
+@Slf4j
+@Component
+public class EnrollmentWriter {
+
+    /**
+     * 选课结果
+     */
+    public enum Outcome {
+        ACCEPTED, DUPLICATE, FULL, NOT_FOUND
+    }
+
+    private final EnrollmentMapper enrollmentMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final SeatLedger seatLedger;
+
+    private final int maxBatch;
+    private final long lingerNanos;
+
+    private final BlockingQueue<Request> queue;
+
+    private final Thread worker;
+
+    private volatile boolean running = true;
+
+    private final DistributionSummary batchSize;
+    private final Timer linger;
+    private final Counter rejected;
+
+    public EnrollmentWriter(EnrollmentMapper enrollmentMapper,
+                            TransactionTemplate transactionTemplate,
+                            SeatLedger seatLedger,
+                            MeterRegistry meterRegistry,
+                            @Value("${enrollment.writer.max-batch:256}") int maxBatch,
+                            @Value("${enrollment.writer.linger-ms:5}") long lingerMillis,
+                            @Value("${enrollment.writer.queue-capacity:4096}") int queueCapacity) {
+        this.enrollmentMapper = enrollmentMapper;
+        this.transactionTemplate = transactionTemplate;
+        this.seatLedger = seatLedger;
+        this.maxBatch = Math.max(1, maxBatch);
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, lingerMillis));
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        this.batchSize = DistributionSummary.builder("enrollment.writer.batch.size")
+                .description("每批写入的选课条数").register(meterRegistry);
+        this.linger = Timer.builder("enrollment.writer.linger")
+                .description("选课写入凑批等待时间").register(meterRegistry);
+        this.rejected = Counter.builder("enrollment.writer.rejected")
+                .description("写入队列已满被拒绝的选课请求数").register(meterRegistry);
+        Gauge.builder("enrollment.writer.queue.depth", queue, BlockingQueue::size)
+                .description("待写入的选课请求数").register(meterRegistry);
+        this.worker = new Thread(this::run, "enrollment-writer");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * 占座并提交写入，重复、满员与教学班不存在时立即完成
+     *
+     * @throws BusinessException 写入队列已满
+     */
+    public CompletableFuture<Outcome> enroll(Enrollment enrollment) {
+        switch (seatLedger.reserve(enrollment.getStudentDbId(), enrollment.getTeachingClassDbId())) {
+            case DUPLICATE -> {
+                return CompletableFuture.completedFuture(Outcome.DUPLICATE);
+            }
+            case FULL -> {
+                return CompletableFuture.completedFuture(Outcome.FULL);
+            }
+            case NOT_FOUND -> {
+                return CompletableFuture.completedFuture(Outcome.NOT_FOUND);
+            }
+            default -> {
+            }
+        }
+        Request request = new Request(enrollment, new CompletableFuture<>());
+        if (!queue.offer(request)) {
+            seatLedger.release(enrollment.getStudentDbId(), enrollment.getTeachingClassDbId());
+            rejected.increment();
+            throw new BusinessException(ResultCode.SERVICE_UNAVAILABLE, "选课请求过多，请稍后重试");
+        }
+        return request.future();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        worker.interrupt();
+        try {
+            worker.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        List<Request> batch = new ArrayList<>(maxBatch);
+        while (running || !queue.isEmpty()) {
+            try {
+                if (running) {
+                    batch.add(queue.take());
+                    collect(batch);
+                }
+                queue.drainTo(batch, maxBatch - batch.size());
+                write(batch);
+            } catch (InterruptedException e) {
+                // 停止时不再等待，写完已取出及队列中剩余的选课
+                queue.drainTo(batch, maxBatch - batch.size());
+                write(batch);
+            } catch (RuntimeException e) {
+                log.error("选课写线程异常", e);
+                batch.forEach(request -> fail(request, e));
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * 取到第一条后在 linger 时间内继续凑批，批满即止
+     */
+    private void collect(List<Request> batch) throws InterruptedException {
+        long start = System.nanoTime();
+        long deadline = start + lingerNanos;
+        while (batch.size() < maxBatch) {
+            if (queue.drainTo(batch, maxBatch - batch.size()) > 0) {
+                continue;
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                break;
+            }
+            Request request = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (request == null) {
+                break;
+            }
+            batch.add(request);
+        }
+        linger.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private void write(List<Request> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        batchSize.record(batch.size());
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (Request request : batch) {
+                    enrollmentMapper.insert(request.enrollment());
+                }
+            });
+            batch.forEach(this::succeed);
+        } catch (RuntimeException e) {
+            log.warn("批量写入选课失败，逐条重试: size={}, {}", batch.size(), e.getMessage());
+            for (Request request : batch) {
+                // 整批回滚后主键已回填，重试时由数据库重新分配
+                request.enrollment().setId(null);
+                try {
+                    transactionTemplate.executeWithoutResult(status -> enrollmentMapper.insert(request.enrollment()));
+                    succeed(request);
+                } catch (RuntimeException ex) {
+                    if (isEnrolled(request.enrollment())) {
+                        duplicate(request);
+                    } else {
+                        fail(request, ex);
+                    }
+                }
+            }
+        }
+    }
+
+    private boolean isEnrolled(Enrollment enrollment) {
+        try {
+            return enrollmentMapper.selectCount(new LambdaQueryWrapper<Enrollment>()
+                    .eq(Enrollment::getStudentDbId, enrollment.getStudentDbId())
+                    .eq(Enrollment::getTeachingClassDbId, enrollment.getTeachingClassDbId())) > 0;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    private void succeed(Request request) {
+        Enrollment enrollment = request.enrollment();
+        seatLedger.confirm(enrollment.getStudentDbId(), enrollment.getTeachingClassDbId());
+        request.future().complete(Outcome.ACCEPTED);
+    }
+
+    /**
+     * 库中已有该学生的选课（台账尚未对账到），座位确实被占用，保留
+     */
+    private void duplicate(Request request) {
+        Enrollment enrollment = request.enrollment();
+        seatLedger.confirm(enrollment.getStudentDbId(), enrollment.getTeachingClassDbId());
+        request.future().complete(Outcome.DUPLICATE);
+    }
+
+    private void fail(Request request, RuntimeException e) {
+        Enrollment enrollment = request.enrollment();
+        seatLedger.release(enrollment.getStudentDbId(), enrollment.getTeachingClassDbId());
+        request.future().completeExceptionally(e);
+    }
+
+    private record Request(Enrollment enrollment, CompletableFuture<Outcome> future) {
+    }
+}
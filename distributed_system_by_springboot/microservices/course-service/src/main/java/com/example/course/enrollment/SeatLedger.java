@@ -0,0 +1,369 @@
+package com.example.course.enrollment;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.example.common.entity.Enrollment;
+import com.example.common.entity.EntityChangeLog;
+import com.example.common.entity.TeachingClass;
+import com.example.course.mapper.EnrollmentMapper;
+import com.example.course.mapper.EntityChangeLogMapper;
+import com.example.course.mapper.TeachingClassMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 教学班座位台账
+ * 每个教学班一个原子计数器与已选学生集合，启动时由选课表装载。占座先把学生加入集合（重复选课在此拒绝），
+ * 再以 CAS 递增计数，计数已达容量时撤回，不加锁也不会超卖。占座后到写入数据库之前记为待确认，写入失败时释放。
+ * 其他服务对选课、教学班的修改通过 entity_change_log 定时对账：按数据库重建受影响教学班的已选学生，保留待确认的占座。
+ * 集合中每个学生带占座戳，对账只撤回读库之前就已存在且戳未变的条目，读库期间新占座（含释放后重新占座）的学生不受影响。
+ * 对账后仍有空位的教学班发布 {@link SeatsAvailableEvent}，由候补转正按队列顺序补位。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SeatLedger {
+
+    private static final int BATCH_SIZE = 1000;
+
+    private final TeachingClassMapper teachingClassMapper;
+    private final EnrollmentMapper enrollmentMapper;
+    private final EntityChangeLogMapper entityChangeLogMapper;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final ConcurrentHashMap<Long, ClassSeats> classes = new ConcurrentHashMap<>();
+
+    /**
+     * 占座戳，每次占座加一；从库中装载的学生为0
+     */
+    private final AtomicLong stamps = new AtomicLong();
+
+    private volatile boolean loaded;
+
+    private long appliedSeq;
+
+    /**
+     * 占座结果
+     */
+    public enum Reservation {
+        RESERVED, DUPLICATE, FULL, NOT_FOUND
+    }
+
+    /**
+     * 为学生占用教学班的一个座位
+     */
+    public Reservation reserve(Long studentDbId, Long teachingClassDbId) {
+        ClassSeats seats = seatsOf(teachingClassDbId);
+        if (seats == null) {
+            return Reservation.NOT_FOUND;
+        }
+        // 先登记待确认，对账在任何时刻都不会撤掉正在占座的学生
+        if (!seats.pending.add(studentDbId)) {
+            return Reservation.DUPLICATE;
+        }
+        Long stamp = stamps.incrementAndGet();
+        if (seats.students.putIfAbsent(studentDbId, stamp) != null) {
+            seats.pending.remove(studentDbId);
+            return Reservation.DUPLICATE;
+        }
+        int taken;
+        do {
+            taken = seats.taken.get();
+            if (taken >= seats.capacity) {
+                seats.pending.remove(studentDbId);
+                seats.students.remove(studentDbId, stamp);
+                return Reservation.FULL;
+            }
+        } while (!seats.taken.compareAndSet(taken, taken + 1));
+        return Reservation.RESERVED;
+    }
+
+    /**
+     * 占座已写入数据库
+     */
+    public void confirm(Long studentDbId, Long teachingClassDbId) {
+        ClassSeats seats = classes.get(teachingClassDbId);
+        if (seats != null) {
+            seats.pending.remove(studentDbId);
+        }
+    }
+
+    /**
+     * 释放座位：写入失败的占座，或已删除的选课
+     */
+    public void release(Long studentDbId, Long teachingClassDbId) {
+        ClassSeats seats = classes.get(teachingClassDbId);
+        if (seats == null) {
+            return;
+        }
+        seats.pending.remove(studentDbId);
+        if (seats.students.remove(studentDbId) != null) {
+            seats.taken.decrementAndGet();
+        }
+    }
+
+    /**
+     * 当前事务提交后释放座位，无事务时立即释放
+     */
+    public void releaseAfterCommit(Long studentDbId, Long teachingClassDbId) {
+        afterCommit(() -> release(studentDbId, teachingClassDbId));
+    }
+
+    /**
+     * 当前事务中写入的已占座选课：提交后确认，回滚后释放。
+     * 完成时按集合当时的内容处理，可在占座之前注册、之后逐条追加，中途抛出异常也不会遗留占座
+     */
+    public void settleOnCompletion(Collection<Enrollment> enrollments) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                for (Enrollment enrollment : enrollments) {
+                    if (status == STATUS_COMMITTED) {
+                        confirm(enrollment.getStudentDbId(), enrollment.getTeachingClassDbId());
+                    } else {
+                        release(enrollment.getStudentDbId(), enrollment.getTeachingClassDbId());
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * 当前事务提交后把座位从退课学生转给候补学生，已占座数不变，其间不会被其他学生占用
+     */
+    public void transferAfterCommit(Long fromStudentDbId, Long toStudentDbId, Long teachingClassDbId) {
+        afterCommit(() -> {
+            ClassSeats seats = classes.get(teachingClassDbId);
+            if (seats == null) {
+                return;
+            }
+            boolean removed = seats.students.remove(fromStudentDbId) != null;
+            boolean added = seats.students.putIfAbsent(toStudentDbId, stamps.incrementAndGet()) == null;
+            if (removed && !added) {
+                seats.taken.decrementAndGet();
+            } else if (!removed && added) {
+                seats.taken.incrementAndGet();
+            }
+        });
+    }
+
+    /**
+     * 学生是否已选（或正在选）该教学班
+     */
+    public boolean isEnrolled(Long studentDbId, Long teachingClassDbId) {
+        ClassSeats seats = seatsOf(teachingClassDbId);
+        return seats != null && seats.students.containsKey(studentDbId);
+    }
+
+    /**
+     * 当前事务提交后按数据库重新装载教学班（容量变化、删除等）
+     */
+    public void refreshAfterCommit(Long teachingClassDbId) {
+        afterCommit(() -> reconcile(List.of(teachingClassDbId)));
+    }
+
+    /**
+     * 剩余座位数，教学班不存在时为 -1
+     */
+    public int remaining(Long teachingClassDbId) {
+        ClassSeats seats = seatsOf(teachingClassDbId);
+        return seats == null ? -1 : Math.max(0, seats.capacity - seats.taken.get());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void init() {
+        try {
+            ensureLoaded();
+        } catch (RuntimeException e) {
+            log.warn("装载座位台账失败，首次选课时重试: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 定时对账：按实体变更日志重新装载受影响的教学班
+     */
+    @Scheduled(fixedDelay = 1000)
+    public synchronized void poll() {
+        if (!loaded) {
+            return;
+        }
+        try {
+            List<EntityChangeLog> changes;
+            do {
+                changes = entityChangeLogMapper.selectSince(appliedSeq, BATCH_SIZE);
+                Set<Long> teachingClassDbIds = new HashSet<>();
+                for (EntityChangeLog change : changes) {
+                    if ((EntityChangeLog.ENTITY_ENROLLMENT.equals(change.getEntity())
+                            || EntityChangeLog.ENTITY_TEACHING_CLASS.equals(change.getEntity()))
+                            && change.getTeachingClassDbId() != null) {
+                        teachingClassDbIds.add(change.getTeachingClassDbId());
+                    }
+                }
+                reconcile(teachingClassDbIds);
+                if (!changes.isEmpty()) {
+                    appliedSeq = changes.get(changes.size() - 1).getSeq();
+                }
+            } while (changes.size() == BATCH_SIZE);
+        } catch (RuntimeException e) {
+            log.warn("座位台账对账失败，下次重试: {}", e.getMessage());
+        }
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        synchronized (this) {
+            if (!loaded) {
+                load();
+            }
+        }
+    }
+
+    /**
+     * 装载全部教学班容量与已选学生，日志位置在读表之前记录，装载期间的变更会再对账一次
+     */
+    private void load() {
+        long startSeq = entityChangeLogMapper.selectMaxSeq();
+        List<TeachingClass> teachingClasses = teachingClassMapper.selectList(new LambdaQueryWrapper<TeachingClass>()
+                .select(TeachingClass::getId, TeachingClass::getCapacity));
+        for (TeachingClass teachingClass : teachingClasses) {
+            classes.put(teachingClass.getId(), new ClassSeats(capacityOf(teachingClass)));
+        }
+        List<Enrollment> enrollments = enrollmentMapper.selectList(new LambdaQueryWrapper<Enrollment>()
+                .select(Enrollment::getStudentDbId, Enrollment::getTeachingClassDbId));
+        for (Enrollment enrollment : enrollments) {
+            ClassSeats seats = classes.get(enrollment.getTeachingClassDbId());
+            if (seats != null && seats.students.putIfAbsent(enrollment.getStudentDbId(), 0L) == null) {
+                seats.taken.incrementAndGet();
+            }
+        }
+        appliedSeq = startSeq;
+        loaded = true;
+        log.info("装载座位台账: classes={}, enrollments={}", teachingClasses.size(), enrollments.size());
+    }
+
+    private ClassSeats seatsOf(Long teachingClassDbId) {
+        ensureLoaded();
+        ClassSeats seats = classes.get(teachingClassDbId);
+        if (seats != null) {
+            return seats;
+        }
+        // 装载之后新建的教学班
+        return classes.computeIfAbsent(teachingClassDbId, id -> {
+            TeachingClass teachingClass = teachingClassMapper.selectById(id);
+            if (teachingClass == null) {
+                return null;
+            }
+            ClassSeats loadedSeats = new ClassSeats(capacityOf(teachingClass));
+            for (Long studentDbId : selectStudents(id)) {
+                loadedSeats.students.putIfAbsent(studentDbId, 0L);
+            }
+            loadedSeats.taken.set(loadedSeats.students.size());
+            return loadedSeats;
+        });
+    }
+
+    /**
+     * 按数据库重建教学班的容量与已选学生。
+     * 读表之前依次记录已选学生（含占座戳）与待确认学生：只撤回快照中戳未变、读表前后都不是待确认、且库中没有的学生。
+     * 快照中非待确认的学生已在读表前提交，库中没有说明已被删除；读表之后的新占座不在快照中或戳已变化，不会被撤回。
+     * 结束后对仍有空位的教学班发布事件，以便候补学生补位
+     */
+    private void reconcile(Collection<Long> teachingClassDbIds) {
+        Set<Long> available = new HashSet<>();
+        for (Long teachingClassDbId : teachingClassDbIds) {
+            ClassSeats seats = classes.get(teachingClassDbId);
+            if (seats == null) {
+                continue;
+            }
+            TeachingClass teachingClass = teachingClassMapper.selectById(teachingClassDbId);
+            if (teachingClass == null) {
+                classes.remove(teachingClassDbId);
+                continue;
+            }
+            // 占座先登记待确认再加入集合，已选学生须先于待确认学生记录
+            Map<Long, Long> studentsBefore = new HashMap<>(seats.students);
+            Set<Long> pendingBefore = new HashSet<>(seats.pending);
+            Set<Long> persisted = new HashSet<>(selectStudents(teachingClassDbId));
+            seats.capacity = capacityOf(teachingClass);
+            for (Long studentDbId : persisted) {
+                if (seats.students.putIfAbsent(studentDbId, 0L) == null) {
+                    seats.taken.incrementAndGet();
+                }
+            }
+            for (Map.Entry<Long, Long> entry : studentsBefore.entrySet()) {
+                Long studentDbId = entry.getKey();
+                if (!persisted.contains(studentDbId) && !pendingBefore.contains(studentDbId)
+                        && !seats.pending.contains(studentDbId) && seats.students.remove(studentDbId, entry.getValue())) {
+                    seats.taken.decrementAndGet();
+                }
+            }
+            if (seats.taken.get() < seats.capacity) {
+                available.add(teachingClassDbId);
+            }
+        }
+        if (!available.isEmpty()) {
+            eventPublisher.publishEvent(new SeatsAvailableEvent(available));
+        }
+    }
+
+    private List<Long> selectStudents(Long teachingClassDbId) {
+        return enrollmentMapper.selectList(new LambdaQueryWrapper<Enrollment>()
+                        .select(Enrollment::getStudentDbId)
+                        .eq(Enrollment::getTeachingClassDbId, teachingClassDbId))
+                .stream().map(Enrollment::getStudentDbId).toList();
+    }
+
+    private static int capacityOf(TeachingClass teachingClass) {
+        return teachingClass.getCapacity() == null ? Integer.MAX_VALUE : teachingClass.getCapacity();
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * 单个教学班的座位
+     */
+    private static final class ClassSeats {
+
+        private final AtomicInteger taken = new AtomicInteger();
+
+        /**
+         * 已选（含待确认）学生 -> 占座戳
+         */
+        private final ConcurrentHashMap<Long, Long> students = new ConcurrentHashMap<>();
+
+        /**
+         * 已占座尚未写入数据库的学生
+         */
+        private final Set<Long> pending = ConcurrentHashMap.newKeySet();
+
+        private volatile int capacity;
+
+        private ClassSeats(int capacity) {
+            this.capacity = capacity;
+        }
+    }
+}
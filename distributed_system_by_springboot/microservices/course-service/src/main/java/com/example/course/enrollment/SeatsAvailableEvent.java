@@ -0,0 +1,11 @@
+package com.example.course.enrollment;
+
+import java.util.Set;
+
+/**
+ * 座位台账对账后仍有空位事件（容量调大、其他服务退课等），由候补转正处理
+ *
+ * @param teachingClassDbIds 对账后有空位的教学班
+ */
+public record SeatsAvailableEvent(Set<Long> teachingClassDbIds) {
+}
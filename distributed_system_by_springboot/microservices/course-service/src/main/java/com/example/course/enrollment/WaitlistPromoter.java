@@ -0,0 +1,160 @@
+package com.example.course.enrollment;
+
+import com.example.common.entity.Enrollment;
+import com.example.course.mapper.EnrollmentMapper;
+import com.example.course.mapper.StudentMapper;
+import com.example.course.schedule.ScheduleIndex;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 候补转正
+ * 退课时在退课事务中把座位直接交给队首；容量调大、其他服务退课等由座位台账对账发现的空位，
+ * 按队列顺序逐个补位，每个学生一个独立事务。选课服务在队列非空时不再直接选课，空位只由候补按顺序补上。
+ */
+@Slf4j
+@Component
+public class WaitlistPromoter {
+
+    private final EnrollmentMapper enrollmentMapper;
+    private final StudentMapper studentMapper;
+    private final SeatLedger seatLedger;
+    private final WaitlistQueue waitlistQueue;
+    private final ScheduleIndex scheduleIndex;
+
+    /**
+     * 补位可能在其他事务提交后的回调中执行，总是开启新事务
+     */
+    private final TransactionTemplate requiresNew;
+
+    public WaitlistPromoter(EnrollmentMapper enrollmentMapper,
+                            StudentMapper studentMapper,
+                            SeatLedger seatLedger,
+                            WaitlistQueue waitlistQueue,
+                            ScheduleIndex scheduleIndex,
+                            PlatformTransactionManager transactionManager) {
+        this.enrollmentMapper = enrollmentMapper;
+        this.studentMapper = studentMapper;
+        this.seatLedger = seatLedger;
+        this.waitlistQueue = waitlistQueue;
+        this.scheduleIndex = scheduleIndex;
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * 退课后释放座位：候补队列非空时在当前事务中把队首转为选课，座位直接交给候补学生，否则提交后归还台账。
+     * 转正学生的冲突检查到登记选课期间持有其选课锁，与该学生同时进行的选课互斥；取出后在锁内复查不通过的跳过，继续取下一位。
+     * 须在本事务删除选课之后调用
+     */
+    public void promoteOnDrop(Long droppedStudentDbId, Long teachingClassDbId) {
+        while (true) {
+            Long promoted = waitlistQueue.promote(teachingClassDbId,
+                    candidate -> isEligible(candidate, teachingClassDbId)
+                            && !seatLedger.isEnrolled(candidate, teachingClassDbId));
+            if (promoted == null) {
+                seatLedger.releaseAfterCommit(droppedStudentDbId, teachingClassDbId);
+                return;
+            }
+            synchronized (scheduleIndex.studentGuard(promoted)) {
+                if (!isEligible(promoted, teachingClassDbId)) {
+                    log.info("候补学生不再满足条件，移出队列: student={}, class={}", promoted, teachingClassDbId);
+                    continue;
+                }
+                enrollmentMapper.insert(newEnrollment(promoted, teachingClassDbId));
+                // 事务结束后按数据库重新装载，回滚时撤回此处的登记
+                scheduleIndex.refreshAfterCompletion(teachingClassDbId);
+                scheduleIndex.addEnrollment(promoted, teachingClassDbId);
+            }
+            seatLedger.transferAfterCommit(droppedStudentDbId, promoted, teachingClassDbId);
+            log.info("候补转为选课: student={}, class={}", promoted, teachingClassDbId);
+            return;
+        }
+    }
+
+    /**
+     * 座位台账对账后仍有空位的教学班，由候补补位
+     */
+    @EventListener
+    public void onSeatsAvailable(SeatsAvailableEvent event) {
+        for (Long teachingClassDbId : event.teachingClassDbIds()) {
+            fillVacancies(teachingClassDbId);
+        }
+    }
+
+    /**
+     * 按队列顺序把候补学生转为选课，直到没有空位或队列为空。
+     * 占座经座位台账，与同时进行的批量选课竞争时不会超额；失败时本次停止，留待下次对账
+     */
+    public synchronized void fillVacancies(Long teachingClassDbId) {
+        while (seatLedger.remaining(teachingClassDbId) > 0) {
+            Long candidate = waitlistQueue.peek(teachingClassDbId);
+            if (candidate == null) {
+                return;
+            }
+            try {
+                // 与该学生的选课请求互斥，冲突检查后不会被同时选上的其他教学班打破
+                synchronized (scheduleIndex.studentGuard(candidate)) {
+                    if (!Boolean.TRUE.equals(requiresNew.execute(status -> fill(candidate, teachingClassDbId)))) {
+                        return;
+                    }
+                }
+            } catch (RuntimeException e) {
+                log.warn("候补补位失败，下次对账重试: student={}, class={}, {}", candidate, teachingClassDbId, e.getMessage());
+                return;
+            }
+        }
+    }
+
+    /**
+     * 在当前事务中为队首学生补位
+     *
+     * @return 是否继续处理下一位候补
+     */
+    private boolean fill(Long candidate, Long teachingClassDbId) {
+        if (!isEligible(candidate, teachingClassDbId)) {
+            waitlistQueue.take(candidate, teachingClassDbId);
+            log.info("候补学生不再满足条件，移出队列: student={}, class={}", candidate, teachingClassDbId);
+            return true;
+        }
+        switch (seatLedger.reserve(candidate, teachingClassDbId)) {
+            case RESERVED -> {
+            }
+            case DUPLICATE -> {
+                // 已经选上，不再候补
+                waitlistQueue.take(candidate, teachingClassDbId);
+                return true;
+            }
+            default -> {
+                return false;
+            }
+        }
+        Enrollment enrollment = newEnrollment(candidate, teachingClassDbId);
+        seatLedger.settleOnCompletion(List.of(enrollment));
+        enrollmentMapper.insert(enrollment);
+        waitlistQueue.take(candidate, teachingClassDbId);
+        scheduleIndex.refreshAfterCommit(teachingClassDbId);
+        log.info("候补补位: student={}, class={}", candidate, teachingClassDbId);
+        return true;
+    }
+
+    private boolean isEligible(Long studentDbId, Long teachingClassDbId) {
+        return studentMapper.selectById(studentDbId) != null
+                && scheduleIndex.findStudentConflict(studentDbId, teachingClassDbId) == null;
+    }
+
+    private static Enrollment newEnrollment(Long studentDbId, Long teachingClassDbId) {
+        Enrollment enrollment = new Enrollment();
+        enrollment.setStudentDbId(studentDbId);
+        enrollment.setTeachingClassDbId(teachingClassDbId);
+        enrollment.setEnrollTime(LocalDateTime.now());
+        return enrollment;
+    }
+}
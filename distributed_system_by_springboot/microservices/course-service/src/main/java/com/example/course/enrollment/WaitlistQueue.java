@@ -0,0 +1,314 @@
+package com.example.course.enrollment;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.example.common.entity.WaitlistEntry;
+import com.example.course.mapper.WaitlistEntryMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * 选课候补队列
+ * 每个教学班一个先进先出队列，持久化在 enrollment_waitlist，首次使用时按主键顺序装载。
+ * 队列中每个学生持有连续编号，位次为编号与队首编号之差，加入与查询位次都是 O(1)，不查询数据库；
+ * 中途退出候补时其后的编号依次前移。
+ * 退课时在同一事务中取出队首并删除候补记录，事务回滚时按数据库重新装载该教学班的队列。
+ * 队列非空时新的选课一律转为候补，空出的座位只由队首依次补上。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class WaitlistQueue {
+
+    private final WaitlistEntryMapper waitlistEntryMapper;
+
+    private final ConcurrentHashMap<Long, ClassQueue> queues = new ConcurrentHashMap<>();
+
+    private volatile boolean loaded;
+
+    /**
+     * 加入候补，已在队列中时直接返回当前位次
+     *
+     * @return 位次，从1开始
+     */
+    public int join(Long studentDbId, Long teachingClassDbId) {
+        ClassQueue queue = queueOf(teachingClassDbId);
+        int position = position(queue, studentDbId);
+        if (position > 0) {
+            return position;
+        }
+        // 写库不持有队列锁：退课事务已持有数据库写锁时还要取队列锁
+        WaitlistEntry entry = new WaitlistEntry();
+        entry.setStudentDbId(studentDbId);
+        entry.setTeachingClassDbId(teachingClassDbId);
+        try {
+            waitlistEntryMapper.insert(entry);
+        } catch (RuntimeException e) {
+            // 同一学生并发加入，由唯一索引拒绝
+            position = position(queue, studentDbId);
+            if (position > 0) {
+                return position;
+            }
+            throw e;
+        }
+        synchronized (queue) {
+            return queue.add(studentDbId);
+        }
+    }
+
+    /**
+     * 候补位次，不在队列中时为0
+     */
+    public int position(Long studentDbId, Long teachingClassDbId) {
+        ensureLoaded();
+        ClassQueue queue = queues.get(teachingClassDbId);
+        return queue == null ? 0 : position(queue, studentDbId);
+    }
+
+    /**
+     * 候补人数
+     */
+    public int size(Long teachingClassDbId) {
+        ensureLoaded();
+        ClassQueue queue = queues.get(teachingClassDbId);
+        if (queue == null) {
+            return 0;
+        }
+        synchronized (queue) {
+            return queue.order.size();
+        }
+    }
+
+    /**
+     * 队首学生，队列为空时为 null
+     */
+    public Long peek(Long teachingClassDbId) {
+        ensureLoaded();
+        ClassQueue queue = queues.get(teachingClassDbId);
+        if (queue == null) {
+            return null;
+        }
+        synchronized (queue) {
+            return queue.order.peekFirst();
+        }
+    }
+
+    /**
+     * 在当前事务中把学生移出候补（已转为选课或不再满足条件），事务回滚时按数据库重新装载该教学班的队列。
+     * 写库不持有队列锁，可在事务的任意位置调用
+     */
+    public void take(Long studentDbId, Long teachingClassDbId) {
+        ensureLoaded();
+        ClassQueue queue = queues.get(teachingClassDbId);
+        if (queue == null) {
+            return;
+        }
+        waitlistEntryMapper.delete(entryWrapper(studentDbId, teachingClassDbId));
+        synchronized (queue) {
+            queue.remove(studentDbId);
+        }
+        reloadOnRollback(teachingClassDbId);
+    }
+
+    /**
+     * 退出候补
+     */
+    public boolean leave(Long studentDbId, Long teachingClassDbId) {
+        ensureLoaded();
+        ClassQueue queue = queues.get(teachingClassDbId);
+        if (queue == null) {
+            return false;
+        }
+        if (position(queue, studentDbId) == 0) {
+            return false;
+        }
+        waitlistEntryMapper.delete(entryWrapper(studentDbId, teachingClassDbId));
+        synchronized (queue) {
+            queue.remove(studentDbId);
+        }
+        return true;
+    }
+
+    /**
+     * 在当前事务中取出第一个满足条件的候补学生并删除其候补记录，不满足条件的候补一并移出队列。
+     * 调用前事务须已写过数据库（持有写锁），持有队列锁期间不会再等待其他写事务
+     *
+     * @return 转为选课的学生ID，队列为空时为 null
+     */
+    public Long promote(Long teachingClassDbId, Predicate<Long> eligible) {
+        ensureLoaded();
+        ClassQueue queue = queues.get(teachingClassDbId);
+        if (queue == null) {
+            return null;
+        }
+        synchronized (queue) {
+            Long studentDbId;
+            boolean touched = false;
+            try {
+                while ((studentDbId = queue.poll()) != null) {
+                    touched = true;
+                    waitlistEntryMapper.delete(entryWrapper(studentDbId, teachingClassDbId));
+                    if (eligible.test(studentDbId)) {
+                        return studentDbId;
+                    }
+                    log.info("候补学生不再满足条件，移出队列: student={}, class={}", studentDbId, teachingClassDbId);
+                }
+                return null;
+            } finally {
+                if (touched) {
+                    reloadOnRollback(teachingClassDbId);
+                }
+            }
+        }
+    }
+
+    /**
+     * 删除教学班的全部候补，当前事务提交后清除内存队列
+     */
+    public void evict(Long teachingClassDbId) {
+        waitlistEntryMapper.delete(new LambdaQueryWrapper<WaitlistEntry>()
+                .eq(WaitlistEntry::getTeachingClassDbId, teachingClassDbId));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    queues.remove(teachingClassDbId);
+                }
+            });
+        } else {
+            queues.remove(teachingClassDbId);
+        }
+    }
+
+    private ClassQueue queueOf(Long teachingClassDbId) {
+        ensureLoaded();
+        return queues.computeIfAbsent(teachingClassDbId, id -> new ClassQueue());
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        synchronized (this) {
+            if (!loaded) {
+                List<WaitlistEntry> entries = waitlistEntryMapper.selectList(new LambdaQueryWrapper<WaitlistEntry>()
+                        .orderByAsc(WaitlistEntry::getId));
+                for (WaitlistEntry entry : entries) {
+                    queues.computeIfAbsent(entry.getTeachingClassDbId(), id -> new ClassQueue()).add(entry.getStudentDbId());
+                }
+                loaded = true;
+                log.info("装载选课候补队列: classes={}, entries={}", queues.size(), entries.size());
+            }
+        }
+    }
+
+    /**
+     * 事务回滚时候补记录未删除，按数据库重建该教学班的队列
+     */
+    private void reloadOnRollback(Long teachingClassDbId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    reload(teachingClassDbId);
+                }
+            }
+        });
+    }
+
+    private void reload(Long teachingClassDbId) {
+        List<WaitlistEntry> entries = waitlistEntryMapper.selectList(new LambdaQueryWrapper<WaitlistEntry>()
+                .eq(WaitlistEntry::getTeachingClassDbId, teachingClassDbId)
+                .orderByAsc(WaitlistEntry::getId));
+        ClassQueue queue = queueOf(teachingClassDbId);
+        synchronized (queue) {
+            queue.clear();
+            for (WaitlistEntry entry : entries) {
+                queue.add(entry.getStudentDbId());
+            }
+        }
+    }
+
+    private static int position(ClassQueue queue, Long studentDbId) {
+        synchronized (queue) {
+            return queue.position(studentDbId);
+        }
+    }
+
+    private static LambdaQueryWrapper<WaitlistEntry> entryWrapper(Long studentDbId, Long teachingClassDbId) {
+        return new LambdaQueryWrapper<WaitlistEntry>()
+                .eq(WaitlistEntry::getStudentDbId, studentDbId)
+                .eq(WaitlistEntry::getTeachingClassDbId, teachingClassDbId);
+    }
+
+    /**
+     * 单个教学班的候补队列，由调用方在队列对象上同步
+     */
+    private static final class ClassQueue {
+
+        private final ArrayDeque<Long> order = new ArrayDeque<>();
+
+        /**
+         * 学生的排队编号，队列内连续
+         */
+        private final Map<Long, Long> tickets = new HashMap<>();
+
+        private long headTicket;
+
+        private long nextTicket;
+
+        int add(Long studentDbId) {
+            if (tickets.containsKey(studentDbId)) {
+                return position(studentDbId);
+            }
+            long ticket = nextTicket++;
+            tickets.put(studentDbId, ticket);
+            order.addLast(studentDbId);
+            return (int) (ticket - headTicket + 1);
+        }
+
+        int position(Long studentDbId) {
+            Long ticket = tickets.get(studentDbId);
+            return ticket == null ? 0 : (int) (ticket - headTicket + 1);
+        }
+
+        Long poll() {
+            Long studentDbId = order.pollFirst();
+            if (studentDbId != null) {
+                tickets.remove(studentDbId);
+                headTicket++;
+            }
+            return studentDbId;
+        }
+
+        void remove(Long studentDbId) {
+            Long removed = tickets.remove(studentDbId);
+            if (removed == null) {
+                return;
+            }
+            order.remove(studentDbId);
+            for (Map.Entry<Long, Long> entry : tickets.entrySet()) {
+                if (entry.getValue() > removed) {
+                    entry.setValue(entry.getValue() - 1);
+                }
+            }
+            nextTicket--;
+        }
+
+        void clear() {
+            order.clear();
+            tickets.clear();
+            headTicket = 0;
+            nextTicket = 0;
+        }
+    }
+}
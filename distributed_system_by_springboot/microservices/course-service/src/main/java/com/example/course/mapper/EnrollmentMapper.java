@@ -2,11 +2,35 @@ package com.example.course.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.example.common.entity.Enrollment;
+import com.example.course.enrollment.ClassSeatCount;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.Collection;
+import java.util.List;
 
 /**
  * 选课Mapper
  */
 @Mapper
 public interface EnrollmentMapper extends BaseMapper<Enrollment> {
+    
+    /**
+     * 一组教学班的容量与已选人数，不存在的教学班不返回
+     */
+    @Select("<script>SELECT tc.id AS teaching_class_db_id, tc.capacity, COUNT(e.id) AS enrolled FROM teaching_class tc " +
+            "LEFT JOIN enrollment e ON e.teaching_class_db_id = tc.id AND e.deleted = 0 " +
+            "WHERE tc.deleted = 0 AND tc.id IN " +
+            "<foreach collection='teachingClassDbIds' item='id' open='(' separator=',' close=')'>#{id}</foreach> " +
+            "GROUP BY tc.id</script>")
+    List<ClassSeatCount> selectSeatCounts(@Param("teachingClassDbIds") Collection<Long> teachingClassDbIds);
+    
+    /**
+     * 多行插入选课，选课时间等由数据库默认值填充
+     */
+    @Insert("<script>INSERT INTO enrollment (student_db_id, teaching_class_db_id) VALUES " +
+            "<foreach collection='enrollments' item='e' separator=','>(#{e.studentDbId}, #{e.teachingClassDbId})</foreach></script>")
+    int insertBatch(@Param("enrollments") List<Enrollment> enrollments);
 }
@@ -0,0 +1,28 @@
+package com.example.course.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.example.common.entity.EntityChangeLog;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.List;
+
+/**
+ * 实体变更日志Mapper
+ */
+@Mapper
+public interface EntityChangeLogMapper extends BaseMapper<EntityChangeLog> {
+    
+    /**
+     * 按序号顺序读取 since 之后的变更
+     */
+    @Select("SELECT * FROM entity_change_log WHERE seq > #{since} ORDER BY seq LIMIT #{limit}")
+    List<EntityChangeLog> selectSince(@Param("since") long since, @Param("limit") int limit);
+    
+    /**
+     * 当前最大序号，无记录时为0
+     */
+    @Select("SELECT COALESCE(MAX(seq), 0) FROM entity_change_log")
+    long selectMaxSeq();
+}
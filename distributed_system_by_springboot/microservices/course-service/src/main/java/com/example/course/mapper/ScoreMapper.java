@@ -2,11 +2,54 @@ package com.example.course.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.example.common.entity.Score;
+import org.apache.ibatis.annotations.Delete;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Update;
+
+import java.util.Collection;
 
 /**
  * 成绩Mapper（用于级联删除）
  */
 @Mapper
 public interface ScoreMapper extends BaseMapper<Score> {
+    
+    /**
+     * 使学生成绩汇总失效，由成绩服务在下次查询时重建
+     */
+    @Delete("DELETE FROM student_transcript_summary WHERE student_db_id = #{studentDbId}")
+    int deleteTranscriptSummary(@Param("studentDbId") Long studentDbId);
+    
+    /**
+     * 使教学班内学生的成绩汇总失效，由成绩服务在下次查询时重建
+     */
+    @Delete("DELETE FROM student_transcript_summary WHERE student_db_id IN " +
+            "(SELECT student_db_id FROM score WHERE teaching_class_db_id = #{teachingClassDbId})")
+    int deleteTranscriptSummaryByClass(@Param("teachingClassDbId") Long teachingClassDbId);
+    
+    /**
+     * 使修读该课程的学生成绩汇总失效（如学分变更），由成绩服务在下次查询时重建
+     */
+    @Delete("DELETE FROM student_transcript_summary WHERE student_db_id IN " +
+            "(SELECT s.student_db_id FROM score s JOIN teaching_class tc ON tc.id = s.teaching_class_db_id " +
+            "WHERE tc.course_db_id = #{courseDbId})")
+    int deleteTranscriptSummaryByCourse(@Param("courseDbId") Long courseDbId);
+    
+    /**
+     * 软删除一组选课记录对应的成绩，需在删除选课记录之前执行
+     */
+    @Update("<script>UPDATE score SET deleted = 1, update_time = datetime('now', 'localtime') " +
+            "WHERE deleted = 0 AND (student_db_id, teaching_class_db_id) IN " +
+            "(SELECT student_db_id, teaching_class_db_id FROM enrollment WHERE deleted = 0 AND id IN " +
+            "<foreach collection='enrollmentIds' item='id' open='(' separator=',' close=')'>#{id}</foreach>)</script>")
+    int deleteByEnrollmentIds(@Param("enrollmentIds") Collection<Long> enrollmentIds);
+    
+    /**
+     * 使一组选课记录所属学生的成绩汇总失效
+     */
+    @Delete("<script>DELETE FROM student_transcript_summary WHERE student_db_id IN " +
+            "(SELECT student_db_id FROM enrollment WHERE id IN " +
+            "<foreach collection='enrollmentIds' item='id' open='(' separator=',' close=')'>#{id}</foreach>)</script>")
+    int deleteTranscriptSummaryByEnrollmentIds(@Param("enrollmentIds") Collection<Long> enrollmentIds);
 }
@@ -0,0 +1,12 @@
+package com.example.course.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.example.common.entity.WaitlistEntry;
+import org.apache.ibatis.annotations.Mapper;
+
+/**
+ * 选课候补Mapper
+ */
+@Mapper
+public interface WaitlistEntryMapper extends BaseMapper<WaitlistEntry> {
+}
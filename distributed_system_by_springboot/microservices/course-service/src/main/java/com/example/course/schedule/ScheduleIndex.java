@@ -0,0 +1,517 @@
+package com.example.course.schedule;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.example.common.entity.Enrollment;
+import com.example.common.entity.EntityChangeLog;
+import com.example.common.entity.TeachingClass;
+import com.example.common.vo.ScheduleConflictVO;
+import com.example.course.mapper.EnrollmentMapper;
+import com.example.course.mapper.EntityChangeLogMapper;
+import com.example.course.mapper.TeachingClassMapper;
+import com.example.course.schedule.WeeklySchedule.Interval;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 上课时间冲突索引
+ * 按学期为每个学生（已选教学班）与每个教室（排在该教室的教学班）维护一组按开始时间排序的上课区间，
+ * 选课与新建教学班时检查冲突为 O(log n + k)：集合记录最长区间长度，与新区间重叠的区间必然开始于
+ * [新区间开始 - 最长长度, 新区间结束) 内，只扫描这一段（k 为其中的区间数）；索引内允许存在重叠（检查生效前已存在的重叠、
+ * 其他服务直接写库），不影响结果，已存在的重叠由冲突报告列出。
+ * 同一学生的冲突检查与选课写入须持有 {@link #studentGuard(Long)}，否则时间重叠的两个教学班可能同时通过检查。
+ * 启动时由教学班与选课表装载，其他服务的修改通过 entity_change_log 定时按教学班重新装载。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ScheduleIndex {
+
+    private static final int BATCH_SIZE = 1000;
+
+    private static final int STUDENT_GUARD_STRIPES = 64;
+
+    private final TeachingClassMapper teachingClassMapper;
+    private final EnrollmentMapper enrollmentMapper;
+    private final EntityChangeLogMapper entityChangeLogMapper;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<Long, ClassEntry> classes = new HashMap<>();
+
+    /**
+     * 学期#学生ID -> 已选教学班的上课区间
+     */
+    private final Map<String, IntervalSet> byStudent = new HashMap<>();
+
+    /**
+     * 学期#教室 -> 排在该教室的教学班的上课区间
+     */
+    private final Map<String, IntervalSet> byClassroom = new HashMap<>();
+
+    private final Object[] studentGuards = newGuards(STUDENT_GUARD_STRIPES);
+
+    private volatile boolean loaded;
+
+    private long appliedSeq;
+
+    /**
+     * 索引中的教学班
+     */
+    public record ClassEntry(Long id, String classId, String semester, String classroom, String scheduleTime,
+                             List<Interval> intervals, Set<Long> students) {
+    }
+
+    /**
+     * 学生的选课锁（按学生ID分段），冲突检查到登记选课期间持有
+     */
+    public Object studentGuard(Long studentDbId) {
+        return studentGuards[Math.floorMod(studentDbId.hashCode(), studentGuards.length)];
+    }
+
+    /**
+     * 学生选该教学班时与其已选教学班的冲突，无冲突时为 null
+     */
+    public ClassEntry findStudentConflict(Long studentDbId, Long teachingClassDbId) {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            ClassEntry entry = classes.get(teachingClassDbId);
+            if (entry == null) {
+                return null;
+            }
+            return findOverlap(byStudent.get(studentKey(entry.semester(), studentDbId)), entry.intervals(), entry.id());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 教学班排在该教室该时间时与其他教学班的冲突，无冲突时为 null
+     *
+     * @param excludeClassDbId 修改教学班时排除其自身，新建时为 null
+     */
+    public ClassEntry findClassroomConflict(String semester, String classroom, String scheduleTime, Long excludeClassDbId) {
+        if (!StringUtils.hasText(classroom)) {
+            return null;
+        }
+        List<Interval> intervals = WeeklySchedule.parse(scheduleTime);
+        if (intervals.isEmpty()) {
+            return null;
+        }
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            return findOverlap(byClassroom.get(roomKey(semester, classroom)), intervals, excludeClassDbId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 同一学期的两个教学班上课时间是否重叠
+     */
+    public boolean overlaps(Long firstClassDbId, Long secondClassDbId) {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            ClassEntry first = classes.get(firstClassDbId);
+            ClassEntry second = classes.get(secondClassDbId);
+            if (first == null || second == null || !Objects.equals(first.semester(), second.semester())) {
+                return false;
+            }
+            for (Interval a : first.intervals()) {
+                for (Interval b : second.intervals()) {
+                    if (a.overlaps(b)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 选课写入后立即登记，不等定时对账
+     */
+    public void addEnrollment(Long studentDbId, Long teachingClassDbId) {
+        ensureLoaded();
+        lock.writeLock().lock();
+        try {
+            ClassEntry entry = classes.get(teachingClassDbId);
+            if (entry != null && entry.students().add(studentDbId)) {
+                addSlots(byStudent, studentKey(entry.semester(), studentDbId), entry);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 当前事务提交后按数据库重新装载教学班，无事务时立即装载
+     */
+    public void refreshAfterCommit(Long teachingClassDbId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            refresh(List.of(teachingClassDbId));
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                refresh(List.of(teachingClassDbId));
+            }
+        });
+    }
+
+    /**
+     * 当前事务结束（提交或回滚）后按数据库重新装载教学班，无事务时立即装载。
+     * 事务中已经 {@link #addEnrollment} 登记的选课在回滚后随之撤回
+     */
+    public void refreshAfterCompletion(Long teachingClassDbId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            refresh(List.of(teachingClassDbId));
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                refresh(List.of(teachingClassDbId));
+            }
+        });
+    }
+
+    /**
+     * 学期内全部教室冲突与学生冲突：每个学生、教室的区间排序后扫描一遍，O(n log n + 冲突数)
+     */
+    public List<ScheduleConflictVO> conflicts(String semester) {
+        ensureLoaded();
+        Map<String, List<Slot>> rooms = new HashMap<>();
+        Map<Long, List<Slot>> students = new HashMap<>();
+        List<ScheduleConflictVO> result = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (ClassEntry entry : classes.values()) {
+                if (!Objects.equals(entry.semester(), semester)) {
+                    continue;
+                }
+                for (Interval interval : entry.intervals()) {
+                    Slot slot = new Slot(interval, entry.id());
+                    if (StringUtils.hasText(entry.classroom())) {
+                        rooms.computeIfAbsent(entry.classroom(), key -> new ArrayList<>()).add(slot);
+                    }
+                    for (Long studentDbId : entry.students()) {
+                        students.computeIfAbsent(studentDbId, key -> new ArrayList<>()).add(slot);
+                    }
+                }
+            }
+            rooms.forEach((classroom, slots) -> sweep(slots, (first, second) -> {
+                ScheduleConflictVO vo = conflict(ScheduleConflictVO.TYPE_CLASSROOM, first, second);
+                vo.setClassroom(classroom);
+                result.add(vo);
+            }));
+            students.forEach((studentDbId, slots) -> sweep(slots, (first, second) -> {
+                ScheduleConflictVO vo = conflict(ScheduleConflictVO.TYPE_STUDENT, first, second);
+                vo.setStudentDbId(studentDbId);
+                result.add(vo);
+            }));
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void init() {
+        try {
+            ensureLoaded();
+        } catch (RuntimeException e) {
+            log.warn("装载上课时间索引失败，首次使用时重试: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 定时对账：按实体变更日志重新装载受影响的教学班
+     */
+    @Scheduled(fixedDelay = 1000)
+    public synchronized void poll() {
+        if (!loaded) {
+            return;
+        }
+        try {
+            List<EntityChangeLog> changes;
+            do {
+                changes = entityChangeLogMapper.selectSince(appliedSeq, BATCH_SIZE);
+                Set<Long> teachingClassDbIds = new HashSet<>();
+                for (EntityChangeLog change : changes) {
+                    if ((EntityChangeLog.ENTITY_ENROLLMENT.equals(change.getEntity())
+                            || EntityChangeLog.ENTITY_TEACHING_CLASS.equals(change.getEntity()))
+                            && change.getTeachingClassDbId() != null) {
+                        teachingClassDbIds.add(change.getTeachingClassDbId());
+                    }
+                }
+                refresh(teachingClassDbIds);
+                if (!changes.isEmpty()) {
+                    appliedSeq = changes.get(changes.size() - 1).getSeq();
+                }
+            } while (changes.size() == BATCH_SIZE);
+        } catch (RuntimeException e) {
+            log.warn("上课时间索引对账失败，下次重试: {}", e.getMessage());
+        }
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        synchronized (this) {
+            if (loaded) {
+                return;
+            }
+            long startSeq = entityChangeLogMapper.selectMaxSeq();
+            List<TeachingClass> teachingClasses = teachingClassMapper.selectList(null);
+            Map<Long, Set<Long>> studentsByClass = new HashMap<>();
+            for (Enrollment enrollment : enrollmentMapper.selectList(new LambdaQueryWrapper<Enrollment>()
+                    .select(Enrollment::getStudentDbId, Enrollment::getTeachingClassDbId))) {
+                studentsByClass.computeIfAbsent(enrollment.getTeachingClassDbId(), id -> new HashSet<>())
+                        .add(enrollment.getStudentDbId());
+            }
+            lock.writeLock().lock();
+            try {
+                for (TeachingClass teachingClass : teachingClasses) {
+                    addEntry(teachingClass, studentsByClass.getOrDefault(teachingClass.getId(), new HashSet<>()));
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            appliedSeq = startSeq;
+            loaded = true;
+            log.info("装载上课时间索引: classes={}", teachingClasses.size());
+        }
+    }
+
+    private void refresh(Collection<Long> teachingClassDbIds) {
+        if (!loaded || teachingClassDbIds.isEmpty()) {
+            return;
+        }
+        // 先读库再加写锁，读库期间不阻塞冲突检查
+        Map<Long, TeachingClass> teachingClasses = new HashMap<>();
+        Map<Long, Set<Long>> studentsByClass = new HashMap<>();
+        for (Long teachingClassDbId : teachingClassDbIds) {
+            TeachingClass teachingClass = teachingClassMapper.selectById(teachingClassDbId);
+            if (teachingClass == null) {
+                continue;
+            }
+            teachingClasses.put(teachingClassDbId, teachingClass);
+            Set<Long> students = new HashSet<>();
+            for (Enrollment enrollment : enrollmentMapper.selectList(new LambdaQueryWrapper<Enrollment>()
+                    .select(Enrollment::getStudentDbId)
+                    .eq(Enrollment::getTeachingClassDbId, teachingClassDbId))) {
+                students.add(enrollment.getStudentDbId());
+            }
+            studentsByClass.put(teachingClassDbId, students);
+        }
+        lock.writeLock().lock();
+        try {
+            for (Long teachingClassDbId : teachingClassDbIds) {
+                removeEntry(teachingClassDbId);
+                TeachingClass teachingClass = teachingClasses.get(teachingClassDbId);
+                if (teachingClass != null) {
+                    addEntry(teachingClass, studentsByClass.get(teachingClassDbId));
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void addEntry(TeachingClass teachingClass, Set<Long> students) {
+        ClassEntry entry = new ClassEntry(teachingClass.getId(), teachingClass.getClassId(), teachingClass.getSemester(),
+                teachingClass.getClassroom(), teachingClass.getScheduleTime(),
+                WeeklySchedule.parse(teachingClass.getScheduleTime()), students);
+        classes.put(entry.id(), entry);
+        if (StringUtils.hasText(entry.classroom())) {
+            addSlots(byClassroom, roomKey(entry.semester(), entry.classroom()), entry);
+        }
+        for (Long studentDbId : students) {
+            addSlots(byStudent, studentKey(entry.semester(), studentDbId), entry);
+        }
+    }
+
+    private void removeEntry(Long teachingClassDbId) {
+        ClassEntry entry = classes.remove(teachingClassDbId);
+        if (entry == null) {
+            return;
+        }
+        if (StringUtils.hasText(entry.classroom())) {
+            removeSlots(byClassroom, roomKey(entry.semester(), entry.classroom()), entry);
+        }
+        for (Long studentDbId : entry.students()) {
+            removeSlots(byStudent, studentKey(entry.semester(), studentDbId), entry);
+        }
+    }
+
+    private static void addSlots(Map<String, IntervalSet> sets, String key, ClassEntry entry) {
+        if (entry.intervals().isEmpty()) {
+            return;
+        }
+        IntervalSet set = sets.computeIfAbsent(key, k -> new IntervalSet());
+        for (Interval interval : entry.intervals()) {
+            set.add(interval, entry.id());
+        }
+    }
+
+    private static void removeSlots(Map<String, IntervalSet> sets, String key, ClassEntry entry) {
+        IntervalSet set = sets.get(key);
+        if (set == null) {
+            return;
+        }
+        for (Interval interval : entry.intervals()) {
+            set.remove(interval, entry.id());
+        }
+        if (set.isEmpty()) {
+            sets.remove(key);
+        }
+    }
+
+    private ClassEntry findOverlap(IntervalSet set, List<Interval> intervals, Long excludeClassDbId) {
+        if (set == null) {
+            return null;
+        }
+        for (Interval interval : intervals) {
+            Long other = set.findOverlap(interval, excludeClassDbId);
+            if (other != null) {
+                return classes.get(other);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 按开始时间扫描，与仍在进行中的区间两两配对，同一对教学班只报告一次
+     */
+    private static void sweep(List<Slot> slots, BiConsumer<Long, Long> onConflict) {
+        if (slots.size() < 2) {
+            return;
+        }
+        slots.sort(Comparator.comparingInt((Slot slot) -> slot.interval().start()));
+        PriorityQueue<Slot> active = new PriorityQueue<>(Comparator.comparingInt((Slot slot) -> slot.interval().end()));
+        Set<List<Long>> reported = new HashSet<>();
+        for (Slot slot : slots) {
+            while (!active.isEmpty() && active.peek().interval().end() <= slot.interval().start()) {
+                active.poll();
+            }
+            for (Slot other : active) {
+                if (!other.classDbId().equals(slot.classDbId())
+                        && reported.add(List.of(Math.min(other.classDbId(), slot.classDbId()),
+                        Math.max(other.classDbId(), slot.classDbId())))) {
+                    onConflict.accept(other.classDbId(), slot.classDbId());
+                }
+            }
+            active.add(slot);
+        }
+    }
+
+    private ScheduleConflictVO conflict(String type, Long firstClassDbId, Long secondClassDbId) {
+        ClassEntry first = classes.get(firstClassDbId);
+        ClassEntry second = classes.get(secondClassDbId);
+        ScheduleConflictVO vo = new ScheduleConflictVO();
+        vo.setType(type);
+        vo.setFirstClassId(first.classId());
+        vo.setFirstScheduleTime(first.scheduleTime());
+        vo.setSecondClassId(second.classId());
+        vo.setSecondScheduleTime(second.scheduleTime());
+        return vo;
+    }
+
+    private static Object[] newGuards(int stripes) {
+        Object[] guards = new Object[stripes];
+        for (int i = 0; i < stripes; i++) {
+            guards[i] = new Object();
+        }
+        return guards;
+    }
+
+    private static String studentKey(String semester, Long studentDbId) {
+        return semester + "#" + studentDbId;
+    }
+
+    private static String roomKey(String semester, String classroom) {
+        return semester + "#" + classroom;
+    }
+
+    private record Slot(Interval interval, Long classDbId) {
+    }
+
+    /**
+     * 按开始时间排序的区间集合，键为 (开始时间, 教学班ID)；区间之间可以重叠
+     */
+    private static final class IntervalSet {
+
+        private final TreeMap<Long, Slot> slots = new TreeMap<>();
+
+        /**
+         * 区间长度 -> 个数，最大键为最长区间长度
+         */
+        private final TreeMap<Integer, Integer> lengths = new TreeMap<>();
+
+        void add(Interval interval, Long classDbId) {
+            Slot previous = slots.put(key(interval.start(), classDbId), new Slot(interval, classDbId));
+            if (previous != null) {
+                removeLength(previous.interval());
+            }
+            lengths.merge(length(interval), 1, Integer::sum);
+        }
+
+        void remove(Interval interval, Long classDbId) {
+            Slot removed = slots.remove(key(interval.start(), classDbId));
+            if (removed != null) {
+                removeLength(removed.interval());
+            }
+        }
+
+        boolean isEmpty() {
+            return slots.isEmpty();
+        }
+
+        /**
+         * 与区间重叠的任一教学班：重叠的区间开始于 [start - 最长长度, end) 内，逐个比较结束时间
+         */
+        Long findOverlap(Interval interval, Long excludeClassDbId) {
+            if (slots.isEmpty()) {
+                return null;
+            }
+            int from = interval.start() - lengths.lastKey();
+            for (Slot slot : slots.subMap(key(from, 0L), true, key(interval.end(), 0L), false).values()) {
+                if (slot.interval().overlaps(interval) && !slot.classDbId().equals(excludeClassDbId)) {
+                    return slot.classDbId();
+                }
+            }
+            return null;
+        }
+
+        private void removeLength(Interval interval) {
+            lengths.computeIfPresent(length(interval), (length, count) -> count == 1 ? null : count - 1);
+        }
+
+        private static int length(Interval interval) {
+            return interval.end() - interval.start();
+        }
+
+        private static long key(int start, Long classDbId) {
+            return ((long) start << 32) | (classDbId & 0xFFFFFFFFL);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.course.schedule;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 上课时间解析
+ * 把 scheduleTime 解析为一周内的时间区间（自周一 0:00 起的分钟数，左闭右开）。
+ * 支持按节次（"周一 1-2节"、"星期三第5节"）与按时刻（"周二 08:00-09:40"）两种写法，多段可用任意分隔符连接；
+ * 节次按作息时间表换算为时刻。无法识别的内容忽略，全部无法识别时结果为空，不参与冲突检测。
+ */
+public final class WeeklySchedule {
+
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    /**
+     * 第1至12节的开始与结束时刻（分钟）
+     */
+    private static final int[] PERIOD_START = {
+            8 * 60, 8 * 60 + 55, 10 * 60, 10 * 60 + 55,
+            14 * 60, 14 * 60 + 55, 16 * 60, 16 * 60 + 55,
+            19 * 60, 19 * 60 + 55, 20 * 60 + 50, 21 * 60 + 45
+    };
+
+    private static final int PERIOD_LENGTH = 45;
+
+    private static final Pattern PERIODS = Pattern.compile(
+            "(?:周|星期)([一二三四五六日天1-7])\\s*第?\\s*(\\d{1,2})(?:\\s*[-~～至]\\s*(\\d{1,2}))?\\s*节");
+
+    private static final Pattern CLOCK = Pattern.compile(
+            "(?:周|星期)([一二三四五六日天1-7])\\s*(\\d{1,2}):(\\d{2})\\s*[-~～至]\\s*(\\d{1,2}):(\\d{2})");
+
+    private WeeklySchedule() {
+    }
+
+    /**
+     * 一周内的时间区间 [start, end)
+     */
+    public record Interval(int start, int end) {
+
+        public boolean overlaps(Interval other) {
+            return start < other.end && other.start < end;
+        }
+    }
+
+    /**
+     * 解析上课时间，结果按开始时间排序且互不重叠（重叠的段合并）
+     */
+    public static List<Interval> parse(String scheduleTime) {
+        List<Interval> intervals = new ArrayList<>();
+        if (scheduleTime == null || scheduleTime.isBlank()) {
+            return intervals;
+        }
+        Matcher periods = PERIODS.matcher(scheduleTime);
+        while (periods.find()) {
+            int day = dayOf(periods.group(1));
+            int from = Integer.parseInt(periods.group(2));
+            int to = periods.group(3) == null ? from : Integer.parseInt(periods.group(3));
+            if (day < 0 || from < 1 || to < from || to > PERIOD_START.length) {
+                continue;
+            }
+            intervals.add(new Interval(day * MINUTES_PER_DAY + PERIOD_START[from - 1],
+                    day * MINUTES_PER_DAY + PERIOD_START[to - 1] + PERIOD_LENGTH));
+        }
+        Matcher clock = CLOCK.matcher(scheduleTime);
+        while (clock.find()) {
+            int day = dayOf(clock.group(1));
+            int start = Integer.parseInt(clock.group(2)) * 60 + Integer.parseInt(clock.group(3));
+            int end = Integer.parseInt(clock.group(4)) * 60 + Integer.parseInt(clock.group(5));
+            if (day < 0 || start >= end || end > MINUTES_PER_DAY) {
+                continue;
+            }
+            intervals.add(new Interval(day * MINUTES_PER_DAY + start, day * MINUTES_PER_DAY + end));
+        }
+        return merge(intervals);
+    }
+
+    private static List<Interval> merge(List<Interval> intervals) {
+        if (intervals.size() < 2) {
+            return intervals;
+        }
+        intervals.sort(Comparator.comparingInt(Interval::start));
+        List<Interval> merged = new ArrayList<>(intervals.size());
+        Interval current = intervals.get(0);
+        for (int i = 1; i < intervals.size(); i++) {
+            Interval next = intervals.get(i);
+            if (next.start() <= current.end()) {
+                current = new Interval(current.start(), Math.max(current.end(), next.end()));
+            } else {
+                merged.add(current);
+                current = next;
+            }
+        }
+        merged.add(current);
+        return merged;
+    }
+
+    /**
+     * 周一为0，周日为6
+     */
+    private static int dayOf(String day) {
+        return switch (day) {
+            case "一", "1" -> 0;
+            case "二", "2" -> 1;
+            case "三", "3" -> 2;
+            case "四", "4" -> 3;
+            case "五", "5" -> 4;
+            case "六", "6" -> 5;
+            case "日", "天", "7" -> 6;
+            default -> -1;
+        };
+    }
+}
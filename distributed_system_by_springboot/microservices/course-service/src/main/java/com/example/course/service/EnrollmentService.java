@@ -4,9 +4,12 @@ import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.example.common.dto.EnrollmentDTO;
 import com.example.common.entity.Enrollment;
+import com.example.common.result.PageResult;
+import com.example.common.vo.EnrollmentBatchResultVO;
 import com.example.common.vo.EnrollmentVO;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * 选课服务接口
@@ -18,6 +21,11 @@ public interface EnrollmentService {
      */
     IPage<EnrollmentVO> page(Page<Enrollment> page, String studentId, String classId);
     
+    /**
+     * 游标分页查询选课
+     */
+    PageResult<EnrollmentVO> cursorPage(String studentId, String classId, String after, long size, boolean withTotal);
+    
     /**
      * 获取学生的选课列表
      */
@@ -39,9 +47,26 @@ public interface EnrollmentService {
     boolean save(EnrollmentDTO dto);
     
     /**
-     * 批量选课
+     * 批量选课，逐条判定后一次写入，返回每条的结果而不因个别失败整体回滚
+     */
+    EnrollmentBatchResultVO saveBatch(List<EnrollmentDTO> dtos);
+    
+    /**
+     * 教学班已满时加入候补，已在队列中时返回当前位次
+     *
+     * @return 候补位次，从1开始
+     */
+    int joinWaitlist(EnrollmentDTO dto);
+    
+    /**
+     * 查询候补位次
+     */
+    int getWaitlistPosition(Long studentDbId, Long teachingClassDbId);
+    
+    /**
+     * 退出候补
      */
-    boolean saveBatch(List<EnrollmentDTO> dtos);
+    boolean leaveWaitlist(Long studentDbId, Long teachingClassDbId);
     
     /**
      * 删除选课
@@ -54,9 +79,11 @@ public interface EnrollmentService {
     boolean cancel(String studentId, String classId);
     
     /**
-     * 批量删除选课
+     * 批量删除选课（级联删除成绩）
+     *
+     * @return 各表受影响行数
      */
-    boolean deleteBatch(List<String> ids);
+    Map<String, Integer> deleteBatch(List<String> ids);
     
     /**
      * 检查是否已选课
@@ -5,6 +5,7 @@ import com.example.common.dto.TeachingClassDTO;
 import com.example.common.entity.TeachingClass;
 import com.example.common.query.TeachingClassQuery;
 import com.example.common.vo.ClassStudentVO;
+import com.example.common.vo.ScheduleConflictVO;
 import com.example.common.vo.TeachingClassVO;
 
 import java.util.List;
@@ -73,4 +74,9 @@ public interface TeachingClassService {
      * 统计教学班总数
      */
     long count();
+    
+    /**
+     * 学期内的上课时间冲突（教室占用冲突与学生选课冲突）
+     */
+    List<ScheduleConflictVO> getScheduleConflicts(String semester);
 }
@@ -8,6 +8,7 @@ import com.example.common.entity.Course;
 import com.example.common.entity.TeachingClass;
 import com.example.common.exception.BusinessException;
 import com.example.course.mapper.CourseMapper;
+import com.example.course.mapper.ScoreMapper;
 import com.example.course.mapper.TeachingClassMapper;
 import com.example.course.service.CourseService;
 import lombok.RequiredArgsConstructor;
@@ -18,6 +19,7 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
 import java.util.List;
+import java.util.Objects;
 import java.util.UUID;
 
 /**
@@ -30,6 +32,7 @@ public class CourseServiceImpl implements CourseService {
     
     private final CourseMapper courseMapper;
     private final TeachingClassMapper teachingClassMapper;
+    private final ScoreMapper scoreMapper;
     
     @Override
     public IPage<Course> page(Page<Course> page, String courseId, String name, String type) {
@@ -96,6 +99,11 @@ public class CourseServiceImpl implements CourseService {
             }
         }
         
+        // 学分变更后，修读该课程的学生成绩汇总需要重建
+        if (!Objects.equals(dto.getCredits(), existing.getCredits())) {
+            scoreMapper.deleteTranscriptSummaryByCourse(existing.getId());
+        }
+        
         BeanUtils.copyProperties(dto, existing);
         return courseMapper.updateById(existing) > 0;
     }
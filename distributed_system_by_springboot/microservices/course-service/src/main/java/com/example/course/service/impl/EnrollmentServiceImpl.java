@@ -6,19 +6,31 @@ import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.example.common.dto.EnrollmentDTO;
 import com.example.common.entity.*;
 import com.example.common.exception.BusinessException;
+import com.example.common.result.ResultCode;
+import com.example.common.result.PageResult;
+import com.example.common.util.PageCursor;
+import com.example.common.vo.EnrollmentBatchResultVO;
 import com.example.common.vo.EnrollmentVO;
+import com.example.course.enrollment.ClassSeatCount;
+import com.example.course.enrollment.EnrollmentWriter;
+import com.example.course.enrollment.SeatLedger;
+import com.example.course.enrollment.WaitlistPromoter;
+import com.example.course.enrollment.WaitlistQueue;
 import com.example.course.mapper.*;
+import com.example.course.schedule.ScheduleIndex;
 import com.example.course.service.EnrollmentService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.UUID;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * 选课服务实现类
@@ -28,15 +40,68 @@ import java.util.UUID;
 @RequiredArgsConstructor
 public class EnrollmentServiceImpl implements EnrollmentService {
     
+    /**
+     * 批量删除时单条语句最大ID个数
+     */
+    private static final int DELETE_BATCH_SIZE = 500;
+    
+    /**
+     * 批量选课时单条插入语句最大行数
+     */
+    private static final int INSERT_BATCH_SIZE = 300;
+    
     private final EnrollmentMapper enrollmentMapper;
     private final StudentMapper studentMapper;
     private final TeachingClassMapper teachingClassMapper;
     private final CourseMapper courseMapper;
     private final TeacherMapper teacherMapper;
     private final ScoreMapper scoreMapper;
+    private final SeatLedger seatLedger;
+    private final EnrollmentWriter enrollmentWriter;
+    private final WaitlistQueue waitlistQueue;
+    private final WaitlistPromoter waitlistPromoter;
+    private final ScheduleIndex scheduleIndex;
+    
+    /**
+     * 等待选课写入的最长时间
+     */
+    @Value("${enrollment.writer.timeout-ms:5000}")
+    private long writeTimeoutMillis;
     
     @Override
     public IPage<EnrollmentVO> page(Page<Enrollment> page, String studentId, String classId) {
+        LambdaQueryWrapper<Enrollment> wrapper = buildQueryWrapper(studentId, classId);
+        wrapper.orderByDesc(Enrollment::getCreateTime);
+        
+        IPage<Enrollment> result = enrollmentMapper.selectPage(page, wrapper);
+        
+        // 转换为VO
+        Page<EnrollmentVO> voPage = new Page<>(result.getCurrent(), result.getSize(), result.getTotal());
+        voPage.setRecords(convertToVOList(result.getRecords()));
+        
+        return voPage;
+    }
+    
+    @Override
+    public PageResult<EnrollmentVO> cursorPage(String studentId, String classId, String after, long pageSize, boolean withTotal) {
+        long size = PageCursor.pageSize(pageSize);
+        LambdaQueryWrapper<Enrollment> wrapper = buildQueryWrapper(studentId, classId);
+        PageCursor.seek(wrapper, after, Enrollment::getCreateTime, Enrollment::getId);
+        
+        // 多取一条用于判断是否还有下一页，不执行 COUNT
+        List<Enrollment> records = enrollmentMapper.selectPage(new Page<>(1, size + 1, false), wrapper).getRecords();
+        String nextCursor = null;
+        if (records.size() > size) {
+            records = records.subList(0, (int) size);
+            Enrollment last = records.get(records.size() - 1);
+            nextCursor = PageCursor.encode(last.getCreateTime(), last.getId());
+        }
+        
+        Long total = withTotal ? enrollmentMapper.selectCount(buildQueryWrapper(studentId, classId)) : null;
+        return PageResult.ofCursor(convertToVOList(records), nextCursor, total, size);
+    }
+    
+    private LambdaQueryWrapper<Enrollment> buildQueryWrapper(String studentId, String classId) {
         LambdaQueryWrapper<Enrollment> wrapper = new LambdaQueryWrapper<>();
         
         if (StringUtils.hasText(studentId)) {
@@ -64,15 +129,7 @@ public class EnrollmentServiceImpl implements EnrollmentService {
             }
         }
         
-        wrapper.orderByDesc(Enrollment::getCreateTime);
-        
-        IPage<Enrollment> result = enrollmentMapper.selectPage(page, wrapper);
-        
-        // 转换为VO
-        Page<EnrollmentVO> voPage = new Page<>(result.getCurrent(), result.getSize(), result.getTotal());
-        voPage.setRecords(convertToVOList(result.getRecords()));
-        
-        return voPage;
+        return wrapper;
     }
     
     @Override
@@ -114,42 +171,206 @@ public class EnrollmentServiceImpl implements EnrollmentService {
     }
     
     @Override
-    @Transactional(rollbackFor = Exception.class)
     public boolean save(EnrollmentDTO dto) {
-        // 检查是否已选课
-        LambdaQueryWrapper<Enrollment> checkWrapper = new LambdaQueryWrapper<>();
-        checkWrapper.eq(Enrollment::getStudentDbId, dto.getStudentDbId());
-        checkWrapper.eq(Enrollment::getTeachingClassDbId, dto.getTeachingClassDbId());
-        if (enrollmentMapper.selectCount(checkWrapper) > 0) {
-            throw new BusinessException("该学生已选此教学班");
-        }
-        
-        // 检查教学班容量
-        TeachingClass teachingClass = teachingClassMapper.selectById(dto.getTeachingClassDbId());
-        if (teachingClass == null) {
-            throw new BusinessException("教学班不存在");
+        // 有人候补时空位只由候补按顺序补上，不能插队
+        if (waitlistQueue.size(dto.getTeachingClassDbId()) > 0) {
+            throw new BusinessException("教学班已有学生候补，请加入候补");
         }
-        
-        LambdaQueryWrapper<Enrollment> countWrapper = new LambdaQueryWrapper<>();
-        countWrapper.eq(Enrollment::getTeachingClassDbId, dto.getTeachingClassDbId());
-        long currentCount = enrollmentMapper.selectCount(countWrapper);
-        if (teachingClass.getCapacity() != null && currentCount >= teachingClass.getCapacity()) {
-            throw new BusinessException("教学班已满");
+        // 同一学生的冲突检查到登记选课串行执行，时间重叠的两个教学班不会同时通过检查
+        synchronized (scheduleIndex.studentGuard(dto.getStudentDbId())) {
+            checkScheduleConflict(dto.getStudentDbId(), dto.getTeachingClassDbId());
+            enroll(dto);
+            scheduleIndex.addEnrollment(dto.getStudentDbId(), dto.getTeachingClassDbId());
         }
-        
+        return true;
+    }
+    
+    /**
+     * 经座位台账占座并由写线程写入，失败时抛出业务异常
+     */
+    private void enroll(EnrollmentDTO dto) {
         Enrollment enrollment = new Enrollment();
         BeanUtils.copyProperties(dto, enrollment);
         
-        return enrollmentMapper.insert(enrollment) > 0;
+        // 座位台账原子占座，重复选课与超额在此拒绝；占座成功后由写线程合并写入，写入失败时座位已释放
+        EnrollmentWriter.Outcome outcome;
+        try {
+            outcome = enrollmentWriter.enroll(enrollment).get(writeTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new BusinessException(ResultCode.SERVICE_UNAVAILABLE, "选课请求处理超时，请稍后查询选课结果");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException(ResultCode.SERVICE_UNAVAILABLE, "选课请求被中断");
+        } catch (ExecutionException e) {
+            log.warn("写入选课失败: student={}, class={}, {}", dto.getStudentDbId(), dto.getTeachingClassDbId(),
+                    e.getCause().getMessage());
+            throw new BusinessException(ResultCode.DATABASE_ERROR, "选课失败，请重试");
+        }
+        switch (outcome) {
+            case DUPLICATE -> throw new BusinessException("该学生已选此教学班");
+            case FULL -> throw new BusinessException("教学班已满，可加入候补");
+            case NOT_FOUND -> throw new BusinessException("教学班不存在");
+            default -> {
+            }
+        }
+    }
+    
+    @Override
+    public int joinWaitlist(EnrollmentDTO dto) {
+        Long studentDbId = dto.getStudentDbId();
+        Long teachingClassDbId = dto.getTeachingClassDbId();
+        // 已在队列中时直接返回位次，重复请求不查询数据库
+        int position = waitlistQueue.position(studentDbId, teachingClassDbId);
+        if (position > 0) {
+            return position;
+        }
+        
+        int remaining = seatLedger.remaining(teachingClassDbId);
+        if (remaining < 0) {
+            throw new BusinessException("教学班不存在");
+        }
+        if (seatLedger.isEnrolled(studentDbId, teachingClassDbId)) {
+            throw new BusinessException("该学生已选此教学班");
+        }
+        if (remaining > 0 && waitlistQueue.size(teachingClassDbId) == 0) {
+            throw new BusinessException("教学班尚有空位，请直接选课");
+        }
+        if (studentMapper.selectById(studentDbId) == null) {
+            throw new BusinessException("学生不存在");
+        }
+        checkScheduleConflict(studentDbId, teachingClassDbId);
+        return waitlistQueue.join(studentDbId, teachingClassDbId);
+    }
+    
+    @Override
+    public int getWaitlistPosition(Long studentDbId, Long teachingClassDbId) {
+        int position = waitlistQueue.position(studentDbId, teachingClassDbId);
+        if (position == 0) {
+            throw new BusinessException(ResultCode.NOT_FOUND, "不在该教学班的候补队列中");
+        }
+        return position;
+    }
+    
+    @Override
+    public boolean leaveWaitlist(Long studentDbId, Long teachingClassDbId) {
+        if (!waitlistQueue.leave(studentDbId, teachingClassDbId)) {
+            throw new BusinessException(ResultCode.NOT_FOUND, "不在该教学班的候补队列中");
+        }
+        return true;
     }
     
     @Override
     @Transactional(rollbackFor = Exception.class)
-    public boolean saveBatch(List<EnrollmentDTO> dtos) {
+    public EnrollmentBatchResultVO saveBatch(List<EnrollmentDTO> dtos) {
+        Set<Long> classIds = new HashSet<>();
         for (EnrollmentDTO dto : dtos) {
-            save(dto);
+            if (dto.getTeachingClassDbId() != null) {
+                classIds.add(dto.getTeachingClassDbId());
+            }
         }
-        return true;
+        
+        // 涉及教学班的容量、人数与已选学生各一次查询
+        Map<Long, Integer> remaining = new HashMap<>();
+        Map<Long, Set<Long>> enrolled = new HashMap<>();
+        if (!classIds.isEmpty()) {
+            for (ClassSeatCount seats : enrollmentMapper.selectSeatCounts(classIds)) {
+                remaining.put(seats.getTeachingClassDbId(), seats.getCapacity() == null
+                        ? Integer.MAX_VALUE : seats.getCapacity() - seats.getEnrolled());
+                enrolled.put(seats.getTeachingClassDbId(), new HashSet<>());
+            }
+            for (Enrollment enrollment : enrollmentMapper.selectList(new LambdaQueryWrapper<Enrollment>()
+                    .select(Enrollment::getStudentDbId, Enrollment::getTeachingClassDbId)
+                    .in(Enrollment::getTeachingClassDbId, classIds))) {
+                enrolled.computeIfAbsent(enrollment.getTeachingClassDbId(), id -> new HashSet<>())
+                        .add(enrollment.getStudentDbId());
+            }
+        }
+        
+        // 逐条在内存中判定，通过的再在座位台账中占座，避免与同时进行的单条选课超额
+        EnrollmentBatchResultVO result = new EnrollmentBatchResultVO();
+        List<Enrollment> accepted = new ArrayList<>();
+        // 先注册再占座：提交后确认、回滚后释放，判定或写入中途抛出异常时已占的座位随回滚释放
+        seatLedger.settleOnCompletion(accepted);
+        Set<Long> touched = new HashSet<>();
+        for (int i = 0; i < dtos.size(); i++) {
+            EnrollmentDTO dto = dtos.get(i);
+            EnrollmentBatchResultVO.RowResult row = new EnrollmentBatchResultVO.RowResult();
+            row.setIndex(i);
+            row.setStudentDbId(dto.getStudentDbId());
+            row.setTeachingClassDbId(dto.getTeachingClassDbId());
+            result.getRows().add(row);
+            
+            Long studentDbId = dto.getStudentDbId();
+            Long teachingClassDbId = dto.getTeachingClassDbId();
+            if (studentDbId == null || teachingClassDbId == null) {
+                reject(row, EnrollmentBatchResultVO.INVALID, "学生ID与教学班ID不能为空");
+                continue;
+            }
+            if (!remaining.containsKey(teachingClassDbId)) {
+                reject(row, EnrollmentBatchResultVO.NOT_FOUND, "教学班不存在");
+                continue;
+            }
+            if (enrolled.get(teachingClassDbId).contains(studentDbId)) {
+                reject(row, EnrollmentBatchResultVO.DUPLICATE, "该学生已选此教学班");
+                continue;
+            }
+            // 与单条选课相同，有人候补时不能插队
+            if (waitlistQueue.size(teachingClassDbId) > 0) {
+                reject(row, EnrollmentBatchResultVO.WAITLISTED, "教学班已有学生候补");
+                continue;
+            }
+            if (remaining.get(teachingClassDbId) <= 0) {
+                reject(row, EnrollmentBatchResultVO.FULL, "教学班已满");
+                continue;
+            }
+            // 与单条选课相同，冲突检查到登记索引期间持有该学生的锁；本批已通过的教学班占座时已登记，一并参与比较
+            synchronized (scheduleIndex.studentGuard(studentDbId)) {
+                if (scheduleIndex.findStudentConflict(studentDbId, teachingClassDbId) != null) {
+                    reject(row, EnrollmentBatchResultVO.CONFLICT, "上课时间与已选教学班冲突");
+                    continue;
+                }
+                SeatLedger.Reservation reservation = seatLedger.reserve(studentDbId, teachingClassDbId);
+                if (reservation != SeatLedger.Reservation.RESERVED) {
+                    if (reservation == SeatLedger.Reservation.DUPLICATE) {
+                        reject(row, EnrollmentBatchResultVO.DUPLICATE, "该学生已选此教学班");
+                    } else if (reservation == SeatLedger.Reservation.FULL) {
+                        reject(row, EnrollmentBatchResultVO.FULL, "教学班已满");
+                    } else {
+                        reject(row, EnrollmentBatchResultVO.NOT_FOUND, "教学班不存在");
+                    }
+                    continue;
+                }
+                Enrollment enrollment = new Enrollment();
+                enrollment.setStudentDbId(studentDbId);
+                enrollment.setTeachingClassDbId(teachingClassDbId);
+                accepted.add(enrollment);
+                // 事务结束后按数据库重新装载，回滚时撤回此处的登记
+                if (touched.add(teachingClassDbId)) {
+                    scheduleIndex.refreshAfterCompletion(teachingClassDbId);
+                }
+                scheduleIndex.addEnrollment(studentDbId, teachingClassDbId);
+            }
+            
+            row.setOutcome(EnrollmentBatchResultVO.ACCEPTED);
+            remaining.merge(teachingClassDbId, -1, Integer::sum);
+            enrolled.get(teachingClassDbId).add(studentDbId);
+        }
+        
+        // 多行插入按批拆分以免超出 SQL 参数个数上限
+        for (int i = 0; i < accepted.size(); i += INSERT_BATCH_SIZE) {
+            enrollmentMapper.insertBatch(accepted.subList(i, Math.min(i + INSERT_BATCH_SIZE, accepted.size())));
+        }
+        
+        result.setTotal(dtos.size());
+        result.setAccepted(accepted.size());
+        result.setRejected(dtos.size() - accepted.size());
+        log.info("批量选课: 提交{}条, 成功{}条", dtos.size(), accepted.size());
+        return result;
+    }
+    
+    private static void reject(EnrollmentBatchResultVO.RowResult row, String outcome, String message) {
+        row.setOutcome(outcome);
+        row.setMessage(message);
     }
     
     @Override
@@ -165,8 +386,11 @@ public class EnrollmentServiceImpl implements EnrollmentService {
         scoreWrapper.eq(Score::getStudentDbId, enrollment.getStudentDbId());
         scoreWrapper.eq(Score::getTeachingClassDbId, enrollment.getTeachingClassDbId());
         scoreMapper.delete(scoreWrapper);
+        scoreMapper.deleteTranscriptSummary(enrollment.getStudentDbId());
         
-        return enrollmentMapper.deleteById(id) > 0;
+        boolean deleted = enrollmentMapper.deleteById(id) > 0;
+        waitlistPromoter.promoteOnDrop(enrollment.getStudentDbId(), enrollment.getTeachingClassDbId());
+        return deleted;
     }
     
     @Override
@@ -193,17 +417,38 @@ public class EnrollmentServiceImpl implements EnrollmentService {
         scoreWrapper.eq(Score::getStudentDbId, student.getId());
         scoreWrapper.eq(Score::getTeachingClassDbId, teachingClass.getId());
         scoreMapper.delete(scoreWrapper);
+        scoreMapper.deleteTranscriptSummary(student.getId());
         
-        return enrollmentMapper.delete(wrapper) > 0;
+        boolean deleted = enrollmentMapper.delete(wrapper) > 0;
+        waitlistPromoter.promoteOnDrop(student.getId(), teachingClass.getId());
+        return deleted;
     }
     
     @Override
     @Transactional(rollbackFor = Exception.class)
-    public boolean deleteBatch(List<String> ids) {
-        for (String id : ids) {
-            delete(id);
+    public Map<String, Integer> deleteBatch(List<String> ids) {
+        List<Long> enrollmentIds = ids.stream().filter(StringUtils::hasText).map(Long::valueOf).distinct().toList();
+        int scores = 0;
+        int enrollments = 0;
+        for (int i = 0; i < enrollmentIds.size(); i += DELETE_BATCH_SIZE) {
+            List<Long> chunk = enrollmentIds.subList(i, Math.min(i + DELETE_BATCH_SIZE, enrollmentIds.size()));
+            List<Enrollment> released = enrollmentMapper.selectList(new LambdaQueryWrapper<Enrollment>()
+                    .select(Enrollment::getStudentDbId, Enrollment::getTeachingClassDbId)
+                    .in(Enrollment::getId, chunk));
+            // 成绩按选课记录的 (学生, 教学班) 关联删除，须在选课记录删除前执行
+            scoreMapper.deleteTranscriptSummaryByEnrollmentIds(chunk);
+            scores += scoreMapper.deleteByEnrollmentIds(chunk);
+            enrollments += enrollmentMapper.deleteBatchIds(chunk);
+            for (Enrollment enrollment : released) {
+                waitlistPromoter.promoteOnDrop(enrollment.getStudentDbId(), enrollment.getTeachingClassDbId());
+            }
         }
-        return true;
+        
+        Map<String, Integer> affected = new LinkedHashMap<>();
+        affected.put("enrollment", enrollments);
+        affected.put("score", scores);
+        log.info("批量删除选课: 提交{}条, 影响 {}", ids.size(), affected);
+        return affected;
     }
     
     @Override
@@ -237,6 +482,16 @@ public class EnrollmentServiceImpl implements EnrollmentService {
         return enrollmentMapper.selectCount(wrapper);
     }
     
+    /**
+     * 与学生已选教学班的上课时间冲突时拒绝
+     */
+    private void checkScheduleConflict(Long studentDbId, Long teachingClassDbId) {
+        ScheduleIndex.ClassEntry conflict = scheduleIndex.findStudentConflict(studentDbId, teachingClassDbId);
+        if (conflict != null) {
+            throw new BusinessException("上课时间与已选教学班 " + conflict.classId() + "（" + conflict.scheduleTime() + "）冲突");
+        }
+    }
+    
     private EnrollmentVO convertToVO(Enrollment enrollment) {
         EnrollmentVO vo = new EnrollmentVO();
         BeanUtils.copyProperties(enrollment, vo);
@@ -8,8 +8,12 @@ import com.example.common.entity.*;
 import com.example.common.exception.BusinessException;
 import com.example.common.query.TeachingClassQuery;
 import com.example.common.vo.ClassStudentVO;
+import com.example.common.vo.ScheduleConflictVO;
 import com.example.common.vo.TeachingClassVO;
+import com.example.course.enrollment.SeatLedger;
+import com.example.course.enrollment.WaitlistQueue;
 import com.example.course.mapper.*;
+import com.example.course.schedule.ScheduleIndex;
 import com.example.course.service.TeachingClassService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -20,6 +24,7 @@ import org.springframework.util.StringUtils;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 import java.util.UUID;
 
 /**
@@ -36,6 +41,9 @@ public class TeachingClassServiceImpl implements TeachingClassService {
     private final EnrollmentMapper enrollmentMapper;
     private final ScoreMapper scoreMapper;
     private final StudentMapper studentMapper;
+    private final SeatLedger seatLedger;
+    private final WaitlistQueue waitlistQueue;
+    private final ScheduleIndex scheduleIndex;
     
     @Override
     public IPage<TeachingClassVO> page(TeachingClassQuery query) {
@@ -107,10 +115,19 @@ public class TeachingClassServiceImpl implements TeachingClassService {
             throw new BusinessException("教师不存在");
         }
         
+        checkClassroomConflict(dto, null);
+        
         TeachingClass teachingClass = new TeachingClass();
         BeanUtils.copyProperties(dto, teachingClass);
         
-        return teachingClassMapper.insert(teachingClass) > 0;
+        boolean saved = teachingClassMapper.insert(teachingClass) > 0;
+        // 主键由数据库生成，按编号取回后登记到上课时间索引
+        TeachingClass created = teachingClassMapper.selectOne(new LambdaQueryWrapper<TeachingClass>()
+                .select(TeachingClass::getId).eq(TeachingClass::getClassId, dto.getClassId()));
+        if (created != null) {
+            scheduleIndex.refreshAfterCommit(created.getId());
+        }
+        return saved;
     }
     
     @Override
@@ -128,7 +145,17 @@ public class TeachingClassServiceImpl implements TeachingClassService {
             }
         }
         
+        // 更换课程会改变学分，相关学生的成绩汇总需要重建
+        if (!Objects.equals(dto.getCourseDbId(), existing.getCourseDbId())) {
+            scoreMapper.deleteTranscriptSummaryByClass(existing.getId());
+        }
+        
+        checkClassroomConflict(dto, existing.getId());
+        
         BeanUtils.copyProperties(dto, existing);
+        // 容量、上课时间与教室可能变化
+        seatLedger.refreshAfterCommit(existing.getId());
+        scheduleIndex.refreshAfterCommit(existing.getId());
         return teachingClassMapper.updateById(existing) > 0;
     }
     
@@ -148,8 +175,12 @@ public class TeachingClassServiceImpl implements TeachingClassService {
         // 删除相关成绩记录
         LambdaQueryWrapper<Score> scoreWrapper = new LambdaQueryWrapper<>();
         scoreWrapper.eq(Score::getTeachingClassDbId, teachingClass.getId());
+        scoreMapper.deleteTranscriptSummaryByClass(teachingClass.getId());
         scoreMapper.delete(scoreWrapper);
         
+        waitlistQueue.evict(teachingClass.getId());
+        seatLedger.refreshAfterCommit(teachingClass.getId());
+        scheduleIndex.refreshAfterCommit(teachingClass.getId());
         return teachingClassMapper.deleteById(id) > 0;
     }
     
@@ -174,6 +205,11 @@ public class TeachingClassServiceImpl implements TeachingClassService {
         return teachingClassMapper.selectCount(null);
     }
     
+    @Override
+    public List<ScheduleConflictVO> getScheduleConflicts(String semester) {
+        return scheduleIndex.conflicts(semester);
+    }
+    
     @Override
     public List<ClassStudentVO> getStudents(Long classDbId) {
         // 查询该教学班的所有选课记录
@@ -312,4 +348,16 @@ public class TeachingClassServiceImpl implements TeachingClassService {
         }
         return voList;
     }
+    
+    /**
+     * 同一学期同一教室上课时间重叠时拒绝
+     */
+    private void checkClassroomConflict(TeachingClassDTO dto, Long excludeClassDbId) {
+        ScheduleIndex.ClassEntry conflict = scheduleIndex.findClassroomConflict(dto.getSemester(), dto.getClassroom(),
+                dto.getScheduleTime(), excludeClassDbId);
+        if (conflict != null) {
+            throw new BusinessException("教室 " + dto.getClassroom() + " 在该时间已安排教学班 " + conflict.classId()
+                    + "（" + conflict.scheduleTime() + "）");
+        }
+    }
 }
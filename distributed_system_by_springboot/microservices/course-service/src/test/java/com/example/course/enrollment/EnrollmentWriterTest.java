@@ -0,0 +1,125 @@
+package com.example.course.enrollment;
+
+import com.example.common.entity.Enrollment;
+import com.example.course.support.InMemoryDatabase;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 选课合并写入：并发选课写入的行数不超过容量，写入失败时释放座位
+ */
+class EnrollmentWriterTest {
+
+    private static final long CLASS_ID = 1L;
+
+    private static final int CAPACITY = 5;
+
+    private InMemoryDatabase db;
+
+    private SeatLedger ledger;
+
+    private EnrollmentWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        db = new InMemoryDatabase();
+        db.addTeachingClass(CLASS_ID, CAPACITY);
+        db.addStudents(1, 1000);
+        ledger = new SeatLedger(db.teachingClassMapper(), db.enrollmentMapper(), db.entityChangeLogMapper(),
+                event -> {
+                });
+        ledger.init();
+        writer = new EnrollmentWriter(db.enrollmentMapper(), new TransactionTemplate(db), ledger,
+                new SimpleMeterRegistry(), 64, 20, 4096);
+    }
+
+    @AfterEach
+    void tearDown() {
+        writer.shutdown();
+    }
+
+    @Test
+    void concurrentEnrollmentsNeverOversell() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(32);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<EnrollmentWriter.Outcome>> results = new ArrayList<>();
+        for (long student = 1; student <= 1000; student++) {
+            Enrollment enrollment = enrollment(student);
+            results.add(pool.submit(() -> {
+                start.await();
+                return writer.enroll(enrollment).get(10, TimeUnit.SECONDS);
+            }));
+        }
+        start.countDown();
+        int accepted = 0;
+        for (Future<EnrollmentWriter.Outcome> result : results) {
+            EnrollmentWriter.Outcome outcome = result.get(20, TimeUnit.SECONDS);
+            if (outcome == EnrollmentWriter.Outcome.ACCEPTED) {
+                accepted++;
+            } else {
+                assertEquals(EnrollmentWriter.Outcome.FULL, outcome);
+            }
+        }
+        pool.shutdown();
+
+        List<Long> committed = db.enrolledStudents(CLASS_ID);
+        assertTrue(committed.size() <= CAPACITY, "写入行数超过容量: " + committed.size());
+        assertEquals(CAPACITY, accepted);
+        assertEquals(CAPACITY, new HashSet<>(committed).size());
+        assertEquals(0, ledger.remaining(CLASS_ID));
+    }
+
+    @Test
+    void failedWriteReleasesSeat() throws Exception {
+        db.failInsertsWhen(enrollment -> enrollment.getStudentDbId() == 3L);
+        List<CompletableFuture<EnrollmentWriter.Outcome>> futures = new ArrayList<>();
+        for (long student = 1; student <= 4; student++) {
+            futures.add(writer.enroll(enrollment(student)));
+        }
+
+        ExecutionException failure = assertThrows(ExecutionException.class,
+                () -> futures.get(2).get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, failure.getCause());
+        for (int i : new int[]{0, 1, 3}) {
+            assertEquals(EnrollmentWriter.Outcome.ACCEPTED, futures.get(i).get(5, TimeUnit.SECONDS));
+        }
+
+        assertEquals(Set.of(1L, 2L, 4L), new HashSet<>(db.enrolledStudents(CLASS_ID)));
+        assertFalse(ledger.isEnrolled(3L, CLASS_ID));
+        assertEquals(CAPACITY - 3, ledger.remaining(CLASS_ID));
+
+        // 释放的座位可以再次选上
+        db.failInsertsWhen(enrollment -> false);
+        assertEquals(EnrollmentWriter.Outcome.ACCEPTED, writer.enroll(enrollment(3L)).get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void rowAlreadyInDatabaseIsDuplicateAndKeepsSeat() throws Exception {
+        // 其他服务已写入，台账尚未对账
+        db.addEnrollment(7L, CLASS_ID);
+
+        assertEquals(EnrollmentWriter.Outcome.DUPLICATE, writer.enroll(enrollment(7L)).get(5, TimeUnit.SECONDS));
+
+        assertTrue(ledger.isEnrolled(7L, CLASS_ID));
+        assertEquals(CAPACITY - 1, ledger.remaining(CLASS_ID));
+        assertEquals(List.of(7L), db.enrolledStudents(CLASS_ID));
+    }
+
+    private static Enrollment enrollment(long studentDbId) {
+        Enrollment enrollment = new Enrollment();
+        enrollment.setStudentDbId(studentDbId);
+        enrollment.setTeachingClassDbId(CLASS_ID);
+        return enrollment;
+    }
+}
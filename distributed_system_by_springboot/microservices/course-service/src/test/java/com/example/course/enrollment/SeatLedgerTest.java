@@ -0,0 +1,140 @@
+package com.example.course.enrollment;
+
+import com.example.course.support.InMemoryDatabase;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 座位台账：并发占座不超卖，对账不撤回读库期间的新占座
+ */
+class SeatLedgerTest {
+
+    private static final long CLASS_ID = 1L;
+
+    private static final int CAPACITY = 5;
+
+    private InMemoryDatabase db;
+
+    private SeatLedger ledger;
+
+    private final List<Object> events = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        db = new InMemoryDatabase();
+        db.addTeachingClass(CLASS_ID, CAPACITY);
+        db.addStudents(1, 2000);
+        ledger = new SeatLedger(db.teachingClassMapper(), db.enrollmentMapper(), db.entityChangeLogMapper(),
+                events::add);
+        ledger.init();
+    }
+
+    @Test
+    void concurrentReservationsNeverExceedCapacity() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(32);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<SeatLedger.Reservation>> results = new ArrayList<>();
+        for (long student = 1; student <= 2000; student++) {
+            long studentDbId = student;
+            results.add(pool.submit(() -> {
+                start.await();
+                return ledger.reserve(studentDbId, CLASS_ID);
+            }));
+        }
+        start.countDown();
+        int reserved = 0;
+        for (Future<SeatLedger.Reservation> result : results) {
+            SeatLedger.Reservation reservation = result.get(10, TimeUnit.SECONDS);
+            if (reservation == SeatLedger.Reservation.RESERVED) {
+                reserved++;
+            } else {
+                assertEquals(SeatLedger.Reservation.FULL, reservation);
+            }
+        }
+        pool.shutdown();
+
+        assertEquals(CAPACITY, reserved);
+        assertEquals(0, ledger.remaining(CLASS_ID));
+    }
+
+    @Test
+    void duplicateAndUnknownClassAreRejected() {
+        assertEquals(SeatLedger.Reservation.RESERVED, ledger.reserve(1L, CLASS_ID));
+        assertEquals(SeatLedger.Reservation.DUPLICATE, ledger.reserve(1L, CLASS_ID));
+        assertEquals(SeatLedger.Reservation.NOT_FOUND, ledger.reserve(1L, 99L));
+        assertEquals(CAPACITY - 1, ledger.remaining(CLASS_ID));
+    }
+
+    @Test
+    void releaseReturnsSeat() {
+        assertEquals(SeatLedger.Reservation.RESERVED, ledger.reserve(1L, CLASS_ID));
+        ledger.release(1L, CLASS_ID);
+
+        assertFalse(ledger.isEnrolled(1L, CLASS_ID));
+        assertEquals(CAPACITY, ledger.remaining(CLASS_ID));
+    }
+
+    @Test
+    void reconcileKeepsReservationCommittedDuringRead() {
+        db.addEnrollment(1L, CLASS_ID);
+        // 对账读库之后、回到台账之前，另一个学生占座并已写入、确认
+        db.afterNextEnrollmentRead(() -> {
+            assertEquals(SeatLedger.Reservation.RESERVED, ledger.reserve(2L, CLASS_ID));
+            db.addEnrollment(2L, CLASS_ID);
+            ledger.confirm(2L, CLASS_ID);
+        });
+
+        ledger.poll();
+
+        assertTrue(ledger.isEnrolled(1L, CLASS_ID));
+        assertTrue(ledger.isEnrolled(2L, CLASS_ID));
+        assertEquals(CAPACITY - 2, ledger.remaining(CLASS_ID));
+    }
+
+    @Test
+    void reconcileReleasesEnrollmentDeletedElsewhere() {
+        assertEquals(SeatLedger.Reservation.RESERVED, ledger.reserve(1L, CLASS_ID));
+        db.addEnrollment(1L, CLASS_ID);
+        ledger.confirm(1L, CLASS_ID);
+        ledger.poll();
+        assertEquals(CAPACITY - 1, ledger.remaining(CLASS_ID));
+
+        db.removeEnrollment(1L, CLASS_ID);
+        ledger.poll();
+
+        assertFalse(ledger.isEnrolled(1L, CLASS_ID));
+        assertEquals(CAPACITY, ledger.remaining(CLASS_ID));
+    }
+
+    @Test
+    void reconcileKeepsPendingReservation() {
+        assertEquals(SeatLedger.Reservation.RESERVED, ledger.reserve(1L, CLASS_ID));
+        db.setCapacity(CLASS_ID, CAPACITY + 2);
+
+        ledger.poll();
+
+        assertTrue(ledger.isEnrolled(1L, CLASS_ID));
+        assertEquals(CAPACITY + 1, ledger.remaining(CLASS_ID));
+    }
+
+    @Test
+    void reconcilePublishesClassesWithFreeSeats() {
+        db.addTeachingClass(2L, 1);
+        assertEquals(SeatLedger.Reservation.RESERVED, ledger.reserve(1L, 2L));
+        db.addEnrollment(1L, 2L);
+        ledger.confirm(1L, 2L);
+        db.setCapacity(CLASS_ID, CAPACITY + 1);
+
+        ledger.poll();
+
+        // 教学班2已满，不发布
+        assertEquals(List.of(new SeatsAvailableEvent(Set.of(CLASS_ID))), events);
+    }
+}
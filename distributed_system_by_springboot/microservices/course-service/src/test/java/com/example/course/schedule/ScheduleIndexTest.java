@@ -0,0 +1,67 @@
+package com.example.course.schedule;
+
+import com.example.course.support.InMemoryDatabase;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 上课时间冲突索引：已存在重叠时，开始较早的长区间同样参与冲突检查
+ */
+class ScheduleIndexTest {
+
+    private static final String SEMESTER = "2024-2025-1";
+
+    private static final long STUDENT = 1L;
+
+    private InMemoryDatabase db;
+
+    private ScheduleIndex index;
+
+    @BeforeEach
+    void setUp() {
+        db = new InMemoryDatabase();
+        db.addStudents(1, 10);
+        // 教学班1、2彼此重叠（检查生效前已存在），2 在 1 之后开始且先结束
+        db.addTeachingClass(1, 100, SEMESTER, "周一 08:00-12:00", "A101");
+        db.addTeachingClass(2, 100, SEMESTER, "周一 08:30-09:00", "A101");
+        db.addTeachingClass(3, 100, SEMESTER, "周一 10:00-11:00", "A102");
+        db.addTeachingClass(4, 100, SEMESTER, "周一 12:00-13:00", "A102");
+        db.addEnrollment(STUDENT, 1);
+        db.addEnrollment(STUDENT, 2);
+        index = new ScheduleIndex(db.teachingClassMapper(), db.enrollmentMapper(), db.entityChangeLogMapper());
+        index.init();
+    }
+
+    @Test
+    void findsEarlierLongIntervalBehindShorterOne() {
+        ScheduleIndex.ClassEntry conflict = index.findStudentConflict(STUDENT, 3L);
+
+        assertNotNull(conflict);
+        assertEquals(1L, conflict.id());
+    }
+
+    @Test
+    void findsClassroomConflictBehindShorterInterval() {
+        ScheduleIndex.ClassEntry conflict = index.findClassroomConflict(SEMESTER, "A101", "周一 10:00-11:00", null);
+
+        assertNotNull(conflict);
+        assertEquals(1L, conflict.id());
+        assertNull(index.findClassroomConflict(SEMESTER, "A101", "周一 10:00-11:00", 1L));
+    }
+
+    @Test
+    void adjacentIntervalsDoNotConflict() {
+        assertNull(index.findStudentConflict(STUDENT, 4L));
+    }
+
+    @Test
+    void droppingLongIntervalClearsConflict() {
+        db.removeEnrollment(STUDENT, 1);
+        index.poll();
+
+        assertNull(index.findStudentConflict(STUDENT, 3L));
+        assertNotNull(index.findStudentConflict(STUDENT, 1L));
+    }
+}
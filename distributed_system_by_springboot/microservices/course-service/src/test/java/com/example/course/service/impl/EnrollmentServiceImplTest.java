@@ -0,0 +1,374 @@
+package com.example.course.service.impl;
+
+import com.example.common.dto.EnrollmentDTO;
+import com.example.common.exception.BusinessException;
+import com.example.common.vo.EnrollmentBatchResultVO;
+import com.example.course.enrollment.EnrollmentWriter;
+import com.example.course.enrollment.SeatLedger;
+import com.example.course.enrollment.SeatsAvailableEvent;
+import com.example.course.enrollment.WaitlistPromoter;
+import com.example.course.enrollment.WaitlistQueue;
+import com.example.course.schedule.ScheduleIndex;
+import com.example.course.support.InMemoryDatabase;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 选课服务：批量选课逐条结果与异常回滚，同一学生并发选课的冲突检查，候补按顺序转正
+ */
+class EnrollmentServiceImplTest {
+
+    private static final String SEMESTER = "2024-2025-1";
+
+    private InMemoryDatabase db;
+
+    private TransactionTemplate transactionTemplate;
+
+    private SeatLedger seatLedger;
+
+    private ScheduleIndex scheduleIndex;
+
+    private EnrollmentWriter enrollmentWriter;
+
+    private WaitlistQueue waitlistQueue;
+
+    private WaitlistPromoter waitlistPromoter;
+
+    private EnrollmentServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        db = new InMemoryDatabase();
+        db.addStudents(1, 100);
+        db.addTeachingClass(1, 2, SEMESTER, "周一 1-2节", "A101");
+        db.addTeachingClass(2, 10, SEMESTER, "周一 2-3节", "A102");
+        db.addTeachingClass(3, 10, SEMESTER, "周三 1-2节", "A101");
+        db.addTeachingClass(4, 10, SEMESTER, "周三 1-2节", "A102");
+        db.addTeachingClass(7, 100, SEMESTER, "周四 1-2节", "B101");
+        db.addTeachingClass(8, 100, SEMESTER, "周四 2-3节", "B102");
+        db.addEnrollment(1, 3);
+
+        transactionTemplate = new TransactionTemplate(db);
+        seatLedger = new SeatLedger(db.teachingClassMapper(), db.enrollmentMapper(), db.entityChangeLogMapper(),
+                event -> waitlistPromoter.onSeatsAvailable((SeatsAvailableEvent) event));
+        scheduleIndex = new ScheduleIndex(db.teachingClassMapper(), db.enrollmentMapper(), db.entityChangeLogMapper());
+        enrollmentWriter = new EnrollmentWriter(db.enrollmentMapper(), transactionTemplate, seatLedger,
+                new SimpleMeterRegistry(), 64, 1, 1024);
+        waitlistQueue = new WaitlistQueue(db.waitlistEntryMapper());
+        waitlistPromoter = new WaitlistPromoter(db.enrollmentMapper(), db.studentMapper(), seatLedger, waitlistQueue,
+                scheduleIndex, db);
+        service = new EnrollmentServiceImpl(db.enrollmentMapper(), db.studentMapper(), db.teachingClassMapper(),
+                db.courseMapper(), db.teacherMapper(), db.scoreMapper(), seatLedger, enrollmentWriter,
+                waitlistQueue, waitlistPromoter, scheduleIndex);
+        ReflectionTestUtils.setField(service, "writeTimeoutMillis", 5000L);
+        seatLedger.init();
+        scheduleIndex.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        enrollmentWriter.shutdown();
+    }
+
+    @Test
+    void saveBatchReportsOutcomePerRow() {
+        List<EnrollmentDTO> dtos = List.of(
+                dto(1L, 3L),     // 库中已选
+                dto(2L, 1L),
+                dto(3L, 1L),
+                dto(4L, 1L),     // 本批前两条已占满
+                dto(2L, 2L),     // 与本批已通过的教学班1冲突
+                dto(1L, 4L),     // 与库中已选的教学班3冲突
+                dto(5L, 99L),    // 教学班不存在
+                dto(null, 1L),
+                dto(6L, 3L),
+                dto(6L, 3L));    // 本批内重复
+
+        EnrollmentBatchResultVO result = transactionTemplate.execute(status -> service.saveBatch(dtos));
+
+        assertNotNull(result);
+        assertEquals(Arrays.asList(
+                EnrollmentBatchResultVO.DUPLICATE,
+                EnrollmentBatchResultVO.ACCEPTED,
+                EnrollmentBatchResultVO.ACCEPTED,
+                EnrollmentBatchResultVO.FULL,
+                EnrollmentBatchResultVO.CONFLICT,
+                EnrollmentBatchResultVO.CONFLICT,
+                EnrollmentBatchResultVO.NOT_FOUND,
+                EnrollmentBatchResultVO.INVALID,
+                EnrollmentBatchResultVO.ACCEPTED,
+                EnrollmentBatchResultVO.DUPLICATE), outcomes(result));
+        assertEquals(dtos.size(), result.getTotal());
+        assertEquals(3, result.getAccepted());
+        assertEquals(dtos.size() - 3, result.getRejected());
+
+        assertEquals(Set.of(2L, 3L), new HashSet<>(db.enrolledStudents(1)));
+        assertEquals(Set.of(1L, 6L), new HashSet<>(db.enrolledStudents(3)));
+        assertEquals(0, seatLedger.remaining(1L));
+        assertTrue(seatLedger.isEnrolled(6L, 3L));
+        assertNotNull(scheduleIndex.findStudentConflict(2L, 2L));
+    }
+
+    @Test
+    void saveBatchRejectsSeatsTakenBySingleEnrollment() {
+        assertTrue(service.save(dto(7L, 1L)));
+        assertTrue(service.save(dto(8L, 1L)));
+
+        EnrollmentBatchResultVO result = transactionTemplate.execute(status -> service.saveBatch(List.of(dto(9L, 1L))));
+
+        assertNotNull(result);
+        assertEquals(List.of(EnrollmentBatchResultVO.FULL), outcomes(result));
+        assertEquals(Set.of(7L, 8L), new HashSet<>(db.enrolledStudents(1)));
+    }
+
+    @Test
+    void concurrentSavesOfOverlappingClassesAcceptOne() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            for (long student = 40; student < 100; student++) {
+                long studentDbId = student;
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<Boolean>> results = new ArrayList<>();
+                for (long classDbId : new long[]{7L, 8L}) {
+                    results.add(pool.submit(() -> {
+                        start.await();
+                        try {
+                            return service.save(dto(studentDbId, classDbId));
+                        } catch (BusinessException e) {
+                            return false;
+                        }
+                    }));
+                }
+                start.countDown();
+                int accepted = 0;
+                for (Future<Boolean> result : results) {
+                    if (result.get(10, TimeUnit.SECONDS)) {
+                        accepted++;
+                    }
+                }
+                assertEquals(1, accepted, "学生" + studentDbId + "选上了两个时间重叠的教学班");
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void concurrentSaveAndBatchOfOverlappingClassesAcceptOne() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            for (long student = 40; student < 100; student++) {
+                long studentDbId = student;
+                CountDownLatch start = new CountDownLatch(1);
+                Future<Boolean> single = pool.submit(() -> {
+                    start.await();
+                    try {
+                        return service.save(dto(studentDbId, 7L));
+                    } catch (BusinessException e) {
+                        return false;
+                    }
+                });
+                Future<Boolean> batch = pool.submit(() -> {
+                    start.await();
+                    EnrollmentBatchResultVO result = transactionTemplate.execute(status ->
+                            service.saveBatch(List.of(dto(studentDbId, 8L))));
+                    return result != null && result.getAccepted() == 1;
+                });
+                start.countDown();
+                int accepted = (single.get(10, TimeUnit.SECONDS) ? 1 : 0) + (batch.get(10, TimeUnit.SECONDS) ? 1 : 0);
+                assertEquals(1, accepted, "学生" + studentDbId + "选上了两个时间重叠的教学班");
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void saveBatchReleasesReservationsWhenInterruptedMidway() {
+        // 装载台账之后新建的教学班，占座时才查库
+        db.addTeachingClass(5, 10, SEMESTER, "周五 1-2节", "A103");
+        db.failTeachingClassReadsWhen(id -> id == 5L);
+        List<EnrollmentDTO> dtos = List.of(dto(10L, 1L), dto(11L, 3L), dto(12L, 5L));
+
+        assertThrows(IllegalStateException.class,
+                () -> transactionTemplate.execute(status -> service.saveBatch(dtos)));
+
+        assertEquals(2, seatLedger.remaining(1L));
+        assertFalse(seatLedger.isEnrolled(10L, 1L));
+        assertFalse(seatLedger.isEnrolled(11L, 3L));
+        assertEquals(List.of(), db.enrolledStudents(1));
+    }
+
+    @Test
+    void saveBatchReleasesReservationsWhenInsertFails() {
+        db.failInsertsWhen(enrollment -> enrollment.getStudentDbId() == 11L);
+
+        assertThrows(IllegalStateException.class,
+                () -> transactionTemplate.execute(status -> service.saveBatch(List.of(dto(10L, 1L), dto(11L, 1L)))));
+
+        assertFalse(seatLedger.isEnrolled(10L, 1L));
+        assertFalse(seatLedger.isEnrolled(11L, 1L));
+        assertEquals(2, seatLedger.remaining(1L));
+        assertEquals(List.of(), db.enrolledStudents(1));
+    }
+
+    @Test
+    void dropPromotesWaitlistHead() {
+        fillClassOneAndWaitlist(22L, 23L);
+
+        transactionTemplate.executeWithoutResult(status -> service.cancel("S20", "TC1"));
+
+        assertEquals(Set.of(21L, 22L), new HashSet<>(db.enrolledStudents(1)));
+        assertEquals(List.of(23L), db.waitlistedStudents(1));
+        assertEquals(1, service.getWaitlistPosition(23L, 1L));
+        assertTrue(seatLedger.isEnrolled(22L, 1L));
+        assertFalse(seatLedger.isEnrolled(20L, 1L));
+        assertEquals(0, seatLedger.remaining(1L));
+        // 转正的学生已登记到上课时间索引
+        assertNotNull(scheduleIndex.findStudentConflict(22L, 2L));
+    }
+
+    @Test
+    void dropRollbackRestoresWaitlist() {
+        fillClassOneAndWaitlist(22L, 23L);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            service.cancel("S20", "TC1");
+            status.setRollbackOnly();
+        });
+
+        assertEquals(Set.of(20L, 21L), new HashSet<>(db.enrolledStudents(1)));
+        assertEquals(List.of(22L, 23L), db.waitlistedStudents(1));
+        assertEquals(1, service.getWaitlistPosition(22L, 1L));
+        assertEquals(2, service.getWaitlistPosition(23L, 1L));
+        assertTrue(seatLedger.isEnrolled(20L, 1L));
+        assertFalse(seatLedger.isEnrolled(22L, 1L));
+        assertEquals(0, seatLedger.remaining(1L));
+    }
+
+    @Test
+    void dropRegistersPromotedStudentBeforeCommit() {
+        fillClassOneAndWaitlist(22L, 23L);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            service.cancel("S20", "TC1");
+            // 提交前已登记，同一学生的选课请求能看到转正的教学班
+            assertNotNull(scheduleIndex.findStudentConflict(22L, 2L));
+            status.setRollbackOnly();
+        });
+
+        // 回滚后撤回登记
+        assertNull(scheduleIndex.findStudentConflict(22L, 2L));
+        assertEquals(Set.of(20L, 21L), new HashSet<>(db.enrolledStudents(1)));
+    }
+
+    @Test
+    void dropSkipsWaitlistedStudentWithConflict() {
+        fillClassOneAndWaitlist(22L, 23L);
+        // 候补期间选了时间重叠的教学班2
+        assertTrue(service.save(dto(22L, 2L)));
+
+        transactionTemplate.executeWithoutResult(status -> service.cancel("S20", "TC1"));
+
+        assertEquals(Set.of(21L, 23L), new HashSet<>(db.enrolledStudents(1)));
+        assertEquals(List.of(), db.waitlistedStudents(1));
+    }
+
+    @Test
+    void capacityRaisePromotesInOrder() {
+        fillClassOneAndWaitlist(22L, 23L, 24L);
+
+        db.setCapacity(1L, 4);
+        seatLedger.poll();
+
+        assertEquals(Set.of(20L, 21L, 22L, 23L), new HashSet<>(db.enrolledStudents(1)));
+        assertEquals(List.of(24L), db.waitlistedStudents(1));
+        assertEquals(1, service.getWaitlistPosition(24L, 1L));
+        assertEquals(0, seatLedger.remaining(1L));
+    }
+
+    @Test
+    void reconciledDropPromotesHead() {
+        fillClassOneAndWaitlist(22L, 23L);
+
+        // 其他服务删除了选课，对账时发现空位
+        db.removeEnrollment(20L, 1L);
+        seatLedger.poll();
+
+        assertEquals(Set.of(21L, 22L), new HashSet<>(db.enrolledStudents(1)));
+        assertEquals(List.of(23L), db.waitlistedStudents(1));
+        assertEquals(0, seatLedger.remaining(1L));
+    }
+
+    @Test
+    void saveCannotJumpWaitlist() {
+        fillClassOneAndWaitlist(22L, 23L);
+        // 补位失败，空位留给候补
+        db.failInsertsWhen(enrollment -> enrollment.getStudentDbId() == 22L);
+        db.setCapacity(1L, 3);
+        seatLedger.poll();
+        assertEquals(1, seatLedger.remaining(1L));
+
+        BusinessException error = assertThrows(BusinessException.class, () -> service.save(dto(30L, 1L)));
+        assertEquals("教学班已有学生候补，请加入候补", error.getMessage());
+        assertEquals(3, service.joinWaitlist(dto(30L, 1L)));
+        assertEquals(Set.of(20L, 21L), new HashSet<>(db.enrolledStudents(1)));
+        assertEquals(List.of(22L, 23L, 30L), db.waitlistedStudents(1));
+    }
+
+    @Test
+    void saveBatchCannotJumpWaitlist() {
+        fillClassOneAndWaitlist(22L, 23L);
+        // 补位失败，空位留给候补
+        db.failInsertsWhen(enrollment -> enrollment.getStudentDbId() == 22L);
+        db.setCapacity(1L, 3);
+        seatLedger.poll();
+        assertEquals(1, seatLedger.remaining(1L));
+
+        EnrollmentBatchResultVO result = transactionTemplate.execute(status ->
+                service.saveBatch(List.of(dto(30L, 1L), dto(30L, 3L))));
+
+        assertNotNull(result);
+        assertEquals(List.of(EnrollmentBatchResultVO.WAITLISTED, EnrollmentBatchResultVO.ACCEPTED), outcomes(result));
+        assertEquals(1, seatLedger.remaining(1L));
+        assertEquals(Set.of(20L, 21L), new HashSet<>(db.enrolledStudents(1)));
+        assertEquals(List.of(22L, 23L), db.waitlistedStudents(1));
+    }
+
+    /**
+     * 教学班1（容量2）由学生20、21选满，其余学生依次候补
+     */
+    private void fillClassOneAndWaitlist(Long... waitlisted) {
+        assertTrue(service.save(dto(20L, 1L)));
+        assertTrue(service.save(dto(21L, 1L)));
+        for (int i = 0; i < waitlisted.length; i++) {
+            assertEquals(i + 1, service.joinWaitlist(dto(waitlisted[i], 1L)));
+        }
+    }
+
+    private static List<String> outcomes(EnrollmentBatchResultVO result) {
+        List<String> outcomes = new ArrayList<>();
+        result.getRows().forEach(row -> outcomes.add(row.getOutcome()));
+        return outcomes;
+    }
+
+    private static EnrollmentDTO dto(Long studentDbId, Long teachingClassDbId) {
+        EnrollmentDTO dto = new EnrollmentDTO();
+        dto.setStudentDbId(studentDbId);
+        dto.setTeachingClassDbId(teachingClassDbId);
+        return dto;
+    }
+}
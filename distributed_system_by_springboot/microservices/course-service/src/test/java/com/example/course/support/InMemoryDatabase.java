@@ -0,0 +1,545 @@
+package com.example.course.support;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.conditions.AbstractWrapper;
+import com.baomidou.mybatisplus.core.conditions.Wrapper;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import com.example.common.entity.*;
+import com.example.course.enrollment.ClassSeatCount;
+import com.example.course.mapper.*;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.springframework.beans.BeanUtils;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.SmartTransactionObject;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 测试用内存数据库，同时作为事务管理器
+ * 事务内的写入按线程暂存，提交时一次应用、回滚时丢弃；读取只看已提交的数据。
+ * 选课与教学班的写入像触发器一样追加 entity_change_log。
+ * 条件构造器只支持等值与 IN 条件，足够覆盖台账、候补与写入线程的查询。
+ */
+public class InMemoryDatabase extends AbstractPlatformTransactionManager {
+
+    private static final Pattern CONDITION =
+            Pattern.compile("(\\w+) (=|IN) \\(?((?:#\\{ew\\.paramNameValuePairs\\.\\w+\\},?)+)\\)?");
+
+    private static final Pattern PARAM = Pattern.compile("paramNameValuePairs\\.(\\w+)\\}");
+
+    static {
+        MapperBuilderAssistant assistant = new MapperBuilderAssistant(new MybatisConfiguration(), "");
+        for (Class<?> type : List.of(Enrollment.class, TeachingClass.class, Student.class, WaitlistEntry.class,
+                Score.class)) {
+            TableInfoHelper.initTableInfo(assistant, type);
+        }
+    }
+
+    private final Map<Long, Enrollment> enrollments = new LinkedHashMap<>();
+    private final Map<Long, TeachingClass> teachingClasses = new LinkedHashMap<>();
+    private final Map<Long, Student> students = new LinkedHashMap<>();
+    private final Map<Long, WaitlistEntry> waitlist = new LinkedHashMap<>();
+    private final List<EntityChangeLog> changeLog = new ArrayList<>();
+
+    private final AtomicLong ids = new AtomicLong(1000);
+
+    private final ThreadLocal<Tx> current = new ThreadLocal<>();
+
+    private volatile Predicate<Enrollment> insertFailure = enrollment -> false;
+
+    private volatile Runnable afterEnrollmentRead;
+
+    private volatile Predicate<Long> teachingClassReadFailure = id -> false;
+
+    // ---------------- 测试数据 ----------------
+
+    public synchronized TeachingClass addTeachingClass(long id, Integer capacity, String semester,
+                                                       String scheduleTime, String classroom) {
+        TeachingClass teachingClass = new TeachingClass();
+        teachingClass.setId(id);
+        teachingClass.setClassId("TC" + id);
+        teachingClass.setCapacity(capacity);
+        teachingClass.setSemester(semester);
+        teachingClass.setScheduleTime(scheduleTime);
+        teachingClass.setClassroom(classroom);
+        teachingClasses.put(id, teachingClass);
+        return copy(teachingClass);
+    }
+
+    public synchronized TeachingClass addTeachingClass(long id, Integer capacity) {
+        return addTeachingClass(id, capacity, "2024-2025-1", null, null);
+    }
+
+    public synchronized void addStudents(long fromId, long toId) {
+        for (long id = fromId; id <= toId; id++) {
+            Student student = new Student();
+            student.setId(id);
+            student.setStudentId("S" + id);
+            students.put(id, student);
+        }
+    }
+
+    /**
+     * 直接写入已提交的选课，并追加变更日志
+     */
+    public synchronized void addEnrollment(long studentDbId, long teachingClassDbId) {
+        Enrollment enrollment = new Enrollment();
+        enrollment.setStudentDbId(studentDbId);
+        enrollment.setTeachingClassDbId(teachingClassDbId);
+        applyInsert(enrollment);
+    }
+
+    /**
+     * 其他服务删除选课：直接删除已提交的记录，并追加变更日志
+     */
+    public synchronized void removeEnrollment(long studentDbId, long teachingClassDbId) {
+        enrollments.values().removeIf(e -> e.getStudentDbId() == studentDbId
+                && e.getTeachingClassDbId() == teachingClassDbId);
+        appendChange(EntityChangeLog.ENTITY_ENROLLMENT, teachingClassDbId);
+    }
+
+    /**
+     * 其他服务修改教学班容量
+     */
+    public synchronized void setCapacity(long teachingClassDbId, Integer capacity) {
+        teachingClasses.get(teachingClassDbId).setCapacity(capacity);
+        appendChange(EntityChangeLog.ENTITY_TEACHING_CLASS, teachingClassDbId);
+    }
+
+    public synchronized void addWaitlistEntry(long studentDbId, long teachingClassDbId) {
+        WaitlistEntry entry = new WaitlistEntry();
+        entry.setStudentDbId(studentDbId);
+        entry.setTeachingClassDbId(teachingClassDbId);
+        applyInsert(entry);
+    }
+
+    public void failInsertsWhen(Predicate<Enrollment> failure) {
+        this.insertFailure = failure;
+    }
+
+    public void failTeachingClassReadsWhen(Predicate<Long> failure) {
+        this.teachingClassReadFailure = failure;
+    }
+
+    /**
+     * 下一次读取选课表、结果已确定但尚未返回时执行一次
+     */
+    public void afterNextEnrollmentRead(Runnable hook) {
+        this.afterEnrollmentRead = hook;
+    }
+
+    public synchronized List<Long> enrolledStudents(long teachingClassDbId) {
+        return enrollments.values().stream()
+                .filter(e -> e.getTeachingClassDbId() == teachingClassDbId)
+                .map(Enrollment::getStudentDbId)
+                .toList();
+    }
+
+    public synchronized List<Long> waitlistedStudents(long teachingClassDbId) {
+        return waitlist.values().stream()
+                .filter(e -> e.getTeachingClassDbId() == teachingClassDbId)
+                .map(WaitlistEntry::getStudentDbId)
+                .toList();
+    }
+
+    // ---------------- Mapper ----------------
+
+    public EnrollmentMapper enrollmentMapper() {
+        Map<String, Function<Object[], Object>> handlers = new HashMap<>();
+        handlers.put("insert/1", args -> {
+            insert((Enrollment) args[0]);
+            return 1;
+        });
+        handlers.put("insertBatch/1", args -> {
+            @SuppressWarnings("unchecked")
+            List<Enrollment> batch = (List<Enrollment>) args[0];
+            batch.forEach(this::insert);
+            return batch.size();
+        });
+        handlers.put("selectList/1", args -> {
+            List<Enrollment> rows = select(enrollments, (Wrapper<?>) args[0]);
+            Runnable hook = afterEnrollmentRead;
+            if (hook != null) {
+                afterEnrollmentRead = null;
+                hook.run();
+            }
+            return rows;
+        });
+        handlers.put("selectCount/1", args -> (long) select(enrollments, (Wrapper<?>) args[0]).size());
+        handlers.put("selectById/1", args -> selectById(enrollments, args[0]));
+        handlers.put("selectSeatCounts/1", args -> selectSeatCounts((Collection<?>) args[0]));
+        handlers.put("delete/1", args -> delete(enrollments, (Wrapper<?>) args[0], EntityChangeLog.ENTITY_ENROLLMENT));
+        handlers.put("deleteById/1", args -> deleteByIds(enrollments, List.of(args[0])));
+        handlers.put("deleteBatchIds/1", args -> deleteByIds(enrollments, (Collection<?>) args[0]));
+        return mapper(EnrollmentMapper.class, handlers);
+    }
+
+    public TeachingClassMapper teachingClassMapper() {
+        Map<String, Function<Object[], Object>> handlers = new HashMap<>();
+        handlers.put("selectList/1", args -> select(teachingClasses, (Wrapper<?>) args[0]));
+        handlers.put("selectById/1", args -> {
+            if (teachingClassReadFailure.test(toId(args[0]))) {
+                throw new IllegalStateException("模拟读取教学班失败: id=" + args[0]);
+            }
+            return selectById(teachingClasses, args[0]);
+        });
+        handlers.put("updateById/1", args -> {
+            TeachingClass teachingClass = copy((TeachingClass) args[0]);
+            write(() -> {
+                TeachingClass stored = teachingClasses.get(teachingClass.getId());
+                if (teachingClass.getCapacity() != null) {
+                    stored.setCapacity(teachingClass.getCapacity());
+                }
+                appendChange(EntityChangeLog.ENTITY_TEACHING_CLASS, teachingClass.getId());
+            });
+            return 1;
+        });
+        return mapper(TeachingClassMapper.class, handlers);
+    }
+
+    public StudentMapper studentMapper() {
+        Map<String, Function<Object[], Object>> handlers = new HashMap<>();
+        handlers.put("selectList/1", args -> select(students, (Wrapper<?>) args[0]));
+        handlers.put("selectById/1", args -> selectById(students, args[0]));
+        return mapper(StudentMapper.class, handlers);
+    }
+
+    public WaitlistEntryMapper waitlistEntryMapper() {
+        Map<String, Function<Object[], Object>> handlers = new HashMap<>();
+        handlers.put("insert/1", args -> {
+            WaitlistEntry entry = (WaitlistEntry) args[0];
+            synchronized (this) {
+                boolean exists = waitlist.values().stream().anyMatch(e -> e.getStudentDbId().equals(entry.getStudentDbId())
+                        && e.getTeachingClassDbId().equals(entry.getTeachingClassDbId()));
+                if (exists) {
+                    throw new DuplicateKeyException("enrollment_waitlist 唯一索引冲突");
+                }
+            }
+            entry.setId(ids.incrementAndGet());
+            WaitlistEntry stored = copy(entry);
+            write(() -> waitlist.put(stored.getId(), stored));
+            return 1;
+        });
+        handlers.put("selectList/1", args -> select(waitlist, (Wrapper<?>) args[0]));
+        handlers.put("delete/1", args -> delete(waitlist, (Wrapper<?>) args[0], null));
+        return mapper(WaitlistEntryMapper.class, handlers);
+    }
+
+    public EntityChangeLogMapper entityChangeLogMapper() {
+        Map<String, Function<Object[], Object>> handlers = new HashMap<>();
+        handlers.put("selectSince/2", args -> {
+            long since = (Long) args[0];
+            int limit = (Integer) args[1];
+            synchronized (this) {
+                return changeLog.stream().filter(c -> c.getSeq() > since).limit(limit).toList();
+            }
+        });
+        handlers.put("selectMaxSeq/0", args -> {
+            synchronized (this) {
+                return changeLog.isEmpty() ? 0L : changeLog.get(changeLog.size() - 1).getSeq();
+            }
+        });
+        return mapper(EntityChangeLogMapper.class, handlers);
+    }
+
+    /**
+     * 成绩表不在内存库中，级联删除只计数为0
+     */
+    public ScoreMapper scoreMapper() {
+        Map<String, Function<Object[], Object>> handlers = new HashMap<>();
+        for (String name : List.of("delete/1", "deleteTranscriptSummary/1", "deleteByEnrollmentIds/1",
+                "deleteTranscriptSummaryByEnrollmentIds/1")) {
+            handlers.put(name, args -> 0);
+        }
+        return mapper(ScoreMapper.class, handlers);
+    }
+
+    public CourseMapper courseMapper() {
+        return mapper(CourseMapper.class, Map.of("selectById/1", args -> null));
+    }
+
+    public TeacherMapper teacherMapper() {
+        return mapper(TeacherMapper.class, Map.of("selectById/1", args -> null));
+    }
+
+    // ---------------- 事务 ----------------
+
+    @Override
+    protected Object doGetTransaction() {
+        return new TxObject(current.get());
+    }
+
+    @Override
+    protected boolean isExistingTransaction(Object transaction) {
+        return ((TxObject) transaction).tx != null;
+    }
+
+    @Override
+    protected void doBegin(Object transaction, TransactionDefinition definition) {
+        Tx tx = new Tx();
+        ((TxObject) transaction).tx = tx;
+        current.set(tx);
+    }
+
+    @Override
+    protected Object doSuspend(Object transaction) {
+        Tx suspended = current.get();
+        current.remove();
+        ((TxObject) transaction).tx = null;
+        return suspended;
+    }
+
+    @Override
+    protected void doResume(Object transaction, Object suspendedResources) {
+        current.set((Tx) suspendedResources);
+    }
+
+    @Override
+    protected void doCommit(DefaultTransactionStatus status) {
+        Tx tx = ((TxObject) status.getTransaction()).tx;
+        synchronized (this) {
+            tx.writes.forEach(Runnable::run);
+        }
+    }
+
+    @Override
+    protected void doRollback(DefaultTransactionStatus status) {
+        ((TxObject) status.getTransaction()).tx.writes.clear();
+    }
+
+    @Override
+    protected void doSetRollbackOnly(DefaultTransactionStatus status) {
+        ((TxObject) status.getTransaction()).tx.rollbackOnly = true;
+    }
+
+    @Override
+    protected void doCleanupAfterCompletion(Object transaction) {
+        current.remove();
+    }
+
+    private static final class Tx {
+        private final List<Runnable> writes = new ArrayList<>();
+        private final Set<List<Long>> insertedEnrollments = new HashSet<>();
+        private boolean rollbackOnly;
+    }
+
+    private static final class TxObject implements SmartTransactionObject {
+
+        private Tx tx;
+
+        private TxObject(Tx tx) {
+            this.tx = tx;
+        }
+
+        @Override
+        public boolean isRollbackOnly() {
+            return tx != null && tx.rollbackOnly;
+        }
+
+        @Override
+        public void flush() {
+        }
+    }
+
+    // ---------------- 内部实现 ----------------
+
+    /**
+     * 事务内暂存，无事务时立即应用
+     */
+    private void write(Runnable write) {
+        Tx tx = current.get();
+        if (tx == null) {
+            synchronized (this) {
+                write.run();
+            }
+        } else {
+            tx.writes.add(write);
+        }
+    }
+
+    private void insert(Enrollment enrollment) {
+        if (insertFailure.test(enrollment)) {
+            throw new IllegalStateException("模拟写入失败: student=" + enrollment.getStudentDbId());
+        }
+        List<Long> key = List.of(enrollment.getStudentDbId(), enrollment.getTeachingClassDbId());
+        Tx tx = current.get();
+        synchronized (this) {
+            boolean exists = enrollments.values().stream().anyMatch(e -> e.getStudentDbId().equals(key.get(0))
+                    && e.getTeachingClassDbId().equals(key.get(1)));
+            if (exists || (tx != null && tx.insertedEnrollments.contains(key))) {
+                throw new DuplicateKeyException("enrollment 唯一索引冲突: " + key);
+            }
+        }
+        if (tx != null) {
+            tx.insertedEnrollments.add(key);
+        }
+        enrollment.setId(ids.incrementAndGet());
+        Enrollment stored = copy(enrollment);
+        write(() -> applyInsert(stored));
+    }
+
+    private void applyInsert(Object row) {
+        if (row instanceof Enrollment enrollment) {
+            if (enrollment.getId() == null) {
+                enrollment.setId(ids.incrementAndGet());
+            }
+            enrollments.put(enrollment.getId(), enrollment);
+            appendChange(EntityChangeLog.ENTITY_ENROLLMENT, enrollment.getTeachingClassDbId());
+        } else if (row instanceof WaitlistEntry entry) {
+            entry.setId(ids.incrementAndGet());
+            waitlist.put(entry.getId(), entry);
+        }
+    }
+
+    private void appendChange(String entity, Long teachingClassDbId) {
+        EntityChangeLog change = new EntityChangeLog();
+        change.setSeq((long) changeLog.size() + 1);
+        change.setEntity(entity);
+        change.setTeachingClassDbId(teachingClassDbId);
+        changeLog.add(change);
+    }
+
+    private List<ClassSeatCount> selectSeatCounts(Collection<?> teachingClassDbIds) {
+        List<ClassSeatCount> counts = new ArrayList<>();
+        synchronized (this) {
+            for (Object id : teachingClassDbIds) {
+                TeachingClass teachingClass = teachingClasses.get(toId(id));
+                if (teachingClass == null) {
+                    continue;
+                }
+                ClassSeatCount count = new ClassSeatCount();
+                count.setTeachingClassDbId(teachingClass.getId());
+                count.setCapacity(teachingClass.getCapacity());
+                count.setEnrolled(enrolledStudents(teachingClass.getId()).size());
+                counts.add(count);
+            }
+        }
+        return counts;
+    }
+
+    private <T> List<T> select(Map<Long, T> table, Wrapper<?> wrapper) {
+        Predicate<Object> matcher = matcher(wrapper);
+        synchronized (this) {
+            return table.values().stream().filter(matcher).map(InMemoryDatabase::copy).toList();
+        }
+    }
+
+    private <T> T selectById(Map<Long, T> table, Object id) {
+        synchronized (this) {
+            T row = table.get(toId(id));
+            return row == null ? null : copy(row);
+        }
+    }
+
+    private <T> int delete(Map<Long, T> table, Wrapper<?> wrapper, String entity) {
+        List<Long> matched;
+        Predicate<Object> matcher = matcher(wrapper);
+        synchronized (this) {
+            matched = table.entrySet().stream().filter(e -> matcher.test(e.getValue())).map(Map.Entry::getKey).toList();
+        }
+        return deleteByIds(table, matched);
+    }
+
+    private <T> int deleteByIds(Map<Long, T> table, Collection<?> ids) {
+        List<Long> keys = ids.stream().map(InMemoryDatabase::toId).toList();
+        int affected;
+        synchronized (this) {
+            affected = (int) keys.stream().filter(table::containsKey).count();
+        }
+        write(() -> {
+            for (Long key : keys) {
+                T removed = table.remove(key);
+                if (removed instanceof Enrollment enrollment) {
+                    appendChange(EntityChangeLog.ENTITY_ENROLLMENT, enrollment.getTeachingClassDbId());
+                }
+            }
+        });
+        return affected;
+    }
+
+    private static Predicate<Object> matcher(Wrapper<?> wrapper) {
+        if (wrapper == null) {
+            return row -> true;
+        }
+        Map<String, Object> params = ((AbstractWrapper<?, ?, ?>) wrapper).getParamNameValuePairs();
+        Map<String, Set<Object>> conditions = new HashMap<>();
+        String segment = wrapper.getSqlSegment();
+        Matcher condition = CONDITION.matcher(segment == null ? "" : segment);
+        while (condition.find()) {
+            Set<Object> values = new HashSet<>();
+            Matcher param = PARAM.matcher(condition.group(3));
+            while (param.find()) {
+                values.add(params.get(param.group(1)));
+            }
+            conditions.put(condition.group(1), values);
+        }
+        return row -> conditions.entrySet().stream()
+                .allMatch(e -> e.getValue().contains(column(row, e.getKey())));
+    }
+
+    private static Object column(Object row, String column) {
+        StringBuilder property = new StringBuilder();
+        boolean upper = false;
+        for (char c : column.toCharArray()) {
+            if (c == '_') {
+                upper = true;
+            } else {
+                property.append(upper ? Character.toUpperCase(c) : c);
+                upper = false;
+            }
+        }
+        try {
+            Field field = row.getClass().getDeclaredField(property.toString());
+            field.setAccessible(true);
+            return field.get(row);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalArgumentException("未知列: " + column, e);
+        }
+    }
+
+    private static Long toId(Object id) {
+        return Long.valueOf(String.valueOf(id));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T copy(T row) {
+        try {
+            T copy = (T) row.getClass().getDeclaredConstructor().newInstance();
+            BeanUtils.copyProperties(row, copy);
+            return copy;
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <M> M mapper(Class<M> type, Map<String, Function<Object[], Object>> handlers) {
+        return (M) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            Object[] arguments = args == null ? new Object[0] : args;
+            Function<Object[], Object> handler = handlers.get(method.getName() + "/" + method.getParameterCount());
+            if (handler != null) {
+                return handler.apply(arguments);
+            }
+            if (method.isDefault()) {
+                return InvocationHandler.invokeDefault(proxy, method, arguments);
+            }
+            return switch (method.getName()) {
+                case "toString" -> type.getSimpleName() + "(in-memory)";
+                case "hashCode" -> System.identityHashCode(proxy);
+                case "equals" -> proxy == arguments[0];
+                default -> throw new UnsupportedOperationException(type.getSimpleName() + "." + method.getName());
+            };
+        });
+    }
+}
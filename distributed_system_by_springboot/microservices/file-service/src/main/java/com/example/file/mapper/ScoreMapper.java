@@ -2,8 +2,16 @@ package com.example.file.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.example.common.entity.Score;
+import org.apache.ibatis.annotations.Delete;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
 
 @Mapper
 public interface ScoreMapper extends BaseMapper<Score> {
+    
+    /**
+     * 使学生成绩汇总失效，由成绩服务在下次查询时重建
+     */
+    @Delete("DELETE FROM student_transcript_summary WHERE student_db_id = #{studentDbId}")
+    int deleteTranscriptSummary(@Param("studentDbId") Long studentDbId);
 }
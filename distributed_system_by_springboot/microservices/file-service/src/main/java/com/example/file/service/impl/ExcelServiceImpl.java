@@ -355,6 +355,7 @@ public class ExcelServiceImpl implements ExcelService {
                         score.setFinalExamScore(BigDecimal.valueOf(data.getExamScore()));
                         scoreMapper.insert(score);
                     }
+                    scoreMapper.deleteTranscriptSummary(student.getId());
                     
                     successCount++;
                 } catch (Exception e) {
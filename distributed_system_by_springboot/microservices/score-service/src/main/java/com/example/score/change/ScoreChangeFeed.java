@@ -0,0 +1,98 @@
+package com.example.score.change;
+
+import com.example.common.entity.ScoreChangeLog;
+import com.example.common.exception.BusinessException;
+import com.example.common.result.Result;
+import com.example.common.result.ResultCode;
+import com.example.score.mapper.ScoreChangeLogMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * 成绩变更订阅
+ * 日志由数据库触发器写入，因此其他服务直接写库产生的变更同样可见。
+ * 长轮询请求挂起为 DeferredResult，不占用请求线程；有等待者时定时检查最大序号并唤醒。
+ * 日志由统计服务定期清理（见 statistics.change-log.retention-hours），since 之后的记录已被清理时返回参数错误，
+ * 调用方需重新读取全量成绩后从最新序号订阅；since 为0表示新订阅者，从现存最早的记录开始返回。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ScoreChangeFeed {
+
+    /**
+     * 单次返回的最大条数
+     */
+    public static final int MAX_LIMIT = 1000;
+
+    /**
+     * 长轮询最大等待时间（秒）
+     */
+    public static final int MAX_WAIT_SECONDS = 30;
+
+    private final ScoreChangeLogMapper scoreChangeLogMapper;
+
+    private final Queue<Waiter> waiters = new ConcurrentLinkedQueue<>();
+
+    /**
+     * 读取 since 之后的变更，没有变更时最多等待 waitSeconds 秒
+     */
+    public DeferredResult<Result<List<ScoreChangeLog>>> watch(long since, int limit, int waitSeconds) {
+        int boundedLimit = Math.max(1, Math.min(limit, MAX_LIMIT));
+        int boundedWait = Math.max(0, Math.min(waitSeconds, MAX_WAIT_SECONDS));
+        if (since > 0 && since < scoreChangeLogMapper.selectMinSeq() - 1) {
+            throw new BusinessException(ResultCode.PARAM_ERROR, "序号 " + since + " 之后的变更已被清理，请重新读取全量成绩");
+        }
+
+        List<ScoreChangeLog> changes = scoreChangeLogMapper.selectSince(since, boundedLimit);
+        if (!changes.isEmpty() || boundedWait == 0) {
+            DeferredResult<Result<List<ScoreChangeLog>>> result = new DeferredResult<>();
+            result.setResult(Result.success(changes));
+            return result;
+        }
+
+        // 超时返回空列表，调用方以原序号继续轮询
+        DeferredResult<Result<List<ScoreChangeLog>>> result =
+                new DeferredResult<>(boundedWait * 1000L, Result.success(Collections.emptyList()));
+        Waiter waiter = new Waiter(since, boundedLimit, result);
+        waiters.add(waiter);
+        result.onCompletion(() -> waiters.remove(waiter));
+        return result;
+    }
+
+    /**
+     * 有等待者时检查是否有新变更
+     */
+    @Scheduled(fixedDelay = 500)
+    public void notifyWaiters() {
+        if (waiters.isEmpty()) {
+            return;
+        }
+        long maxSeq = scoreChangeLogMapper.selectMaxSeq();
+        for (Waiter waiter : waiters) {
+            if (waiter.since >= maxSeq || waiter.result.isSetOrExpired()) {
+                continue;
+            }
+            try {
+                List<ScoreChangeLog> changes = scoreChangeLogMapper.selectSince(waiter.since, waiter.limit);
+                if (!changes.isEmpty()) {
+                    waiter.result.setResult(Result.success(changes));
+                }
+            } catch (Exception e) {
+                log.warn("读取成绩变更失败: since={}, error={}", waiter.since, e.getMessage());
+                waiter.result.setErrorResult(e);
+            }
+        }
+    }
+
+    private record Waiter(long since, int limit, DeferredResult<Result<List<ScoreChangeLog>>> result) {
+    }
+}
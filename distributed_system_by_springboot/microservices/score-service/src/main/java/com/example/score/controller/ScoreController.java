@@ -2,19 +2,24 @@ package com.example.score.controller;
 
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.example.common.dto.ScoreDTO;
+import com.example.common.entity.ScoreChangeLog;
 import com.example.common.query.ScoreQuery;
 import com.example.common.result.PageResult;
 import com.example.common.result.Result;
 import com.example.common.vo.ScoreVO;
 import com.example.common.vo.StudentScoreDetailVO;
+import com.example.score.change.ScoreChangeFeed;
 import com.example.score.service.ScoreService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * 成绩控制器
@@ -26,6 +31,7 @@ import java.util.List;
 public class ScoreController {
     
     private final ScoreService scoreService;
+    private final ScoreChangeFeed scoreChangeFeed;
     
     @Operation(summary = "分页查询成绩")
     @GetMapping("/page")
@@ -34,12 +40,35 @@ public class ScoreController {
         return Result.success(PageResult.of(page.getRecords(), page.getTotal(), page.getCurrent(), page.getSize()));
     }
     
+    @Operation(summary = "游标分页查询成绩")
+    @GetMapping("/cursor")
+    public Result<PageResult<ScoreVO>> cursorPage(ScoreQuery query) {
+        return Result.success(scoreService.cursorPage(query));
+    }
+    
     @Operation(summary = "获取所有成绩")
     @GetMapping("/list")
     public Result<List<ScoreVO>> list() {
         return Result.success(scoreService.list());
     }
     
+    @Operation(summary = "流式导出全部成绩", description = "逐批写出，适用于全量数据导出")
+    @GetMapping("/export")
+    public void export(
+            @Parameter(description = "导出格式：ndjson 或 csv") @RequestParam(defaultValue = "ndjson") String format,
+            HttpServletResponse response) {
+        scoreService.export(format, response);
+    }
+    
+    @Operation(summary = "订阅成绩变更", description = "返回序号大于 since 的变更；wait 大于0时无变更则长轮询等待，超时返回空列表")
+    @GetMapping("/changes")
+    public DeferredResult<Result<List<ScoreChangeLog>>> changes(
+            @Parameter(description = "上次读取到的最大序号") @RequestParam(defaultValue = "0") Long since,
+            @Parameter(description = "最大条数（不超过1000）") @RequestParam(defaultValue = "100") Integer limit,
+            @Parameter(description = "无变更时最长等待秒数（不超过30）") @RequestParam(defaultValue = "0") Integer wait) {
+        return scoreChangeFeed.watch(since, limit, wait);
+    }
+    
     @Operation(summary = "根据ID获取成绩")
     @GetMapping("/{id}")
     public Result<ScoreVO> getById(@Parameter(description = "成绩ID") @PathVariable("id") String id) {
@@ -89,9 +118,15 @@ public class ScoreController {
         return Result.success(scoreService.delete(id));
     }
     
+    @Operation(summary = "重建学生成绩汇总", description = "按当前成绩数据重新计算全部学生的汇总，返回学生数")
+    @PostMapping("/transcript-summary/rebuild")
+    public Result<Integer> rebuildTranscriptSummary() {
+        return Result.success(scoreService.rebuildTranscriptSummary());
+    }
+    
     @Operation(summary = "批量删除成绩")
     @DeleteMapping("/batch")
-    public Result<Boolean> deleteBatch(@RequestBody List<String> ids) {
+    public Result<Map<String, Integer>> deleteBatch(@RequestBody List<String> ids) {
         return Result.success(scoreService.deleteBatch(ids));
     }
     
@@ -124,6 +159,14 @@ public class ScoreController {
         return Result.success(scoreService.getRanking(classId));
     }
     
+    @Operation(summary = "获取班级前N名")
+    @GetMapping("/ranking/{classId}/top")
+    public Result<List<ScoreVO>> getTopRanking(
+            @Parameter(description = "教学班编号") @PathVariable("classId") String classId,
+            @Parameter(description = "前N名") @RequestParam(defaultValue = "10") Integer limit) {
+        return Result.success(scoreService.getTopRanking(classId, limit));
+    }
+    
     @Operation(summary = "获取学生综合排名")
     @GetMapping("/student/{studentId}/ranking")
     public Result<List<ScoreVO>> getStudentRanking(@Parameter(description = "学号") @PathVariable("studentId") String studentId) {
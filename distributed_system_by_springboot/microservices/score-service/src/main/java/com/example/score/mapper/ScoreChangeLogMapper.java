@@ -0,0 +1,34 @@
+package com.example.score.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.example.common.entity.ScoreChangeLog;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.List;
+
+/**
+ * 成绩变更日志Mapper
+ */
+@Mapper
+public interface ScoreChangeLogMapper extends BaseMapper<ScoreChangeLog> {
+    
+    /**
+     * 按序号顺序读取 since 之后的变更
+     */
+    @Select("SELECT * FROM score_change_log WHERE seq > #{since} ORDER BY seq LIMIT #{limit}")
+    List<ScoreChangeLog> selectSince(@Param("since") long since, @Param("limit") int limit);
+    
+    /**
+     * 当前最大序号，无记录时为0
+     */
+    @Select("SELECT COALESCE(MAX(seq), 0) FROM score_change_log")
+    long selectMaxSeq();
+    
+    /**
+     * 当前最小序号，无记录时为0
+     */
+    @Select("SELECT COALESCE(MIN(seq), 0) FROM score_change_log")
+    long selectMinSeq();
+}
@@ -1,11 +1,21 @@
 package com.example.score.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.example.common.entity.Score;
+import com.example.common.query.ScoreQuery;
+import com.example.common.vo.ScoreVO;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
 import org.apache.ibatis.annotations.Update;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.mapping.ResultSetType;
+
+import java.util.Collection;
+import java.util.List;
 
 /**
  * 成绩Mapper
@@ -29,4 +39,52 @@ public interface ScoreMapper extends BaseMapper<Score> {
             "deleted = #{score.deleted}, update_time = datetime('now', 'localtime') " +
             "WHERE id = #{score.id}")
     int updateByIdIgnoreDeleted(@Param("score") Score score);
+    
+    /**
+     * 按教学班批量查询成绩键（包含已删除的记录），用于批量写入前的存在性判断
+     */
+    @Select("<script>SELECT id, student_db_id, teaching_class_db_id FROM score WHERE teaching_class_db_id IN " +
+            "<foreach collection='classDbIds' item='classDbId' open='(' separator=',' close=')'>#{classDbId}</foreach>" +
+            "</script>")
+    List<Score> selectKeysByClassIdsIgnoreDeleted(@Param("classDbIds") Collection<Long> classDbIds);
+    
+    /**
+     * 多行插入成绩，冲突时更新（同时恢复软删除的记录），依赖 score(student_db_id, teaching_class_db_id) 唯一约束
+     */
+    @Insert("<script>INSERT INTO score (student_db_id, teaching_class_db_id, regular_score, midterm_score, " +
+            "experiment_score, final_exam_score, final_score, grade_point, deleted) VALUES " +
+            "<foreach collection='scores' item='s' separator=','>" +
+            "(#{s.studentDbId}, #{s.teachingClassDbId}, #{s.regularScore}, #{s.midtermScore}, " +
+            "#{s.experimentScore}, #{s.finalExamScore}, #{s.finalScore}, #{s.gradePoint}, 0)" +
+            "</foreach> " +
+            "ON CONFLICT(student_db_id, teaching_class_db_id) DO UPDATE SET " +
+            "regular_score = excluded.regular_score, midterm_score = excluded.midterm_score, " +
+            "experiment_score = excluded.experiment_score, final_exam_score = excluded.final_exam_score, " +
+            "final_score = excluded.final_score, grade_point = excluded.grade_point, " +
+            "deleted = 0, update_time = datetime('now', 'localtime')" +
+            "</script>")
+    int upsertBatch(@Param("scores") List<Score> scores);
+    
+    /**
+     * 按主键顺序流式读取全部成绩，需在事务内迭代
+     */
+    @Select("SELECT * FROM score WHERE deleted = 0 ORDER BY id")
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = 1000)
+    Cursor<Score> selectAllCursor();
+    
+    /**
+     * 分页查询成绩（关联学生、教学班、课程、教师，见 ScoreMapper.xml）
+     */
+    IPage<ScoreVO> selectScorePage(IPage<ScoreVO> page, @Param("query") ScoreQuery query);
+    
+    /**
+     * 游标分页查询成绩，afterTime/afterId 为空时从第一条开始
+     */
+    List<ScoreVO> selectScoreCursorPage(@Param("query") ScoreQuery query, @Param("afterTime") String afterTime,
+                                        @Param("afterId") Long afterId, @Param("limit") long limit);
+    
+    /**
+     * 统计符合条件的成绩数
+     */
+    long selectScoreCount(@Param("query") ScoreQuery query);
 }
@@ -0,0 +1,54 @@
+package com.example.score.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.example.common.entity.StudentTranscriptSummary;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.Collection;
+
+/**
+ * 学生成绩汇总Mapper
+ */
+@Mapper
+public interface StudentTranscriptSummaryMapper extends BaseMapper<StudentTranscriptSummary> {
+    
+    /**
+     * 按学生聚合有效成绩，口径与成绩详情一致：教学班或课程已删除时不计学分
+     */
+    String AGGREGATE_SELECT = "SELECT st.id, COUNT(s.id), " +
+            "COALESCE(SUM(CAST(ROUND(s.final_score * 100) AS INTEGER)), 0), " +
+            "COALESCE(SUM(CASE WHEN s.final_score IS NOT NULL AND c.credits IS NOT NULL " +
+            "THEN CAST(ROUND(c.credits * 10) AS INTEGER) END), 0), " +
+            "COALESCE(SUM(CAST(ROUND(s.final_score * 100) AS INTEGER) * CAST(ROUND(c.credits * 10) AS INTEGER)), 0), " +
+            "datetime('now', 'localtime') " +
+            "FROM student st " +
+            "LEFT JOIN score s ON s.student_db_id = st.id AND s.deleted = 0 " +
+            "LEFT JOIN teaching_class tc ON tc.id = s.teaching_class_db_id AND tc.deleted = 0 " +
+            "LEFT JOIN course c ON c.id = tc.course_db_id AND c.deleted = 0 ";
+    
+    String INSERT_COLUMNS = "INSERT OR REPLACE INTO student_transcript_summary " +
+            "(student_db_id, score_count, score_sum, credit_sum, weighted_sum, update_time) ";
+    
+    /**
+     * 重新计算指定学生的汇总
+     */
+    @Insert("<script>" + INSERT_COLUMNS + AGGREGATE_SELECT + "WHERE st.id IN " +
+            "<foreach collection='studentDbIds' item='studentDbId' open='(' separator=',' close=')'>#{studentDbId}</foreach> " +
+            "GROUP BY st.id</script>")
+    int refreshByStudentIds(@Param("studentDbIds") Collection<Long> studentDbIds);
+    
+    /**
+     * 清空全部汇总
+     */
+    @Delete("DELETE FROM student_transcript_summary")
+    int deleteAll();
+    
+    /**
+     * 为全部学生重新计算汇总
+     */
+    @Insert(INSERT_COLUMNS + AGGREGATE_SELECT + "WHERE st.deleted = 0 GROUP BY st.id")
+    int insertAll();
+}
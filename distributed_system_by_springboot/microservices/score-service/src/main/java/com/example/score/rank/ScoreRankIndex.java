@@ -0,0 +1,301 @@
+package com.example.score.rank;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.example.common.entity.Score;
+import com.example.common.entity.ScoreChangeLog;
+import com.example.score.mapper.ScoreChangeLogMapper;
+import com.example.score.mapper.ScoreMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 教学班成绩排名索引
+ * 每个教学班维护一棵以综合成绩（百分之一分）为键的树状数组和一个有序集合，
+ * 名次查询与前N名查询均为 O(log n)，成绩写入后增量更新。
+ * 索引按教学班懒加载；其他服务（如Excel导入、级联删除）直接写库的变更，定时读取成绩变更日志按教学班应用到已装载的索引。
+ * 构建索引前记录日志位置，构建期间日志已被读过时本次结果不缓存，下次查询重建。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ScoreRankIndex {
+
+    private static final int BATCH_SIZE = 1000;
+
+    /**
+     * 综合成绩最大值（百分之一分）
+     */
+    private static final int MAX_HUNDREDTHS = 10000;
+
+    private final ScoreMapper scoreMapper;
+
+    private final ScoreChangeLogMapper scoreChangeLogMapper;
+
+    private final Map<Long, ClassRank> indexes = new ConcurrentHashMap<>();
+
+    /**
+     * 保护日志位置：缓存新索引与应用变更互斥
+     */
+    private final Object feedLock = new Object();
+
+    /**
+     * 已应用的成绩变更日志位置，未初始化时为 -1
+     */
+    private long changeSeq = -1;
+
+    /**
+     * 查询学生在教学班中的名次（同分同名次），无成绩时返回 null
+     */
+    public Integer rankOf(Long teachingClassDbId, Long studentDbId) {
+        ClassRank classRank = load(teachingClassDbId);
+        synchronized (classRank) {
+            return classRank.rankOf(studentDbId);
+        }
+    }
+
+    /**
+     * 查询教学班前N名，按名次升序返回
+     */
+    public List<RankEntry> top(Long teachingClassDbId, int n) {
+        ClassRank classRank = load(teachingClassDbId);
+        synchronized (classRank) {
+            return classRank.top(n);
+        }
+    }
+
+    /**
+     * 成绩写入后更新索引（事务提交后生效）
+     */
+    public void onSaved(Long teachingClassDbId, Long studentDbId, BigDecimal finalScore) {
+        afterCommit(() -> indexes.computeIfPresent(teachingClassDbId, (id, classRank) -> {
+            synchronized (classRank) {
+                classRank.put(studentDbId, toKey(finalScore));
+            }
+            return classRank;
+        }));
+    }
+
+    /**
+     * 成绩删除后更新索引（事务提交后生效）
+     */
+    public void onDeleted(Long teachingClassDbId, Long studentDbId) {
+        afterCommit(() -> indexes.computeIfPresent(teachingClassDbId, (id, classRank) -> {
+            synchronized (classRank) {
+                classRank.remove(studentDbId);
+            }
+            return classRank;
+        }));
+    }
+
+    /**
+     * 使教学班索引失效，下次查询时重建
+     */
+    public void invalidate(Long teachingClassDbId) {
+        afterCommit(() -> indexes.remove(teachingClassDbId));
+    }
+
+    /**
+     * 定时读取成绩变更日志，应用到已装载的教学班索引；未装载的教学班忽略，查询时按数据库构建
+     */
+    @Scheduled(fixedDelay = 1000)
+    public void poll() {
+        synchronized (feedLock) {
+            try {
+                if (changeSeq < 0) {
+                    changeSeq = scoreChangeLogMapper.selectMaxSeq();
+                    return;
+                }
+                List<ScoreChangeLog> changes;
+                do {
+                    changes = scoreChangeLogMapper.selectSince(changeSeq, BATCH_SIZE);
+                    for (ScoreChangeLog change : changes) {
+                        apply(change);
+                    }
+                    if (!changes.isEmpty()) {
+                        changeSeq = changes.get(changes.size() - 1).getSeq();
+                    }
+                } while (changes.size() == BATCH_SIZE);
+            } catch (RuntimeException e) {
+                log.warn("读取成绩变更日志失败，下次重试: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 按日志重放：变更记录的是变更后的成绩，按序号重复应用是幂等的
+     */
+    private void apply(ScoreChangeLog change) {
+        ClassRank classRank = indexes.get(change.getTeachingClassDbId());
+        if (classRank == null) {
+            return;
+        }
+        synchronized (classRank) {
+            if (ScoreChangeLog.OP_DELETE.equals(change.getOp())) {
+                classRank.remove(change.getStudentDbId());
+            } else {
+                classRank.put(change.getStudentDbId(), toKey(change.getFinalScore()));
+            }
+        }
+    }
+
+    /**
+     * 在 Map 锁之外读库构建，同一教学班并发构建时以先缓存者为准
+     */
+    private ClassRank load(Long teachingClassDbId) {
+        ClassRank classRank = indexes.get(teachingClassDbId);
+        if (classRank != null) {
+            return classRank;
+        }
+        long builtAtSeq = scoreChangeLogMapper.selectMaxSeq();
+        ClassRank built = build(teachingClassDbId);
+        synchronized (feedLock) {
+            if (changeSeq < 0) {
+                changeSeq = builtAtSeq;
+            }
+            if (builtAtSeq < changeSeq) {
+                // 构建期间的变更可能已被读过而未应用到本索引，不缓存
+                return built;
+            }
+            ClassRank existing = indexes.putIfAbsent(teachingClassDbId, built);
+            return existing != null ? existing : built;
+        }
+    }
+
+    private ClassRank build(Long teachingClassDbId) {
+        LambdaQueryWrapper<Score> wrapper = new LambdaQueryWrapper<>();
+        wrapper.select(Score::getStudentDbId, Score::getFinalScore);
+        wrapper.eq(Score::getTeachingClassDbId, teachingClassDbId);
+        List<Score> scores = scoreMapper.selectList(wrapper);
+
+        ClassRank classRank = new ClassRank();
+        for (Score score : scores) {
+            classRank.put(score.getStudentDbId(), toKey(score.getFinalScore()));
+        }
+        log.debug("构建教学班排名索引: teachingClassDbId={}, size={}", teachingClassDbId, scores.size());
+        return classRank;
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * 成绩转换为索引键：无成绩为0，其余为百分之一分加1
+     */
+    private static int toKey(BigDecimal finalScore) {
+        if (finalScore == null) {
+            return 0;
+        }
+        int hundredths = finalScore.setScale(2, RoundingMode.HALF_UP).unscaledValue().intValue();
+        return Math.max(0, Math.min(MAX_HUNDREDTHS, hundredths)) + 1;
+    }
+
+    private static BigDecimal fromKey(int key) {
+        return key == 0 ? null : BigDecimal.valueOf(key - 1, 2);
+    }
+
+    /**
+     * 排名条目
+     */
+    public record RankEntry(Long studentDbId, BigDecimal finalScore, int rank) {
+    }
+
+    /**
+     * 单个教学班的排名结构，调用方负责同步
+     */
+    private static class ClassRank {
+
+        private static final int SIZE = MAX_HUNDREDTHS + 2;
+
+        /**
+         * 树状数组，下标为键加1
+         */
+        private final int[] tree = new int[SIZE + 1];
+
+        private final Map<Long, Integer> keyByStudent = new HashMap<>();
+
+        /**
+         * 按成绩降序、学生ID升序排列
+         */
+        private final TreeSet<long[]> ordered = new TreeSet<>((a, b) -> a[0] != b[0]
+                ? Long.compare(b[0], a[0])
+                : Long.compare(a[1], b[1]));
+
+        void put(Long studentDbId, int key) {
+            remove(studentDbId);
+            keyByStudent.put(studentDbId, key);
+            ordered.add(new long[]{key, studentDbId});
+            add(key, 1);
+        }
+
+        void remove(Long studentDbId) {
+            Integer old = keyByStudent.remove(studentDbId);
+            if (old != null) {
+                ordered.remove(new long[]{old, studentDbId});
+                add(old, -1);
+            }
+        }
+
+        Integer rankOf(Long studentDbId) {
+            Integer key = keyByStudent.get(studentDbId);
+            if (key == null) {
+                return null;
+            }
+            // 名次 = 严格高于本人成绩的人数 + 1
+            return keyByStudent.size() - prefix(key) + 1;
+        }
+
+        List<RankEntry> top(int n) {
+            List<RankEntry> result = new ArrayList<>(Math.min(n, ordered.size()));
+            Iterator<long[]> iterator = ordered.iterator();
+            int position = 0;
+            int rank = 0;
+            long previousKey = -1;
+            while (iterator.hasNext() && result.size() < n) {
+                long[] entry = iterator.next();
+                position++;
+                if (entry[0] != previousKey) {
+                    rank = position;
+                    previousKey = entry[0];
+                }
+                result.add(new RankEntry(entry[1], fromKey((int) entry[0]), rank));
+            }
+            return result;
+        }
+
+        private void add(int key, int delta) {
+            for (int i = key + 1; i <= SIZE; i += i & -i) {
+                tree[i] += delta;
+            }
+        }
+
+        /**
+         * 键小于等于 key 的条目数
+         */
+        private int prefix(int key) {
+            int sum = 0;
+            for (int i = key + 1; i > 0; i -= i & -i) {
+                sum += tree[i];
+            }
+            return sum;
+        }
+    }
+}
@@ -3,10 +3,13 @@ package com.example.score.service;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.example.common.dto.ScoreDTO;
 import com.example.common.query.ScoreQuery;
+import com.example.common.result.PageResult;
 import com.example.common.vo.ScoreVO;
 import com.example.common.vo.StudentScoreDetailVO;
+import jakarta.servlet.http.HttpServletResponse;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * 成绩服务接口
@@ -18,11 +21,21 @@ public interface ScoreService {
      */
     IPage<ScoreVO> page(ScoreQuery query);
     
+    /**
+     * 游标分页查询成绩
+     */
+    PageResult<ScoreVO> cursorPage(ScoreQuery query);
+    
     /**
      * 获取所有成绩
      */
     List<ScoreVO> list();
     
+    /**
+     * 流式导出全部成绩（ndjson 或 csv），直接写入响应输出流
+     */
+    void export(String format, HttpServletResponse response);
+    
     /**
      * 根据ID获取成绩
      */
@@ -65,8 +78,17 @@ public interface ScoreService {
     
     /**
      * 批量删除成绩
+     *
+     * @return 各表受影响行数
      */
-    boolean deleteBatch(List<String> ids);
+    Map<String, Integer> deleteBatch(List<String> ids);
+    
+    /**
+     * 重建全部学生成绩汇总
+     *
+     * @return 汇总的学生数
+     */
+    int rebuildTranscriptSummary();
     
     /**
      * 检查成绩是否存在
@@ -88,6 +110,11 @@ public interface ScoreService {
      */
     List<ScoreVO> getRankingAll(Long teachingClassDbId, String semester, Long teacherDbId);
     
+    /**
+     * 获取班级前N名
+     */
+    List<ScoreVO> getTopRanking(String classId, int limit);
+    
     /**
      * 获取学生综合排名
      */
@@ -1,26 +1,41 @@
 package com.example.score.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.example.common.dto.ScoreDTO;
 import com.example.common.entity.*;
 import com.example.common.exception.BusinessException;
 import com.example.common.query.ScoreQuery;
+import com.example.common.result.PageResult;
+import com.example.common.result.ResultCode;
+import com.example.common.util.GradeCalculator;
+import com.example.common.util.PageCursor;
 import com.example.common.vo.ScoreVO;
 import com.example.common.vo.StudentScoreDetailVO;
 import com.example.score.mapper.*;
+import com.example.score.rank.ScoreRankIndex;
 import com.example.score.service.ScoreService;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.cursor.Cursor;
 import org.springframework.beans.BeanUtils;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
+import java.io.*;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.function.Function;
 
 /**
  * 成绩服务实现类
@@ -30,26 +45,57 @@ import java.util.*;
 @RequiredArgsConstructor
 public class ScoreServiceImpl implements ScoreService {
     
+    /**
+     * IN 查询单批最大参数个数
+     */
+    private static final int IN_BATCH_SIZE = 500;
+    
+    /**
+     * 多行 upsert 单条语句最大行数
+     */
+    private static final int UPSERT_BATCH_SIZE = 200;
+    
+    /**
+     * 流式导出时每批补全关联信息并写出的行数
+     */
+    private static final int EXPORT_CHUNK_SIZE = 500;
+    
+    private static final String CSV_HEADER = "成绩ID,学号,学生姓名,教学班号,教学班名称,课程代码,课程名称,学分,教师姓名,学期," +
+            "平时成绩,期中成绩,实验成绩,期末成绩,综合成绩,绩点";
+    
     private final ScoreMapper scoreMapper;
     private final StudentMapper studentMapper;
     private final TeachingClassMapper teachingClassMapper;
     private final CourseMapper courseMapper;
     private final TeacherMapper teacherMapper;
     private final EnrollmentMapper enrollmentMapper;
+    private final StudentTranscriptSummaryMapper transcriptSummaryMapper;
+    private final ScoreRankIndex scoreRankIndex;
+    private final ObjectMapper objectMapper;
     
     @Override
     public IPage<ScoreVO> page(ScoreQuery query) {
-        Page<Score> page = new Page<>(query.getPageNum(), query.getPageSize());
-        LambdaQueryWrapper<Score> wrapper = buildQueryWrapper(query);
-        wrapper.orderByDesc(Score::getCreateTime);
-        
-        IPage<Score> result = scoreMapper.selectPage(page, wrapper);
-        
-        // 转换为VO
-        Page<ScoreVO> voPage = new Page<>(result.getCurrent(), result.getSize(), result.getTotal());
-        voPage.setRecords(convertToVOList(result.getRecords()));
-        
-        return voPage;
+        // 关联查询一次返回带学生、课程、教师信息的结果，筛选条件直接作用在连接上
+        return scoreMapper.selectScorePage(new Page<>(query.getPageNum(), query.getPageSize()), query);
+    }
+    
+    @Override
+    public PageResult<ScoreVO> cursorPage(ScoreQuery query) {
+        long size = PageCursor.pageSize(query.getPageSize());
+        PageCursor.Position position = PageCursor.decode(query.getAfter());
+        
+        // 多取一条用于判断是否还有下一页，不执行 COUNT
+        List<ScoreVO> records = scoreMapper.selectScoreCursorPage(query,
+                position != null ? position.createTime() : null, position != null ? position.id() : null, size + 1);
+        String nextCursor = null;
+        if (records.size() > size) {
+            records = records.subList(0, (int) size);
+            ScoreVO last = records.get(records.size() - 1);
+            nextCursor = PageCursor.encode(last.getCreateTime(), last.getId());
+        }
+        
+        Long total = Boolean.TRUE.equals(query.getWithTotal()) ? scoreMapper.selectScoreCount(query) : null;
+        return PageResult.ofCursor(records, nextCursor, total, size);
     }
     
     @Override
@@ -58,6 +104,47 @@ public class ScoreServiceImpl implements ScoreService {
         return convertToVOList(list);
     }
     
+    @Override
+    @Transactional(readOnly = true)
+    public void export(String format, HttpServletResponse response) {
+        boolean csv = "csv".equalsIgnoreCase(format);
+        if (!csv && !"ndjson".equalsIgnoreCase(format)) {
+            throw new BusinessException(ResultCode.PARAM_ERROR, "不支持的导出格式: " + format);
+        }
+        response.setContentType(csv ? "text/csv" : "application/x-ndjson");
+        response.setCharacterEncoding("utf-8");
+        response.setHeader("Content-Disposition", "attachment;filename=scores." + (csv ? "csv" : "ndjson"));
+        
+        // 游标逐行读取，每满一批补全关联信息后写出并刷新，内存占用与总行数无关
+        ObjectWriter jsonWriter = objectMapper.writerFor(ScoreVO.class)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        long rows = 0;
+        try (Cursor<Score> cursor = scoreMapper.selectAllCursor()) {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8));
+            if (csv) {
+                // BOM 便于 Excel 正确识别中文
+                writer.write('\uFEFF');
+                writer.write(CSV_HEADER);
+                writer.write('\n');
+            }
+            List<Score> chunk = new ArrayList<>(EXPORT_CHUNK_SIZE);
+            for (Score score : cursor) {
+                chunk.add(score);
+                if (chunk.size() == EXPORT_CHUNK_SIZE) {
+                    writeExportChunk(writer, jsonWriter, chunk, csv);
+                    rows += chunk.size();
+                    chunk.clear();
+                }
+            }
+            writeExportChunk(writer, jsonWriter, chunk, csv);
+            rows += chunk.size();
+        } catch (IOException e) {
+            throw new BusinessException("导出失败: " + e.getMessage());
+        }
+        log.info("流式导出成绩完成: format={}, rows={}", format, rows);
+    }
+    
     @Override
     public ScoreVO getById(String id) {
         Score score = scoreMapper.selectById(id);
@@ -117,27 +204,21 @@ public class ScoreServiceImpl implements ScoreService {
         List<ScoreVO> scores = getByStudentId(studentId);
         vo.setScores(scores);
         
-        // 计算统计信息
-        if (!scores.isEmpty()) {
-            BigDecimal totalScore = BigDecimal.ZERO;
-            BigDecimal totalCredits = BigDecimal.ZERO;
-            BigDecimal weightedScore = BigDecimal.ZERO;
-            
-            for (ScoreVO score : scores) {
-                if (score.getScore() != null) {
-                    totalScore = totalScore.add(score.getScore());
-                    if (score.getCredits() != null) {
-                        weightedScore = weightedScore.add(score.getScore().multiply(score.getCredits()));
-                        totalCredits = totalCredits.add(score.getCredits());
-                    }
-                }
-            }
-            
-            vo.setAverageScore(totalScore.divide(BigDecimal.valueOf(scores.size()), 2, RoundingMode.HALF_UP));
+        // 统计信息读取汇总表，缺失时（首次访问或被其他服务置为失效）按需重建
+        StudentTranscriptSummary summary = transcriptSummaryMapper.selectById(student.getId());
+        if (summary == null) {
+            transcriptSummaryMapper.refreshByStudentIds(Collections.singletonList(student.getId()));
+            summary = transcriptSummaryMapper.selectById(student.getId());
+        }
+        
+        if (summary != null && summary.getScoreCount() > 0) {
+            vo.setAverageScore(BigDecimal.valueOf(summary.getScoreSum(), 2)
+                    .divide(BigDecimal.valueOf(summary.getScoreCount()), 2, RoundingMode.HALF_UP));
             
-            if (totalCredits.compareTo(BigDecimal.ZERO) > 0) {
-                vo.setTotalCredits(totalCredits.setScale(1, RoundingMode.HALF_UP).intValue());
-                vo.setGpa(weightedScore.divide(totalCredits, 2, RoundingMode.HALF_UP)
+            if (summary.getCreditSum() > 0) {
+                BigDecimal totalCredits = BigDecimal.valueOf(summary.getCreditSum(), 1);
+                vo.setTotalCredits(totalCredits.intValue());
+                vo.setGpa(BigDecimal.valueOf(summary.getWeightedSum(), 3).divide(totalCredits, 2, RoundingMode.HALF_UP)
                         .divide(BigDecimal.valueOf(20), 2, RoundingMode.HALF_UP));
             }
         } else {
@@ -165,8 +246,11 @@ public class ScoreServiceImpl implements ScoreService {
             BeanUtils.copyProperties(dto, existing, "id", "studentDbId", "teachingClassDbId", "createTime");
             existing.setDeleted(0); // 恢复软删除的记录
             calculateFinalScore(existing);
+            scoreRankIndex.onSaved(existing.getTeachingClassDbId(), existing.getStudentDbId(), existing.getFinalScore());
             // 使用忽略逻辑删除的更新方法，确保能更新已删除的记录
-            return scoreMapper.updateByIdIgnoreDeleted(existing) > 0;
+            boolean updated = scoreMapper.updateByIdIgnoreDeleted(existing) > 0;
+            refreshTranscriptSummary(Collections.singletonList(existing.getStudentDbId()));
+            return updated;
         }
         
         // 检查学生是否已选课
@@ -184,40 +268,64 @@ public class ScoreServiceImpl implements ScoreService {
         
         // 计算综合成绩
         calculateFinalScore(score);
+        scoreRankIndex.onSaved(score.getTeachingClassDbId(), score.getStudentDbId(), score.getFinalScore());
         
-        return scoreMapper.insert(score) > 0;
+        boolean inserted = scoreMapper.insert(score) > 0;
+        refreshTranscriptSummary(Collections.singletonList(score.getStudentDbId()));
+        return inserted;
     }
     
     @Override
     @Transactional(rollbackFor = Exception.class)
     public boolean saveBatch(List<ScoreDTO> dtos) {
+        if (dtos == null || dtos.isEmpty()) {
+            return true;
+        }
+        
+        // 同一学生同一教学班以最后一条为准
+        Map<String, ScoreDTO> dtoByKey = new LinkedHashMap<>();
+        Set<Long> classDbIds = new HashSet<>();
         for (ScoreDTO dto : dtos) {
-            // 检查成绩是否已存在（包含已删除的记录）
-            Score existing = scoreMapper.selectByStudentAndClassIgnoreDeleted(
-                dto.getStudentDbId(), dto.getTeachingClassDbId());
-            
-            if (existing != null) {
-                // 更新成绩 - 保留原有的id和关键字段，恢复软删除
-                BeanUtils.copyProperties(dto, existing, "id", "studentDbId", "teachingClassDbId", "createTime");
-                existing.setDeleted(0); // 恢复软删除的记录
-                // 计算综合成绩
-                calculateFinalScore(existing);
-                // 使用忽略逻辑删除的更新方法
-                scoreMapper.updateByIdIgnoreDeleted(existing);
-            } else {
-                // 检查学生是否已选课
-                LambdaQueryWrapper<Enrollment> enrollmentWrapper = new LambdaQueryWrapper<>();
-                enrollmentWrapper.eq(Enrollment::getStudentDbId, dto.getStudentDbId());
-                enrollmentWrapper.eq(Enrollment::getTeachingClassDbId, dto.getTeachingClassDbId());
-                if (enrollmentMapper.selectCount(enrollmentWrapper) > 0) {
-                    Score score = new Score();
-                    BeanUtils.copyProperties(dto, score);
-                    // 计算综合成绩
-                    calculateFinalScore(score);
-                    scoreMapper.insert(score);
-                }
+            dtoByKey.put(scoreKey(dto.getStudentDbId(), dto.getTeachingClassDbId()), dto);
+            classDbIds.add(dto.getTeachingClassDbId());
+        }
+        
+        // 一次查询已有成绩（含已删除）和选课记录
+        Set<String> existingKeys = new HashSet<>();
+        for (Score score : scoreMapper.selectKeysByClassIdsIgnoreDeleted(classDbIds)) {
+            existingKeys.add(scoreKey(score.getStudentDbId(), score.getTeachingClassDbId()));
+        }
+        LambdaQueryWrapper<Enrollment> enrollmentWrapper = new LambdaQueryWrapper<>();
+        enrollmentWrapper.select(Enrollment::getStudentDbId, Enrollment::getTeachingClassDbId);
+        enrollmentWrapper.in(Enrollment::getTeachingClassDbId, classDbIds);
+        Set<String> enrolledKeys = new HashSet<>();
+        for (Enrollment enrollment : enrollmentMapper.selectList(enrollmentWrapper)) {
+            enrolledKeys.add(scoreKey(enrollment.getStudentDbId(), enrollment.getTeachingClassDbId()));
+        }
+        
+        // 已有成绩直接更新，新成绩要求学生已选课
+        List<Score> scores = new ArrayList<>(dtoByKey.size());
+        for (Map.Entry<String, ScoreDTO> entry : dtoByKey.entrySet()) {
+            if (!existingKeys.contains(entry.getKey()) && !enrolledKeys.contains(entry.getKey())) {
+                continue;
             }
+            Score score = new Score();
+            BeanUtils.copyProperties(entry.getValue(), score, "id");
+            scores.add(score);
+        }
+        calculateFinalScores(scores);
+        
+        // 分片执行多行 upsert
+        for (int i = 0; i < scores.size(); i += UPSERT_BATCH_SIZE) {
+            scoreMapper.upsertBatch(scores.subList(i, Math.min(i + UPSERT_BATCH_SIZE, scores.size())));
         }
+        Set<Long> studentDbIds = new HashSet<>();
+        for (Score score : scores) {
+            scoreRankIndex.onSaved(score.getTeachingClassDbId(), score.getStudentDbId(), score.getFinalScore());
+            studentDbIds.add(score.getStudentDbId());
+        }
+        refreshTranscriptSummary(studentDbIds);
+        log.info("批量保存成绩: 提交{}条, 写入{}条", dtos.size(), scores.size());
         return true;
     }
     
@@ -229,10 +337,28 @@ public class ScoreServiceImpl implements ScoreService {
             throw new BusinessException("成绩记录不存在");
         }
         
+        Long oldClassDbId = existing.getTeachingClassDbId();
+        Long oldStudentDbId = existing.getStudentDbId();
+        
         BeanUtils.copyProperties(dto, existing);
         // 计算综合成绩
         calculateFinalScore(existing);
-        return scoreMapper.updateById(existing) > 0;
+        boolean updated = scoreMapper.updateById(existing) > 0;
+        if (updated) {
+            // updateById 跳过 DTO 中为空的字段，按库中实际保存的记录更新排名索引
+            Score stored = scoreMapper.selectById(existing.getId());
+            scoreRankIndex.onDeleted(oldClassDbId, oldStudentDbId);
+            if (stored != null) {
+                scoreRankIndex.onSaved(stored.getTeachingClassDbId(), stored.getStudentDbId(), stored.getFinalScore());
+            }
+            Set<Long> studentDbIds = new HashSet<>();
+            studentDbIds.add(oldStudentDbId);
+            if (stored != null) {
+                studentDbIds.add(stored.getStudentDbId());
+            }
+            refreshTranscriptSummary(studentDbIds);
+        }
+        return updated;
     }
     
     @Override
@@ -243,16 +369,45 @@ public class ScoreServiceImpl implements ScoreService {
             throw new BusinessException("成绩记录不存在");
         }
         
-        return scoreMapper.deleteById(id) > 0;
+        scoreRankIndex.onDeleted(score.getTeachingClassDbId(), score.getStudentDbId());
+        boolean deleted = scoreMapper.deleteById(id) > 0;
+        refreshTranscriptSummary(Collections.singletonList(score.getStudentDbId()));
+        return deleted;
     }
     
     @Override
     @Transactional(rollbackFor = Exception.class)
-    public boolean deleteBatch(List<String> ids) {
-        for (String id : ids) {
-            delete(id);
+    public Map<String, Integer> deleteBatch(List<String> ids) {
+        List<Long> scoreIds = ids.stream().filter(StringUtils::hasText).map(Long::valueOf).distinct().toList();
+        Set<Long> studentDbIds = new HashSet<>();
+        int deleted = 0;
+        for (int i = 0; i < scoreIds.size(); i += IN_BATCH_SIZE) {
+            List<Long> chunk = scoreIds.subList(i, Math.min(i + IN_BATCH_SIZE, scoreIds.size()));
+            // 先读取键用于维护排名索引和成绩汇总，再按ID列表整体软删除
+            LambdaQueryWrapper<Score> wrapper = new LambdaQueryWrapper<>();
+            wrapper.select(Score::getId, Score::getStudentDbId, Score::getTeachingClassDbId);
+            wrapper.in(Score::getId, chunk);
+            for (Score score : scoreMapper.selectList(wrapper)) {
+                scoreRankIndex.onDeleted(score.getTeachingClassDbId(), score.getStudentDbId());
+                studentDbIds.add(score.getStudentDbId());
+            }
+            deleted += scoreMapper.deleteBatchIds(chunk);
         }
-        return true;
+        refreshTranscriptSummary(studentDbIds);
+        
+        Map<String, Integer> affected = new LinkedHashMap<>();
+        affected.put("score", deleted);
+        log.info("批量删除成绩: 提交{}条, 删除{}条", ids.size(), deleted);
+        return affected;
+    }
+    
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public int rebuildTranscriptSummary() {
+        transcriptSummaryMapper.deleteAll();
+        int rows = transcriptSummaryMapper.insertAll();
+        log.info("重建学生成绩汇总完成: {}名学生", rows);
+        return rows;
     }
     
     @Override
@@ -296,13 +451,7 @@ public class ScoreServiceImpl implements ScoreService {
         List<Score> list = scoreMapper.selectList(wrapper);
         
         List<ScoreVO> voList = convertToVOList(list);
-        
-        // 设置排名
-        int rank = 1;
-        for (ScoreVO vo : voList) {
-            vo.setClassRank(rank++);
-        }
-        
+        assignRanks(voList);
         return voList;
     }
     
@@ -345,240 +494,269 @@ public class ScoreServiceImpl implements ScoreService {
         List<Score> list = scoreMapper.selectList(wrapper);
         
         List<ScoreVO> voList = convertToVOList(list);
+        assignRanks(voList);
+        return voList;
+    }
+    
+    @Override
+    public List<ScoreVO> getTopRanking(String classId, int limit) {
+        LambdaQueryWrapper<TeachingClass> tcWrapper = new LambdaQueryWrapper<>();
+        tcWrapper.eq(TeachingClass::getClassId, classId);
+        TeachingClass teachingClass = teachingClassMapper.selectOne(tcWrapper);
+        if (teachingClass == null || limit <= 0) {
+            return new ArrayList<>();
+        }
         
-        // 设置排名
-        int rank = 1;
-        for (ScoreVO vo : voList) {
-            vo.setClassRank(rank++);
+        List<ScoreRankIndex.RankEntry> top = scoreRankIndex.top(teachingClass.getId(), limit);
+        if (top.isEmpty()) {
+            return new ArrayList<>();
         }
         
+        LambdaQueryWrapper<Score> wrapper = new LambdaQueryWrapper<>();
+        wrapper.eq(Score::getTeachingClassDbId, teachingClass.getId());
+        wrapper.in(Score::getStudentDbId, top.stream().map(ScoreRankIndex.RankEntry::studentDbId).toList());
+        Map<Long, Score> scoreByStudent = new HashMap<>();
+        for (Score score : scoreMapper.selectList(wrapper)) {
+            scoreByStudent.put(score.getStudentDbId(), score);
+        }
+        
+        // 按索引名次顺序组装
+        List<Score> ordered = new ArrayList<>(top.size());
+        List<Integer> ranks = new ArrayList<>(top.size());
+        for (ScoreRankIndex.RankEntry entry : top) {
+            Score score = scoreByStudent.get(entry.studentDbId());
+            if (score != null) {
+                ordered.add(score);
+                ranks.add(entry.rank());
+            }
+        }
+        List<ScoreVO> voList = convertToVOList(ordered);
+        for (int i = 0; i < voList.size(); i++) {
+            voList.get(i).setClassRank(ranks.get(i));
+        }
         return voList;
     }
     
     @Override
     public List<ScoreVO> getStudentRanking(String studentId) {
-        List<ScoreVO> scores = getByStudentId(studentId);
-        
-        for (ScoreVO score : scores) {
-            // 获取该教学班的排名
-            List<ScoreVO> classRanking = getRanking(score.getClassId());
-            for (int i = 0; i < classRanking.size(); i++) {
-                if (classRanking.get(i).getStudentId().equals(studentId)) {
-                    score.setClassRank(i + 1);
-                    break;
-                }
-            }
+        LambdaQueryWrapper<Student> studentWrapper = new LambdaQueryWrapper<>();
+        studentWrapper.eq(Student::getStudentId, studentId);
+        Student student = studentMapper.selectOne(studentWrapper);
+        if (student == null) {
+            return new ArrayList<>();
         }
         
-        return scores;
-    }
-    
-    private LambdaQueryWrapper<Score> buildQueryWrapper(ScoreQuery query) {
         LambdaQueryWrapper<Score> wrapper = new LambdaQueryWrapper<>();
+        wrapper.eq(Score::getStudentDbId, student.getId());
+        List<Score> list = scoreMapper.selectList(wrapper);
+        List<ScoreVO> scores = convertToVOList(list);
         
-        // 优先使用数据库ID进行精确查询（学生只能查自己的成绩）
-        if (query.getStudentDbId() != null) {
-            wrapper.eq(Score::getStudentDbId, query.getStudentDbId());
+        // 通过排名索引获取各教学班名次，无需重新加载整个教学班
+        for (int i = 0; i < list.size(); i++) {
+            scores.get(i).setClassRank(scoreRankIndex.rankOf(list.get(i).getTeachingClassDbId(), student.getId()));
         }
         
-        // 教师只能查自己教学班的成绩
-        if (query.getTeacherDbId() != null) {
-            // 查询该教师的所有教学班
-            LambdaQueryWrapper<TeachingClass> tcWrapper = new LambdaQueryWrapper<>();
-            tcWrapper.eq(TeachingClass::getTeacherDbId, query.getTeacherDbId());
-            List<TeachingClass> teacherClasses = teachingClassMapper.selectList(tcWrapper);
-            if (!teacherClasses.isEmpty()) {
-                List<Long> classDbIds = teacherClasses.stream().map(TeachingClass::getId).toList();
-                wrapper.in(Score::getTeachingClassDbId, classDbIds);
-            } else {
-                // 教师没有教学班，返回空结果
-                wrapper.isNull(Score::getId);
+        return scores;
+    }
+    
+    /**
+     * 按综合成绩降序设置名次，同分同名次（1, 2, 2, 4），与排名索引一致
+     */
+    private static void assignRanks(List<ScoreVO> voList) {
+        int rank = 0;
+        BigDecimal previous = null;
+        for (int i = 0; i < voList.size(); i++) {
+            BigDecimal finalScore = voList.get(i).getFinalScore();
+            if (i == 0 || !sameScore(previous, finalScore)) {
+                rank = i + 1;
+                previous = finalScore;
             }
+            voList.get(i).setClassRank(rank);
         }
-        
-        if (StringUtils.hasText(query.getStudentId())) {
-            // 查询学生数据库ID
-            LambdaQueryWrapper<Student> studentWrapper = new LambdaQueryWrapper<>();
-            studentWrapper.like(Student::getStudentId, query.getStudentId());
-            List<Student> students = studentMapper.selectList(studentWrapper);
-            if (!students.isEmpty()) {
-                List<Long> studentDbIds = students.stream().map(Student::getId).toList();
-                wrapper.in(Score::getStudentDbId, studentDbIds);
-            } else {
-                wrapper.isNull(Score::getId);
-            }
+    }
+    
+    private static boolean sameScore(BigDecimal a, BigDecimal b) {
+        return a == null ? b == null : b != null && a.compareTo(b) == 0;
+    }
+    
+    private ScoreVO convertToVO(Score score) {
+        return convertToVOList(Collections.singletonList(score)).get(0);
+    }
+    
+    /**
+     * 在当前事务内重新计算学生成绩汇总
+     */
+    private void refreshTranscriptSummary(Collection<Long> studentDbIds) {
+        List<Long> ids = studentDbIds.stream().filter(Objects::nonNull).distinct().toList();
+        for (int i = 0; i < ids.size(); i += IN_BATCH_SIZE) {
+            transcriptSummaryMapper.refreshByStudentIds(ids.subList(i, Math.min(i + IN_BATCH_SIZE, ids.size())));
         }
-        if (StringUtils.hasText(query.getClassId())) {
-            // 查询教学班数据库ID
-            LambdaQueryWrapper<TeachingClass> tcWrapper = new LambdaQueryWrapper<>();
-            tcWrapper.eq(TeachingClass::getClassId, query.getClassId());
-            TeachingClass tc = teachingClassMapper.selectOne(tcWrapper);
-            if (tc != null) {
-                wrapper.eq(Score::getTeachingClassDbId, tc.getId());
-            } else {
-                wrapper.isNull(Score::getId);
-            }
+    }
+    
+    private void writeExportChunk(Writer writer, ObjectWriter jsonWriter, List<Score> chunk, boolean csv) throws IOException {
+        if (chunk.isEmpty()) {
+            return;
         }
-        if (StringUtils.hasText(query.getStudentName())) {
-            // 查询学生
-            LambdaQueryWrapper<Student> studentWrapper = new LambdaQueryWrapper<>();
-            studentWrapper.like(Student::getName, query.getStudentName());
-            List<Student> students = studentMapper.selectList(studentWrapper);
-            if (!students.isEmpty()) {
-                List<Long> studentDbIds = students.stream().map(Student::getId).toList();
-                wrapper.in(Score::getStudentDbId, studentDbIds);
+        for (ScoreVO vo : convertToVOList(chunk)) {
+            if (csv) {
+                writeCsvRow(writer, vo);
             } else {
-                wrapper.isNull(Score::getId);
+                jsonWriter.writeValue(writer, vo);
             }
+            writer.write('\n');
         }
-        if (StringUtils.hasText(query.getCourseName())) {
-            // 查询课程和教学班
-            LambdaQueryWrapper<Course> courseWrapper = new LambdaQueryWrapper<>();
-            courseWrapper.like(Course::getCourseName, query.getCourseName());
-            List<Course> courses = courseMapper.selectList(courseWrapper);
-            if (!courses.isEmpty()) {
-                List<Long> courseDbIds = courses.stream().map(Course::getId).toList();
-                LambdaQueryWrapper<TeachingClass> tcWrapper = new LambdaQueryWrapper<>();
-                tcWrapper.in(TeachingClass::getCourseDbId, courseDbIds);
-                List<TeachingClass> teachingClasses = teachingClassMapper.selectList(tcWrapper);
-                if (!teachingClasses.isEmpty()) {
-                    List<Long> classDbIds = teachingClasses.stream().map(TeachingClass::getId).toList();
-                    wrapper.in(Score::getTeachingClassDbId, classDbIds);
-                } else {
-                    wrapper.isNull(Score::getId);
-                }
-            } else {
-                wrapper.isNull(Score::getId);
+        writer.flush();
+    }
+    
+    private void writeCsvRow(Writer writer, ScoreVO vo) throws IOException {
+        Object[] values = {vo.getId(), vo.getStudentId(), vo.getStudentName(), vo.getClassId(), vo.getClassName(),
+                vo.getCourseCode(), vo.getCourseName(), vo.getCredits(), vo.getTeacherName(), vo.getSemester(),
+                vo.getRegularScore(), vo.getMidtermScore(), vo.getExperimentScore(), vo.getFinalExamScore(),
+                vo.getFinalScore(), vo.getGradePoint()};
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            if (values[i] != null) {
+                writer.write(csvEscape(values[i] instanceof BigDecimal d ? d.toPlainString() : values[i].toString()));
             }
         }
-        if (query.getMinScore() != null) {
-            wrapper.ge(Score::getFinalScore, query.getMinScore());
-        }
-        if (query.getMaxScore() != null) {
-            wrapper.le(Score::getFinalScore, query.getMaxScore());
+    }
+    
+    private static String csvEscape(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
         }
-        
-        return wrapper;
+        return '"' + value.replace("\"", "\"\"") + '"';
     }
     
-    private ScoreVO convertToVO(Score score) {
-        ScoreVO vo = new ScoreVO();
-        BeanUtils.copyProperties(score, vo);
+    /**
+     * 批量转换为VO
+     * 先收集结果集中去重后的学生、教学班、课程、教师ID，每个维度只执行一次 IN 查询，
+     * 再基于内存映射组装，查询次数与结果行数无关
+     */
+    private List<ScoreVO> convertToVOList(List<Score> list) {
+        List<ScoreVO> voList = new ArrayList<>(list.size());
+        if (list.isEmpty()) {
+            return voList;
+        }
+        
+        Set<Long> studentDbIds = new HashSet<>();
+        Set<Long> classDbIds = new HashSet<>();
+        for (Score score : list) {
+            studentDbIds.add(score.getStudentDbId());
+            classDbIds.add(score.getTeachingClassDbId());
+        }
         
-        // 设置score字段为finalScore用于前端显示
-        vo.setScore(score.getFinalScore());
+        Map<Long, Student> studentMap = selectMapByIds(studentMapper, studentDbIds, Student::getId);
+        Map<Long, TeachingClass> classMap = selectMapByIds(teachingClassMapper, classDbIds, TeachingClass::getId);
         
-        // 查询学生信息
-        Student student = studentMapper.selectById(score.getStudentDbId());
-        if (student != null) {
-            vo.setStudentId(student.getStudentId());
-            vo.setStudentName(student.getName());
-        }
-        
-        // 查询教学班信息
-        TeachingClass teachingClass = teachingClassMapper.selectById(score.getTeachingClassDbId());
-        if (teachingClass != null) {
-            vo.setClassId(teachingClass.getClassId());
-            vo.setClassName(teachingClass.getClassId());
-            vo.setSemester(teachingClass.getSemester());
+        Set<Long> courseDbIds = new HashSet<>();
+        Set<Long> teacherDbIds = new HashSet<>();
+        for (TeachingClass teachingClass : classMap.values()) {
+            courseDbIds.add(teachingClass.getCourseDbId());
+            teacherDbIds.add(teachingClass.getTeacherDbId());
+        }
+        Map<Long, Course> courseMap = selectMapByIds(courseMapper, courseDbIds, Course::getId);
+        Map<Long, Teacher> teacherMap = selectMapByIds(teacherMapper, teacherDbIds, Teacher::getId);
+        
+        for (Score score : list) {
+            ScoreVO vo = new ScoreVO();
+            BeanUtils.copyProperties(score, vo);
+            
+            // 设置score字段为finalScore用于前端显示
+            vo.setScore(score.getFinalScore());
             
-            // 查询课程信息
-            Course course = courseMapper.selectById(teachingClass.getCourseDbId());
-            if (course != null) {
-                vo.setCourseCode(course.getCourseId());
-                vo.setCourseName(course.getCourseName());
-                vo.setCredits(course.getCredits());
+            Student student = studentMap.get(score.getStudentDbId());
+            if (student != null) {
+                vo.setStudentId(student.getStudentId());
+                vo.setStudentName(student.getName());
             }
             
-            // 查询教师信息
-            Teacher teacher = teacherMapper.selectById(teachingClass.getTeacherDbId());
-            if (teacher != null) {
-                vo.setTeacherName(teacher.getName());
+            TeachingClass teachingClass = classMap.get(score.getTeachingClassDbId());
+            if (teachingClass != null) {
+                vo.setClassId(teachingClass.getClassId());
+                vo.setClassName(teachingClass.getClassId());
+                vo.setSemester(teachingClass.getSemester());
+                
+                Course course = courseMap.get(teachingClass.getCourseDbId());
+                if (course != null) {
+                    vo.setCourseCode(course.getCourseId());
+                    vo.setCourseName(course.getCourseName());
+                    vo.setCredits(course.getCredits());
+                }
+                
+                Teacher teacher = teacherMap.get(teachingClass.getTeacherDbId());
+                if (teacher != null) {
+                    vo.setTeacherName(teacher.getName());
+                }
             }
+            
+            voList.add(vo);
         }
-        
-        return vo;
+        return voList;
     }
     
-    private List<ScoreVO> convertToVOList(List<Score> list) {
-        List<ScoreVO> voList = new ArrayList<>();
-        for (Score score : list) {
-            voList.add(convertToVO(score));
+    private static String scoreKey(Long studentDbId, Long teachingClassDbId) {
+        return studentDbId + ":" + teachingClassDbId;
+    }
+    
+    /**
+     * 按ID批量查询并构建 id -> 实体 映射，按 IN_BATCH_SIZE 分片以避免超出SQLite参数上限
+     */
+    private <T> Map<Long, T> selectMapByIds(BaseMapper<T> mapper, Collection<Long> ids, Function<T, Long> idGetter) {
+        Map<Long, T> map = new HashMap<>();
+        List<Long> idList = ids.stream().filter(Objects::nonNull).toList();
+        for (int i = 0; i < idList.size(); i += IN_BATCH_SIZE) {
+            List<Long> chunk = idList.subList(i, Math.min(i + IN_BATCH_SIZE, idList.size()));
+            for (T entity : mapper.selectBatchIds(chunk)) {
+                map.put(idGetter.apply(entity), entity);
+            }
         }
-        return voList;
+        return map;
     }
     
     /**
      * 计算综合成绩
-     * 权重：平时成绩20%，期中成绩20%，实验成绩20%，期末成绩40%
+     * 权重：平时成绩20%，期中成绩20%，实验成绩20%，期末成绩40%，缺项时按已有成绩的权重归一
      */
     private void calculateFinalScore(Score score) {
-        BigDecimal finalScore = BigDecimal.ZERO;
-        int componentCount = 0;
-        
-        // 平时成绩 20%
-        if (score.getRegularScore() != null) {
-            finalScore = finalScore.add(score.getRegularScore().multiply(new BigDecimal("0.20")));
-            componentCount++;
-        }
-        // 期中成绩 20%
-        if (score.getMidtermScore() != null) {
-            finalScore = finalScore.add(score.getMidtermScore().multiply(new BigDecimal("0.20")));
-            componentCount++;
-        }
-        // 实验成绩 20%
-        if (score.getExperimentScore() != null) {
-            finalScore = finalScore.add(score.getExperimentScore().multiply(new BigDecimal("0.20")));
-            componentCount++;
-        }
-        // 期末成绩 40%
-        if (score.getFinalExamScore() != null) {
-            finalScore = finalScore.add(score.getFinalExamScore().multiply(new BigDecimal("0.40")));
-            componentCount++;
-        }
-        
-        // 如果有成绩项，设置综合成绩
-        if (componentCount > 0) {
-            // 如果不是所有成绩都有，按实际比例计算
-            if (componentCount < 4) {
-                // 简化处理：直接使用已有成绩的加权平均
-                BigDecimal totalWeight = BigDecimal.ZERO;
-                finalScore = BigDecimal.ZERO;
-                
-                if (score.getRegularScore() != null) {
-                    finalScore = finalScore.add(score.getRegularScore().multiply(new BigDecimal("0.20")));
-                    totalWeight = totalWeight.add(new BigDecimal("0.20"));
-                }
-                if (score.getMidtermScore() != null) {
-                    finalScore = finalScore.add(score.getMidtermScore().multiply(new BigDecimal("0.20")));
-                    totalWeight = totalWeight.add(new BigDecimal("0.20"));
-                }
-                if (score.getExperimentScore() != null) {
-                    finalScore = finalScore.add(score.getExperimentScore().multiply(new BigDecimal("0.20")));
-                    totalWeight = totalWeight.add(new BigDecimal("0.20"));
-                }
-                if (score.getFinalExamScore() != null) {
-                    finalScore = finalScore.add(score.getFinalExamScore().multiply(new BigDecimal("0.40")));
-                    totalWeight = totalWeight.add(new BigDecimal("0.40"));
-                }
-                
-                if (totalWeight.compareTo(BigDecimal.ZERO) > 0) {
-                    finalScore = finalScore.divide(totalWeight, 2, RoundingMode.HALF_UP).multiply(BigDecimal.ONE);
-                }
-            }
-            
-            score.setFinalScore(finalScore.setScale(2, RoundingMode.HALF_UP));
-            
-            // 计算绩点 (满分100，绩点4.0)
-            BigDecimal gradePoint = finalScore.subtract(new BigDecimal("50"))
-                    .divide(new BigDecimal("10"), 2, RoundingMode.HALF_UP);
-            if (gradePoint.compareTo(BigDecimal.ZERO) < 0) {
-                gradePoint = BigDecimal.ZERO;
-            }
-            if (gradePoint.compareTo(new BigDecimal("4.0")) > 0) {
-                gradePoint = new BigDecimal("4.0");
+        long[] components = {
+                GradeCalculator.toHundredths(score.getRegularScore()),
+                GradeCalculator.toHundredths(score.getMidtermScore()),
+                GradeCalculator.toHundredths(score.getExperimentScore()),
+                GradeCalculator.toHundredths(score.getFinalExamScore())
+        };
+        long packed = GradeCalculator.STANDARD.compute(components, 0);
+        if (packed != GradeCalculator.NO_RESULT) {
+            score.setFinalScore(GradeCalculator.fromHundredths(GradeCalculator.finalScoreOf(packed)));
+            score.setGradePoint(GradeCalculator.fromHundredths(GradeCalculator.gradePointOf(packed)));
+        }
+    }
+    
+    /**
+     * 批量计算综合成绩
+     */
+    private void calculateFinalScores(List<Score> scores) {
+        GradeCalculator calculator = GradeCalculator.STANDARD;
+        int stride = calculator.componentCount();
+        long[] components = new long[scores.size() * stride];
+        for (int i = 0; i < scores.size(); i++) {
+            Score score = scores.get(i);
+            components[i * stride] = GradeCalculator.toHundredths(score.getRegularScore());
+            components[i * stride + 1] = GradeCalculator.toHundredths(score.getMidtermScore());
+            components[i * stride + 2] = GradeCalculator.toHundredths(score.getExperimentScore());
+            components[i * stride + 3] = GradeCalculator.toHundredths(score.getFinalExamScore());
+        }
+        
+        int[] finalScores = new int[scores.size()];
+        int[] gradePoints = new int[scores.size()];
+        calculator.computeAll(components, scores.size(), finalScores, gradePoints);
+        for (int i = 0; i < scores.size(); i++) {
+            if (finalScores[i] != GradeCalculator.NO_SCORE) {
+                scores.get(i).setFinalScore(GradeCalculator.fromHundredths(finalScores[i]));
+                scores.get(i).setGradePoint(GradeCalculator.fromHundredths(gradePoints[i]));
             }
-            score.setGradePoint(gradePoint);
         }
     }
 }
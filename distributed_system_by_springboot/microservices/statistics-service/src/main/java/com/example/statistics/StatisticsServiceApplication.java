@@ -3,12 +3,14 @@ package com.example.statistics;
 import org.mybatis.spring.annotation.MapperScan;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * 统计服务启动类
  */
 @SpringBootApplication(scanBasePackages = {"com.example.statistics", "com.example.common"})
 @MapperScan("com.example.statistics.mapper")
+@EnableScheduling
 public class StatisticsServiceApplication {
     public static void main(String[] args) {
         SpringApplication.run(StatisticsServiceApplication.class, args);
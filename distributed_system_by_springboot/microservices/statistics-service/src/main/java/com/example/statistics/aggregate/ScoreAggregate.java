@@ -0,0 +1,128 @@
+package com.example.statistics.aggregate;
+
+import com.example.common.entity.ScoreClassAggregate;
+import com.example.common.util.ScoreQuantileSketch;
+import com.example.common.util.ScoreStats;
+
+/**
+ * 成绩运行聚合
+ * 在 {@link ScoreStats} 之外记录成绩记录数（含尚无综合成绩的记录）与分位数草图，并负责与持久化行互相转换。
+ * 教学班聚合可直接合并为课程、教师及全局聚合。实例非线程安全。
+ */
+public class ScoreAggregate {
+
+    private long rowCount;
+
+    private final ScoreStats stats;
+
+    private final ScoreQuantileSketch sketch;
+
+    public ScoreAggregate() {
+        this(new ScoreStats(), new ScoreQuantileSketch());
+    }
+
+    private ScoreAggregate(ScoreStats stats, ScoreQuantileSketch sketch) {
+        this.stats = stats;
+        this.sketch = sketch;
+    }
+
+    /**
+     * 计入一条成绩记录，finalScore 为 null 表示尚无综合成绩
+     */
+    public void add(Long finalScore) {
+        rowCount++;
+        if (finalScore != null) {
+            stats.add(finalScore);
+            sketch.add(finalScore);
+        }
+    }
+
+    /**
+     * 移除一条成绩记录
+     */
+    public void remove(Long finalScore) {
+        rowCount--;
+        if (finalScore != null) {
+            stats.remove(finalScore);
+            sketch.remove(finalScore);
+        }
+    }
+
+    /**
+     * 合并另一个聚合
+     */
+    public void merge(ScoreAggregate other) {
+        rowCount += other.rowCount;
+        stats.merge(other.stats);
+        sketch.merge(other.sketch);
+    }
+
+    public ScoreAggregate copy() {
+        ScoreAggregate copy = new ScoreAggregate();
+        copy.merge(this);
+        return copy;
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * 有综合成绩部分的统计
+     */
+    public ScoreStats stats() {
+        return stats;
+    }
+
+    /**
+     * 有综合成绩部分的分位数草图
+     */
+    public ScoreQuantileSketch sketch() {
+        return sketch;
+    }
+
+    /**
+     * 从持久化行恢复
+     */
+    public static ScoreAggregate fromEntity(ScoreClassAggregate entity) {
+        long[] histogram = {
+                nz(entity.getBucket0()), nz(entity.getBucket1()), nz(entity.getBucket2()),
+                nz(entity.getBucket3()), nz(entity.getBucket4())
+        };
+        ScoreAggregate aggregate = new ScoreAggregate(ScoreStats.restore(
+                nz(entity.getScoreCount()), nz(entity.getScoreSum()), entity.getMinScore(), entity.getMaxScore(),
+                entity.getScoreM2() == null ? 0 : entity.getScoreM2(),
+                nz(entity.getPassCount()), nz(entity.getExcellentCount()), histogram),
+                ScoreQuantileSketch.decode(entity.getScoreSketch()));
+        aggregate.rowCount = nz(entity.getRowCount());
+        return aggregate;
+    }
+
+    /**
+     * 转换为持久化行
+     */
+    public ScoreClassAggregate toEntity(Long teachingClassDbId) {
+        boolean empty = stats.getCount() == 0;
+        ScoreClassAggregate entity = new ScoreClassAggregate();
+        entity.setTeachingClassDbId(teachingClassDbId);
+        entity.setRowCount(rowCount);
+        entity.setScoreCount(stats.getCount());
+        entity.setScoreSum(stats.getSum());
+        entity.setScoreM2(stats.getM2());
+        entity.setMinScore(empty ? null : stats.getMin());
+        entity.setMaxScore(empty ? null : stats.getMax());
+        entity.setPassCount(stats.getPassCount());
+        entity.setExcellentCount(stats.getExcellentCount());
+        entity.setBucket0(stats.getBucket(0));
+        entity.setBucket1(stats.getBucket(1));
+        entity.setBucket2(stats.getBucket(2));
+        entity.setBucket3(stats.getBucket(3));
+        entity.setBucket4(stats.getBucket(4));
+        entity.setScoreSketch(sketch.encode());
+        return entity;
+    }
+
+    private static long nz(Long value) {
+        return value == null ? 0 : value;
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.statistics.aggregate;
+
+import java.util.Set;
+
+/**
+ * 成绩聚合已更新事件
+ *
+ * @param teachingClassDbIds 聚合发生变化的教学班，为 null 表示全部重建
+ */
+public record ScoreAggregateChangedEvent(Set<Long> teachingClassDbIds) {
+}
@@ -0,0 +1,338 @@
+package com.example.statistics.aggregate;
+
+import com.example.common.entity.ScoreChangeLog;
+import com.example.common.entity.ScoreClassAggregate;
+import com.example.common.util.GradeCalculator;
+import com.example.common.util.ScoreQuantileSketch;
+import com.example.common.util.ScoreStats;
+import com.example.statistics.mapper.ScoreChangeLogMapper;
+import com.example.statistics.mapper.ScoreClassAggregateMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 成绩聚合存储
+ * 按教学班维护运行聚合并持久化到 score_class_aggregate，全局聚合常驻内存，课程与教师聚合在读取时由教学班聚合合并得到。
+ * 聚合通过定时消费 score_change_log 增量更新，每批变更与消费位置在同一事务中写库，重启后从消费位置继续；
+ * 首次启动或手动重建时直接按教学班分组聚合成绩表。
+ * 每批变更应用后发布 {@link ScoreAggregateChangedEvent}。
+ * SQLite 写事务串行执行，变更日志的 seq 按提交顺序递增，消费位置之前不会再出现新记录。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ScoreAggregateStore {
+
+    /**
+     * 消费位置名称
+     */
+    private static final String CHECKPOINT_NAME = "score_class_aggregate";
+
+    /**
+     * 每批读取的变更条数
+     */
+    private static final int BATCH_SIZE = 1000;
+
+    private final ScoreClassAggregateMapper aggregateMapper;
+    private final ScoreChangeLogMapper changeLogMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Map<Long, ScoreAggregate> byClass = new HashMap<>();
+
+    private ScoreAggregate global = new ScoreAggregate();
+
+    private long appliedSeq;
+
+    private volatile boolean loaded;
+
+    /**
+     * 教学班聚合副本，没有成绩时为空聚合
+     */
+    public ScoreAggregate ofClass(Long teachingClassDbId) {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            ScoreAggregate aggregate = byClass.get(teachingClassDbId);
+            return aggregate == null ? new ScoreAggregate() : aggregate.copy();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 多个教学班合并后的聚合
+     */
+    public ScoreAggregate ofClasses(Collection<Long> teachingClassDbIds) {
+        ensureLoaded();
+        ScoreAggregate result = new ScoreAggregate();
+        lock.readLock().lock();
+        try {
+            for (Long teachingClassDbId : teachingClassDbIds) {
+                ScoreAggregate aggregate = byClass.get(teachingClassDbId);
+                if (aggregate != null) {
+                    result.merge(aggregate);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    /**
+     * 各教学班聚合副本，在同一次读锁内取出，彼此一致；没有成绩的教学班为空聚合
+     */
+    public Map<Long, ScoreAggregate> ofEachClass(Collection<Long> teachingClassDbIds) {
+        ensureLoaded();
+        Map<Long, ScoreAggregate> result = new HashMap<>(teachingClassDbIds.size() * 2);
+        lock.readLock().lock();
+        try {
+            for (Long teachingClassDbId : teachingClassDbIds) {
+                ScoreAggregate aggregate = byClass.get(teachingClassDbId);
+                result.put(teachingClassDbId, aggregate == null ? new ScoreAggregate() : aggregate.copy());
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    /**
+     * 全局聚合副本
+     */
+    public ScoreAggregate ofAll() {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            return global.copy();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 丢弃现有聚合，按成绩表重新构建
+     *
+     * @return 教学班聚合数
+     */
+    public int rebuild() {
+        lock.writeLock().lock();
+        try {
+            Snapshot snapshot = transactionTemplate.execute(status -> {
+                // 在同一事务中读取日志位置与成绩表，两者对应同一快照
+                long seq = changeLogMapper.selectMaxSeq();
+                List<ScoreClassAggregate> aggregates = aggregateMapper.aggregateFromScores();
+                attachSketches(aggregates, aggregateMapper.selectSketchBins());
+                aggregateMapper.deleteAll();
+                for (ScoreClassAggregate aggregate : aggregates) {
+                    aggregateMapper.upsert(aggregate);
+                }
+                aggregateMapper.upsertCheckpoint(CHECKPOINT_NAME, seq);
+                return new Snapshot(aggregates, seq);
+            });
+            replace(snapshot.rows());
+            appliedSeq = snapshot.seq();
+            loaded = true;
+            log.info("重建教学班成绩聚合: classes={}, seq={}", byClass.size(), appliedSeq);
+            return byClass.size();
+        } finally {
+            lock.writeLock().unlock();
+            eventPublisher.publishEvent(new ScoreAggregateChangedEvent(null));
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void init() {
+        try {
+            ensureLoaded();
+        } catch (RuntimeException e) {
+            log.warn("加载成绩聚合失败，稍后重试: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 定时消费成绩变更日志
+     */
+    @Scheduled(fixedDelay = 1000)
+    public void poll() {
+        if (!loaded) {
+            init();
+            return;
+        }
+        try {
+            while (applyBatch() == BATCH_SIZE) {
+                // 积压较多时连续消费
+            }
+        } catch (RuntimeException e) {
+            log.warn("应用成绩变更失败，从持久化聚合恢复: {}", e.getMessage());
+            lock.writeLock().lock();
+            try {
+                loaded = false;
+                load();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (!loaded) {
+                load();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 从持久化聚合加载，没有消费位置时重建
+     */
+    private void load() {
+        Long checkpoint = aggregateMapper.selectCheckpoint(CHECKPOINT_NAME);
+        if (checkpoint == null) {
+            rebuild();
+            return;
+        }
+        replace(aggregateMapper.selectList(null));
+        appliedSeq = checkpoint;
+        loaded = true;
+        log.info("加载教学班成绩聚合: classes={}, seq={}", byClass.size(), appliedSeq);
+    }
+
+    /**
+     * 应用一批变更，返回本批条数
+     */
+    private int applyBatch() {
+        Set<Long> touched = new HashSet<>();
+        int applied;
+        lock.writeLock().lock();
+        try {
+            List<ScoreChangeLog> changes = changeLogMapper.selectSince(appliedSeq, BATCH_SIZE);
+            if (changes.isEmpty()) {
+                return 0;
+            }
+
+            for (ScoreChangeLog change : changes) {
+                apply(change);
+                touched.add(change.getTeachingClassDbId());
+            }
+            long seq = changes.get(changes.size() - 1).getSeq();
+
+            transactionTemplate.executeWithoutResult(status -> {
+                for (Long teachingClassDbId : touched) {
+                    ScoreAggregate aggregate = byClass.get(teachingClassDbId);
+                    if (aggregate.stats().isExtremaStale()) {
+                        ScoreClassAggregate extrema = aggregateMapper.selectExtrema(teachingClassDbId);
+                        aggregate.stats().resetExtrema(extrema == null ? null : extrema.getMinScore(),
+                                extrema == null ? null : extrema.getMaxScore());
+                    }
+                    aggregateMapper.upsert(aggregate.toEntity(teachingClassDbId));
+                }
+                aggregateMapper.upsertCheckpoint(CHECKPOINT_NAME, seq);
+            });
+            appliedSeq = seq;
+
+            if (global.stats().isExtremaStale()) {
+                refreshGlobalExtrema();
+            }
+            applied = changes.size();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        eventPublisher.publishEvent(new ScoreAggregateChangedEvent(touched));
+        return applied;
+    }
+
+    private void apply(ScoreChangeLog change) {
+        ScoreAggregate aggregate = byClass.computeIfAbsent(change.getTeachingClassDbId(), id -> new ScoreAggregate());
+        Long finalScore = toHundredths(change.getFinalScore());
+        Long oldFinalScore = toHundredths(change.getOldFinalScore());
+        switch (change.getOp()) {
+            case ScoreChangeLog.OP_INSERT, ScoreChangeLog.OP_RESTORE -> {
+                aggregate.add(finalScore);
+                global.add(finalScore);
+            }
+            case ScoreChangeLog.OP_UPDATE -> {
+                aggregate.remove(oldFinalScore);
+                aggregate.add(finalScore);
+                global.remove(oldFinalScore);
+                global.add(finalScore);
+            }
+            case ScoreChangeLog.OP_DELETE -> {
+                aggregate.remove(oldFinalScore);
+                global.remove(oldFinalScore);
+            }
+            default -> log.warn("未知的成绩变更类型: seq={}, op={}", change.getSeq(), change.getOp());
+        }
+    }
+
+    private void replace(List<ScoreClassAggregate> rows) {
+        Map<Long, ScoreAggregate> aggregates = new HashMap<>(rows.size() * 2);
+        for (ScoreClassAggregate row : rows) {
+            aggregates.put(row.getTeachingClassDbId(), ScoreAggregate.fromEntity(row));
+        }
+        byClass = aggregates;
+        global = new ScoreAggregate();
+        for (ScoreAggregate aggregate : aggregates.values()) {
+            global.merge(aggregate);
+        }
+    }
+
+    /**
+     * 由分组查询得到的各格人数构建每个教学班的分位数草图
+     */
+    private static void attachSketches(List<ScoreClassAggregate> aggregates, List<SketchBin> bins) {
+        Map<Long, ScoreQuantileSketch> sketches = new HashMap<>();
+        for (SketchBin bin : bins) {
+            sketches.computeIfAbsent(bin.getTeachingClassDbId(), id -> new ScoreQuantileSketch())
+                    .addBin(bin.getBin(), bin.getBinCount());
+        }
+        for (ScoreClassAggregate aggregate : aggregates) {
+            ScoreQuantileSketch sketch = sketches.get(aggregate.getTeachingClassDbId());
+            aggregate.setScoreSketch(sketch == null ? "" : sketch.encode());
+        }
+    }
+
+    /**
+     * 全局最值由各教学班最值得到
+     */
+    private void refreshGlobalExtrema() {
+        Long min = null;
+        Long max = null;
+        for (ScoreAggregate aggregate : byClass.values()) {
+            ScoreStats stats = aggregate.stats();
+            if (stats.getCount() == 0) {
+                continue;
+            }
+            min = min == null ? stats.getMin() : Math.min(min, stats.getMin());
+            max = max == null ? stats.getMax() : Math.max(max, stats.getMax());
+        }
+        global.stats().resetExtrema(min, max);
+    }
+
+    private static Long toHundredths(BigDecimal value) {
+        return value == null ? null : GradeCalculator.toHundredths(value);
+    }
+
+    private record Snapshot(List<ScoreClassAggregate> rows, long seq) {
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.statistics.aggregate;
+
+import lombok.Data;
+
+/**
+ * 教学班分位数草图的一格
+ */
+@Data
+public class SketchBin {
+
+    private Long teachingClassDbId;
+
+    private Integer bin;
+
+    private Integer binCount;
+}
@@ -0,0 +1,27 @@
+package com.example.statistics.aggregate;
+
+import lombok.Data;
+
+/**
+ * 教学班统计维度行：教学班、所属课程与选课人数，由一条分组查询得到
+ */
+@Data
+public class TeachingClassStat {
+
+    private Long id;
+
+    private String classId;
+
+    private Long courseDbId;
+
+    private Long teacherDbId;
+
+    /**
+     * 课程已删除时为空
+     */
+    private String courseId;
+
+    private String courseName;
+
+    private Long enrollmentCount;
+}
@@ -0,0 +1,160 @@
+package com.example.statistics.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * 统计结果缓存
+ * 按访问顺序淘汰（LRU），条目超过 TTL 后失效；每个条目带一个失效标签：
+ * 全局统计为 {@link #TAG_ALL}，教师、课程、教学班维度的统计分别为 teacher:数据库ID、course:课程号、class:教学班编号。
+ * 任何失效都会同时清除全局条目。计算期间发生过失效的结果不写入缓存，避免旧值覆盖新值。
+ * 指标：statistics.cache.hits / misses / evictions / invalidations 计数，statistics.cache.size 与 statistics.cache.hit.rate。
+ */
+@Slf4j
+@Component
+public class StatisticsCache {
+
+    public static final String TAG_ALL = "all";
+
+    /**
+     * 课程维度标签前缀
+     */
+    public static final String COURSE_TAG_PREFIX = "course:";
+
+    private final int maxEntries;
+    private final long ttlMillis;
+
+    private final LinkedHashMap<String, Entry> entries;
+
+    /**
+     * 每次失效加一
+     */
+    private long generation;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+    private final Counter invalidations;
+
+    public StatisticsCache(MeterRegistry meterRegistry,
+                           @Value("${statistics.cache.max-entries:512}") int maxEntries,
+                           @Value("${statistics.cache.ttl-seconds:300}") long ttlSeconds) {
+        this.maxEntries = Math.max(1, maxEntries);
+        this.ttlMillis = ttlSeconds * 1000L;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > StatisticsCache.this.maxEntries) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+        this.hits = Counter.builder("statistics.cache.hits").description("统计缓存命中次数").register(meterRegistry);
+        this.misses = Counter.builder("statistics.cache.misses").description("统计缓存未命中次数").register(meterRegistry);
+        this.evictions = Counter.builder("statistics.cache.evictions").description("统计缓存淘汰条数").register(meterRegistry);
+        this.invalidations = Counter.builder("statistics.cache.invalidations").description("统计缓存失效条数").register(meterRegistry);
+        Gauge.builder("statistics.cache.size", this, StatisticsCache::size)
+                .description("统计缓存条目数").register(meterRegistry);
+        Gauge.builder("statistics.cache.hit.rate", this, StatisticsCache::hitRate)
+                .description("统计缓存命中率").register(meterRegistry);
+    }
+
+    public static String teacherTag(Long teacherDbId) {
+        return "teacher:" + teacherDbId;
+    }
+
+    public static String courseTag(String courseId) {
+        return COURSE_TAG_PREFIX + courseId;
+    }
+
+    public static String classTag(String classId) {
+        return "class:" + classId;
+    }
+
+    /**
+     * 读取缓存，未命中或已过期时调用 loader 计算并写入
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String key, String tag, Supplier<T> loader) {
+        long loadGeneration;
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.expiresAt() > System.currentTimeMillis()) {
+                hits.increment();
+                return (T) entry.value();
+            }
+            if (entry != null) {
+                entries.remove(key);
+            }
+            misses.increment();
+            loadGeneration = generation;
+        }
+
+        T value = loader.get();
+        synchronized (this) {
+            if (generation == loadGeneration) {
+                entries.put(key, new Entry(value, tag, System.currentTimeMillis() + ttlMillis));
+            }
+        }
+        return value;
+    }
+
+    /**
+     * 清除带有任一标签的条目及全局条目
+     */
+    public void invalidate(Collection<String> tags) {
+        invalidate(tags, List.of());
+    }
+
+    /**
+     * 清除带有任一标签、或标签以任一前缀开头的条目及全局条目
+     */
+    public synchronized void invalidate(Collection<String> tags, Collection<String> tagPrefixes) {
+        generation++;
+        int removed = 0;
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (TAG_ALL.equals(entry.tag()) || tags.contains(entry.tag())
+                    || tagPrefixes.stream().anyMatch(entry.tag()::startsWith)) {
+                iterator.remove();
+                removed++;
+            }
+        }
+        invalidations.increment(removed);
+        log.debug("统计缓存失效: tags={}, prefixes={}, removed={}", tags, tagPrefixes, removed);
+    }
+
+    /**
+     * 清除全部条目
+     */
+    public synchronized void clear() {
+        generation++;
+        invalidations.increment(entries.size());
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * 命中率，尚无访问时为0
+     */
+    public double hitRate() {
+        double total = hits.count() + misses.count();
+        return total == 0 ? 0 : hits.count() / total;
+    }
+
+    private record Entry(Object value, String tag, long expiresAt) {
+    }
+}
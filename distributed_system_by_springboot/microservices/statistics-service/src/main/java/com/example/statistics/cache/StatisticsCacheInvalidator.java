@@ -0,0 +1,120 @@
+package com.example.statistics.cache;
+
+import com.example.common.entity.EntityChangeLog;
+import com.example.statistics.aggregate.ScoreAggregateChangedEvent;
+import com.example.statistics.aggregate.TeachingClassStat;
+import com.example.statistics.mapper.EntityChangeLogMapper;
+import com.example.statistics.mapper.TeachingClassMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * 统计缓存失效
+ * 成绩变化来自成绩聚合的更新事件，选课、教学班、课程变化来自定时读取的 entity_change_log；
+ * 变化的教学班解析为教学班、课程、教师三类标签后失效对应缓存。
+ * 课程变化（改名、学分、删除）解析为其全部教学班的标签；日志不记录修改前的课程号，同时清除全部课程维度的条目。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StatisticsCacheInvalidator {
+
+    private static final int BATCH_SIZE = 1000;
+
+    private final StatisticsCache cache;
+    private final EntityChangeLogMapper entityChangeLogMapper;
+    private final TeachingClassMapper teachingClassMapper;
+
+    /**
+     * 已处理的实体变更位置，为 null 表示尚未初始化
+     */
+    private Long appliedSeq;
+
+    @EventListener
+    public void onScoreAggregateChanged(ScoreAggregateChangedEvent event) {
+        if (event.teachingClassDbIds() == null) {
+            cache.clear();
+            return;
+        }
+        if (event.teachingClassDbIds().isEmpty()) {
+            return;
+        }
+        try {
+            cache.invalidate(resolveTags(event.teachingClassDbIds(), Set.of(), Set.of()));
+        } catch (RuntimeException e) {
+            log.warn("解析成绩变更的缓存标签失败，清空统计缓存: {}", e.getMessage());
+            cache.clear();
+        }
+    }
+
+    /**
+     * 定时读取实体变更日志
+     */
+    @Scheduled(fixedDelay = 1000)
+    public synchronized void poll() {
+        try {
+            if (appliedSeq == null) {
+                // 启动时缓存为空，从当前位置开始即可
+                appliedSeq = entityChangeLogMapper.selectMaxSeq();
+                return;
+            }
+            List<EntityChangeLog> changes;
+            do {
+                changes = entityChangeLogMapper.selectSince(appliedSeq, BATCH_SIZE);
+                if (changes.isEmpty()) {
+                    return;
+                }
+                Set<Long> classIds = new HashSet<>();
+                Set<Long> courseIds = new HashSet<>();
+                Set<Long> teacherIds = new HashSet<>();
+                for (EntityChangeLog change : changes) {
+                    if (change.getTeachingClassDbId() != null) {
+                        classIds.add(change.getTeachingClassDbId());
+                    }
+                    if (change.getCourseDbId() != null) {
+                        courseIds.add(change.getCourseDbId());
+                    }
+                    if (change.getTeacherDbId() != null) {
+                        teacherIds.add(change.getTeacherDbId());
+                    }
+                }
+                cache.invalidate(resolveTags(classIds, courseIds, teacherIds),
+                        courseIds.isEmpty() ? List.of() : List.of(StatisticsCache.COURSE_TAG_PREFIX));
+                appliedSeq = changes.get(changes.size() - 1).getSeq();
+            } while (changes.size() == BATCH_SIZE);
+        } catch (RuntimeException e) {
+            log.warn("读取实体变更日志失败，清空统计缓存: {}", e.getMessage());
+            cache.clear();
+        }
+    }
+
+    /**
+     * 解析教学班、课程、教师ID对应的缓存标签，课程解析为其全部教学班
+     */
+    private Set<String> resolveTags(Collection<Long> classIds, Collection<Long> courseIds, Collection<Long> teacherIds) {
+        Set<String> tags = new HashSet<>();
+        for (Long teacherDbId : teacherIds) {
+            tags.add(StatisticsCache.teacherTag(teacherDbId));
+        }
+        List<TeachingClassStat> teachingClasses = new ArrayList<>();
+        if (!classIds.isEmpty()) {
+            teachingClasses.addAll(teachingClassMapper.selectClassKeys(classIds));
+        }
+        if (!courseIds.isEmpty()) {
+            teachingClasses.addAll(teachingClassMapper.selectClassKeysByCourses(courseIds));
+        }
+        for (TeachingClassStat teachingClass : teachingClasses) {
+            tags.add(StatisticsCache.classTag(teachingClass.getClassId()));
+            tags.add(StatisticsCache.teacherTag(teachingClass.getTeacherDbId()));
+            if (teachingClass.getCourseId() != null) {
+                tags.add(StatisticsCache.courseTag(teachingClass.getCourseId()));
+            }
+        }
+        return tags;
+    }
+}
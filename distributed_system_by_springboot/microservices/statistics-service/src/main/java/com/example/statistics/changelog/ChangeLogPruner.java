@@ -0,0 +1,66 @@
+package com.example.statistics.changelog;
+
+import com.example.statistics.mapper.EntityChangeLogMapper;
+import com.example.statistics.mapper.ScoreChangeLogMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 变更日志清理
+ * score_change_log 只删除所有持久化消费位置（change_log_checkpoint）都已越过、且早于保留时长的记录；
+ * entity_change_log 的消费者只在内存中记录位置、重启后从最大序号开始，按保留时长删除。
+ * 内存消费者每秒读取，保留时长内的记录不会被跳过；通过 /scores/changes 订阅的调用方超过保留时长未读取时，
+ * 成绩服务返回错误，调用方需重新读取全量成绩后从最新序号订阅。
+ * 每批删除 BATCH_SIZE 条，避免长时间持有 SQLite 写锁。
+ */
+@Slf4j
+@Component
+public class ChangeLogPruner {
+
+    private static final int BATCH_SIZE = 5000;
+
+    private final ScoreChangeLogMapper scoreChangeLogMapper;
+    private final EntityChangeLogMapper entityChangeLogMapper;
+
+    /**
+     * 保留时长（小时）
+     */
+    private final int retentionHours;
+
+    public ChangeLogPruner(ScoreChangeLogMapper scoreChangeLogMapper,
+                           EntityChangeLogMapper entityChangeLogMapper,
+                           @Value("${statistics.change-log.retention-hours:168}") int retentionHours) {
+        this.scoreChangeLogMapper = scoreChangeLogMapper;
+        this.entityChangeLogMapper = entityChangeLogMapper;
+        this.retentionHours = Math.max(1, retentionHours);
+    }
+
+    /**
+     * 定时清理，默认每小时一次
+     */
+    @Scheduled(fixedDelayString = "${statistics.change-log.prune-interval-ms:3600000}")
+    public void prune() {
+        try {
+            int scoreDeleted = 0;
+            int deleted;
+            do {
+                deleted = scoreChangeLogMapper.deleteConsumed(retentionHours, BATCH_SIZE);
+                scoreDeleted += deleted;
+            } while (deleted == BATCH_SIZE);
+
+            int entityDeleted = 0;
+            do {
+                deleted = entityChangeLogMapper.deleteBefore(retentionHours, BATCH_SIZE);
+                entityDeleted += deleted;
+            } while (deleted == BATCH_SIZE);
+
+            if (scoreDeleted > 0 || entityDeleted > 0) {
+                log.info("清理变更日志: score={}, entity={}", scoreDeleted, entityDeleted);
+            }
+        } catch (RuntimeException e) {
+            log.warn("清理变更日志失败: {}", e.getMessage());
+        }
+    }
+}
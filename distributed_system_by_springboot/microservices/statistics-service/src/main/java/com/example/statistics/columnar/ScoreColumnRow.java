@@ -0,0 +1,32 @@
+package com.example.statistics.columnar;
+
+import lombok.Data;
+
+/**
+ * 列式快照的装载行，成绩均为百分之一分，教学班已删除时课程、教师、学期为空
+ */
+@Data
+public class ScoreColumnRow {
+
+    private Long id;
+
+    private Integer deleted;
+
+    private Long teachingClassDbId;
+
+    private Long courseDbId;
+
+    private Long teacherDbId;
+
+    private String semester;
+
+    private Integer finalScore;
+
+    private Integer regularScore;
+
+    private Integer midtermScore;
+
+    private Integer experimentScore;
+
+    private Integer finalExamScore;
+}
@@ -0,0 +1,492 @@
+package com.example.statistics.columnar;
+
+import com.example.common.entity.EntityChangeLog;
+import com.example.common.entity.ScoreChangeLog;
+import com.example.common.util.ScoreStats;
+import com.example.statistics.mapper.EntityChangeLogMapper;
+import com.example.statistics.mapper.ScoreChangeLogMapper;
+import com.example.statistics.mapper.ScoreMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.cursor.Cursor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.IntStream;
+
+/**
+ * 成绩列式快照
+ * 每条成绩按列存放在基本类型数组中：成绩ID（long，按升序排列用于二分定位）、综合成绩与四项分项成绩（short，百分之一分，缺失为 -1）、
+ * 教学班ID（int）、课程与教师（int 字典编码）、学期（short 字典编码），每行约 32 字节。
+ * 启动时按ID顺序流式装载；之后定时读取成绩变更日志与实体变更日志，按成绩ID或教学班重新读取受影响的行，
+ * 重复应用同一行是幂等的。删除的行先标记，失效行过多时压缩。
+ * 查询为对数组的过滤与分组循环，行数较多时按块并行后合并 {@link ScoreStats}。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ScoreColumnStore {
+
+    /**
+     * 成绩缺失
+     */
+    public static final short MISSING = -1;
+
+    private static final int BATCH_SIZE = 1000;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /**
+     * 每个并行块的行数，行数不超过一块时在调用线程中扫描
+     */
+    private static final int CHUNK_SIZE = 1 << 16;
+
+    /**
+     * 失效行超过该数量且多于有效行时压缩
+     */
+    private static final int COMPACT_THRESHOLD = 4096;
+
+    private final ScoreMapper scoreMapper;
+    private final ScoreChangeLogMapper scoreChangeLogMapper;
+    private final EntityChangeLogMapper entityChangeLogMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private long[] scoreIds = new long[INITIAL_CAPACITY];
+    private short[] finalScores = new short[INITIAL_CAPACITY];
+    private short[] regularScores = new short[INITIAL_CAPACITY];
+    private short[] midtermScores = new short[INITIAL_CAPACITY];
+    private short[] experimentScores = new short[INITIAL_CAPACITY];
+    private short[] finalExamScores = new short[INITIAL_CAPACITY];
+    private int[] classIds = new int[INITIAL_CAPACITY];
+    private int[] courseCodes = new int[INITIAL_CAPACITY];
+    private int[] teacherCodes = new int[INITIAL_CAPACITY];
+    private short[] semesterCodes = new short[INITIAL_CAPACITY];
+    private BitSet alive = new BitSet(INITIAL_CAPACITY);
+
+    /**
+     * 已使用的行数（含失效行）
+     */
+    private int size;
+
+    private int liveCount;
+
+    /**
+     * 字典：编码 0 表示空值
+     */
+    private final Dictionary<Long> courses = new Dictionary<>();
+    private final Dictionary<Long> teachers = new Dictionary<>();
+    private final Dictionary<String> semesters = new Dictionary<>();
+
+    private long scoreSeq;
+
+    private long entitySeq;
+
+    private volatile boolean loaded;
+
+    /**
+     * 分组维度
+     */
+    public enum Dimension {
+        SEMESTER, COURSE, TEACHER
+    }
+
+    /**
+     * 过滤条件，各项为空时不限制
+     */
+    public record Filter(String semester, Long courseDbId, Long teacherDbId, Long teachingClassDbId) {
+    }
+
+    /**
+     * 分组结果，未参与分组的维度为空
+     */
+    public record Group(String semester, Long courseDbId, Long teacherDbId, ScoreStats stats) {
+    }
+
+    /**
+     * 有效行数
+     */
+    public int size() {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            return liveCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 按条件过滤有综合成绩的行，并按维度分组统计；维度为空时返回一个总计分组
+     */
+    public List<Group> query(Filter filter, Set<Dimension> dimensions) {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            int semester = filter.semester() == null ? -1 : semesters.find(filter.semester());
+            int course = filter.courseDbId() == null ? -1 : courses.find(filter.courseDbId());
+            int teacher = filter.teacherDbId() == null ? -1 : teachers.find(filter.teacherDbId());
+            Long teachingClassDbId = filter.teachingClassDbId();
+            if (semester == 0 || course == 0 || teacher == 0
+                    || (teachingClassDbId != null && (teachingClassDbId < 0 || teachingClassDbId > Integer.MAX_VALUE))) {
+                // 条件值不在字典中或教学班ID超出列存范围，没有匹配的行
+                return List.of();
+            }
+            int teachingClass = teachingClassDbId == null ? -1 : teachingClassDbId.intValue();
+            boolean bySemester = dimensions.contains(Dimension.SEMESTER);
+            boolean byCourse = dimensions.contains(Dimension.COURSE);
+            boolean byTeacher = dimensions.contains(Dimension.TEACHER);
+
+            int rows = size;
+            int chunks = (rows + CHUNK_SIZE - 1) / CHUNK_SIZE;
+            Map<Long, ScoreStats> groups = chunks <= 1
+                    ? scan(0, rows, semester, course, teacher, teachingClass, bySemester, byCourse, byTeacher)
+                    : IntStream.range(0, chunks).parallel()
+                    .mapToObj(chunk -> scan(chunk * CHUNK_SIZE, Math.min(rows, (chunk + 1) * CHUNK_SIZE),
+                            semester, course, teacher, teachingClass, bySemester, byCourse, byTeacher))
+                    .reduce(ScoreColumnStore::mergeGroups)
+                    .orElseGet(HashMap::new);
+
+            List<Group> result = new ArrayList<>(groups.size());
+            for (Map.Entry<Long, ScoreStats> entry : groups.entrySet()) {
+                long key = entry.getKey();
+                result.add(new Group(
+                        bySemester ? semesters.valueOf((int) (key >>> 48)) : null,
+                        byCourse ? courses.valueOf((int) ((key >>> 24) & 0xFFFFFF)) : null,
+                        byTeacher ? teachers.valueOf((int) (key & 0xFFFFFF)) : null,
+                        entry.getValue()));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void init() {
+        try {
+            ensureLoaded();
+        } catch (RuntimeException e) {
+            log.warn("装载成绩列式快照失败，稍后重试: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 定时读取变更日志，刷新受影响的行
+     */
+    @Scheduled(fixedDelay = 1000)
+    public synchronized void poll() {
+        if (!loaded) {
+            init();
+            return;
+        }
+        try {
+            List<ScoreChangeLog> scoreChanges;
+            do {
+                scoreChanges = scoreChangeLogMapper.selectSince(scoreSeq, BATCH_SIZE);
+                if (!scoreChanges.isEmpty()) {
+                    Set<Long> ids = new HashSet<>();
+                    scoreChanges.forEach(change -> ids.add(change.getScoreId()));
+                    apply(scoreMapper.selectColumnRowsByIds(ids), ids, Set.of());
+                    scoreSeq = scoreChanges.get(scoreChanges.size() - 1).getSeq();
+                }
+            } while (scoreChanges.size() == BATCH_SIZE);
+
+            List<EntityChangeLog> entityChanges;
+            do {
+                entityChanges = entityChangeLogMapper.selectSince(entitySeq, BATCH_SIZE);
+                Set<Long> teachingClassDbIds = new HashSet<>();
+                for (EntityChangeLog change : entityChanges) {
+                    if (EntityChangeLog.ENTITY_TEACHING_CLASS.equals(change.getEntity())) {
+                        teachingClassDbIds.add(change.getTeachingClassDbId());
+                    }
+                }
+                if (!teachingClassDbIds.isEmpty()) {
+                    // 教学班的课程、教师、学期或删除状态变化
+                    apply(scoreMapper.selectColumnRowsByClassIds(teachingClassDbIds), Set.of(), teachingClassDbIds);
+                }
+                if (!entityChanges.isEmpty()) {
+                    entitySeq = entityChanges.get(entityChanges.size() - 1).getSeq();
+                }
+            } while (entityChanges.size() == BATCH_SIZE);
+        } catch (RuntimeException e) {
+            log.warn("刷新成绩列式快照失败，下次重试: {}", e.getMessage());
+        }
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (!loaded) {
+                load();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 全量装载：先记录日志位置再读表，装载期间的变更会在之后重复应用
+     */
+    private void load() {
+        long startScoreSeq = scoreChangeLogMapper.selectMaxSeq();
+        long startEntitySeq = entityChangeLogMapper.selectMaxSeq();
+        reset();
+        transactionTemplate.executeWithoutResult(status -> {
+            try (Cursor<ScoreColumnRow> cursor = scoreMapper.selectColumnRowCursor()) {
+                for (ScoreColumnRow row : cursor) {
+                    upsert(row);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        scoreSeq = startScoreSeq;
+        entitySeq = startEntitySeq;
+        loaded = true;
+        log.info("装载成绩列式快照: rows={}", liveCount);
+    }
+
+    /**
+     * 应用重新读取的行：按ID请求但未返回的行已被物理删除；按教学班请求时，该教学班下未返回的行已失效
+     */
+    private void apply(List<ScoreColumnRow> rows, Set<Long> requestedIds, Set<Long> requestedClassIds) {
+        lock.writeLock().lock();
+        try {
+            Set<Long> returned = new HashSet<>(rows.size() * 2);
+            for (ScoreColumnRow row : rows) {
+                upsert(row);
+                returned.add(row.getId());
+            }
+            for (Long id : requestedIds) {
+                if (!returned.contains(id)) {
+                    markDeleted(indexOf(id));
+                }
+            }
+            if (!requestedClassIds.isEmpty()) {
+                for (int i = alive.nextSetBit(0); i >= 0 && i < size; i = alive.nextSetBit(i + 1)) {
+                    if (requestedClassIds.contains((long) classIds[i]) && !returned.contains(scoreIds[i])) {
+                        markDeleted(i);
+                    }
+                }
+            }
+            if (size - liveCount > COMPACT_THRESHOLD && size - liveCount > liveCount) {
+                compact();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void upsert(ScoreColumnRow row) {
+        int index = indexOf(row.getId());
+        if (index < 0) {
+            if (row.getDeleted() != null && row.getDeleted() == 1) {
+                return;
+            }
+            index = insertAt(-index - 1, row.getId());
+        }
+        if (row.getDeleted() != null && row.getDeleted() == 1) {
+            markDeleted(index);
+            return;
+        }
+        finalScores[index] = toShort(row.getFinalScore());
+        regularScores[index] = toShort(row.getRegularScore());
+        midtermScores[index] = toShort(row.getMidtermScore());
+        experimentScores[index] = toShort(row.getExperimentScore());
+        finalExamScores[index] = toShort(row.getFinalExamScore());
+        classIds[index] = row.getTeachingClassDbId() == null ? 0 : Math.toIntExact(row.getTeachingClassDbId());
+        courseCodes[index] = courses.encode(row.getCourseDbId());
+        teacherCodes[index] = teachers.encode(row.getTeacherDbId());
+        semesterCodes[index] = (short) semesters.encode(row.getSemester());
+        if (!alive.get(index)) {
+            alive.set(index);
+            liveCount++;
+        }
+    }
+
+    private void markDeleted(int index) {
+        if (index >= 0 && alive.get(index)) {
+            alive.clear(index);
+            liveCount--;
+        }
+    }
+
+    /**
+     * 二分查找成绩ID所在行，未找到时返回 -(插入位置 + 1)
+     */
+    private int indexOf(long scoreId) {
+        return Arrays.binarySearch(scoreIds, 0, size, scoreId);
+    }
+
+    /**
+     * 在 position 处插入一行；成绩ID自增，通常为追加
+     */
+    private int insertAt(int position, long scoreId) {
+        if (size == scoreIds.length) {
+            grow(size * 2);
+        }
+        if (position < size) {
+            int length = size - position;
+            System.arraycopy(scoreIds, position, scoreIds, position + 1, length);
+            System.arraycopy(finalScores, position, finalScores, position + 1, length);
+            System.arraycopy(regularScores, position, regularScores, position + 1, length);
+            System.arraycopy(midtermScores, position, midtermScores, position + 1, length);
+            System.arraycopy(experimentScores, position, experimentScores, position + 1, length);
+            System.arraycopy(finalExamScores, position, finalExamScores, position + 1, length);
+            System.arraycopy(classIds, position, classIds, position + 1, length);
+            System.arraycopy(courseCodes, position, courseCodes, position + 1, length);
+            System.arraycopy(teacherCodes, position, teacherCodes, position + 1, length);
+            System.arraycopy(semesterCodes, position, semesterCodes, position + 1, length);
+            BitSet shifted = alive.get(0, position);
+            BitSet tail = alive.get(position, size);
+            for (int i = tail.nextSetBit(0); i >= 0; i = tail.nextSetBit(i + 1)) {
+                shifted.set(position + 1 + i);
+            }
+            alive = shifted;
+        }
+        scoreIds[position] = scoreId;
+        alive.clear(position);
+        size++;
+        return position;
+    }
+
+    private void grow(int capacity) {
+        scoreIds = Arrays.copyOf(scoreIds, capacity);
+        finalScores = Arrays.copyOf(finalScores, capacity);
+        regularScores = Arrays.copyOf(regularScores, capacity);
+        midtermScores = Arrays.copyOf(midtermScores, capacity);
+        experimentScores = Arrays.copyOf(experimentScores, capacity);
+        finalExamScores = Arrays.copyOf(finalExamScores, capacity);
+        classIds = Arrays.copyOf(classIds, capacity);
+        courseCodes = Arrays.copyOf(courseCodes, capacity);
+        teacherCodes = Arrays.copyOf(teacherCodes, capacity);
+        semesterCodes = Arrays.copyOf(semesterCodes, capacity);
+    }
+
+    /**
+     * 去除失效行，保持成绩ID有序
+     */
+    private void compact() {
+        int target = 0;
+        for (int i = alive.nextSetBit(0); i >= 0 && i < size; i = alive.nextSetBit(i + 1)) {
+            scoreIds[target] = scoreIds[i];
+            finalScores[target] = finalScores[i];
+            regularScores[target] = regularScores[i];
+            midtermScores[target] = midtermScores[i];
+            experimentScores[target] = experimentScores[i];
+            finalExamScores[target] = finalExamScores[i];
+            classIds[target] = classIds[i];
+            courseCodes[target] = courseCodes[i];
+            teacherCodes[target] = teacherCodes[i];
+            semesterCodes[target] = semesterCodes[i];
+            target++;
+        }
+        log.debug("压缩成绩列式快照: rows={} -> {}", size, target);
+        size = target;
+        alive = new BitSet(scoreIds.length);
+        alive.set(0, target);
+    }
+
+    private void reset() {
+        size = 0;
+        liveCount = 0;
+        alive.clear();
+    }
+
+    private Map<Long, ScoreStats> scan(int from, int to, int semester, int course, int teacher, int teachingClass,
+                                       boolean bySemester, boolean byCourse, boolean byTeacher) {
+        Map<Long, ScoreStats> groups = new HashMap<>();
+        long lastKey = -1;
+        ScoreStats last = null;
+        for (int i = alive.nextSetBit(from); i >= 0 && i < to; i = alive.nextSetBit(i + 1)) {
+            short finalScore = finalScores[i];
+            if (finalScore == MISSING
+                    || (semester > 0 && semesterCodes[i] != semester)
+                    || (course > 0 && courseCodes[i] != course)
+                    || (teacher > 0 && teacherCodes[i] != teacher)
+                    || (teachingClass >= 0 && classIds[i] != teachingClass)) {
+                continue;
+            }
+            long key = (bySemester ? (long) semesterCodes[i] << 48 : 0)
+                    | (byCourse ? (long) courseCodes[i] << 24 : 0)
+                    | (byTeacher ? teacherCodes[i] : 0);
+            if (key != lastKey || last == null) {
+                last = groups.computeIfAbsent(key, k -> new ScoreStats());
+                lastKey = key;
+            }
+            last.add(finalScore);
+        }
+        return groups;
+    }
+
+    private static Map<Long, ScoreStats> mergeGroups(Map<Long, ScoreStats> left, Map<Long, ScoreStats> right) {
+        right.forEach((key, stats) -> left.merge(key, stats, (a, b) -> {
+            a.merge(b);
+            return a;
+        }));
+        return left;
+    }
+
+    /**
+     * 百分之一分转为 short，超出 0 ~ 100 分时截断
+     */
+    private static short toShort(Integer hundredths) {
+        if (hundredths == null) {
+            return MISSING;
+        }
+        return (short) Math.max(0, Math.min(10000, hundredths));
+    }
+
+    /**
+     * 值到连续整数编码的字典，编码从1开始，0 表示空值或不存在
+     */
+    private static final class Dictionary<T> {
+
+        private static final int MAX_CODE = 0xFFFFFF;
+
+        private final Map<T, Integer> codes = new HashMap<>();
+
+        private final List<T> values = new ArrayList<>();
+
+        Dictionary() {
+            values.add(null);
+        }
+
+        int encode(T value) {
+            if (value == null) {
+                return 0;
+            }
+            Integer code = codes.get(value);
+            if (code == null) {
+                if (values.size() > MAX_CODE) {
+                    throw new IllegalStateException("列式快照字典已满");
+                }
+                code = values.size();
+                codes.put(value, code);
+                values.add(value);
+            }
+            return code;
+        }
+
+        int find(T value) {
+            return codes.getOrDefault(value, 0);
+        }
+
+        T valueOf(int code) {
+            return values.get(code);
+        }
+    }
+}
@@ -3,13 +3,18 @@ package com.example.statistics.controller;
 import com.example.common.result.Result;
 import com.example.common.vo.ClassStatisticsVO;
 import com.example.common.vo.CourseStatisticsVO;
+import com.example.common.vo.ScoreGroupStatisticsVO;
 import com.example.common.vo.StatisticsVO;
+import com.example.common.vo.TeacherDashboardVO;
 import com.example.statistics.service.StatisticsService;
+import com.example.statistics.stream.StatisticsStreamHub;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.HashMap;
 import java.util.List;
@@ -25,6 +30,7 @@ import java.util.Map;
 public class StatisticsController {
     
     private final StatisticsService statisticsService;
+    private final StatisticsStreamHub statisticsStreamHub;
     
     @Operation(summary = "获取系统概览统计")
     @GetMapping("/overview")
@@ -64,6 +70,13 @@ public class StatisticsController {
         return vo != null ? Result.success(vo) : Result.error("教学班不存在");
     }
     
+    @Operation(summary = "获取教师统计看板", description = "一次返回教师的概览、课程统计、教学班统计与成绩分布")
+    @GetMapping("/teacher/{teacherDbId}/dashboard")
+    public Result<TeacherDashboardVO> getTeacherDashboard(
+            @Parameter(description = "教师数据库ID") @PathVariable("teacherDbId") Long teacherDbId) {
+        return Result.success(statisticsService.getTeacherDashboard(teacherDbId));
+    }
+    
     @Operation(summary = "获取成绩分布")
     @GetMapping("/distribution")
     public Result<List<Integer>> getScoreDistribution() {
@@ -77,6 +90,29 @@ public class StatisticsController {
         return Result.success(statisticsService.getClassScoreDistribution(classId));
     }
     
+    @Operation(summary = "订阅统计增量推送", description = "SSE 推送概览成绩指标与发生变化的教学班分布、平均分，每个间隔至多一次")
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream() {
+        return statisticsStreamHub.subscribe();
+    }
+    
+    @Operation(summary = "重建成绩聚合", description = "按成绩表重新构建教学班成绩聚合，返回教学班聚合数")
+    @PostMapping("/aggregates/rebuild")
+    public Result<Integer> rebuildAggregates() {
+        return Result.success(statisticsService.rebuildAggregates());
+    }
+    
+    @Operation(summary = "成绩分组分析", description = "基于内存列式快照按条件过滤成绩，并按学期、课程、教师任意组合分组统计")
+    @GetMapping("/analytics")
+    public Result<List<ScoreGroupStatisticsVO>> getScoreAnalytics(
+            @Parameter(description = "学期") @RequestParam(required = false) String semester,
+            @Parameter(description = "课程数据库ID") @RequestParam(required = false) Long courseDbId,
+            @Parameter(description = "教师数据库ID") @RequestParam(required = false) Long teacherDbId,
+            @Parameter(description = "教学班数据库ID") @RequestParam(required = false) Long teachingClassDbId,
+            @Parameter(description = "分组维度，可选 semester、course、teacher，逗号分隔") @RequestParam(required = false) List<String> groupBy) {
+        return Result.success(statisticsService.getScoreAnalytics(semester, courseDbId, teacherDbId, teachingClassDbId, groupBy));
+    }
+    
     // ===== 以下是为前端统计页面添加的接口 =====
     
     @Operation(summary = "获取成绩分布（前端统计页面用）")
@@ -0,0 +1,37 @@
+package com.example.statistics.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.example.common.entity.EntityChangeLog;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.List;
+
+/**
+ * 实体变更日志Mapper
+ */
+@Mapper
+public interface EntityChangeLogMapper extends BaseMapper<EntityChangeLog> {
+    
+    /**
+     * 按序号顺序读取 since 之后的变更
+     */
+    @Select("SELECT * FROM entity_change_log WHERE seq > #{since} ORDER BY seq LIMIT #{limit}")
+    List<EntityChangeLog> selectSince(@Param("since") long since, @Param("limit") int limit);
+    
+    /**
+     * 当前最大序号，无记录时为0
+     */
+    @Select("SELECT COALESCE(MAX(seq), 0) FROM entity_change_log")
+    long selectMaxSeq();
+    
+    /**
+     * 删除早于 hours 小时的变更，最多 limit 条；保留最大序号一行
+     */
+    @Delete("DELETE FROM entity_change_log WHERE seq IN (SELECT seq FROM entity_change_log " +
+            "WHERE seq < (SELECT MAX(seq) FROM entity_change_log) " +
+            "AND create_time < datetime('now', '-' || #{hours} || ' hours') ORDER BY seq LIMIT #{limit})")
+    int deleteBefore(@Param("hours") int hours, @Param("limit") int limit);
+}
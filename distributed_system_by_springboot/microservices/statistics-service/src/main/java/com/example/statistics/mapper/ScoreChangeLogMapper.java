@@ -0,0 +1,39 @@
+package com.example.statistics.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.example.common.entity.ScoreChangeLog;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.List;
+
+/**
+ * 成绩变更日志Mapper
+ */
+@Mapper
+public interface ScoreChangeLogMapper extends BaseMapper<ScoreChangeLog> {
+    
+    /**
+     * 按序号顺序读取 since 之后的变更
+     */
+    @Select("SELECT * FROM score_change_log WHERE seq > #{since} ORDER BY seq LIMIT #{limit}")
+    List<ScoreChangeLog> selectSince(@Param("since") long since, @Param("limit") int limit);
+    
+    /**
+     * 当前最大序号，无记录时为0
+     */
+    @Select("SELECT COALESCE(MAX(seq), 0) FROM score_change_log")
+    long selectMaxSeq();
+    
+    /**
+     * 删除已被所有持久化消费位置越过且早于 hours 小时的变更，最多 limit 条；保留最大序号一行，使最小序号始终可见
+     * 没有任何消费位置时不删除
+     */
+    @Delete("DELETE FROM score_change_log WHERE seq IN (SELECT seq FROM score_change_log " +
+            "WHERE seq <= (SELECT MIN(seq) FROM change_log_checkpoint) " +
+            "AND seq < (SELECT MAX(seq) FROM score_change_log) " +
+            "AND create_time < datetime('now', '-' || #{hours} || ' hours') ORDER BY seq LIMIT #{limit})")
+    int deleteConsumed(@Param("hours") int hours, @Param("limit") int limit);
+}
@@ -0,0 +1,68 @@
+package com.example.statistics.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.example.common.entity.ScoreClassAggregate;
+import com.example.statistics.aggregate.SketchBin;
+import org.apache.ibatis.annotations.*;
+
+import java.util.List;
+
+/**
+ * 教学班成绩聚合Mapper
+ */
+@Mapper
+public interface ScoreClassAggregateMapper extends BaseMapper<ScoreClassAggregate> {
+    
+    /**
+     * 按教学班从成绩表直接聚合，用于首次构建与重建
+     */
+    @Select("SELECT teaching_class_db_id, COUNT(*) AS row_count, COUNT(h) AS score_count, " +
+            "COALESCE(SUM(h), 0) AS score_sum, " +
+            "COALESCE(SUM(h * h) - SUM(h) * SUM(h) * 1.0 / COUNT(h), 0) AS score_m2, MIN(h) AS min_score, MAX(h) AS max_score, " +
+            "SUM(CASE WHEN h >= 6000 THEN 1 ELSE 0 END) AS pass_count, " +
+            "SUM(CASE WHEN h >= 9000 THEN 1 ELSE 0 END) AS excellent_count, " +
+            "SUM(CASE WHEN h < 6000 THEN 1 ELSE 0 END) AS bucket_0, " +
+            "SUM(CASE WHEN h >= 6000 AND h < 7000 THEN 1 ELSE 0 END) AS bucket_1, " +
+            "SUM(CASE WHEN h >= 7000 AND h < 8000 THEN 1 ELSE 0 END) AS bucket_2, " +
+            "SUM(CASE WHEN h >= 8000 AND h < 9000 THEN 1 ELSE 0 END) AS bucket_3, " +
+            "SUM(CASE WHEN h >= 9000 THEN 1 ELSE 0 END) AS bucket_4 " +
+            "FROM (SELECT teaching_class_db_id, CAST(ROUND(final_score * 100) AS INTEGER) AS h " +
+            "FROM score WHERE deleted = 0) GROUP BY teaching_class_db_id")
+    List<ScoreClassAggregate> aggregateFromScores();
+    
+    /**
+     * 按教学班与 0.1 分一格统计人数，用于构建分位数草图
+     */
+    @Select("SELECT teaching_class_db_id, (h + 5) / 10 AS bin, COUNT(*) AS bin_count " +
+            "FROM (SELECT teaching_class_db_id, CAST(ROUND(final_score * 100) AS INTEGER) AS h " +
+            "FROM score WHERE deleted = 0 AND final_score IS NOT NULL) GROUP BY teaching_class_db_id, bin")
+    List<SketchBin> selectSketchBins();
+    
+    /**
+     * 查询教学班当前的最低分与最高分（百分之一分），删除了极值后用于校正
+     */
+    @Select("SELECT MIN(CAST(ROUND(final_score * 100) AS INTEGER)) AS min_score, " +
+            "MAX(CAST(ROUND(final_score * 100) AS INTEGER)) AS max_score " +
+            "FROM score WHERE deleted = 0 AND teaching_class_db_id = #{teachingClassDbId}")
+    ScoreClassAggregate selectExtrema(@Param("teachingClassDbId") Long teachingClassDbId);
+    
+    @Insert("INSERT OR REPLACE INTO score_class_aggregate (teaching_class_db_id, row_count, score_count, score_sum, score_m2, " +
+            "min_score, max_score, pass_count, excellent_count, bucket_0, bucket_1, bucket_2, bucket_3, bucket_4, score_sketch, update_time) " +
+            "VALUES (#{a.teachingClassDbId}, #{a.rowCount}, #{a.scoreCount}, #{a.scoreSum}, #{a.scoreM2}, #{a.minScore}, #{a.maxScore}, " +
+            "#{a.passCount}, #{a.excellentCount}, #{a.bucket0}, #{a.bucket1}, #{a.bucket2}, #{a.bucket3}, #{a.bucket4}, #{a.scoreSketch}, " +
+            "datetime('now', 'localtime'))")
+    int upsert(@Param("a") ScoreClassAggregate aggregate);
+    
+    @Delete("DELETE FROM score_class_aggregate")
+    int deleteAll();
+    
+    /**
+     * 查询消费位置，不存在时返回 null
+     */
+    @Select("SELECT seq FROM change_log_checkpoint WHERE name = #{name}")
+    Long selectCheckpoint(@Param("name") String name);
+    
+    @Insert("INSERT OR REPLACE INTO change_log_checkpoint (name, seq, update_time) " +
+            "VALUES (#{name}, #{seq}, datetime('now', 'localtime'))")
+    int upsertCheckpoint(@Param("name") String name, @Param("seq") long seq);
+}
@@ -2,8 +2,47 @@ package com.example.statistics.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.example.common.entity.Score;
-import org.apache.ibatis.annotations.Mapper;
+import com.example.statistics.columnar.ScoreColumnRow;
+import org.apache.ibatis.annotations.*;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.mapping.ResultSetType;
+
+import java.util.Collection;
+import java.util.List;
 
 @Mapper
 public interface ScoreMapper extends BaseMapper<Score> {
+    
+    /**
+     * 列式快照装载列：成绩换算为百分之一分，关联教学班取课程、教师与学期
+     */
+    String COLUMN_ROW_SELECT = "SELECT s.id, COALESCE(s.deleted, 0) AS deleted, s.teaching_class_db_id, " +
+            "tc.course_db_id, tc.teacher_db_id, tc.semester, " +
+            "CAST(ROUND(s.final_score * 100) AS INTEGER) AS final_score, " +
+            "CAST(ROUND(s.regular_score * 100) AS INTEGER) AS regular_score, " +
+            "CAST(ROUND(s.midterm_score * 100) AS INTEGER) AS midterm_score, " +
+            "CAST(ROUND(s.experiment_score * 100) AS INTEGER) AS experiment_score, " +
+            "CAST(ROUND(s.final_exam_score * 100) AS INTEGER) AS final_exam_score " +
+            "FROM score s LEFT JOIN teaching_class tc ON s.teaching_class_db_id = tc.id AND tc.deleted = 0 ";
+    
+    /**
+     * 按ID顺序流式读取全部未删除成绩
+     */
+    @Select(COLUMN_ROW_SELECT + "WHERE s.deleted = 0 ORDER BY s.id")
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = 1000)
+    Cursor<ScoreColumnRow> selectColumnRowCursor();
+    
+    /**
+     * 按成绩ID读取（含已删除）
+     */
+    @Select("<script>" + COLUMN_ROW_SELECT + "WHERE s.id IN " +
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach></script>")
+    List<ScoreColumnRow> selectColumnRowsByIds(@Param("ids") Collection<Long> ids);
+    
+    /**
+     * 按教学班读取未删除成绩
+     */
+    @Select("<script>" + COLUMN_ROW_SELECT + "WHERE s.deleted = 0 AND s.teaching_class_db_id IN " +
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach></script>")
+    List<ScoreColumnRow> selectColumnRowsByClassIds(@Param("ids") Collection<Long> ids);
 }
@@ -2,8 +2,35 @@ package com.example.statistics.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.example.common.entity.TeachingClass;
+import com.example.statistics.aggregate.TeachingClassStat;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.Collection;
+import java.util.List;
 
 @Mapper
 public interface TeachingClassMapper extends BaseMapper<TeachingClass> {
+    
+    /**
+     * 查询教学班及其课程与选课人数，各条件为空时不限制
+     */
+    List<TeachingClassStat> selectClassStats(@Param("teacherDbId") Long teacherDbId,
+                                             @Param("courseDbId") Long courseDbId,
+                                             @Param("classId") String classId);
+    
+    /**
+     * 教师所有教学班的选课学生数（去重）
+     */
+    long countDistinctStudentsByTeacher(@Param("teacherDbId") Long teacherDbId);
+    
+    /**
+     * 按ID查询教学班编号、课程编号与教师（含已删除）
+     */
+    List<TeachingClassStat> selectClassKeys(@Param("ids") Collection<Long> ids);
+    
+    /**
+     * 按课程ID查询其教学班编号、课程编号与教师（含已删除）
+     */
+    List<TeachingClassStat> selectClassKeysByCourses(@Param("courseDbIds") Collection<Long> courseDbIds);
 }
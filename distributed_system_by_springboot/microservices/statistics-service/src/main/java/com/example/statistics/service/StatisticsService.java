@@ -2,7 +2,9 @@ package com.example.statistics.service;
 
 import com.example.common.vo.ClassStatisticsVO;
 import com.example.common.vo.CourseStatisticsVO;
+import com.example.common.vo.ScoreGroupStatisticsVO;
 import com.example.common.vo.StatisticsVO;
+import com.example.common.vo.TeacherDashboardVO;
 
 import java.util.List;
 
@@ -51,6 +53,11 @@ public interface StatisticsService {
      */
     ClassStatisticsVO getClassStatisticsById(String classId);
     
+    /**
+     * 获取教师统计看板：概览、课程统计、教学班统计与成绩分布一次返回
+     */
+    TeacherDashboardVO getTeacherDashboard(Long teacherDbId);
+    
     /**
      * 获取成绩分布
      */
@@ -65,4 +72,15 @@ public interface StatisticsService {
      * 获取教学班成绩分布
      */
     List<Integer> getClassScoreDistribution(String classId);
+    
+    /**
+     * 按成绩表重建教学班成绩聚合，返回教学班聚合数
+     */
+    int rebuildAggregates();
+    
+    /**
+     * 按学期、课程、教师、教学班过滤成绩，并按 semester / course / teacher 任意组合分组统计
+     */
+    List<ScoreGroupStatisticsVO> getScoreAnalytics(String semester, Long courseDbId, Long teacherDbId,
+                                                   Long teachingClassDbId, List<String> groupBy);
 }
@@ -0,0 +1,118 @@
+package com.example.statistics.service.impl;
+
+import com.example.common.vo.ClassStatisticsVO;
+import com.example.common.vo.CourseStatisticsVO;
+import com.example.common.vo.ScoreGroupStatisticsVO;
+import com.example.common.vo.StatisticsVO;
+import com.example.common.vo.TeacherDashboardVO;
+import com.example.statistics.cache.StatisticsCache;
+import com.example.statistics.service.StatisticsService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.BeanUtils;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * 带缓存的统计服务
+ * 读取接口的结果按 {@link StatisticsCache} 缓存，未命中时委托 {@link StatisticsServiceImpl} 计算；
+ * 全局统计使用全局标签，教师、课程、教学班维度的统计使用各自的标签，由成绩、选课、教学班变更触发失效；
+ * 学生与教师不在变更日志中，概览中的这两项数量不缓存
+ */
+@Primary
+@Service
+@RequiredArgsConstructor
+public class CachingStatisticsService implements StatisticsService {
+    
+    private final StatisticsServiceImpl delegate;
+    private final StatisticsCache cache;
+    
+    /**
+     * 学生、教师数量不随缓存失效，在缓存结果的副本上重新读取
+     */
+    @Override
+    public StatisticsVO getOverview() {
+        StatisticsVO vo = new StatisticsVO();
+        BeanUtils.copyProperties(cache.get("overview", StatisticsCache.TAG_ALL, delegate::getOverview), vo);
+        delegate.fillPersonCounts(vo);
+        return vo;
+    }
+    
+    @Override
+    public StatisticsVO getOverviewByTeacher(Long teacherDbId) {
+        return cache.get("overview:teacher:" + teacherDbId, StatisticsCache.teacherTag(teacherDbId),
+                () -> delegate.getOverviewByTeacher(teacherDbId));
+    }
+    
+    @Override
+    public List<CourseStatisticsVO> getCourseStatistics() {
+        return cache.get("courses", StatisticsCache.TAG_ALL, delegate::getCourseStatistics);
+    }
+    
+    @Override
+    public List<CourseStatisticsVO> getCourseStatisticsByTeacher(Long teacherDbId) {
+        return cache.get("courses:teacher:" + teacherDbId, StatisticsCache.teacherTag(teacherDbId),
+                () -> delegate.getCourseStatisticsByTeacher(teacherDbId));
+    }
+    
+    @Override
+    public List<ClassStatisticsVO> getClassStatistics() {
+        return cache.get("classes", StatisticsCache.TAG_ALL, delegate::getClassStatistics);
+    }
+    
+    @Override
+    public List<ClassStatisticsVO> getClassStatisticsByTeacher(Long teacherDbId) {
+        return cache.get("classes:teacher:" + teacherDbId, StatisticsCache.teacherTag(teacherDbId),
+                () -> delegate.getClassStatisticsByTeacher(teacherDbId));
+    }
+    
+    @Override
+    public CourseStatisticsVO getCourseStatisticsById(String courseId) {
+        return cache.get("course:" + courseId, StatisticsCache.courseTag(courseId),
+                () -> delegate.getCourseStatisticsById(courseId));
+    }
+    
+    @Override
+    public ClassStatisticsVO getClassStatisticsById(String classId) {
+        return cache.get("class:" + classId, StatisticsCache.classTag(classId),
+                () -> delegate.getClassStatisticsById(classId));
+    }
+    
+    @Override
+    public TeacherDashboardVO getTeacherDashboard(Long teacherDbId) {
+        return cache.get("dashboard:teacher:" + teacherDbId, StatisticsCache.teacherTag(teacherDbId),
+                () -> delegate.getTeacherDashboard(teacherDbId));
+    }
+    
+    @Override
+    public List<Integer> getScoreDistribution() {
+        return cache.get("distribution", StatisticsCache.TAG_ALL, delegate::getScoreDistribution);
+    }
+    
+    @Override
+    public List<Integer> getScoreDistributionByTeacher(Long teacherDbId) {
+        return cache.get("distribution:teacher:" + teacherDbId, StatisticsCache.teacherTag(teacherDbId),
+                () -> delegate.getScoreDistributionByTeacher(teacherDbId));
+    }
+    
+    @Override
+    public List<Integer> getClassScoreDistribution(String classId) {
+        return cache.get("distribution:class:" + classId, StatisticsCache.classTag(classId),
+                () -> delegate.getClassScoreDistribution(classId));
+    }
+    
+    @Override
+    public int rebuildAggregates() {
+        return delegate.rebuildAggregates();
+    }
+    
+    /**
+     * 条件组合多，且列式快照本身即为内存计算，不经缓存
+     */
+    @Override
+    public List<ScoreGroupStatisticsVO> getScoreAnalytics(String semester, Long courseDbId, Long teacherDbId,
+                                                          Long teachingClassDbId, List<String> groupBy) {
+        return delegate.getScoreAnalytics(semester, courseDbId, teacherDbId, teachingClassDbId, groupBy);
+    }
+}
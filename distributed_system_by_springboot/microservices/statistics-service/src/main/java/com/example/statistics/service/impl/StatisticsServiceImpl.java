@@ -3,21 +3,36 @@ package com.example.statistics.service.impl;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.example.common.entity.*;
 import com.example.common.vo.ClassStatisticsVO;
+import com.example.common.exception.BusinessException;
+import com.example.common.result.ResultCode;
 import com.example.common.vo.CourseStatisticsVO;
+import com.example.common.vo.ScoreGroupStatisticsVO;
+import com.example.common.util.ScoreQuantileSketch;
+import com.example.common.util.ScoreStats;
 import com.example.common.vo.StatisticsVO;
+import com.example.common.vo.TeacherDashboardVO;
+import com.example.statistics.aggregate.ScoreAggregate;
+import com.example.statistics.aggregate.ScoreAggregateStore;
+import com.example.statistics.aggregate.TeachingClassStat;
+import com.example.statistics.columnar.ScoreColumnStore;
 import com.example.statistics.mapper.*;
 import com.example.statistics.service.StatisticsService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.util.*;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
  * 统计服务实现类
+ * 成绩指标取自按教学班增量维护的成绩聚合，课程、教师与全局指标由教学班聚合合并得到，不再逐条读取成绩；
+ * 教学班、课程与选课人数由分组查询一次取回，各接口的查询次数与教学班数量无关。
+ * 课程与教学班列表的计算耗时记录为 statistics.compute（标签 endpoint），不含缓存命中
  */
 @Slf4j
 @Service
@@ -28,265 +43,95 @@ public class StatisticsServiceImpl implements StatisticsService {
     private final TeacherMapper teacherMapper;
     private final CourseMapper courseMapper;
     private final TeachingClassMapper teachingClassMapper;
-    private final ScoreMapper scoreMapper;
     private final EnrollmentMapper enrollmentMapper;
+    private final ScoreAggregateStore scoreAggregateStore;
+    private final ScoreColumnStore scoreColumnStore;
+    private final MeterRegistry meterRegistry;
     
     @Override
     public StatisticsVO getOverview() {
         StatisticsVO vo = new StatisticsVO();
         
         // 统计各实体数量
-        vo.setStudentCount(studentMapper.selectCount(null));
-        vo.setTeacherCount(teacherMapper.selectCount(null));
+        fillPersonCounts(vo);
         vo.setCourseCount(courseMapper.selectCount(null));
         vo.setTeachingClassCount(teachingClassMapper.selectCount(null));
         vo.setEnrollmentCount(enrollmentMapper.selectCount(null));
-        vo.setScoreCount(scoreMapper.selectCount(null));
-        
-        // 计算平均分
-        List<Score> scores = scoreMapper.selectList(null);
-        if (!scores.isEmpty()) {
-            List<BigDecimal> finalScores = scores.stream()
-                    .filter(s -> s.getFinalScore() != null)
-                    .map(Score::getFinalScore)
-                    .collect(Collectors.toList());
-            
-            if (!finalScores.isEmpty()) {
-                BigDecimal totalScore = finalScores.stream()
-                        .reduce(BigDecimal.ZERO, BigDecimal::add);
-                vo.setAverageScore(totalScore.divide(BigDecimal.valueOf(finalScores.size()), 2, RoundingMode.HALF_UP));
-                
-                // 计算及格率
-                long passCount = finalScores.stream()
-                        .filter(s -> s.compareTo(BigDecimal.valueOf(60)) >= 0)
-                        .count();
-                vo.setPassRate(BigDecimal.valueOf(passCount * 100.0 / finalScores.size())
-                        .setScale(2, RoundingMode.HALF_UP));
-                
-                // 计算优秀率
-                long excellentCount = finalScores.stream()
-                        .filter(s -> s.compareTo(BigDecimal.valueOf(90)) >= 0)
-                        .count();
-                vo.setExcellentRate(BigDecimal.valueOf(excellentCount * 100.0 / finalScores.size())
-                        .setScale(2, RoundingMode.HALF_UP));
-            } else {
-                vo.setAverageScore(BigDecimal.ZERO);
-                vo.setPassRate(BigDecimal.ZERO);
-                vo.setExcellentRate(BigDecimal.ZERO);
-            }
-        } else {
-            vo.setAverageScore(BigDecimal.ZERO);
-            vo.setPassRate(BigDecimal.ZERO);
-            vo.setExcellentRate(BigDecimal.ZERO);
-        }
         
+        fillOverviewScores(vo, scoreAggregateStore.ofAll());
         return vo;
     }
     
+    /**
+     * 学生、教师数量：两表不写实体变更日志，缓存无法失效，由 {@link CachingStatisticsService} 每次重新读取
+     */
+    void fillPersonCounts(StatisticsVO vo) {
+        vo.setStudentCount(studentMapper.selectCount(null));
+        vo.setTeacherCount(teacherMapper.selectCount(null));
+    }
+    
     @Override
     public StatisticsVO getOverviewByTeacher(Long teacherDbId) {
-        StatisticsVO vo = new StatisticsVO();
-        
-        // 查询该教师的所有教学班
-        LambdaQueryWrapper<TeachingClass> tcWrapper = new LambdaQueryWrapper<>();
-        tcWrapper.eq(TeachingClass::getTeacherDbId, teacherDbId);
-        List<TeachingClass> teacherClasses = teachingClassMapper.selectList(tcWrapper);
-        
+        // 查询该教师的所有教学班（含选课人数）
+        List<TeachingClassStat> teacherClasses = teachingClassMapper.selectClassStats(teacherDbId, null, null);
         if (teacherClasses.isEmpty()) {
-            vo.setStudentCount(0L);
-            vo.setTeacherCount(1L);
-            vo.setCourseCount(0L);
-            vo.setTeachingClassCount(0L);
-            vo.setEnrollmentCount(0L);
-            vo.setScoreCount(0L);
-            vo.setAverageScore(BigDecimal.ZERO);
-            vo.setPassRate(BigDecimal.ZERO);
-            vo.setExcellentRate(BigDecimal.ZERO);
-            return vo;
-        }
-        
-        List<Long> classDbIds = teacherClasses.stream().map(TeachingClass::getId).toList();
-        
-        // 统计该教师的教学班数
-        vo.setTeachingClassCount((long) teacherClasses.size());
-        
-        // 统计相关课程数（去重）
-        Set<Long> courseDbIds = teacherClasses.stream().map(TeachingClass::getCourseDbId).collect(Collectors.toSet());
-        vo.setCourseCount((long) courseDbIds.size());
-        
-        // 统计选课人数
-        LambdaQueryWrapper<Enrollment> enrollmentWrapper = new LambdaQueryWrapper<>();
-        enrollmentWrapper.in(Enrollment::getTeachingClassDbId, classDbIds);
-        long enrollmentCount = enrollmentMapper.selectCount(enrollmentWrapper);
-        vo.setEnrollmentCount(enrollmentCount);
-        
-        // 统计学生人数（去重）
-        List<Enrollment> enrollments = enrollmentMapper.selectList(enrollmentWrapper);
-        Set<Long> studentDbIds = enrollments.stream().map(Enrollment::getStudentDbId).collect(Collectors.toSet());
-        vo.setStudentCount((long) studentDbIds.size());
-        
-        vo.setTeacherCount(1L);
-        
-        // 统计成绩
-        LambdaQueryWrapper<Score> scoreWrapper = new LambdaQueryWrapper<>();
-        scoreWrapper.in(Score::getTeachingClassDbId, classDbIds);
-        List<Score> scores = scoreMapper.selectList(scoreWrapper);
-        vo.setScoreCount((long) scores.size());
-        
-        if (!scores.isEmpty()) {
-            List<BigDecimal> finalScores = scores.stream()
-                    .filter(s -> s.getFinalScore() != null)
-                    .map(Score::getFinalScore)
-                    .collect(Collectors.toList());
-            
-            if (!finalScores.isEmpty()) {
-                BigDecimal totalScore = finalScores.stream()
-                        .reduce(BigDecimal.ZERO, BigDecimal::add);
-                vo.setAverageScore(totalScore.divide(BigDecimal.valueOf(finalScores.size()), 2, RoundingMode.HALF_UP));
-                
-                long passCount = finalScores.stream()
-                        .filter(s -> s.compareTo(BigDecimal.valueOf(60)) >= 0)
-                        .count();
-                vo.setPassRate(BigDecimal.valueOf(passCount * 100.0 / finalScores.size())
-                        .setScale(2, RoundingMode.HALF_UP));
-                
-                long excellentCount = finalScores.stream()
-                        .filter(s -> s.compareTo(BigDecimal.valueOf(90)) >= 0)
-                        .count();
-                vo.setExcellentRate(BigDecimal.valueOf(excellentCount * 100.0 / finalScores.size())
-                        .setScale(2, RoundingMode.HALF_UP));
-            } else {
-                vo.setAverageScore(BigDecimal.ZERO);
-                vo.setPassRate(BigDecimal.ZERO);
-                vo.setExcellentRate(BigDecimal.ZERO);
-            }
-        } else {
-            vo.setAverageScore(BigDecimal.ZERO);
-            vo.setPassRate(BigDecimal.ZERO);
-            vo.setExcellentRate(BigDecimal.ZERO);
+            return buildTeacherOverview(teacherClasses, 0L, new ScoreAggregate());
         }
         
-        return vo;
+        List<Long> classDbIds = teacherClasses.stream().map(TeachingClassStat::getId).toList();
+        return buildTeacherOverview(teacherClasses, teachingClassMapper.countDistinctStudentsByTeacher(teacherDbId),
+                scoreAggregateStore.ofClasses(classDbIds));
     }
     
     @Override
     public List<CourseStatisticsVO> getCourseStatistics() {
-        List<Course> courses = courseMapper.selectList(null);
-        List<CourseStatisticsVO> result = new ArrayList<>();
-        
-        for (Course course : courses) {
-            CourseStatisticsVO vo = getCourseStatisticsById(course.getCourseId());
-            if (vo != null) {
-                result.add(vo);
+        return timed("courses", () -> {
+            List<Course> courses = courseMapper.selectList(null);
+            Map<Long, List<TeachingClassStat>> classesByCourse = teachingClassMapper.selectClassStats(null, null, null).stream()
+                    .collect(Collectors.groupingBy(TeachingClassStat::getCourseDbId));
+            
+            List<CourseStatisticsVO> result = new ArrayList<>(courses.size());
+            for (Course course : courses) {
+                result.add(buildCourseStatistics(course.getCourseId(), course.getCourseName(),
+                        classesByCourse.getOrDefault(course.getId(), List.of())));
             }
-        }
-        
-        return result;
+            return result;
+        });
     }
     
     @Override
     public List<CourseStatisticsVO> getCourseStatisticsByTeacher(Long teacherDbId) {
-        // 查询该教师的所有教学班
-        LambdaQueryWrapper<TeachingClass> tcWrapper = new LambdaQueryWrapper<>();
-        tcWrapper.eq(TeachingClass::getTeacherDbId, teacherDbId);
-        List<TeachingClass> teacherClasses = teachingClassMapper.selectList(tcWrapper);
-        
-        if (teacherClasses.isEmpty()) {
-            return new ArrayList<>();
-        }
-        
-        // 获取该教师教的所有课程（去重）
-        Set<Long> courseDbIds = teacherClasses.stream().map(TeachingClass::getCourseDbId).collect(Collectors.toSet());
-        
-        List<CourseStatisticsVO> result = new ArrayList<>();
-        for (Long courseDbId : courseDbIds) {
-            Course course = courseMapper.selectById(courseDbId);
-            if (course == null) continue;
-            
-            CourseStatisticsVO vo = new CourseStatisticsVO();
-            vo.setCourseId(course.getCourseId());
-            vo.setCourseName(course.getCourseName());
-            
-            // 只统计该教师在该课程的教学班
-            List<TeachingClass> courseTeacherClasses = teacherClasses.stream()
-                    .filter(tc -> tc.getCourseDbId().equals(courseDbId))
-                    .toList();
-            
-            long totalEnrollment = 0;
-            List<BigDecimal> allScores = new ArrayList<>();
-            
-            for (TeachingClass tc : courseTeacherClasses) {
-                LambdaQueryWrapper<Enrollment> enrollmentWrapper = new LambdaQueryWrapper<>();
-                enrollmentWrapper.eq(Enrollment::getTeachingClassDbId, tc.getId());
-                totalEnrollment += enrollmentMapper.selectCount(enrollmentWrapper);
-                
-                LambdaQueryWrapper<Score> scoreWrapper = new LambdaQueryWrapper<>();
-                scoreWrapper.eq(Score::getTeachingClassDbId, tc.getId());
-                List<Score> scores = scoreMapper.selectList(scoreWrapper);
-                for (Score score : scores) {
-                    if (score.getFinalScore() != null) {
-                        allScores.add(score.getFinalScore());
-                    }
-                }
-            }
-            
-            vo.setStudentCount(totalEnrollment);
-            
-            if (!allScores.isEmpty()) {
-                BigDecimal sum = allScores.stream().reduce(BigDecimal.ZERO, BigDecimal::add);
-                BigDecimal max = allScores.stream().max(BigDecimal::compareTo).orElse(BigDecimal.ZERO);
-                BigDecimal min = allScores.stream().min(BigDecimal::compareTo).orElse(BigDecimal.ZERO);
-                long passCount = allScores.stream().filter(s -> s.compareTo(BigDecimal.valueOf(60)) >= 0).count();
-                long excellentCount = allScores.stream().filter(s -> s.compareTo(BigDecimal.valueOf(90)) >= 0).count();
-                
-                vo.setAverageScore(sum.divide(BigDecimal.valueOf(allScores.size()), 2, RoundingMode.HALF_UP));
-                vo.setMaxScore(max);
-                vo.setMinScore(min);
-                vo.setPassCount(passCount);
-                vo.setPassRate(BigDecimal.valueOf(passCount * 100.0 / allScores.size())
-                        .setScale(2, RoundingMode.HALF_UP));
-                vo.setExcellentCount(excellentCount);
-                vo.setExcellentRate(BigDecimal.valueOf(excellentCount * 100.0 / allScores.size())
-                        .setScale(2, RoundingMode.HALF_UP));
-            }
-            
-            result.add(vo);
+        // 查询该教师的所有教学班，按课程分组，只统计该教师在该课程的教学班
+        Map<Long, List<TeachingClassStat>> classesByCourse = teachingClassMapper.selectClassStats(teacherDbId, null, null).stream()
+                .filter(tc -> tc.getCourseId() != null)
+                .collect(Collectors.groupingBy(TeachingClassStat::getCourseDbId, LinkedHashMap::new, Collectors.toList()));
+        
+        List<CourseStatisticsVO> result = new ArrayList<>(classesByCourse.size());
+        for (List<TeachingClassStat> courseClasses : classesByCourse.values()) {
+            TeachingClassStat first = courseClasses.get(0);
+            result.add(buildCourseStatistics(first.getCourseId(), first.getCourseName(), courseClasses));
         }
-        
         return result;
     }
     
     @Override
     public List<ClassStatisticsVO> getClassStatistics() {
-        List<TeachingClass> teachingClasses = teachingClassMapper.selectList(null);
-        List<ClassStatisticsVO> result = new ArrayList<>();
-        
-        for (TeachingClass tc : teachingClasses) {
-            ClassStatisticsVO vo = getClassStatisticsById(tc.getClassId());
-            if (vo != null) {
-                result.add(vo);
-            }
-        }
-        
-        return result;
+        return timed("classes", () -> buildClassStatistics(teachingClassMapper.selectClassStats(null, null, null)));
     }
     
     @Override
     public List<ClassStatisticsVO> getClassStatisticsByTeacher(Long teacherDbId) {
-        // 查询该教师的所有教学班
-        LambdaQueryWrapper<TeachingClass> tcWrapper = new LambdaQueryWrapper<>();
-        tcWrapper.eq(TeachingClass::getTeacherDbId, teacherDbId);
-        List<TeachingClass> teacherClasses = teachingClassMapper.selectList(tcWrapper);
-        
-        List<ClassStatisticsVO> result = new ArrayList<>();
-        for (TeachingClass tc : teacherClasses) {
-            ClassStatisticsVO vo = getClassStatisticsById(tc.getClassId());
-            if (vo != null) {
-                result.add(vo);
-            }
-        }
-        
-        return result;
+        return timed("classes.teacher",
+                () -> buildClassStatistics(teachingClassMapper.selectClassStats(teacherDbId, null, null)));
+    }
+    
+    /**
+     * 记录统计接口的计算耗时
+     */
+    private <T> T timed(String endpoint, Supplier<T> computation) {
+        return Timer.builder("statistics.compute").tag("endpoint", endpoint)
+                .description("统计接口计算耗时").register(meterRegistry)
+                .record(computation);
     }
     
     @Override
@@ -298,131 +143,71 @@ public class StatisticsServiceImpl implements StatisticsService {
             return null;
         }
         
-        CourseStatisticsVO vo = new CourseStatisticsVO();
-        vo.setCourseId(course.getCourseId());
-        vo.setCourseName(course.getCourseName());
-        
-        // 查询该课程的所有教学班(需要先查询courseDbId)
-        LambdaQueryWrapper<TeachingClass> tcWrapper = new LambdaQueryWrapper<>();
-        tcWrapper.eq(TeachingClass::getCourseDbId, course.getId());
-        List<TeachingClass> teachingClasses = teachingClassMapper.selectList(tcWrapper);
-        
-        // 统计选课人数和成绩
-        long totalEnrollment = 0;
-        List<BigDecimal> allScores = new ArrayList<>();
-        
-        for (TeachingClass tc : teachingClasses) {
-            LambdaQueryWrapper<Enrollment> enrollmentWrapper = new LambdaQueryWrapper<>();
-            enrollmentWrapper.eq(Enrollment::getTeachingClassDbId, tc.getId());
-            totalEnrollment += enrollmentMapper.selectCount(enrollmentWrapper);
-            
-            LambdaQueryWrapper<Score> scoreWrapper = new LambdaQueryWrapper<>();
-            scoreWrapper.eq(Score::getTeachingClassDbId, tc.getId());
-            List<Score> scores = scoreMapper.selectList(scoreWrapper);
-            for (Score score : scores) {
-                if (score.getFinalScore() != null) {
-                    allScores.add(score.getFinalScore());
-                }
-            }
-        }
-        
-        vo.setStudentCount(totalEnrollment);
-        
-        if (!allScores.isEmpty()) {
-            BigDecimal sum = allScores.stream().reduce(BigDecimal.ZERO, BigDecimal::add);
-            BigDecimal max = allScores.stream().max(BigDecimal::compareTo).orElse(BigDecimal.ZERO);
-            BigDecimal min = allScores.stream().min(BigDecimal::compareTo).orElse(BigDecimal.ZERO);
-            long passCount = allScores.stream().filter(s -> s.compareTo(BigDecimal.valueOf(60)) >= 0).count();
-            long excellentCount = allScores.stream().filter(s -> s.compareTo(BigDecimal.valueOf(90)) >= 0).count();
-            
-            vo.setAverageScore(sum.divide(BigDecimal.valueOf(allScores.size()), 2, RoundingMode.HALF_UP));
-            vo.setMaxScore(max);
-            vo.setMinScore(min);
-            vo.setPassCount(passCount);
-            vo.setPassRate(BigDecimal.valueOf(passCount * 100.0 / allScores.size())
-                    .setScale(2, RoundingMode.HALF_UP));
-            vo.setExcellentCount(excellentCount);
-            vo.setExcellentRate(BigDecimal.valueOf(excellentCount * 100.0 / allScores.size())
-                    .setScale(2, RoundingMode.HALF_UP));
-        }
-        
-        return vo;
+        // 查询该课程的所有教学班
+        return buildCourseStatistics(course.getCourseId(), course.getCourseName(),
+                teachingClassMapper.selectClassStats(null, course.getId(), null));
     }
     
     @Override
     public ClassStatisticsVO getClassStatisticsById(String classId) {
-        LambdaQueryWrapper<TeachingClass> tcWrapper = new LambdaQueryWrapper<>();
-        tcWrapper.eq(TeachingClass::getClassId, classId);
-        TeachingClass teachingClass = teachingClassMapper.selectOne(tcWrapper);
-        if (teachingClass == null) {
-            return null;
-        }
-        
-        ClassStatisticsVO vo = new ClassStatisticsVO();
-        vo.setClassName(classId); // ClassStatisticsVO有className字段
-        
-        // 查询课程信息
-        Course course = courseMapper.selectById(teachingClass.getCourseDbId());
-        if (course != null) {
-            vo.setClassName(course.getCourseName() + " - " + classId);
+        List<TeachingClassStat> classes = teachingClassMapper.selectClassStats(null, null, classId);
+        return classes.isEmpty() ? null : buildClassStatistics(classes.get(0));
+    }
+    
+    @Override
+    public TeacherDashboardVO getTeacherDashboard(Long teacherDbId) {
+        // 教学班（含选课人数）与去重学生数各查询一次，各教学班聚合在同一次读锁内取出
+        List<TeachingClassStat> teacherClasses = teachingClassMapper.selectClassStats(teacherDbId, null, null);
+        long studentCount = teacherClasses.isEmpty() ? 0L : teachingClassMapper.countDistinctStudentsByTeacher(teacherDbId);
+        Map<Long, ScoreAggregate> aggregates = scoreAggregateStore.ofEachClass(
+                teacherClasses.stream().map(TeachingClassStat::getId).toList());
+        
+        // 单遍：生成教学班统计，同时合并出课程与教师合计
+        ScoreAggregate total = new ScoreAggregate();
+        List<ClassStatisticsVO> classes = new ArrayList<>(teacherClasses.size());
+        Map<Long, List<TeachingClassStat>> classesByCourse = new LinkedHashMap<>();
+        Map<Long, ScoreAggregate> aggregatesByCourse = new HashMap<>();
+        for (TeachingClassStat teachingClass : teacherClasses) {
+            ScoreAggregate aggregate = aggregates.get(teachingClass.getId());
+            classes.add(buildClassStatistics(teachingClass, aggregate));
+            total.merge(aggregate);
+            if (teachingClass.getCourseId() != null) {
+                classesByCourse.computeIfAbsent(teachingClass.getCourseDbId(), k -> new ArrayList<>()).add(teachingClass);
+                aggregatesByCourse.computeIfAbsent(teachingClass.getCourseDbId(), k -> new ScoreAggregate()).merge(aggregate);
+            }
         }
         
-        // 统计选课人数
-        LambdaQueryWrapper<Enrollment> enrollmentWrapper = new LambdaQueryWrapper<>();
-        enrollmentWrapper.eq(Enrollment::getTeachingClassDbId, teachingClass.getId());
-        vo.setStudentCount(enrollmentMapper.selectCount(enrollmentWrapper));
-        
-        // 统计成绩
-        LambdaQueryWrapper<Score> scoreWrapper = new LambdaQueryWrapper<>();
-        scoreWrapper.eq(Score::getTeachingClassDbId, teachingClass.getId());
-        List<Score> scores = scoreMapper.selectList(scoreWrapper);
-        
-        List<BigDecimal> scoreValues = scores.stream()
-                .filter(s -> s.getFinalScore() != null)
-                .map(Score::getFinalScore)
-                .collect(Collectors.toList());
-        
-        if (!scoreValues.isEmpty()) {
-            BigDecimal sum = scoreValues.stream().reduce(BigDecimal.ZERO, BigDecimal::add);
-            BigDecimal max = scoreValues.stream().max(BigDecimal::compareTo).orElse(BigDecimal.ZERO);
-            BigDecimal min = scoreValues.stream().min(BigDecimal::compareTo).orElse(BigDecimal.ZERO);
-            long passCount = scoreValues.stream().filter(s -> s.compareTo(BigDecimal.valueOf(60)) >= 0).count();
-            long excellentCount = scoreValues.stream().filter(s -> s.compareTo(BigDecimal.valueOf(90)) >= 0).count();
-            
-            vo.setAverageScore(sum.divide(BigDecimal.valueOf(scoreValues.size()), 2, RoundingMode.HALF_UP));
-            vo.setMaxScore(max);
-            vo.setMinScore(min);
-            vo.setPassRate(BigDecimal.valueOf(passCount * 100.0 / scoreValues.size())
-                    .setScale(2, RoundingMode.HALF_UP));
-            vo.setExcellentRate(BigDecimal.valueOf(excellentCount * 100.0 / scoreValues.size())
-                    .setScale(2, RoundingMode.HALF_UP));
+        List<CourseStatisticsVO> courses = new ArrayList<>(classesByCourse.size());
+        for (Map.Entry<Long, List<TeachingClassStat>> entry : classesByCourse.entrySet()) {
+            TeachingClassStat first = entry.getValue().get(0);
+            courses.add(buildCourseStatistics(first.getCourseId(), first.getCourseName(), entry.getValue(),
+                    aggregatesByCourse.get(entry.getKey())));
         }
         
+        TeacherDashboardVO vo = new TeacherDashboardVO();
+        vo.setOverview(buildTeacherOverview(teacherClasses, studentCount, total));
+        vo.setCourses(courses);
+        vo.setClasses(classes);
+        vo.setDistribution(total.stats().distribution());
         return vo;
     }
     
     @Override
     public List<Integer> getScoreDistribution() {
-        List<Score> scores = scoreMapper.selectList(null);
-        return calculateDistribution(scores);
+        return scoreAggregateStore.ofAll().stats().distribution();
     }
     
     @Override
     public List<Integer> getScoreDistributionByTeacher(Long teacherDbId) {
         // 查询该教师的所有教学班
-        LambdaQueryWrapper<TeachingClass> tcWrapper = new LambdaQueryWrapper<>();
-        tcWrapper.eq(TeachingClass::getTeacherDbId, teacherDbId);
-        List<TeachingClass> teacherClasses = teachingClassMapper.selectList(tcWrapper);
+        List<TeachingClass> teacherClasses = selectTeacherClasses(teacherDbId);
         
         if (teacherClasses.isEmpty()) {
             return List.of(0, 0, 0, 0, 0);
         }
         
         List<Long> classDbIds = teacherClasses.stream().map(TeachingClass::getId).toList();
-        LambdaQueryWrapper<Score> scoreWrapper = new LambdaQueryWrapper<>();
-        scoreWrapper.in(Score::getTeachingClassDbId, classDbIds);
-        List<Score> scores = scoreMapper.selectList(scoreWrapper);
-        return calculateDistribution(scores);
+        return scoreAggregateStore.ofClasses(classDbIds).stats().distribution();
     }
     
     @Override
@@ -434,28 +219,167 @@ public class StatisticsServiceImpl implements StatisticsService {
         if (tc == null) {
             return List.of(0, 0, 0, 0, 0);
         }
-        
-        LambdaQueryWrapper<Score> wrapper = new LambdaQueryWrapper<>();
-        wrapper.eq(Score::getTeachingClassDbId, tc.getId());
-        List<Score> scores = scoreMapper.selectList(wrapper);
-        return calculateDistribution(scores);
+        return scoreAggregateStore.ofClass(tc.getId()).stats().distribution();
     }
     
-    private List<Integer> calculateDistribution(List<Score> scores) {
-        // 分数段: <60, 60-69, 70-79, 80-89, 90-100
-        int[] distribution = new int[5];
-        
-        for (Score score : scores) {
-            if (score.getFinalScore() != null) {
-                double s = score.getFinalScore().doubleValue();
-                if (s < 60) distribution[0]++;
-                else if (s < 70) distribution[1]++;
-                else if (s < 80) distribution[2]++;
-                else if (s < 90) distribution[3]++;
-                else distribution[4]++;
+    @Override
+    public int rebuildAggregates() {
+        return scoreAggregateStore.rebuild();
+    }
+    
+    @Override
+    public List<ScoreGroupStatisticsVO> getScoreAnalytics(String semester, Long courseDbId, Long teacherDbId,
+                                                          Long teachingClassDbId, List<String> groupBy) {
+        Set<ScoreColumnStore.Dimension> dimensions = EnumSet.noneOf(ScoreColumnStore.Dimension.class);
+        if (groupBy != null) {
+            for (String dimension : groupBy) {
+                try {
+                    dimensions.add(ScoreColumnStore.Dimension.valueOf(dimension.trim().toUpperCase(Locale.ROOT)));
+                } catch (IllegalArgumentException e) {
+                    throw new BusinessException(ResultCode.PARAM_ERROR, "不支持的分组维度: " + dimension);
+                }
             }
         }
-        
-        return Arrays.stream(distribution).boxed().collect(Collectors.toList());
+        List<ScoreColumnStore.Group> groups = scoreColumnStore.query(
+                new ScoreColumnStore.Filter(semester, courseDbId, teacherDbId, teachingClassDbId), dimensions);
+        return groups.stream()
+                .map(this::buildGroupStatistics)
+                .sorted(Comparator.comparing(ScoreGroupStatisticsVO::getSemester, Comparator.nullsFirst(Comparator.<String>naturalOrder()))
+                        .thenComparing(ScoreGroupStatisticsVO::getCourseDbId, Comparator.nullsFirst(Comparator.<Long>naturalOrder()))
+                        .thenComparing(ScoreGroupStatisticsVO::getTeacherDbId, Comparator.nullsFirst(Comparator.<Long>naturalOrder())))
+                .toList();
+    }
+    
+    private List<TeachingClass> selectTeacherClasses(Long teacherDbId) {
+        LambdaQueryWrapper<TeachingClass> tcWrapper = new LambdaQueryWrapper<>();
+        tcWrapper.eq(TeachingClass::getTeacherDbId, teacherDbId);
+        return teachingClassMapper.selectList(tcWrapper);
+    }
+    
+    private ScoreGroupStatisticsVO buildGroupStatistics(ScoreColumnStore.Group group) {
+        ScoreStats stats = group.stats();
+        ScoreGroupStatisticsVO vo = new ScoreGroupStatisticsVO();
+        vo.setSemester(group.semester());
+        vo.setCourseDbId(group.courseDbId());
+        vo.setTeacherDbId(group.teacherDbId());
+        vo.setScoreCount(stats.getCount());
+        vo.setAverageScore(stats.averageScore());
+        vo.setMaxScore(stats.maxScore());
+        vo.setMinScore(stats.minScore());
+        vo.setStandardDeviation(stats.standardDeviation());
+        vo.setPassRate(stats.passRate());
+        vo.setExcellentRate(stats.excellentRate());
+        vo.setDistribution(stats.distribution());
+        return vo;
+    }
+    
+    private long sumEnrollment(List<TeachingClassStat> teachingClasses) {
+        return teachingClasses.stream().mapToLong(TeachingClassStat::getEnrollmentCount).sum();
+    }
+    
+    /**
+     * 按课程的若干教学班汇总课程统计
+     */
+    private CourseStatisticsVO buildCourseStatistics(String courseId, String courseName, List<TeachingClassStat> teachingClasses) {
+        return buildCourseStatistics(courseId, courseName, teachingClasses,
+                scoreAggregateStore.ofClasses(teachingClasses.stream().map(TeachingClassStat::getId).toList()));
+    }
+    
+    /**
+     * 由已合并的课程聚合生成课程统计
+     */
+    private CourseStatisticsVO buildCourseStatistics(String courseId, String courseName, List<TeachingClassStat> teachingClasses,
+                                                     ScoreAggregate aggregate) {
+        CourseStatisticsVO vo = new CourseStatisticsVO();
+        vo.setCourseId(courseId);
+        vo.setCourseName(courseName);
+        vo.setStudentCount(sumEnrollment(teachingClasses));
+        
+        ScoreStats stats = aggregate.stats();
+        if (stats.getCount() > 0) {
+            ScoreQuantileSketch sketch = aggregate.sketch();
+            vo.setLowerQuartile(sketch.quantile(0.25));
+            vo.setMedian(sketch.quantile(0.5));
+            vo.setUpperQuartile(sketch.quantile(0.75));
+            vo.setP90(sketch.quantile(0.9));
+            vo.setAverageScore(stats.averageScore());
+            vo.setMaxScore(stats.maxScore());
+            vo.setMinScore(stats.minScore());
+            vo.setPassCount(stats.getPassCount());
+            vo.setPassRate(stats.passRate());
+            vo.setExcellentCount(stats.getExcellentCount());
+            vo.setExcellentRate(stats.excellentRate());
+            vo.setStandardDeviation(stats.standardDeviation());
+        }
+        return vo;
+    }
+    
+    private List<ClassStatisticsVO> buildClassStatistics(List<TeachingClassStat> teachingClasses) {
+        List<ClassStatisticsVO> result = new ArrayList<>(teachingClasses.size());
+        for (TeachingClassStat teachingClass : teachingClasses) {
+            result.add(buildClassStatistics(teachingClass));
+        }
+        return result;
+    }
+    
+    private ClassStatisticsVO buildClassStatistics(TeachingClassStat teachingClass) {
+        return buildClassStatistics(teachingClass, scoreAggregateStore.ofClass(teachingClass.getId()));
+    }
+    
+    private ClassStatisticsVO buildClassStatistics(TeachingClassStat teachingClass, ScoreAggregate aggregate) {
+        ClassStatisticsVO vo = new ClassStatisticsVO();
+        vo.setClassName(teachingClass.getCourseName() != null
+                ? teachingClass.getCourseName() + " - " + teachingClass.getClassId()
+                : teachingClass.getClassId());
+        vo.setStudentCount(teachingClass.getEnrollmentCount());
+        
+        ScoreStats stats = aggregate.stats();
+        if (stats.getCount() > 0) {
+            ScoreQuantileSketch sketch = aggregate.sketch();
+            vo.setLowerQuartile(sketch.quantile(0.25));
+            vo.setMedian(sketch.quantile(0.5));
+            vo.setUpperQuartile(sketch.quantile(0.75));
+            vo.setP90(sketch.quantile(0.9));
+            vo.setAverageScore(stats.averageScore());
+            vo.setMaxScore(stats.maxScore());
+            vo.setMinScore(stats.minScore());
+            vo.setPassRate(stats.passRate());
+            vo.setExcellentRate(stats.excellentRate());
+            vo.setStandardDeviation(stats.standardDeviation());
+        }
+        return vo;
+    }
+    
+    /**
+     * 教师概览：教学班数、课程数（去重）、选课人数由教学班列表得出
+     */
+    private StatisticsVO buildTeacherOverview(List<TeachingClassStat> teacherClasses, long studentCount, ScoreAggregate aggregate) {
+        StatisticsVO vo = new StatisticsVO();
+        vo.setTeacherCount(1L);
+        vo.setStudentCount(studentCount);
+        vo.setTeachingClassCount((long) teacherClasses.size());
+        vo.setCourseCount(teacherClasses.stream().map(TeachingClassStat::getCourseDbId).distinct().count());
+        vo.setEnrollmentCount(sumEnrollment(teacherClasses));
+        fillOverviewScores(vo, aggregate);
+        return vo;
+    }
+    
+    /**
+     * 概览中的成绩指标，没有成绩时平均分与比率为0
+     */
+    private void fillOverviewScores(StatisticsVO vo, ScoreAggregate aggregate) {
+        vo.setScoreCount(aggregate.getRowCount());
+        ScoreStats stats = aggregate.stats();
+        if (stats.getCount() > 0) {
+            vo.setAverageScore(stats.averageScore());
+            vo.setMaxScore(stats.maxScore());
+            vo.setMinScore(stats.minScore());
+            vo.setPassRate(stats.passRate());
+            vo.setExcellentRate(stats.excellentRate());
+        } else {
+            vo.setAverageScore(BigDecimal.ZERO);
+            vo.setPassRate(BigDecimal.ZERO);
+            vo.setExcellentRate(BigDecimal.ZERO);
+        }
     }
 }
@@ -0,0 +1,342 @@
+package com.example.statistics.stream;
+
+import com.example.common.exception.BusinessException;
+import com.example.common.result.ResultCode;
+import com.example.common.util.ScoreStats;
+import com.example.common.vo.ClassScoreDeltaVO;
+import com.example.common.vo.StatisticsDeltaVO;
+import com.example.common.vo.StatisticsVO;
+import com.example.statistics.aggregate.ScoreAggregate;
+import com.example.statistics.aggregate.ScoreAggregateChangedEvent;
+import com.example.statistics.aggregate.ScoreAggregateStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 统计增量推送
+ * 每次成绩聚合更新只计算一次变化（概览成绩指标与变化教学班的人数、平均分、比率、分布），再放入每个订阅者的待发送缓冲；
+ * 缓冲按教学班合并，只保留最新值，条目超过上限时丢弃明细并改为通知客户端重新拉取。
+ * 推送线程按固定间隔取出各订阅者的缓冲，交给发送线程池逐个订阅者异步写出，每个订阅者同时至多一次发送、每个间隔至多一次；
+ * 发送线程数上限等于订阅数上限，慢客户端不会占住其他订阅者的发送；一次发送超过 send-timeout-seconds 仍未完成时断开该订阅。
+ * 长时间无变化时发送心跳注释保持连接。订阅名额在加入前以计数器原子占用，断开时释放一次。
+ * 指标：statistics.stream.subscribers 当前订阅数，statistics.stream.events 发送次数，statistics.stream.overflows 缓冲溢出次数，
+ * statistics.stream.dropped 因发送超时断开的订阅数。
+ */
+@Slf4j
+@Component
+public class StatisticsStreamHub {
+
+    private static final String EVENT_NAME = "statistics";
+
+    private final ScoreAggregateStore scoreAggregateStore;
+
+    private final int bufferSize;
+    private final int maxSubscribers;
+    private final long timeoutMillis;
+    private final long heartbeatMillis;
+    private final long sendTimeoutMillis;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 已占用的订阅名额
+     */
+    private final AtomicInteger slots = new AtomicInteger();
+
+    private final ScheduledExecutorService pusher;
+
+    private final ThreadPoolExecutor sender;
+
+    private final Counter events;
+    private final Counter overflows;
+    private final Counter dropped;
+
+    public StatisticsStreamHub(ScoreAggregateStore scoreAggregateStore, MeterRegistry meterRegistry,
+                               @Value("${statistics.stream.interval-ms:1000}") long intervalMillis,
+                               @Value("${statistics.stream.buffer-size:256}") int bufferSize,
+                               @Value("${statistics.stream.max-subscribers:256}") int maxSubscribers,
+                               @Value("${statistics.stream.timeout-minutes:30}") long timeoutMinutes,
+                               @Value("${statistics.stream.heartbeat-seconds:15}") long heartbeatSeconds,
+                               @Value("${statistics.stream.send-timeout-seconds:10}") long sendTimeoutSeconds) {
+        this.scoreAggregateStore = scoreAggregateStore;
+        this.bufferSize = Math.max(1, bufferSize);
+        this.maxSubscribers = Math.max(1, maxSubscribers);
+        this.timeoutMillis = TimeUnit.MINUTES.toMillis(timeoutMinutes);
+        this.heartbeatMillis = TimeUnit.SECONDS.toMillis(heartbeatSeconds);
+        this.sendTimeoutMillis = TimeUnit.SECONDS.toMillis(Math.max(1, sendTimeoutSeconds));
+        this.events = Counter.builder("statistics.stream.events").description("统计推送发送次数").register(meterRegistry);
+        this.overflows = Counter.builder("statistics.stream.overflows").description("统计推送缓冲溢出次数").register(meterRegistry);
+        this.dropped = Counter.builder("statistics.stream.dropped").description("统计推送发送超时断开次数").register(meterRegistry);
+        Gauge.builder("statistics.stream.subscribers", slots, AtomicInteger::get)
+                .description("统计推送订阅数").register(meterRegistry);
+        this.pusher = Executors.newSingleThreadScheduledExecutor(daemon("statistics-stream"));
+        // 每个订阅者同时至多一个发送任务，线程数不小于订阅数时发送任务不会排在阻塞的发送之后；空闲线程回收
+        this.sender = new ThreadPoolExecutor(this.maxSubscribers, this.maxSubscribers, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), daemon("statistics-stream-send"));
+        this.sender.allowCoreThreadTimeOut(true);
+        long interval = Math.max(100, intervalMillis);
+        this.pusher.scheduleWithFixedDelay(this::flush, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 新建订阅，首个事件为当前概览成绩指标
+     */
+    public SseEmitter subscribe() {
+        int taken;
+        do {
+            taken = slots.get();
+            if (taken >= maxSubscribers) {
+                throw new BusinessException(ResultCode.SERVICE_UNAVAILABLE, "统计推送订阅数已达上限");
+            }
+        } while (!slots.compareAndSet(taken, taken + 1));
+        // emitter 未返回时其回调不会触发，失败时在此移除订阅并归还名额
+        Subscriber subscriber = null;
+        try {
+            SseEmitter emitter = new SseEmitter(timeoutMillis);
+            Subscriber created = new Subscriber(emitter);
+            subscriber = created;
+            emitter.onCompletion(() -> remove(created));
+            emitter.onTimeout(() -> remove(created));
+            emitter.onError(e -> remove(created));
+            subscribers.add(created);
+
+            created.offer(overviewScores(scoreAggregateStore.ofAll()), List.of(), false, bufferSize);
+            return emitter;
+        } catch (RuntimeException e) {
+            if (subscriber != null) {
+                remove(subscriber);
+            } else {
+                slots.decrementAndGet();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 成绩聚合更新：计算一次变化，分发到各订阅者缓冲
+     */
+    @EventListener
+    public void onScoreAggregateChanged(ScoreAggregateChangedEvent event) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        try {
+            StatisticsVO overview = overviewScores(scoreAggregateStore.ofAll());
+            List<ClassScoreDeltaVO> classes = List.of();
+            boolean reset = event.teachingClassDbIds() == null;
+            if (!reset) {
+                Map<Long, ScoreAggregate> aggregates = scoreAggregateStore.ofEachClass(event.teachingClassDbIds());
+                classes = new ArrayList<>(aggregates.size());
+                for (Map.Entry<Long, ScoreAggregate> entry : aggregates.entrySet()) {
+                    classes.add(classDelta(entry.getKey(), entry.getValue().stats()));
+                }
+            }
+            for (Subscriber subscriber : subscribers) {
+                if (subscriber.offer(overview, classes, reset, bufferSize)) {
+                    overflows.increment();
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("计算统计推送增量失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 取出各订阅者缓冲中的变化交给发送线程；上一次发送未完成的订阅者本轮跳过，超时的断开
+     */
+    private void flush() {
+        long now = System.currentTimeMillis();
+        for (Subscriber subscriber : subscribers) {
+            long sendingSince = subscriber.sendingSince;
+            if (sendingSince != 0) {
+                if (now - sendingSince > sendTimeoutMillis) {
+                    log.info("统计推送发送超时，断开订阅: {}ms", now - sendingSince);
+                    dropped.increment();
+                    drop(subscriber);
+                }
+                continue;
+            }
+            StatisticsDeltaVO delta = subscriber.drain();
+            if (delta == null && now - subscriber.lastSent < heartbeatMillis) {
+                continue;
+            }
+            subscriber.sendingSince = now;
+            try {
+                sender.execute(() -> send(subscriber, delta));
+            } catch (RejectedExecutionException e) {
+                subscriber.sendingSince = 0;
+                return;
+            }
+        }
+    }
+
+    /**
+     * 在发送线程中写出一次变化或心跳，失败的订阅者移除
+     */
+    private void send(Subscriber subscriber, StatisticsDeltaVO delta) {
+        try {
+            if (delta != null) {
+                subscriber.emitter.send(SseEmitter.event().name(EVENT_NAME).data(delta, MediaType.APPLICATION_JSON));
+                events.increment();
+            } else {
+                subscriber.emitter.send(SseEmitter.event().comment("heartbeat"));
+            }
+            subscriber.lastSent = System.currentTimeMillis();
+        } catch (IOException | RuntimeException e) {
+            log.debug("统计推送订阅断开: {}", e.getMessage());
+            remove(subscriber);
+            subscriber.emitter.completeWithError(e);
+        } finally {
+            subscriber.sendingSince = 0;
+            // 发送期间因超时被断开：阻塞的写返回后再结束连接
+            if (subscriber.closed.get()) {
+                subscriber.emitter.complete();
+            }
+        }
+    }
+
+    /**
+     * 断开发送超时的订阅：立即释放名额；结束连接会等待阻塞的写，交给正在发送的线程完成
+     */
+    private void drop(Subscriber subscriber) {
+        remove(subscriber);
+        if (subscriber.sendingSince == 0) {
+            // 发送已在断开前返回，未看到断开标记
+            sender.execute(subscriber.emitter::complete);
+        }
+    }
+
+    /**
+     * 移除订阅者并释放名额，重复调用只释放一次
+     */
+    private void remove(Subscriber subscriber) {
+        if (subscriber.closed.compareAndSet(false, true)) {
+            subscribers.remove(subscriber);
+            slots.decrementAndGet();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pusher.shutdownNow();
+        sender.shutdownNow();
+        for (Subscriber subscriber : subscribers) {
+            remove(subscriber);
+            subscriber.emitter.complete();
+        }
+    }
+
+    private static ThreadFactory daemon(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static StatisticsVO overviewScores(ScoreAggregate aggregate) {
+        ScoreStats stats = aggregate.stats();
+        StatisticsVO vo = new StatisticsVO();
+        vo.setScoreCount(aggregate.getRowCount());
+        vo.setAverageScore(stats.averageScore());
+        vo.setMaxScore(stats.maxScore());
+        vo.setMinScore(stats.minScore());
+        vo.setPassRate(stats.passRate());
+        vo.setExcellentRate(stats.excellentRate());
+        return vo;
+    }
+
+    private static ClassScoreDeltaVO classDelta(Long teachingClassDbId, ScoreStats stats) {
+        ClassScoreDeltaVO vo = new ClassScoreDeltaVO();
+        vo.setTeachingClassDbId(teachingClassDbId);
+        vo.setScoreCount(stats.getCount());
+        vo.setAverageScore(stats.averageScore());
+        vo.setPassRate(stats.passRate());
+        vo.setExcellentRate(stats.excellentRate());
+        vo.setDistribution(stats.distribution());
+        return vo;
+    }
+
+    /**
+     * 订阅者及其待发送缓冲
+     */
+    private static final class Subscriber {
+
+        private final SseEmitter emitter;
+
+        private StatisticsVO overview;
+
+        private final LinkedHashMap<Long, ClassScoreDeltaVO> classes = new LinkedHashMap<>();
+
+        private boolean reset;
+
+        private volatile long lastSent = System.currentTimeMillis();
+
+        /**
+         * 进行中的发送开始时间，没有发送时为0
+         */
+        private volatile long sendingSince;
+
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        /**
+         * 合并一次变化，返回本次是否溢出
+         */
+        private synchronized boolean offer(StatisticsVO overview, List<ClassScoreDeltaVO> changes, boolean reset,
+                                           int bufferSize) {
+            this.overview = overview;
+            if (this.reset) {
+                return false;
+            }
+            if (reset) {
+                this.reset = true;
+                classes.clear();
+                return false;
+            }
+            for (ClassScoreDeltaVO change : changes) {
+                classes.put(change.getTeachingClassDbId(), change);
+            }
+            if (classes.size() > bufferSize) {
+                this.reset = true;
+                classes.clear();
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * 取出并清空缓冲，没有变化时为 null
+         */
+        private synchronized StatisticsDeltaVO drain() {
+            if (overview == null && !reset && classes.isEmpty()) {
+                return null;
+            }
+            StatisticsDeltaVO delta = new StatisticsDeltaVO();
+            delta.setReset(reset);
+            delta.setOverview(overview);
+            delta.setClasses(new ArrayList<>(classes.values()));
+            overview = null;
+            reset = false;
+            classes.clear();
+            return delta;
+        }
+    }
+}
@@ -15,6 +15,7 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * 学生控制器
@@ -34,6 +35,12 @@ public class StudentController {
         return Result.success(PageResult.of(page.getRecords(), page.getTotal(), page.getCurrent(), page.getSize()));
     }
     
+    @Operation(summary = "游标分页查询学生")
+    @GetMapping("/cursor")
+    public Result<PageResult<Student>> cursorPage(StudentQuery query) {
+        return Result.success(studentService.cursorPage(query));
+    }
+    
     @Operation(summary = "获取所有学生")
     @GetMapping("/list")
     public Result<List<Student>> list() {
@@ -74,7 +81,7 @@ public class StudentController {
     
     @Operation(summary = "批量删除学生")
     @DeleteMapping("/batch")
-    public Result<Boolean> deleteBatch(@RequestBody List<String> ids) {
+    public Result<Map<String, Integer>> deleteBatch(@RequestBody List<String> ids) {
         return Result.success(studentService.deleteBatch(ids));
     }
     
@@ -2,11 +2,28 @@ package com.example.student.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.example.common.entity.Score;
+import org.apache.ibatis.annotations.Delete;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.Collection;
 
 /**
  * 成绩Mapper（用于级联删除）
  */
 @Mapper
 public interface ScoreMapper extends BaseMapper<Score> {
+    
+    /**
+     * 使学生成绩汇总失效，由成绩服务在下次查询时重建
+     */
+    @Delete("DELETE FROM student_transcript_summary WHERE student_db_id = #{studentDbId}")
+    int deleteTranscriptSummary(@Param("studentDbId") Long studentDbId);
+    
+    /**
+     * 批量使学生成绩汇总失效
+     */
+    @Delete("<script>DELETE FROM student_transcript_summary WHERE student_db_id IN " +
+            "<foreach collection='studentDbIds' item='id' open='(' separator=',' close=')'>#{id}</foreach></script>")
+    int deleteTranscriptSummaryByStudentIds(@Param("studentDbIds") Collection<Long> studentDbIds);
 }
@@ -3,10 +3,22 @@ package com.example.student.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.example.common.entity.User;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Update;
+
+import java.util.Collection;
 
 /**
  * 用户Mapper（用于级联删除）
  */
 @Mapper
 public interface UserMapper extends BaseMapper<User> {
+    
+    /**
+     * 软删除一组学生的用户账号（用户名为学号），需在删除学生之前执行
+     */
+    @Update("<script>UPDATE sys_user SET deleted = 1 WHERE deleted = 0 AND username IN " +
+            "(SELECT student_id FROM student WHERE deleted = 0 AND id IN " +
+            "<foreach collection='studentDbIds' item='id' open='(' separator=',' close=')'>#{id}</foreach>)</script>")
+    int deleteByStudentIds(@Param("studentDbIds") Collection<Long> studentDbIds);
 }
@@ -4,9 +4,11 @@ import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.example.common.dto.StudentDTO;
 import com.example.common.entity.Student;
 import com.example.common.query.StudentQuery;
+import com.example.common.result.PageResult;
 import com.example.common.vo.StudentScoreDetailVO;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * 学生服务接口
@@ -18,6 +20,11 @@ public interface StudentService {
      */
     IPage<Student> page(StudentQuery query);
     
+    /**
+     * 游标分页查询学生
+     */
+    PageResult<Student> cursorPage(StudentQuery query);
+    
     /**
      * 获取所有学生
      */
@@ -49,9 +56,11 @@ public interface StudentService {
     boolean delete(String id);
     
     /**
-     * 批量删除学生
+     * 批量删除学生（级联删除选课、成绩和用户账号）
+     *
+     * @return 各表受影响行数
      */
-    boolean deleteBatch(List<String> ids);
+    Map<String, Integer> deleteBatch(List<String> ids);
     
     /**
      * 检查学号是否存在
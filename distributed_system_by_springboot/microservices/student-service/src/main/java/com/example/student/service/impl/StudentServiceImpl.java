@@ -10,6 +10,8 @@ import com.example.common.entity.Student;
 import com.example.common.entity.User;
 import com.example.common.exception.BusinessException;
 import com.example.common.query.StudentQuery;
+import com.example.common.result.PageResult;
+import com.example.common.util.PageCursor;
 import com.example.common.util.PasswordUtil;
 import com.example.common.vo.StudentScoreDetailVO;
 import com.example.student.feign.ScoreFeignClient;
@@ -25,7 +27,9 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 /**
@@ -36,6 +40,11 @@ import java.util.UUID;
 @RequiredArgsConstructor
 public class StudentServiceImpl implements StudentService {
     
+    /**
+     * 批量删除时单条语句最大ID个数
+     */
+    private static final int DELETE_BATCH_SIZE = 500;
+    
     private final StudentMapper studentMapper;
     private final EnrollmentMapper enrollmentMapper;
     private final ScoreMapper scoreMapper;
@@ -45,6 +54,32 @@ public class StudentServiceImpl implements StudentService {
     @Override
     public IPage<Student> page(StudentQuery query) {
         Page<Student> page = new Page<>(query.getPageNum(), query.getPageSize());
+        LambdaQueryWrapper<Student> wrapper = buildQueryWrapper(query);
+        wrapper.orderByDesc(Student::getCreateTime);
+        
+        return studentMapper.selectPage(page, wrapper);
+    }
+    
+    @Override
+    public PageResult<Student> cursorPage(StudentQuery query) {
+        long size = PageCursor.pageSize(query.getPageSize());
+        LambdaQueryWrapper<Student> wrapper = buildQueryWrapper(query);
+        PageCursor.seek(wrapper, query.getAfter(), Student::getCreateTime, Student::getId);
+        
+        // 多取一条用于判断是否还有下一页，不执行 COUNT
+        List<Student> records = studentMapper.selectPage(new Page<>(1, size + 1, false), wrapper).getRecords();
+        String nextCursor = null;
+        if (records.size() > size) {
+            records = records.subList(0, (int) size);
+            Student last = records.get(records.size() - 1);
+            nextCursor = PageCursor.encode(last.getCreateTime(), last.getId());
+        }
+        
+        Long total = Boolean.TRUE.equals(query.getWithTotal()) ? studentMapper.selectCount(buildQueryWrapper(query)) : null;
+        return PageResult.ofCursor(records, nextCursor, total, size);
+    }
+    
+    private LambdaQueryWrapper<Student> buildQueryWrapper(StudentQuery query) {
         LambdaQueryWrapper<Student> wrapper = new LambdaQueryWrapper<>();
         
         if (StringUtils.hasText(query.getStudentId())) {
@@ -66,9 +101,7 @@ public class StudentServiceImpl implements StudentService {
             wrapper.eq(Student::getGender, query.getGender());
         }
         
-        wrapper.orderByDesc(Student::getCreateTime);
-        
-        return studentMapper.selectPage(page, wrapper);
+        return wrapper;
     }
     
     @Override
@@ -147,6 +180,7 @@ public class StudentServiceImpl implements StudentService {
         LambdaQueryWrapper<Score> scoreWrapper = new LambdaQueryWrapper<>();
         scoreWrapper.eq(Score::getStudentDbId, student.getId());
         scoreMapper.delete(scoreWrapper);
+        scoreMapper.deleteTranscriptSummary(student.getId());
         
         // 删除用户账号
         deleteUserAccount(student.getStudentId());
@@ -156,11 +190,30 @@ public class StudentServiceImpl implements StudentService {
     
     @Override
     @Transactional(rollbackFor = Exception.class)
-    public boolean deleteBatch(List<String> ids) {
-        for (String id : ids) {
-            delete(id);
+    public Map<String, Integer> deleteBatch(List<String> ids) {
+        List<Long> studentDbIds = ids.stream().filter(StringUtils::hasText).map(Long::valueOf).distinct().toList();
+        int users = 0;
+        int enrollments = 0;
+        int scores = 0;
+        int students = 0;
+        for (int i = 0; i < studentDbIds.size(); i += DELETE_BATCH_SIZE) {
+            List<Long> chunk = studentDbIds.subList(i, Math.min(i + DELETE_BATCH_SIZE, studentDbIds.size()));
+            
+            // 用户账号按学号关联，须在删除学生之前执行
+            users += userMapper.deleteByStudentIds(chunk);
+            enrollments += enrollmentMapper.delete(new LambdaQueryWrapper<Enrollment>().in(Enrollment::getStudentDbId, chunk));
+            scores += scoreMapper.delete(new LambdaQueryWrapper<Score>().in(Score::getStudentDbId, chunk));
+            scoreMapper.deleteTranscriptSummaryByStudentIds(chunk);
+            students += studentMapper.deleteBatchIds(chunk);
         }
-        return true;
+        
+        Map<String, Integer> affected = new LinkedHashMap<>();
+        affected.put("student", students);
+        affected.put("enrollment", enrollments);
+        affected.put("score", scores);
+        affected.put("sys_user", users);
+        log.info("批量删除学生: 提交{}条, 影响 {}", ids.size(), affected);
+        return affected;
     }
     
     @Override
@@ -55,6 +55,20 @@ public class StatisticsController {
         return Result.success(statisticsService.getScoreTrend(studentId));
     }
 
+    @Operation(summary = "获取行政班成绩趋势")
+    @GetMapping("/class-trend")
+    public Result<Map<String, Object>> getClassScoreTrend(
+            @Parameter(description = "班级名称") @RequestParam String className) {
+        return Result.success(statisticsService.getClassScoreTrend(className));
+    }
+
+    @Operation(summary = "获取课程成绩趋势")
+    @GetMapping("/course-trend")
+    public Result<Map<String, Object>> getCourseScoreTrend(
+            @Parameter(description = "课程编号") @RequestParam String courseId) {
+        return Result.success(statisticsService.getCourseScoreTrend(courseId));
+    }
+
     @Operation(summary = "获取班级成绩对比")
     @GetMapping("/class-comparison")
     public Result<Map<String, Object>> getClassComparison(
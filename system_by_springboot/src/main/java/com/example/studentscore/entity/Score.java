@@ -1,6 +1,7 @@
 package com.example.studentscore.entity;
 
 import com.baomidou.mybatisplus.annotation.*;
+import com.example.studentscore.util.GradeCalculator;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.Data;
 
@@ -123,14 +124,15 @@ public class Score implements Serializable {
      * 综合成绩 = 平时成绩*0.2 + 期中成绩*0.2 + 实验成绩*0.2 + 期末成绩*0.4
      */
     public void calculateFinalScore() {
-        if (regularScore != null && midtermScore != null &&
-            experimentScore != null && finalExamScore != null) {
-            BigDecimal regular = regularScore.multiply(BigDecimal.valueOf(0.2));
-            BigDecimal midterm = midtermScore.multiply(BigDecimal.valueOf(0.2));
-            BigDecimal experiment = experimentScore.multiply(BigDecimal.valueOf(0.2));
-            BigDecimal finalExam = finalExamScore.multiply(BigDecimal.valueOf(0.4));
-            this.finalScore = regular.add(midterm).add(experiment).add(finalExam)
-                    .setScale(2, java.math.RoundingMode.HALF_UP);
+        long[] components = {
+                GradeCalculator.toHundredths(regularScore),
+                GradeCalculator.toHundredths(midtermScore),
+                GradeCalculator.toHundredths(experimentScore),
+                GradeCalculator.toHundredths(finalExamScore)
+        };
+        long packed = GradeCalculator.COMPLETE_ONLY.compute(components, 0);
+        if (packed != GradeCalculator.NO_RESULT) {
+            this.finalScore = GradeCalculator.fromHundredths(GradeCalculator.finalScoreOf(packed));
         }
     }
 }
@@ -0,0 +1,24 @@
+package com.example.studentscore.event;
+
+import com.example.studentscore.entity.Score;
+
+/**
+ * 成绩变更事件
+ * before 为变更前的成绩（新增时为 null），after 为变更后的成绩（删除时为 null）；
+ * 两者都为 null 表示批量变更、范围未知。
+ *
+ * @author system
+ */
+public record ScoreChangedEvent(Score before, Score after) {
+
+    /**
+     * 范围未知的批量变更
+     */
+    public static ScoreChangedEvent bulk() {
+        return new ScoreChangedEvent(null, null);
+    }
+
+    public boolean isBulk() {
+        return before == null && after == null;
+    }
+}
@@ -5,6 +5,7 @@ import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.example.studentscore.entity.Score;
 import com.example.studentscore.query.ScoreQuery;
+import com.example.studentscore.util.SemesterTrendPoint;
 import com.example.studentscore.vo.CourseStatisticsVO;
 import com.example.studentscore.vo.ScoreVO;
 import org.apache.ibatis.annotations.Mapper;
@@ -39,4 +40,11 @@ public interface ScoreMapper extends BaseMapper<Score> {
      * 查询课程统计
      */
     List<CourseStatisticsVO> selectCourseStatistics(@Param("semester") String semester);
+
+    /**
+     * 按学期分组汇总成绩趋势，可按学生、行政班或课程过滤
+     */
+    List<SemesterTrendPoint> selectSemesterTrend(@Param("studentDbId") Long studentDbId,
+                                                 @Param("className") String className,
+                                                 @Param("courseDbId") Long courseDbId);
 }
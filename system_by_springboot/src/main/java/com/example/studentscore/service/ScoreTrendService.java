@@ -0,0 +1,28 @@
+package com.example.studentscore.service;
+
+import com.example.studentscore.vo.ScoreTrendVO;
+
+import java.util.List;
+
+/**
+ * 学期成绩趋势服务接口
+ *
+ * @author system
+ */
+public interface ScoreTrendService {
+
+    /**
+     * 学生各学期平均分与绩点
+     */
+    List<ScoreTrendVO> getStudentTrend(Long studentDbId);
+
+    /**
+     * 行政班各学期平均分与绩点
+     */
+    List<ScoreTrendVO> getClassTrend(String className);
+
+    /**
+     * 课程各学期平均分与绩点
+     */
+    List<ScoreTrendVO> getCourseTrend(Long courseDbId);
+}
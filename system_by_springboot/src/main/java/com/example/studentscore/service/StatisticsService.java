@@ -27,10 +27,20 @@ public interface StatisticsService {
     Map<String, Object> getCourseAverageScores(String semester);
 
     /**
-     * 获取成绩趋势统计
+     * 获取学生各学期成绩趋势
      */
     Map<String, Object> getScoreTrend(String studentId);
 
+    /**
+     * 获取行政班各学期成绩趋势
+     */
+    Map<String, Object> getClassScoreTrend(String className);
+
+    /**
+     * 获取课程各学期成绩趋势
+     */
+    Map<String, Object> getCourseScoreTrend(String courseId);
+
     /**
      * 获取班级成绩对比
      */
@@ -10,6 +10,7 @@ import com.example.studentscore.entity.Score;
 import com.example.studentscore.entity.Student;
 import com.example.studentscore.entity.Teacher;
 import com.example.studentscore.entity.TeachingClass;
+import com.example.studentscore.event.ScoreChangedEvent;
 import com.example.studentscore.excel.CourseExcel;
 import com.example.studentscore.excel.ExcelDataListener;
 import com.example.studentscore.excel.ScoreExcel;
@@ -24,6 +25,7 @@ import com.example.studentscore.mapper.TeachingClassMapper;
 import com.example.studentscore.service.ExcelService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
@@ -51,6 +53,7 @@ public class ExcelServiceImpl implements ExcelService {
     private final CourseMapper courseMapper;
     private final TeachingClassMapper teachingClassMapper;
     private final ScoreMapper scoreMapper;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public void exportStudents(HttpServletResponse response, String className, String grade) {
@@ -273,6 +276,10 @@ public class ExcelServiceImpl implements ExcelService {
             });
 
             EasyExcel.read(file.getInputStream(), ScoreExcel.class, listener).sheet().doRead();
+            if (count.get() > 0) {
+                // 导入只发布一次范围未知的变更，避免逐条解析差量
+                eventPublisher.publishEvent(ScoreChangedEvent.bulk());
+            }
             return count.get();
         } catch (IOException e) {
             log.error("导入成绩数据失败", e);
@@ -8,15 +8,19 @@ import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.example.studentscore.common.ResultCode;
 import com.example.studentscore.dto.ScoreDTO;
 import com.example.studentscore.entity.Score;
+import com.example.studentscore.event.ScoreChangedEvent;
 import com.example.studentscore.exception.BusinessException;
 import com.example.studentscore.mapper.ScoreMapper;
 import com.example.studentscore.query.ScoreQuery;
 import com.example.studentscore.service.ScoreService;
 import com.example.studentscore.vo.CourseStatisticsVO;
 import com.example.studentscore.vo.ScoreVO;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.Serializable;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -27,8 +31,11 @@ import java.util.stream.Collectors;
  * @author system
  */
 @Service
+@RequiredArgsConstructor
 public class ScoreServiceImpl extends ServiceImpl<ScoreMapper, Score> implements ScoreService {
 
+    private final ApplicationEventPublisher eventPublisher;
+
     @Override
     public IPage<ScoreVO> pageScores(ScoreQuery query) {
         Page<ScoreVO> page = new Page<>(query.getPageNum(), query.getPageSize());
@@ -66,6 +73,7 @@ public class ScoreServiceImpl extends ServiceImpl<ScoreMapper, Score> implements
         // 检查是否已存在该学生在该教学班的成绩（包括已删除的）
         Score existing = getByStudentAndClassIncludeDeleted(dto.getStudentDbId(), dto.getTeachingClassDbId());
         if (existing != null) {
+            Score before = BeanUtil.copyProperties(existing, Score.class);
             // 如果存在（无论是否已删除），则更新该记录
             if (existing.getDeleted() != null && existing.getDeleted() == 1) {
                 // 恢复已删除的记录
@@ -75,6 +83,7 @@ public class ScoreServiceImpl extends ServiceImpl<ScoreMapper, Score> implements
             updateScoreFieldsDirectly(existing, dto);
             existing.calculateFinalScore();
             baseMapper.updateById(existing);
+            eventPublisher.publishEvent(new ScoreChangedEvent(before, existing));
             return existing.getId();
         }
         
@@ -84,6 +93,7 @@ public class ScoreServiceImpl extends ServiceImpl<ScoreMapper, Score> implements
         setScoreTimestamps(score, dto);
         score.calculateFinalScore();
         save(score);
+        eventPublisher.publishEvent(new ScoreChangedEvent(null, score));
         return score.getId();
     }
 
@@ -111,9 +121,25 @@ public class ScoreServiceImpl extends ServiceImpl<ScoreMapper, Score> implements
         }
         
         // 更新各项成绩
+        Score before = BeanUtil.copyProperties(existing, Score.class);
         updateScoreFieldsDirectly(existing, dto);
         existing.calculateFinalScore();
-        return updateById(existing);
+        boolean updated = updateById(existing);
+        if (updated) {
+            eventPublisher.publishEvent(new ScoreChangedEvent(before, existing));
+        }
+        return updated;
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public boolean removeById(Serializable id) {
+        Score existing = getById(id);
+        boolean removed = super.removeById(id);
+        if (removed && existing != null) {
+            eventPublisher.publishEvent(new ScoreChangedEvent(existing, null));
+        }
+        return removed;
     }
 
     private void setScoreTimestamps(Score score, ScoreDTO dto) {
@@ -176,6 +202,10 @@ public class ScoreServiceImpl extends ServiceImpl<ScoreMapper, Score> implements
                 save(score);
             }
         }
+        if (!dtoList.isEmpty()) {
+            // 批量写入只发布一次范围未知的变更，避免逐条解析差量
+            eventPublisher.publishEvent(ScoreChangedEvent.bulk());
+        }
         return true;
     }
 
@@ -0,0 +1,245 @@
+package com.example.studentscore.service.impl;
+
+import com.example.studentscore.entity.Course;
+import com.example.studentscore.entity.Score;
+import com.example.studentscore.entity.Student;
+import com.example.studentscore.entity.TeachingClass;
+import com.example.studentscore.event.ScoreChangedEvent;
+import com.example.studentscore.mapper.CourseMapper;
+import com.example.studentscore.mapper.ScoreMapper;
+import com.example.studentscore.mapper.StudentMapper;
+import com.example.studentscore.mapper.TeachingClassMapper;
+import com.example.studentscore.service.ScoreTrendService;
+import com.example.studentscore.util.GradeCalculator;
+import com.example.studentscore.util.SemesterTrendPoint;
+import com.example.studentscore.vo.ScoreTrendVO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * 学期成绩趋势服务实现类
+ * 首次访问时用一次按学期分组的查询得到学生、行政班或课程的各学期合计并缓存，之后读取只复制各学期的点；
+ * 成绩变更在事务提交后按差量更新已缓存的点，不重新查询历史成绩。
+ * 事务进行中或计算期间发生过变更时，新查询的结果只返回不缓存，避免与差量重复计入。
+ * 教学班学期、课程学分、学生所在班级的修改不产生成绩事件，由缓存过期时间兜底。
+ *
+ * @author system
+ */
+@Slf4j
+@Service
+public class ScoreTrendServiceImpl implements ScoreTrendService {
+
+    private final ScoreMapper scoreMapper;
+    private final StudentMapper studentMapper;
+    private final TeachingClassMapper teachingClassMapper;
+    private final CourseMapper courseMapper;
+
+    private final int maxEntries;
+    private final long ttlMillis;
+
+    private final LinkedHashMap<String, Entry> entries;
+
+    /**
+     * 每次应用变更加一
+     */
+    private long generation;
+
+    /**
+     * 已发布但尚未完成的成绩变更数
+     */
+    private int inFlight;
+
+    public ScoreTrendServiceImpl(ScoreMapper scoreMapper, StudentMapper studentMapper,
+                                 TeachingClassMapper teachingClassMapper, CourseMapper courseMapper,
+                                 @Value("${statistics.trend.max-entries:2048}") int maxEntries,
+                                 @Value("${statistics.trend.ttl-seconds:600}") long ttlSeconds) {
+        this.scoreMapper = scoreMapper;
+        this.studentMapper = studentMapper;
+        this.teachingClassMapper = teachingClassMapper;
+        this.courseMapper = courseMapper;
+        this.maxEntries = Math.max(1, maxEntries);
+        this.ttlMillis = ttlSeconds * 1000L;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > ScoreTrendServiceImpl.this.maxEntries;
+            }
+        };
+    }
+
+    @Override
+    public List<ScoreTrendVO> getStudentTrend(Long studentDbId) {
+        return get(studentKey(studentDbId), () -> scoreMapper.selectSemesterTrend(studentDbId, null, null));
+    }
+
+    @Override
+    public List<ScoreTrendVO> getClassTrend(String className) {
+        return get(classKey(className), () -> scoreMapper.selectSemesterTrend(null, className, null));
+    }
+
+    @Override
+    public List<ScoreTrendVO> getCourseTrend(Long courseDbId) {
+        return get(courseKey(courseDbId), () -> scoreMapper.selectSemesterTrend(null, null, courseDbId));
+    }
+
+    /**
+     * 成绩变更在发布时登记，事务提交后应用差量，回滚时丢弃
+     */
+    @EventListener
+    public void onScoreChanged(ScoreChangedEvent event) {
+        synchronized (this) {
+            inFlight++;
+            generation++;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            complete(event, true);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                complete(event, status == STATUS_COMMITTED);
+            }
+        });
+    }
+
+    private void complete(ScoreChangedEvent event, boolean committed) {
+        List<Delta> deltas = List.of();
+        boolean clear = event.isBulk();
+        if (committed && !clear) {
+            try {
+                deltas = new ArrayList<>(2);
+                addDelta(deltas, event.before(), -1);
+                addDelta(deltas, event.after(), 1);
+            } catch (RuntimeException e) {
+                log.warn("解析成绩变更失败，清空成绩趋势缓存: {}", e.getMessage());
+                clear = true;
+            }
+        }
+        synchronized (this) {
+            inFlight--;
+            generation++;
+            if (!committed) {
+                return;
+            }
+            if (clear) {
+                entries.clear();
+                return;
+            }
+            for (Delta delta : deltas) {
+                for (String key : delta.keys()) {
+                    Entry entry = entries.get(key);
+                    if (entry != null) {
+                        entry.points().computeIfAbsent(delta.semester(), semester -> {
+                            SemesterTrendPoint point = new SemesterTrendPoint();
+                            point.setSemester(semester);
+                            return point;
+                        }).apply(delta.sign(), delta.finalScore(), delta.gradePoint(), delta.credit());
+                        if (entry.points().get(delta.semester()).isEmpty()) {
+                            entry.points().remove(delta.semester());
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 计入趋势的成绩：未删除且有综合成绩，所在教学班未删除
+     */
+    private void addDelta(List<Delta> deltas, Score score, int sign) {
+        if (score == null || score.getFinalScore() == null || (score.getDeleted() != null && score.getDeleted() == 1)) {
+            return;
+        }
+        synchronized (this) {
+            if (entries.isEmpty()) {
+                return;
+            }
+        }
+        TeachingClass teachingClass = teachingClassMapper.selectById(score.getTeachingClassDbId());
+        if (teachingClass == null || teachingClass.getSemester() == null) {
+            return;
+        }
+        Course course = teachingClass.getCourseDbId() == null ? null : courseMapper.selectById(teachingClass.getCourseDbId());
+        Student student = studentMapper.selectById(score.getStudentDbId());
+
+        List<String> keys = new ArrayList<>(3);
+        keys.add(studentKey(score.getStudentDbId()));
+        if (student != null && student.getClassName() != null) {
+            keys.add(classKey(student.getClassName()));
+        }
+        if (teachingClass.getCourseDbId() != null) {
+            keys.add(courseKey(teachingClass.getCourseDbId()));
+        }
+
+        long finalScore = GradeCalculator.toHundredths(score.getFinalScore());
+        long gradePoint = score.getGradePoint() != null
+                ? GradeCalculator.toHundredths(score.getGradePoint())
+                : GradeCalculator.COMPLETE_ONLY.gradePointOfScore(finalScore);
+        long credit = course == null || course.getCredits() == null ? 0 : GradeCalculator.toHundredths(course.getCredits());
+        deltas.add(new Delta(keys, teachingClass.getSemester(), sign, finalScore, gradePoint, credit));
+    }
+
+    private List<ScoreTrendVO> get(String key, Supplier<List<SemesterTrendPoint>> loader) {
+        long loadGeneration;
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.expiresAt() > System.currentTimeMillis()) {
+                return toVOList(entry.points());
+            }
+            if (entry != null) {
+                entries.remove(key);
+            }
+            loadGeneration = generation;
+        }
+
+        TreeMap<String, SemesterTrendPoint> points = new TreeMap<>();
+        for (SemesterTrendPoint point : loader.get()) {
+            points.put(point.getSemester(), point);
+        }
+        synchronized (this) {
+            if (generation == loadGeneration && inFlight == 0) {
+                entries.put(key, new Entry(points, System.currentTimeMillis() + ttlMillis));
+            }
+            return toVOList(points);
+        }
+    }
+
+    private static List<ScoreTrendVO> toVOList(TreeMap<String, SemesterTrendPoint> points) {
+        List<ScoreTrendVO> result = new ArrayList<>(points.size());
+        for (SemesterTrendPoint point : points.values()) {
+            ScoreTrendVO vo = new ScoreTrendVO();
+            vo.setSemester(point.getSemester());
+            vo.setScoreCount(point.getScoreCount());
+            vo.setAverageScore(point.averageScore());
+            vo.setGpa(point.gpa());
+            result.add(vo);
+        }
+        return result;
+    }
+
+    private static String studentKey(Long studentDbId) {
+        return "student:" + studentDbId;
+    }
+
+    private static String classKey(String className) {
+        return "class:" + className;
+    }
+
+    private static String courseKey(Long courseDbId) {
+        return "course:" + courseDbId;
+    }
+
+    private record Entry(TreeMap<String, SemesterTrendPoint> points, long expiresAt) {
+    }
+
+    private record Delta(List<String> keys, String semester, int sign, long finalScore, long gradePoint, long credit) {
+    }
+}
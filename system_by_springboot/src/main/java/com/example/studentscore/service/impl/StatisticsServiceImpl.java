@@ -1,15 +1,19 @@
 package com.example.studentscore.service.impl;
 
+import com.example.studentscore.common.ResultCode;
+import com.example.studentscore.entity.Course;
 import com.example.studentscore.entity.Score;
+import com.example.studentscore.entity.Student;
+import com.example.studentscore.exception.BusinessException;
 import com.example.studentscore.service.*;
+import com.example.studentscore.util.ScoreStats;
 import com.example.studentscore.vo.ClassStatisticsVO;
 import com.example.studentscore.vo.CourseStatisticsVO;
+import com.example.studentscore.vo.ScoreTrendVO;
 import com.example.studentscore.vo.StatisticsVO;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.util.*;
 
 /**
@@ -27,6 +31,7 @@ public class StatisticsServiceImpl implements StatisticsService {
     private final TeachingClassService teachingClassService;
     private final EnrollmentService enrollmentService;
     private final ScoreService scoreService;
+    private final ScoreTrendService scoreTrendService;
 
     @Override
     public StatisticsVO getOverviewStatistics() {
@@ -40,49 +45,14 @@ public class StatisticsServiceImpl implements StatisticsService {
         vo.setEnrollmentCount(enrollmentService.count());
         vo.setScoreCount(scoreService.count());
         
-        // 成绩统计
-        List<Score> allScores = scoreService.list();
-        if (!allScores.isEmpty()) {
-            List<Score> scoresWithFinal = allScores.stream()
-                    .filter(s -> s.getFinalScore() != null)
-                    .toList();
-            
-            if (!scoresWithFinal.isEmpty()) {
-                // 平均分
-                double avg = scoresWithFinal.stream()
-                        .mapToDouble(s -> s.getFinalScore().doubleValue())
-                        .average()
-                        .orElse(0);
-                vo.setAverageScore(BigDecimal.valueOf(avg).setScale(2, RoundingMode.HALF_UP));
-                
-                // 最高分
-                double max = scoresWithFinal.stream()
-                        .mapToDouble(s -> s.getFinalScore().doubleValue())
-                        .max()
-                        .orElse(0);
-                vo.setMaxScore(BigDecimal.valueOf(max).setScale(2, RoundingMode.HALF_UP));
-                
-                // 最低分
-                double min = scoresWithFinal.stream()
-                        .mapToDouble(s -> s.getFinalScore().doubleValue())
-                        .min()
-                        .orElse(0);
-                vo.setMinScore(BigDecimal.valueOf(min).setScale(2, RoundingMode.HALF_UP));
-                
-                // 及格率
-                long passCount = scoresWithFinal.stream()
-                        .filter(s -> s.getFinalScore().doubleValue() >= 60)
-                        .count();
-                double passRate = passCount * 100.0 / scoresWithFinal.size();
-                vo.setPassRate(BigDecimal.valueOf(passRate).setScale(2, RoundingMode.HALF_UP));
-                
-                // 优秀率
-                long excellentCount = scoresWithFinal.stream()
-                        .filter(s -> s.getFinalScore().doubleValue() >= 90)
-                        .count();
-                double excellentRate = excellentCount * 100.0 / scoresWithFinal.size();
-                vo.setExcellentRate(BigDecimal.valueOf(excellentRate).setScale(2, RoundingMode.HALF_UP));
-            }
+        // 成绩统计（单遍累计）
+        ScoreStats stats = ScoreStats.of(scoreService.list().stream().map(Score::getFinalScore).toList());
+        if (stats.getCount() > 0) {
+            vo.setAverageScore(stats.averageScore());
+            vo.setMaxScore(stats.maxScore());
+            vo.setMinScore(stats.minScore());
+            vo.setPassRate(stats.passRate());
+            vo.setExcellentRate(stats.excellentRate());
         }
         
         return vo;
@@ -91,18 +61,15 @@ public class StatisticsServiceImpl implements StatisticsService {
     @Override
     public Map<String, Object> getScoreDistribution(String semester, String courseId) {
         // 获取成绩列表并按分数段统计
-        List<Score> scores = scoreService.list();
-        List<Score> filtered = scores.stream()
-                .filter(s -> s.getFinalScore() != null)
-                .toList();
+        ScoreStats stats = ScoreStats.of(scoreService.list().stream().map(Score::getFinalScore).toList());
 
         // 分数段统计 - 使用前端期望的key格式
         Map<String, Object> distribution = new LinkedHashMap<>();
-        distribution.put("90-100", filtered.stream().filter(s -> s.getFinalScore().doubleValue() >= 90).count());
-        distribution.put("80-89", filtered.stream().filter(s -> s.getFinalScore().doubleValue() >= 80 && s.getFinalScore().doubleValue() < 90).count());
-        distribution.put("70-79", filtered.stream().filter(s -> s.getFinalScore().doubleValue() >= 70 && s.getFinalScore().doubleValue() < 80).count());
-        distribution.put("60-69", filtered.stream().filter(s -> s.getFinalScore().doubleValue() >= 60 && s.getFinalScore().doubleValue() < 70).count());
-        distribution.put("0-59", filtered.stream().filter(s -> s.getFinalScore().doubleValue() < 60).count());
+        distribution.put("90-100", stats.getBucket(4));
+        distribution.put("80-89", stats.getBucket(3));
+        distribution.put("70-79", stats.getBucket(2));
+        distribution.put("60-69", stats.getBucket(1));
+        distribution.put("0-59", stats.getBucket(0));
 
         return distribution;
     }
@@ -120,12 +87,36 @@ public class StatisticsServiceImpl implements StatisticsService {
 
     @Override
     public Map<String, Object> getScoreTrend(String studentId) {
+        Student student = studentService.getByStudentId(studentId);
+        if (student == null) {
+            throw new BusinessException(ResultCode.NOT_FOUND, "学生不存在");
+        }
+        return toTrendChart(scoreTrendService.getStudentTrend(student.getId()));
+    }
+
+    @Override
+    public Map<String, Object> getClassScoreTrend(String className) {
+        return toTrendChart(scoreTrendService.getClassTrend(className));
+    }
+
+    @Override
+    public Map<String, Object> getCourseScoreTrend(String courseId) {
+        Course course = courseService.getByCourseId(courseId);
+        if (course == null) {
+            throw new BusinessException(ResultCode.NOT_FOUND, "课程不存在");
+        }
+        return toTrendChart(scoreTrendService.getCourseTrend(course.getId()));
+    }
+
+    /**
+     * 趋势图数据：labels 为学期，values 为平均分，gpa 为平均绩点，points 为各学期明细
+     */
+    private Map<String, Object> toTrendChart(List<ScoreTrendVO> points) {
         Map<String, Object> result = new HashMap<>();
-        
-        // 此处简化实现，实际应该按学期统计学生成绩趋势
-        result.put("labels", List.of("2022-2023-1", "2022-2023-2", "2023-2024-1"));
-        result.put("values", List.of(78.5, 82.3, 85.1));
-        
+        result.put("labels", points.stream().map(ScoreTrendVO::getSemester).toList());
+        result.put("values", points.stream().map(ScoreTrendVO::getAverageScore).toList());
+        result.put("gpa", points.stream().map(ScoreTrendVO::getGpa).toList());
+        result.put("points", points);
         return result;
     }
 
@@ -143,54 +134,28 @@ public class StatisticsServiceImpl implements StatisticsService {
         Map<Long, String> studentClassMap = studentService.listByIds(studentIds).stream()
                 .collect(HashMap::new, (m, s) -> m.put(s.getId(), s.getClassName()), HashMap::putAll);
 
-        // 按班级分组统计
-        Map<String, List<Score>> scoresByClass = allScores.stream()
-                .filter(s -> s.getFinalScore() != null && studentClassMap.containsKey(s.getStudentDbId()))
-                .collect(java.util.stream.Collectors.groupingBy(
-                        s -> studentClassMap.get(s.getStudentDbId())
-                ));
+        // 按班级分组统计，每条成绩只累计一次
+        Map<String, ScoreStats> statsByClass = new HashMap<>();
+        for (Score score : allScores) {
+            String className = studentClassMap.get(score.getStudentDbId());
+            if (score.getFinalScore() != null && className != null) {
+                statsByClass.computeIfAbsent(className, k -> new ScoreStats()).accept(score.getFinalScore());
+            }
+        }
 
         // 计算每个班级的统计数据
         List<ClassStatisticsVO> classStats = new ArrayList<>();
-        for (Map.Entry<String, List<Score>> entry : scoresByClass.entrySet()) {
-            String className = entry.getKey();
-            List<Score> scores = entry.getValue();
-
-            if (scores.isEmpty()) continue;
+        for (Map.Entry<String, ScoreStats> entry : statsByClass.entrySet()) {
+            ScoreStats stats = entry.getValue();
 
             ClassStatisticsVO vo = new ClassStatisticsVO();
-            vo.setClassName(className);
-            vo.setStudentCount((long) scores.size());
-
-            // 平均分
-            double avg = scores.stream()
-                    .mapToDouble(s -> s.getFinalScore().doubleValue())
-                    .average()
-                    .orElse(0);
-            vo.setAvgScore(BigDecimal.valueOf(avg).setScale(2, RoundingMode.HALF_UP));
-
-            // 最高分
-            double max = scores.stream()
-                    .mapToDouble(s -> s.getFinalScore().doubleValue())
-                    .max()
-                    .orElse(0);
-            vo.setMaxScore(BigDecimal.valueOf(max).setScale(2, RoundingMode.HALF_UP));
-
-            // 最低分
-            double min = scores.stream()
-                    .mapToDouble(s -> s.getFinalScore().doubleValue())
-                    .min()
-                    .orElse(0);
-            vo.setMinScore(BigDecimal.valueOf(min).setScale(2, RoundingMode.HALF_UP));
-
-            // 及格人数和及格率
-            long passCount = scores.stream()
-                    .filter(s -> s.getFinalScore().doubleValue() >= 60)
-                    .count();
-            vo.setPassCount(passCount);
-
-            double passRate = passCount * 100.0 / scores.size();
-            vo.setPassRate(BigDecimal.valueOf(passRate).setScale(2, RoundingMode.HALF_UP));
+            vo.setClassName(entry.getKey());
+            vo.setStudentCount(stats.getCount());
+            vo.setAvgScore(stats.averageScore());
+            vo.setMaxScore(stats.maxScore());
+            vo.setMinScore(stats.minScore());
+            vo.setPassCount(stats.getPassCount());
+            vo.setPassRate(stats.passRate());
 
             classStats.add(vo);
         }
@@ -12,6 +12,7 @@ import com.example.studentscore.entity.Enrollment;
 import com.example.studentscore.entity.Score;
 import com.example.studentscore.entity.Student;
 import com.example.studentscore.entity.User;
+import com.example.studentscore.event.ScoreChangedEvent;
 import com.example.studentscore.exception.BusinessException;
 import com.example.studentscore.mapper.EnrollmentMapper;
 import com.example.studentscore.mapper.ScoreMapper;
@@ -24,6 +25,7 @@ import com.example.studentscore.vo.ScoreVO;
 import com.example.studentscore.vo.StudentScoreDetailVO;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -49,6 +51,7 @@ public class StudentServiceImpl extends ServiceImpl<StudentMapper, Student> impl
     private final EnrollmentMapper enrollmentMapper;
     private final ScoreMapper scoreMapper;
     private final UserMapper userMapper;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public IPage<Student> pageStudents(StudentQuery query) {
@@ -128,6 +131,7 @@ public class StudentServiceImpl extends ServiceImpl<StudentMapper, Student> impl
         // 删除学生的成绩记录
         scoreMapper.delete(new LambdaQueryWrapper<Score>()
                 .eq(Score::getStudentDbId, studentId));
+        eventPublisher.publishEvent(ScoreChangedEvent.bulk());
         // 删除关联的用户账号
         userMapper.delete(new LambdaQueryWrapper<User>()
                 .eq(User::getRefId, studentId)
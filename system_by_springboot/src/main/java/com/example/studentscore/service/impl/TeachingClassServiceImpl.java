@@ -11,6 +11,7 @@ import com.example.studentscore.entity.Enrollment;
 import com.example.studentscore.entity.Score;
 import com.example.studentscore.entity.Student;
 import com.example.studentscore.entity.TeachingClass;
+import com.example.studentscore.event.ScoreChangedEvent;
 import com.example.studentscore.exception.BusinessException;
 import com.example.studentscore.mapper.EnrollmentMapper;
 import com.example.studentscore.mapper.ScoreMapper;
@@ -20,6 +21,7 @@ import com.example.studentscore.query.TeachingClassQuery;
 import com.example.studentscore.service.TeachingClassService;
 import com.example.studentscore.vo.TeachingClassVO;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -41,6 +43,7 @@ public class TeachingClassServiceImpl extends ServiceImpl<TeachingClassMapper, T
     private final EnrollmentMapper enrollmentMapper;
     private final StudentMapper studentMapper;
     private final ScoreMapper scoreMapper;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public IPage<TeachingClassVO> pageTeachingClasses(TeachingClassQuery query) {
@@ -180,6 +183,7 @@ public class TeachingClassServiceImpl extends ServiceImpl<TeachingClassMapper, T
         // 删除该教学班的所有成绩记录
         scoreMapper.delete(new LambdaQueryWrapper<Score>()
                 .eq(Score::getTeachingClassDbId, teachingClassId));
+        eventPublisher.publishEvent(ScoreChangedEvent.bulk());
         // 删除该教学班的所有选课记录
         enrollmentMapper.delete(new LambdaQueryWrapper<Enrollment>()
                 .eq(Enrollment::getTeachingClassDbId, teachingClassId));
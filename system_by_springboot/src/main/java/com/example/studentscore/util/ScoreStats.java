@@ -0,0 +1,314 @@
+package com.example.studentscore.util;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 成绩统计累加器
+ * 以百分之一分的 long 值单遍累计记录数、合计、最值、均值与二阶中心矩（Welford）、及格/优秀人数和五段分布，
+ * 不为每条成绩创建对象。两个累加器可按 Chan 公式合并，教学班的部分结果可直接汇总为课程、教师或全局结果；
+ * 也支持移除单条成绩，移除当前最值后最值需要由调用方按明细校正。实例非线程安全。
+ * 单体版是独立的 Maven 工程，不依赖微服务的 common 模块，本类是 com.example.common.util.ScoreStats 的副本，
+ * 除包名外保持一致，修改时两处同步。
+ */
+public final class ScoreStats {
+
+    /**
+     * 及格线（百分之一分）
+     */
+    public static final long PASS_LINE = 6000;
+
+    /**
+     * 优秀线（百分之一分）
+     */
+    public static final long EXCELLENT_LINE = 9000;
+
+    /**
+     * 分数段: <60, 60-69, 70-79, 80-89, 90-100
+     */
+    public static final int BUCKETS = 5;
+
+    private long count;
+
+    private long sum;
+
+    private long min = Long.MAX_VALUE;
+
+    private long max = Long.MIN_VALUE;
+
+    private double mean;
+
+    /**
+     * 与均值之差的平方和（百分之一分的平方）
+     */
+    private double m2;
+
+    private long passCount;
+
+    private long excellentCount;
+
+    private final long[] histogram = new long[BUCKETS];
+
+    private boolean extremaStale;
+
+    /**
+     * 累计若干成绩，null 忽略
+     */
+    public static ScoreStats of(Iterable<BigDecimal> scores) {
+        ScoreStats stats = new ScoreStats();
+        for (BigDecimal score : scores) {
+            stats.accept(score);
+        }
+        return stats;
+    }
+
+    /**
+     * 由持久化的各项指标恢复
+     */
+    public static ScoreStats restore(long count, long sum, Long min, Long max, double m2,
+                                     long passCount, long excellentCount, long[] histogram) {
+        ScoreStats stats = new ScoreStats();
+        stats.count = count;
+        stats.sum = sum;
+        stats.min = count == 0 || min == null ? Long.MAX_VALUE : min;
+        stats.max = count == 0 || max == null ? Long.MIN_VALUE : max;
+        stats.mean = count == 0 ? 0 : (double) sum / count;
+        stats.m2 = count == 0 ? 0 : Math.max(0, m2);
+        stats.passCount = passCount;
+        stats.excellentCount = excellentCount;
+        System.arraycopy(histogram, 0, stats.histogram, 0, BUCKETS);
+        return stats;
+    }
+
+    /**
+     * 计入一条成绩，null 忽略
+     */
+    public void accept(BigDecimal score) {
+        if (score != null) {
+            add(GradeCalculator.toHundredths(score));
+        }
+    }
+
+    /**
+     * 计入一条成绩（百分之一分）
+     */
+    public void add(long value) {
+        count++;
+        sum += value;
+        double delta = value - mean;
+        mean += delta / count;
+        m2 += delta * (value - mean);
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+        if (value >= PASS_LINE) {
+            passCount++;
+        }
+        if (value >= EXCELLENT_LINE) {
+            excellentCount++;
+        }
+        histogram[bucketOf(value)]++;
+    }
+
+    /**
+     * 移除一条此前计入的成绩（百分之一分）
+     */
+    public void remove(long value) {
+        if (count <= 1) {
+            reset();
+            return;
+        }
+        count--;
+        sum -= value;
+        double previousMean = mean;
+        mean = previousMean - (value - previousMean) / count;
+        m2 = Math.max(0, m2 - (value - previousMean) * (value - mean));
+        if (value >= PASS_LINE) {
+            passCount--;
+        }
+        if (value >= EXCELLENT_LINE) {
+            excellentCount--;
+        }
+        histogram[bucketOf(value)]--;
+        if (value == min || value == max) {
+            extremaStale = true;
+        }
+    }
+
+    /**
+     * 合并另一个累加器
+     */
+    public void merge(ScoreStats other) {
+        if (other.count == 0) {
+            return;
+        }
+        long total = count + other.count;
+        double delta = other.mean - mean;
+        m2 += other.m2 + delta * delta * count * other.count / total;
+        mean += delta * other.count / total;
+        count = total;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        passCount += other.passCount;
+        excellentCount += other.excellentCount;
+        for (int i = 0; i < BUCKETS; i++) {
+            histogram[i] += other.histogram[i];
+        }
+        extremaStale |= other.extremaStale;
+    }
+
+    /**
+     * 以明细重新计算得到的最值校正，参数为 null 表示没有成绩
+     */
+    public void resetExtrema(Long min, Long max) {
+        this.min = min == null ? Long.MAX_VALUE : min;
+        this.max = max == null ? Long.MIN_VALUE : max;
+        this.extremaStale = false;
+    }
+
+    public ScoreStats copy() {
+        ScoreStats copy = new ScoreStats();
+        copy.merge(this);
+        return copy;
+    }
+
+    public boolean isExtremaStale() {
+        return extremaStale;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getSum() {
+        return sum;
+    }
+
+    /**
+     * 最低分（百分之一分），无成绩时为 Long.MAX_VALUE
+     */
+    public long getMin() {
+        return min;
+    }
+
+    /**
+     * 最高分（百分之一分），无成绩时为 Long.MIN_VALUE
+     */
+    public long getMax() {
+        return max;
+    }
+
+    public double getM2() {
+        return m2;
+    }
+
+    public long getPassCount() {
+        return passCount;
+    }
+
+    public long getExcellentCount() {
+        return excellentCount;
+    }
+
+    /**
+     * 第 bucket 段人数
+     */
+    public long getBucket(int bucket) {
+        return histogram[bucket];
+    }
+
+    /**
+     * 平均分，由整数合计精确计算后保留两位小数，无成绩时为 null
+     */
+    public BigDecimal averageScore() {
+        if (count == 0) {
+            return null;
+        }
+        return BigDecimal.valueOf(sum, 2).divide(BigDecimal.valueOf(count), 2, RoundingMode.HALF_UP);
+    }
+
+    public BigDecimal maxScore() {
+        return count == 0 ? null : GradeCalculator.fromHundredths(max);
+    }
+
+    public BigDecimal minScore() {
+        return count == 0 ? null : GradeCalculator.fromHundredths(min);
+    }
+
+    /**
+     * 总体方差（分的平方）
+     */
+    public double variance() {
+        return count == 0 ? 0 : m2 / count / 10000.0;
+    }
+
+    /**
+     * 总体标准差，保留两位小数，无成绩时为 null
+     */
+    public BigDecimal standardDeviation() {
+        if (count == 0) {
+            return null;
+        }
+        return BigDecimal.valueOf(variance()).sqrt(MathContext.DECIMAL64).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * 及格率（百分比），保留两位小数，无成绩时为 null
+     */
+    public BigDecimal passRate() {
+        return rate(passCount);
+    }
+
+    /**
+     * 优秀率（百分比），保留两位小数，无成绩时为 null
+     */
+    public BigDecimal excellentRate() {
+        return rate(excellentCount);
+    }
+
+    /**
+     * 五段分布人数
+     */
+    public List<Integer> distribution() {
+        List<Integer> result = new ArrayList<>(BUCKETS);
+        for (long bucket : histogram) {
+            result.add((int) bucket);
+        }
+        return result;
+    }
+
+    /**
+     * 分数所在段
+     */
+    public static int bucketOf(long value) {
+        if (value < 6000) return 0;
+        if (value < 7000) return 1;
+        if (value < 8000) return 2;
+        if (value < 9000) return 3;
+        return 4;
+    }
+
+    private BigDecimal rate(long part) {
+        if (count == 0) {
+            return null;
+        }
+        return BigDecimal.valueOf(part * 100.0 / count).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    private void reset() {
+        count = 0;
+        sum = 0;
+        min = Long.MAX_VALUE;
+        max = Long.MIN_VALUE;
+        mean = 0;
+        m2 = 0;
+        passCount = 0;
+        excellentCount = 0;
+        Arrays.fill(histogram, 0);
+        extremaStale = false;
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.studentscore.util;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * 学期成绩趋势点
+ * 以整数合计记录一个学期的成绩数、综合成绩合计、绩点合计、学分合计与学分加权绩点合计（均为百分之一单位），
+ * 新增或删除一条成绩时按差量增减，平均分与绩点由合计得出。实例非线程安全。
+ */
+@Data
+public class SemesterTrendPoint {
+
+    private String semester;
+
+    private long scoreCount;
+
+    /**
+     * 综合成绩合计（百分之一分）
+     */
+    private long scoreSum;
+
+    /**
+     * 绩点合计（百分之一）
+     */
+    private long gradePointSum;
+
+    /**
+     * 学分合计（百分之一学分）
+     */
+    private long creditSum;
+
+    /**
+     * 绩点 × 学分合计（百分之一 × 百分之一）
+     */
+    private long weightedGradePointSum;
+
+    /**
+     * 计入（sign = 1）或移除（sign = -1）一条成绩
+     *
+     * @param finalScore 综合成绩（百分之一分）
+     * @param gradePoint 绩点（百分之一）
+     * @param credit     学分（百分之一学分）
+     */
+    public void apply(int sign, long finalScore, long gradePoint, long credit) {
+        scoreCount += sign;
+        scoreSum += sign * finalScore;
+        gradePointSum += sign * gradePoint;
+        creditSum += sign * credit;
+        weightedGradePointSum += sign * gradePoint * credit;
+    }
+
+    public boolean isEmpty() {
+        return scoreCount <= 0;
+    }
+
+    /**
+     * 平均分，保留两位小数
+     */
+    public BigDecimal averageScore() {
+        if (isEmpty()) {
+            return null;
+        }
+        return BigDecimal.valueOf(scoreSum, 2).divide(BigDecimal.valueOf(scoreCount), 2, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * 学分加权平均绩点，学分均为空时为算术平均，保留两位小数
+     */
+    public BigDecimal gpa() {
+        if (isEmpty()) {
+            return null;
+        }
+        if (creditSum > 0) {
+            return BigDecimal.valueOf(weightedGradePointSum, 2)
+                    .divide(BigDecimal.valueOf(creditSum), 2, RoundingMode.HALF_UP);
+        }
+        return BigDecimal.valueOf(gradePointSum, 2).divide(BigDecimal.valueOf(scoreCount), 2, RoundingMode.HALF_UP);
+    }
+
+    public SemesterTrendPoint copy() {
+        SemesterTrendPoint copy = new SemesterTrendPoint();
+        copy.semester = semester;
+        copy.scoreCount = scoreCount;
+        copy.scoreSum = scoreSum;
+        copy.gradePointSum = gradePointSum;
+        copy.creditSum = creditSum;
+        copy.weightedGradePointSum = weightedGradePointSum;
+        return copy;
+    }
+}
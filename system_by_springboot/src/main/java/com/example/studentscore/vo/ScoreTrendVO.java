@@ -0,0 +1,31 @@
+package com.example.studentscore.vo;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+/**
+ * 学期成绩趋势视图对象
+ */
+@Data
+@Schema(description = "学期成绩趋势视图对象")
+public class ScoreTrendVO implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    @Schema(description = "学期")
+    private String semester;
+
+    @Schema(description = "成绩数")
+    private Long scoreCount;
+
+    @Schema(description = "平均分")
+    private BigDecimal averageScore;
+
+    @Schema(description = "平均绩点（学分加权）")
+    private BigDecimal gpa;
+}